@@ -102,6 +102,7 @@ public class PacketCaptureDashboardController extends DialogView implements Init
         captureTabPane.getSelectionModel().selectedItemProperty().addListener((o, oldVal, newVal) -> {
             boolean isMonitorTabSelected = newVal.getText().equalsIgnoreCase("Monitor");
             updateButtonBar(isMonitorTabSelected);
+            recordController.setActive(!isMonitorTabSelected);
         });
         updateButtonBar(true);
     }
@@ -112,6 +113,7 @@ public class PacketCaptureDashboardController extends DialogView implements Init
             if(monitorController.isRunning()) {
                 monitorController.stopCapture();
             }
+            recordController.setActive(false);
         });
         super.setupStage(stage);
 
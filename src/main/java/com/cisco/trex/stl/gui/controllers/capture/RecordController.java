@@ -4,16 +4,16 @@ import com.cisco.trex.stateless.model.capture.CaptureInfo;
 import com.cisco.trex.stateless.model.capture.CapturedPackets;
 import com.cisco.trex.stateless.model.capture.CapturedPkt;
 import com.cisco.trex.stl.gui.models.Recorder;
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
 import com.cisco.trex.stl.gui.services.capture.PktCaptureService;
 import com.cisco.trex.stl.gui.services.capture.PktCaptureServiceException;
+import com.cisco.trex.stl.gui.storages.StatsStorage;
 import com.exalttech.trex.ui.PortsManager;
 import com.exalttech.trex.ui.models.PortModel;
 import com.exalttech.trex.ui.util.AlertUtils;
 import com.exalttech.trex.util.Initialization;
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
-import javafx.concurrent.ScheduledService;
-import javafx.concurrent.Task;
-import javafx.concurrent.WorkerStateEvent;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
@@ -41,6 +41,8 @@ import static java.util.stream.Collectors.toList;
 public class RecordController extends BorderPane {
 
     private static Logger LOG = Logger.getLogger(RecordController.class);
+
+    private static final Duration POLLING_INTERVAL = Duration.seconds(1);
     
     @FXML
     private TableView<Recorder> activeRecorders;
@@ -75,7 +77,7 @@ public class RecordController extends BorderPane {
     
     private PktCaptureService pktCaptureService;
 
-    private RecorderService recorderService = new RecorderService();
+    private PollingCoordinator.Topic<List<CaptureInfo>> recordersTopic;
 
     FileChooser fileChooser = new FileChooser();
 
@@ -130,19 +132,47 @@ public class RecordController extends BorderPane {
             }
         });
 
-        recorderService.setOnSucceeded(this::handleOnRecorderReceived);
-        recorderService.setPeriod(new Duration(1000));
-
         fileChooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("Pcap Files", "*.pcap", "*.cap"));
     }
 
     public void setPktCaptureService(PktCaptureService svc) {
         pktCaptureService = svc;
-        recorderService.start();
     }
 
-    private void handleOnRecorderReceived(WorkerStateEvent workerStateEvent) {
-        List<CaptureInfo> monitors = recorderService.getValue();
+    /**
+     * Poll the recorders while they are shown
+     *
+     * @param isActive
+     */
+    public void setActive(boolean isActive) {
+        if (isActive == (recordersTopic != null)) {
+            return;
+        }
+        if (isActive) {
+            recordersTopic = StatsStorage.getInstance().getPollingCoordinator().addTopic(
+                    this::fetchRecorders,
+                    (monitors, timing) -> Platform.runLater(() -> handleOnRecorderReceived(monitors))
+            );
+            recordersTopic.subscribe(POLLING_INTERVAL);
+        } else {
+            recordersTopic.remove();
+            recordersTopic = null;
+        }
+    }
+
+    private List<CaptureInfo> fetchRecorders() {
+        try {
+            return pktCaptureService.getActiveCaptures();
+        } catch (PktCaptureServiceException e) {
+            LOG.error("Unable to fetch pkts from monitor.", e);
+            return null;
+        }
+    }
+
+    private void handleOnRecorderReceived(List<CaptureInfo> monitors) {
+        if (recordersTopic == null) {
+            return;
+        }
         ObservableList<Recorder> currentRecorders = activeRecorders.getItems();
         monitors.stream()
                 .filter(monitor -> {
@@ -305,22 +335,4 @@ public class RecordController extends BorderPane {
             return;
         }
     }
-
-    private class RecorderService extends ScheduledService<List<CaptureInfo>> {
-
-        @Override
-        protected Task<List<CaptureInfo>> createTask() {
-            return new Task<List<CaptureInfo>>() {
-                @Override
-                protected List<CaptureInfo> call() throws Exception {
-                    try {
-                        return pktCaptureService.getActiveCaptures();
-                    } catch (PktCaptureServiceException e) {
-                        LOG.error("Unable to fetch pkts from monitor.", e);
-                        return null;
-                    }
-                }
-            };
-        }
-    }
 }
@@ -4,6 +4,7 @@ import com.cisco.trex.stl.gui.controllers.dashboard.charts.ChartsController;
 import com.cisco.trex.stl.gui.controllers.dashboard.latency.LatencyController;
 import com.cisco.trex.stl.gui.controllers.dashboard.ports.PortsController;
 import com.cisco.trex.stl.gui.controllers.dashboard.streams.StreamsController;
+import com.cisco.trex.stl.gui.controllers.dashboard.transport.TransportController;
 import com.cisco.trex.stl.gui.controllers.dashboard.utilization.UtilizationController;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
 import com.exalttech.trex.ui.PortsManager;
@@ -29,6 +30,7 @@ public class DashboardController extends DialogView implements Initializable {
     private static final String STREAMS_TAB_LABEL = "Streams";
     private static final String LATENCY_TAB_LABEL = "Latency";
     private static final String CHARTS_TAB_LABEL = "Charts";
+    private static final String TRANSPORT_TAB_LABEL = "Transport";
 
     private static final String SERVICE_MODE_ENABLED_LABEL = "Service mode is enabled";
 
@@ -45,6 +47,8 @@ public class DashboardController extends DialogView implements Initializable {
     @FXML
     private ChartsController charts;
     @FXML
+    private TransportController transport;
+    @FXML
     private Label warning;
 
     PortsManager portsManager = PortsManager.getInstance();
@@ -74,6 +78,7 @@ public class DashboardController extends DialogView implements Initializable {
                 streams.setActive(false);
                 latency.setActive(false);
                 charts.setActive(false);
+                transport.setActive(false);
                 break;
             case PORTS_TAB_LABEL:
                 if (utilization != null) {
@@ -91,24 +96,37 @@ public class DashboardController extends DialogView implements Initializable {
                 if (charts != null) {
                     charts.setActive(false);
                 }
+                if (transport != null) {
+                    transport.setActive(false);
+                }
                 break;
             case STREAMS_TAB_LABEL:
                 ports.setActive(false);
                 streams.setActive(true);
                 latency.setActive(false);
                 charts.setActive(false);
+                transport.setActive(false);
                 break;
             case LATENCY_TAB_LABEL:
                 ports.setActive(false);
                 streams.setActive(false);
                 latency.setActive(true);
                 charts.setActive(false);
+                transport.setActive(false);
                 break;
             case CHARTS_TAB_LABEL:
                 ports.setActive(false);
                 streams.setActive(false);
                 latency.setActive(false);
                 charts.setActive(true);
+                transport.setActive(false);
+                break;
+            case TRANSPORT_TAB_LABEL:
+                ports.setActive(false);
+                streams.setActive(false);
+                latency.setActive(false);
+                charts.setActive(false);
+                transport.setActive(true);
                 break;
         }
     }
@@ -2,13 +2,17 @@ package com.cisco.trex.stl.gui.controllers.dashboard;
 
 import javafx.scene.layout.AnchorPane;
 
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
+import com.cisco.trex.stl.gui.services.RenderScheduler;
 import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
 
 
 public abstract class FlowStatsBaseController extends AnchorPane {
     private boolean isActive = false;
-    private PGIDStatsStorage.StatsChangedListener statsChangedListener = this::render;
+    private final RenderScheduler.Target renderTarget = RenderScheduler.getInstance().createTarget(this, this::render);
+    private PGIDStatsStorage.StatsChangedListener statsChangedListener = renderTarget::markDirty;
+    private PollingCoordinator.Subscription subscription;
 
     public void setActive(final boolean isActive) {
         if (this.isActive == isActive) {
@@ -16,13 +20,25 @@ public abstract class FlowStatsBaseController extends AnchorPane {
         }
 
         this.isActive = isActive;
+        final PGIDStatsStorage pgIDStatsStorage = StatsStorage.getInstance().getPGIDStatsStorage();
         if (this.isActive) {
-            StatsStorage.getInstance().getPGIDStatsStorage().addStatsChangeListener(statsChangedListener);
+            pgIDStatsStorage.addStatsChangeListener(statsChangedListener);
+            subscription = pgIDStatsStorage.subscribe();
             render();
         } else {
-            StatsStorage.getInstance().getPGIDStatsStorage().removeStatsChangeListener(statsChangedListener);
+            pgIDStatsStorage.removeStatsChangeListener(statsChangedListener);
+            renderTarget.cancel();
+            subscription.cancel();
+            subscription = null;
         }
     }
 
+    /**
+     * Render on the next frame the view is showing
+     */
+    protected void requestRender() {
+        renderTarget.markDirty();
+    }
+
     protected abstract void render();
 }
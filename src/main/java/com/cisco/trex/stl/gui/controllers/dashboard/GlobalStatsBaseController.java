@@ -1,14 +1,16 @@
 package com.cisco.trex.stl.gui.controllers.dashboard;
 
-import javafx.application.Platform;
 import javafx.scene.layout.AnchorPane;
 
+import com.cisco.trex.stl.gui.services.RenderScheduler;
+
 import com.exalttech.trex.ui.views.statistics.StatsLoader;
 
 
 public abstract class GlobalStatsBaseController extends AnchorPane {
     private boolean isActive = false;
-    private StatsLoader.GlobalStatsChangedListener statsChangedListener = this::handleUpdate;
+    private final RenderScheduler.Target renderTarget = RenderScheduler.getInstance().createTarget(this, this::render);
+    private StatsLoader.GlobalStatsChangedListener statsChangedListener = renderTarget::markDirty;
 
     public boolean isActive() {
         return isActive;
@@ -25,12 +27,9 @@ public abstract class GlobalStatsBaseController extends AnchorPane {
             render();
         } else {
             StatsLoader.getInstance().removeGlobalStatsChangedListener(statsChangedListener);
+            renderTarget.cancel();
         }
     }
 
-    private void handleUpdate() {
-        Platform.runLater(this::render);
-    }
-
     protected abstract void render();
 }
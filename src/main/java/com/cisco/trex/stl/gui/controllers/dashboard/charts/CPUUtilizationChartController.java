@@ -11,10 +11,7 @@ import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.layout.AnchorPane;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class CPUUtilizationChartController extends AnchorPane {
 
@@ -22,7 +19,7 @@ public class CPUUtilizationChartController extends AnchorPane {
     private AnchorPane root;
     
     @FXML
-    private javafx.scene.chart.LineChart<Double, Number> chart;
+    private javafx.scene.chart.LineChart<Number, Number> chart;
     
     @FXML
     private NumberAxis xAxis;
@@ -31,40 +28,43 @@ public class CPUUtilizationChartController extends AnchorPane {
     private NumberAxis yAxis;
     
     private static String[] colors = new String[] {"#f3622d", "#fba71b", "#57b757", "#41a9c9", "#4258c9", "#9a42c8", "#c84164", "#888888"};
+
+    private final LiveSeries.Group<String> seriesGroup;
     
     public CPUUtilizationChartController() {
         Initialization.initializeFXML(this, "/fxml/dashboard/charts/LineChart.fxml");
         xAxis.lowerBoundProperty().bind(new SimpleIntegerProperty(300).negate());
         yAxis.setLabel("CPU Load (%)");
         chart.setLegendVisible(true);
+        seriesGroup = new LiveSeries.Group<>(chart.getData(), this::setSeriesColor);
     }
     
     public void render(Map<String, ArrayHistory<CpuUtilStatPoint>> cpuUtilizationHistoryMap) {
-        chart.getData().clear();
+        int colorIndex = 0;
+        for (Map.Entry<String, ArrayHistory<CpuUtilStatPoint>> entry : cpuUtilizationHistoryMap.entrySet()) {
+            if (colorIndex == colors.length) {
+                break;
+            }
+            String core = entry.getKey();
+            ArrayHistory<CpuUtilStatPoint> history = entry.getValue();
+            seriesGroup.fetch(core, core, colors[colorIndex++]).update(new LiveSeries.Points() {
+                @Override
+                public int size() {
+                    return history.size();
+                }
 
-        final List<XYChart.Series<Double, Number>> seriesList = new LinkedList<>();
-        final AtomicInteger index = new AtomicInteger(0);
-        cpuUtilizationHistoryMap.entrySet()
-                                .stream()
-                                .limit(colors.length)
-                                .forEach(entry -> {
-                                    String core = entry.getKey();
-                                    ArrayHistory<CpuUtilStatPoint> history = entry.getValue();
-                                    XYChart.Series<Double, Number> series = new XYChart.Series<>();
-                                    series.setName(core);
-                        
-                                    double lastTime = history.last().getTime();
-                                    
-                                    int size = history.size();
-                                    for (int i = 0; i < size; ++i) {
-                                        final CpuUtilStatPoint point = history.get(i);
-                                        final double time = point.getTime();
-                                        series.getData().add(new XYChart.Data<>(time - lastTime, point.getValue()));
-                                    }
-                                    setSeriesColor(series, colors[index.getAndIncrement()]);
-                                    seriesList.add(series);
-        });
-        chart.getData().addAll(seriesList);
+                @Override
+                public double getTime(int index) {
+                    return history.get(index).getTime();
+                }
+
+                @Override
+                public Number getValue(int index) {
+                    return history.get(index).getValue();
+                }
+            });
+        }
+        seriesGroup.retainFetched();
     }
 
     private void setSeriesColor(final XYChart.Series<?, ?> series, final String color) {
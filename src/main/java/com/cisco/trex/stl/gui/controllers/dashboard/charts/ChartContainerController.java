@@ -55,7 +55,11 @@ public class ChartContainerController extends AnchorPane {
                 createContextMenuItem(ChartsFactory.ChartTypes.AVG_LATENCY, runningConfiguration.latencyEnabledProperty()),
                 createContextMenuItem(ChartsFactory.ChartTypes.JITTER_LATENCY, runningConfiguration.latencyEnabledProperty()),
                 createContextMenuItem(ChartsFactory.ChartTypes.TEMPORARY_MAX_LATENCY, runningConfiguration.latencyEnabledProperty()),
-                createContextMenuItem(ChartsFactory.ChartTypes.LATENCY_HISTOGRAM, runningConfiguration.latencyEnabledProperty())
+                createContextMenuItem(ChartsFactory.ChartTypes.LATENCY_HISTOGRAM, runningConfiguration.latencyEnabledProperty()),
+                createContextMenuItem(ChartsFactory.ChartTypes.P99_LATENCY, runningConfiguration.latencyEnabledProperty()),
+                createContextMenuItem(ChartsFactory.ChartTypes.P999_LATENCY, runningConfiguration.latencyEnabledProperty()),
+                createContextMenuItem(ChartsFactory.ChartTypes.LATENCY_PERCENTILES, runningConfiguration.latencyEnabledProperty()),
+                createContextMenuItem(ChartsFactory.ChartTypes.LATENCY_HEATMAP, runningConfiguration.latencyEnabledProperty())
         );
     }
 
@@ -15,6 +15,10 @@ public class ChartsFactory {
         public static final String JITTER_LATENCY = "Jitter Latency";
         public static final String TEMPORARY_MAX_LATENCY = "Temporary Max Latency";
         public static final String LATENCY_HISTOGRAM = "Latency Histogram";
+        public static final String P99_LATENCY = "p99 Latency";
+        public static final String P999_LATENCY = "p99.9 Latency";
+        public static final String LATENCY_PERCENTILES = "Latency Percentiles";
+        public static final String LATENCY_HEATMAP = "Latency Heatmap";
     }
 
     public static FlowChartController create(String chartType, IntegerProperty interval) {
@@ -38,7 +42,15 @@ public class ChartsFactory {
             case ChartTypes.TEMPORARY_MAX_LATENCY:
                 return new TemporaryMaxLatency(interval);
             case ChartTypes.LATENCY_HISTOGRAM:
-                return new LatencyHistogramController();
+                return new LatencyHistogramController(interval);
+            case ChartTypes.P99_LATENCY:
+                return new P99LatencyController(interval);
+            case ChartTypes.P999_LATENCY:
+                return new P999LatencyController(interval);
+            case ChartTypes.LATENCY_PERCENTILES:
+                return new LatencyPercentilesController();
+            case ChartTypes.LATENCY_HEATMAP:
+                return new LatencyHeatmapController(interval);
         }
         throw new IllegalArgumentException(String.format("Unknown chart type: %s", chartType));
     }
@@ -0,0 +1,28 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.charts;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import javafx.beans.property.IntegerProperty;
+
+
+/**
+ * Chart of the interval selected in the charts container, rendered again when
+ * the interval changes
+ */
+public abstract class IntervalChartController extends FlowChartController {
+    private final IntegerProperty interval;
+    private final InvalidationListener intervalListener = observable -> requestRender();
+
+    public IntervalChartController(final IntegerProperty interval) {
+        this.interval = interval;
+        // the interval outlives the charts replaced by the container
+        interval.addListener(new WeakInvalidationListener(intervalListener));
+    }
+
+    /**
+     * @return charted window in seconds
+     */
+    protected int getInterval() {
+        return interval.get();
+    }
+}
@@ -0,0 +1,287 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.charts;
+
+import javafx.geometry.Side;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Arrays;
+
+import com.cisco.trex.stl.gui.storages.LatencyStatsStore;
+
+
+/**
+ * Latency heatmap drawn on one canvas: x is the time, y the latency rows of
+ * {@link LatencyStatsStore} and the color the packets of the row in one
+ * column, on a log scale.
+ * <p>
+ * Only the rows holding packets in the window are shown. A column is one
+ * second of the window, or several when the window has more seconds than the
+ * plot has pixels, so the cells cost the same whatever the window. The counts
+ * are added to their column, see {@link #add}, and the chart is drawn again by
+ * {@link #endUpdate()}. Hovering a cell shows its count.
+ */
+public class LatencyHeatmap extends Region {
+    private static final int ROWS = LatencyStatsStore.HEATMAP_ROWS;
+    private static final double TOP_PADDING = 10;
+    private static final double LABELS_WIDTH = 60;
+    private static final int X_TICKS = 6;
+    private static final Color BACKGROUND = Color.web("#f5f5f5");
+    private static final Color LABEL = Color.web("#333333");
+    private static final Color READOUT_BACKGROUND = Color.rgb(255, 255, 255, 0.9);
+    private static final Color[] SCALE = {
+            Color.web("#440154"), Color.web("#3b528b"), Color.web("#21918c"), Color.web("#5ec962"), Color.web("#fde725")
+    };
+    private static final Color[] PALETTE = new Color[256];
+
+    static {
+        for (int i = 0; i < PALETTE.length; ++i) {
+            final double position = (double) i / (PALETTE.length - 1) * (SCALE.length - 1);
+            final int stop = Math.min(SCALE.length - 2, (int) position);
+            PALETTE[i] = SCALE[stop].interpolate(SCALE[stop + 1], position - stop);
+        }
+    }
+
+    private final Canvas canvas = new Canvas();
+    private final NumberAxis xAxis = new NumberAxis();
+    private final Text readoutText = new Text();
+    private long[] counts = new long[0];
+    private int columns = 0;
+    private int plotColumns = 0;
+    private double window = 60;
+    private int lowRow = 0;
+    private int highRow = -1;
+    private long maxCount = 0;
+    private double mouseX = Double.NaN;
+    private double mouseY = Double.NaN;
+    private Runnable onResized;
+
+    public LatencyHeatmap() {
+        xAxis.setSide(Side.BOTTOM);
+        xAxis.setLabel("Time (s)");
+        xAxis.setAutoRanging(false);
+        xAxis.setForceZeroInRange(false);
+        xAxis.setMinorTickVisible(false);
+        xAxis.setUpperBound(0);
+
+        canvas.setOnMouseMoved(event -> {
+            mouseX = event.getX();
+            mouseY = event.getY();
+            draw();
+        });
+        canvas.setOnMouseExited(event -> {
+            mouseX = Double.NaN;
+            mouseY = Double.NaN;
+            draw();
+        });
+
+        setMinSize(0, 0);
+        getChildren().addAll(canvas, xAxis);
+    }
+
+    /**
+     * @param onResized called when the plot width changes, the counts have to
+     * be added again for the new columns
+     */
+    public void setOnResized(final Runnable onResized) {
+        this.onResized = onResized;
+    }
+
+    /**
+     * Clear the counts
+     *
+     * @param window charted seconds, one column per second up to one column
+     * per pixel
+     */
+    public void beginUpdate(final double window) {
+        this.window = window;
+        columns = getColumns(window, plotColumns);
+        if (counts.length < columns * ROWS) {
+            counts = new long[columns * ROWS];
+        } else {
+            Arrays.fill(counts, 0, columns * ROWS, 0);
+        }
+    }
+
+    /**
+     * @param time in seconds before the last sample, 0 or negative
+     * @param row heatmap row of {@link LatencyStatsStore}
+     * @param count packets
+     */
+    public void add(final double time, final int row, final long count) {
+        final int column = getColumn(time, window, columns);
+        if (column < 0) {
+            return;
+        }
+        counts[column * ROWS + row] += count;
+    }
+
+    public void endUpdate() {
+        lowRow = ROWS;
+        highRow = -1;
+        maxCount = 0;
+        for (int column = 0; column < columns; ++column) {
+            for (int row = 0; row < ROWS; ++row) {
+                final long count = counts[column * ROWS + row];
+                if (count > 0) {
+                    lowRow = Math.min(lowRow, row);
+                    highRow = Math.max(highRow, row);
+                    maxCount = Math.max(maxCount, count);
+                }
+            }
+        }
+        xAxis.setLowerBound(-window);
+        xAxis.setTickUnit(TimeSeriesChart.getTickUnit(window, X_TICKS));
+        draw();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        final double width = snapSize(getWidth());
+        final double height = snapSize(getHeight());
+        final double xAxisHeight = snapSize(xAxis.prefHeight(-1));
+        final double plotHeight = Math.max(0, height - xAxisHeight - TOP_PADDING);
+
+        canvas.relocate(0, TOP_PADDING);
+        canvas.setWidth(width);
+        canvas.setHeight(plotHeight);
+        xAxis.resizeRelocate(0, TOP_PADDING + plotHeight, Math.max(0, width - LABELS_WIDTH), xAxisHeight);
+
+        final int newColumns = (int) Math.max(0, width - LABELS_WIDTH);
+        if (newColumns != plotColumns) {
+            plotColumns = newColumns;
+            if (onResized != null) {
+                onResized.run();
+                return;
+            }
+        }
+        draw();
+    }
+
+    private void draw() {
+        final GraphicsContext gc = canvas.getGraphicsContext2D();
+        final double plotWidth = canvas.getWidth() - LABELS_WIDTH;
+        final double height = canvas.getHeight();
+        gc.clearRect(0, 0, canvas.getWidth(), height);
+        if (plotWidth <= 0 || height <= 0) {
+            return;
+        }
+        gc.setFill(BACKGROUND);
+        gc.fillRect(0, 0, plotWidth, height);
+        if (highRow < lowRow) {
+            return;
+        }
+
+        final double columnWidth = plotWidth / columns;
+        final double rowHeight = height / (highRow - lowRow + 1);
+        final double logMax = Math.log1p(maxCount);
+        for (int column = 0; column < columns; ++column) {
+            final double x = Math.floor(column * columnWidth);
+            final double cellWidth = Math.floor((column + 1) * columnWidth) - x;
+            for (int row = lowRow; row <= highRow; ++row) {
+                final long count = counts[column * ROWS + row];
+                if (count == 0) {
+                    continue;
+                }
+                final int shade = (int) Math.round(Math.log1p(count) / logMax * (PALETTE.length - 1));
+                final double y = Math.floor(height - (row - lowRow + 1) * rowHeight);
+                gc.setFill(PALETTE[shade]);
+                gc.fillRect(x, y, cellWidth, Math.floor(height - (row - lowRow) * rowHeight) - y);
+            }
+        }
+
+        gc.setFill(LABEL);
+        gc.setFont(readoutText.getFont());
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.CENTER);
+        final boolean isEveryRowLabeled = rowHeight >= readoutText.getFont().getSize() * 1.5;
+        for (int row = lowRow; row <= highRow; ++row) {
+            // only the decades when the rows are too thin for their labels
+            if (isEveryRowLabeled || row == 0 || (row - 1) % 9 == 0) {
+                final double y = height - (row - lowRow + 0.5) * rowHeight;
+                gc.fillText(formatLatency(LatencyStatsStore.getHeatmapRowBound(row)), plotWidth + 4, y);
+            }
+        }
+
+        drawReadout(gc, plotWidth, height, columnWidth, rowHeight);
+    }
+
+    private void drawReadout(
+            final GraphicsContext gc,
+            final double plotWidth,
+            final double height,
+            final double columnWidth,
+            final double rowHeight
+    ) {
+        if (Double.isNaN(mouseX) || mouseX >= plotWidth) {
+            return;
+        }
+        final int column = Math.min(columns - 1, (int) (mouseX / columnWidth));
+        final int row = highRow - Math.min(highRow - lowRow, (int) (mouseY / rowHeight));
+        final String upperBound = row + 1 < ROWS
+                ? formatLatency(LatencyStatsStore.getHeatmapRowBound(row + 1))
+                : "...";
+        // the end of the column, in whole seconds before the last sample
+        final String text = String.format(
+                "%d s, %s - %s: %d pkts",
+                Math.round((column + 1) * window / columns - window),
+                formatLatency(LatencyStatsStore.getHeatmapRowBound(row)),
+                upperBound,
+                counts[column * ROWS + row]
+        );
+        readoutText.setText(text);
+        final double boxWidth = readoutText.getLayoutBounds().getWidth() + 8;
+        final double boxHeight = readoutText.getLayoutBounds().getHeight() + 6;
+        double boxX = mouseX + 10;
+        if (boxX + boxWidth > plotWidth) {
+            boxX = mouseX - 10 - boxWidth;
+        }
+        double boxY = mouseY - 10 - boxHeight;
+        if (boxY < 0) {
+            boxY = mouseY + 10;
+        }
+        gc.setFill(READOUT_BACKGROUND);
+        gc.fillRect(boxX, boxY, boxWidth, boxHeight);
+        gc.setStroke(LABEL);
+        gc.setLineWidth(1);
+        gc.strokeRect(Math.floor(boxX) + 0.5, Math.floor(boxY) + 0.5, boxWidth, boxHeight);
+        gc.setFill(LABEL);
+        gc.setTextBaseline(VPos.TOP);
+        gc.fillText(text, boxX + 4, boxY + 3);
+    }
+
+    /**
+     * @param window charted seconds
+     * @param plotColumns pixel columns of the plot
+     * @return one column per second, at most one per pixel
+     */
+    static int getColumns(final double window, final int plotColumns) {
+        return Math.max(1, Math.min((int) Math.ceil(window), plotColumns));
+    }
+
+    /**
+     * @param time in seconds before the last sample
+     * @param window charted seconds
+     * @param columns
+     * @return column of the time, -1 out of the window
+     */
+    static int getColumn(final double time, final double window, final int columns) {
+        // the last sample is at 0, in the last column
+        final int column = Math.min(columns - 1, (int) Math.floor((time + window) / window * columns));
+        return column >= 0 ? column : -1;
+    }
+
+    private static String formatLatency(final int microseconds) {
+        if (microseconds < 1000) {
+            return microseconds + " \u00B5s";
+        } else if (microseconds < 1000000) {
+            return microseconds / 1000 + " ms";
+        }
+        return microseconds / 1000000 + " s";
+    }
+}
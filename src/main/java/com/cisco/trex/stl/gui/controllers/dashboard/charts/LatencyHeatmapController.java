@@ -0,0 +1,67 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.charts;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.fxml.FXML;
+import javafx.scene.Node;
+import javafx.scene.layout.AnchorPane;
+
+import java.util.Map;
+
+import com.cisco.trex.stl.gui.storages.LatencyStatsStore;
+import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
+import com.cisco.trex.stl.gui.storages.StatsStorage;
+
+
+public class LatencyHeatmapController extends IntervalChartController {
+    @FXML
+    private AnchorPane root;
+    @FXML
+    private LatencyHeatmap heatmap;
+
+    public LatencyHeatmapController(final IntegerProperty interval) {
+        super(interval);
+        heatmap.setOnResized(this::render);
+    }
+
+    @Override
+    protected void render() {
+        final StatsStorage statsStorage = StatsStorage.getInstance();
+
+        final Map<Integer, String> selectedPGIDs = statsStorage.getPGIDsStorage().getSelectedPGIds();
+
+        final PGIDStatsStorage pgIDStatsStorage = statsStorage.getPGIDStatsStorage();
+        final LatencyStatsStore latencyStatsStore = pgIDStatsStorage.getLatencyStatsStore();
+
+        heatmap.beginUpdate(getInterval());
+        synchronized (pgIDStatsStorage.getDataLock()) {
+            final LatencyStatsStore.Cursor point = latencyStatsStore.cursor();
+            for (final int pgID : latencyStatsStore.getPGIDs()) {
+                if (selectedPGIDs == null || !selectedPGIDs.containsKey(pgID) || !point.select(pgID)) {
+                    continue;
+                }
+
+                // the packets of all the selected PGIDs are summed
+                final double lastTime = point.getTime();
+                final int size = point.size();
+                for (int i = 0; i < size; ++i) {
+                    point.moveTo(i);
+                    final double time = point.getTime() - lastTime;
+                    for (int cell = 0; cell < point.getHeatmapCellsCount(); ++cell) {
+                        heatmap.add(time, point.getHeatmapCellRow(cell), point.getHeatmapCellCount(cell));
+                    }
+                }
+            }
+        }
+        heatmap.endUpdate();
+    }
+
+    @Override
+    protected String getResourceName() {
+        return "/fxml/dashboard/charts/LatencyHeatmap.fxml";
+    }
+
+    @Override
+    protected Node getRoot() {
+        return root;
+    }
+}
@@ -1,5 +1,6 @@
 package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
+import javafx.beans.property.IntegerProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
@@ -8,19 +9,16 @@ import javafx.scene.chart.CategoryAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.layout.AnchorPane;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stl.gui.storages.LatencyStatsStore;
 import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
 
-import com.exalttech.trex.util.ArrayHistory;
 
-
-public class LatencyHistogramController extends FlowChartController {
+public class LatencyHistogramController extends IntervalChartController {
     private static final int HISTOGRAM_SIZE = 11;
 
     @FXML
@@ -30,6 +28,15 @@ public class LatencyHistogramController extends FlowChartController {
     @FXML
     private CategoryAxis xAxis;
 
+    private final long[] counts = new long[HISTOGRAM_SIZE];
+
+    public LatencyHistogramController(final IntegerProperty interval) {
+        super(interval);
+    }
+
+    /**
+     * Packets of the selected interval per bin
+     */
     public void render() {
         histogram.getData().clear();
         xAxis.setAutoRanging(true);
@@ -39,41 +46,28 @@ public class LatencyHistogramController extends FlowChartController {
         final Map<Integer, String> selectedPGIDs = statsStorage.getPGIDsStorage().getSelectedPGIds();
 
         final PGIDStatsStorage pgIDStatsStorage = statsStorage.getPGIDStatsStorage();
-        final Map<Integer, ArrayHistory<LatencyStatPoint>> latencyStatPointHistoryMap =
-                pgIDStatsStorage.getLatencyStatPointHistoryMap();
-        final Map<Integer, LatencyStatPoint> latencyStatPointShadowMap =
-                pgIDStatsStorage.getLatencyStatPointShadowMap();
-        final String[] histogramKeys = pgIDStatsStorage.getHistogramKeys(HISTOGRAM_SIZE);
+        final LatencyStatsStore latencyStatsStore = pgIDStatsStorage.getLatencyStatsStore();
 
         final List<XYChart.Series<String, Long>> seriesList = new LinkedList<>();
 
         synchronized (pgIDStatsStorage.getDataLock()) {
-            latencyStatPointHistoryMap.forEach((final Integer pgID, final ArrayHistory<LatencyStatPoint> history) -> {
-                if (history == null || history.isEmpty()) {
-                    return;
-                }
-
+            final int[] histogramBins = latencyStatsStore.getHistogramBins(HISTOGRAM_SIZE);
+            final LatencyStatsStore.Cursor point = latencyStatsStore.cursor();
+            for (final int pgID : latencyStatsStore.getPGIDs()) {
                 final String color = selectedPGIDs.get(pgID);
-                if (color == null) {
-                    return;
+                if (color == null || !point.select(pgID)) {
+                    continue;
                 }
 
-                final LatencyStatPoint latencyShadow = latencyStatPointShadowMap.get(pgID);
-                final Map<String, Long> shadowHistogram = latencyShadow != null ?
-                        latencyShadow.getLatencyStat().getLat().getHistogram() :
-                        new HashMap<>();
-
-                final Map<String, Long> histogram = history.last().getLatencyStat().getLat().getHistogram();
+                point.getWindowCounts(getInterval(), histogramBins, counts);
                 final XYChart.Series<String, Long> series = new XYChart.Series<>();
                 series.setName(String.valueOf(pgID));
-                for (final String key : histogramKeys) {
-                    final long value = histogram.getOrDefault(key, 0L);
-                    final long shadowValue = shadowHistogram.getOrDefault(key, 0L);
-                    series.getData().add(new XYChart.Data<>(key, value - shadowValue));
+                for (int i = 0; i < histogramBins.length; ++i) {
+                    series.getData().add(new XYChart.Data<>(String.valueOf(histogramBins[i]), counts[i]));
                 }
                 setSeriesColor(series, color);
                 seriesList.add(series);
-            });
+            }
         }
 
         if (seriesList.isEmpty()) {
@@ -2,7 +2,7 @@ package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
 import javafx.beans.property.IntegerProperty;
 
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stl.gui.storages.LatencyStatsStore;
 
 
 public class LatencyJitterController extends LatencyLineChartController {
@@ -16,7 +16,7 @@ public class LatencyJitterController extends LatencyLineChartController {
     }
 
     @Override
-    protected Number getValue(final LatencyStatPoint point) {
-        return point.getLatencyStat().getLat().getJit();
+    protected double getValue(final LatencyStatsStore.Cursor point) {
+        return point.getJitter();
     }
 }
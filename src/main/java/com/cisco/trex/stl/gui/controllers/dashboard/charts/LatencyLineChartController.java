@@ -1,69 +1,57 @@
 package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
 import javafx.beans.property.IntegerProperty;
-import javafx.scene.chart.XYChart;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stl.gui.storages.LatencyStatsStore;
 import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
 
-import com.exalttech.trex.util.ArrayHistory;
-
 
 public abstract class LatencyLineChartController extends LineFlowChartController {
     public LatencyLineChartController(final IntegerProperty interval) {
         super(interval);
 
-        getYAxis().setLabel(getYChartLabel());
+        getChart().setYLabel(getYChartLabel());
     }
 
     protected abstract String getYChartLabel();
 
     @Override
     protected void render() {
-        getChart().getData().clear();
-
         final StatsStorage statsStorage = StatsStorage.getInstance();
 
         final Map<Integer, String> selectedPGIDs = statsStorage.getPGIDsStorage().getSelectedPGIds();
 
         final PGIDStatsStorage pgIDStatsStorage = statsStorage.getPGIDStatsStorage();
-        final Map<Integer, ArrayHistory<LatencyStatPoint>> latencyStatPointHistoryMap =
-                pgIDStatsStorage.getLatencyStatPointHistoryMap();
-        final List<XYChart.Series<Double, Number>> seriesList = new LinkedList<>();
+        final LatencyStatsStore latencyStatsStore = pgIDStatsStorage.getLatencyStatsStore();
+        final TimeSeriesChart chart = getChart();
 
+        chart.beginUpdate(getInterval());
         synchronized (pgIDStatsStorage.getDataLock()) {
-            latencyStatPointHistoryMap.forEach((final Integer pgID, final ArrayHistory<LatencyStatPoint> history) -> {
-                if (history == null || history.isEmpty()) {
-                    return;
-                }
-
-                final String color = selectedPGIDs.get(pgID);
-                if (color == null) {
-                    return;
+            final LatencyStatsStore.Cursor point = latencyStatsStore.cursor();
+            for (final int pgID : latencyStatsStore.getPGIDs()) {
+                final String color = selectedPGIDs != null ? selectedPGIDs.get(pgID) : null;
+                if (color == null || !point.select(pgID)) {
+                    continue;
                 }
 
-                final double lastTime = history.last().getTime();
-
-                final XYChart.Series<Double, Number> series = new XYChart.Series<>();
-                series.setName(String.valueOf(pgID));
-                int size = history.size();
+                final double lastTime = point.getTime();
+                final TimeSeriesChart.Series series = chart.addSeries("PG ID " + pgID, color);
+                final int size = point.size();
                 for (int i = 0; i < size; ++i) {
-                    final LatencyStatPoint point = history.get(i);
-                    final double time = point.getTime();
-                    series.getData().add(new XYChart.Data<>(time - lastTime, getValue(point)));
+                    point.moveTo(i);
+                    series.add(point.getTime() - lastTime, getValue(point));
                 }
-                setSeriesColor(series, color);
-                seriesList.add(series);
-            });
+            }
         }
-
-        getChart().getData().addAll(seriesList);
+        chart.endUpdate();
     }
 
-    protected abstract Number getValue(final LatencyStatPoint point);
+    /**
+     * @param point
+     * @return value of the point, NaN to leave the point out
+     */
+    protected abstract double getValue(final LatencyStatsStore.Cursor point);
 }
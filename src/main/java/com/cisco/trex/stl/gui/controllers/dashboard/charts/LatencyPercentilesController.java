@@ -0,0 +1,85 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.charts;
+
+import javafx.beans.value.ObservableValue;
+import javafx.fxml.FXML;
+import javafx.scene.Node;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.layout.AnchorPane;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.cisco.trex.stl.gui.storages.LatencyHistogramBins;
+import com.cisco.trex.stl.gui.storages.LatencyStatsStore;
+import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
+import com.cisco.trex.stl.gui.storages.StatsStorage;
+
+
+public class LatencyPercentilesController extends FlowChartController {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+    @FXML
+    private AnchorPane root;
+    @FXML
+    private BarChart<String, Number> percentiles;
+
+    public void render() {
+        percentiles.getData().clear();
+
+        final StatsStorage statsStorage = StatsStorage.getInstance();
+
+        final Map<Integer, String> selectedPGIDs = statsStorage.getPGIDsStorage().getSelectedPGIds();
+
+        final PGIDStatsStorage pgIDStatsStorage = statsStorage.getPGIDStatsStorage();
+        final LatencyStatsStore latencyStatsStore = pgIDStatsStorage.getLatencyStatsStore();
+
+        final List<XYChart.Series<String, Number>> seriesList = new LinkedList<>();
+
+        synchronized (pgIDStatsStorage.getDataLock()) {
+            final LatencyStatsStore.Cursor point = latencyStatsStore.cursor();
+            for (final int pgID : latencyStatsStore.getPGIDs()) {
+                final String color = selectedPGIDs.get(pgID);
+                if (color == null || !point.select(pgID) || point.getHistogram().getTotal() == 0) {
+                    continue;
+                }
+
+                final LatencyHistogramBins bins = point.getHistogram();
+                final XYChart.Series<String, Number> series = new XYChart.Series<>();
+                series.setName(String.valueOf(pgID));
+                for (int i = 0; i < PERCENTILES.length; ++i) {
+                    series.getData().add(new XYChart.Data<>(
+                            PERCENTILE_NAMES[i],
+                            bins.getValueAtPercentile(PERCENTILES[i])
+                    ));
+                }
+                setSeriesColor(series, color);
+                seriesList.add(series);
+            }
+        }
+
+        percentiles.getData().addAll(seriesList);
+    }
+
+    @Override
+    protected String getResourceName() {
+        return "/fxml/dashboard/charts/LatencyPercentiles.fxml";
+    }
+
+    @Override
+    protected Node getRoot() {
+        return root;
+    }
+
+    private void setSeriesColor(final XYChart.Series<String, Number> series, final String color) {
+        for (final XYChart.Data<String, Number> data : series.getData()) {
+            data.nodeProperty().addListener((ObservableValue<? extends Node> observable, Node oldValue, Node newValue) -> {
+                if (oldValue == null && newValue != null) {
+                    newValue.setStyle(String.format("-fx-bar-fill: %s;", color));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.charts;
+
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+
+/**
+ * Line chart series kept alive across renders.
+ * <p>
+ * The x-values are seconds relative to the last point. On every update the
+ * points that left the window are dropped, the new ones are appended and the
+ * others are shifted in place, so a render allocates only the data of the new
+ * points. The time of every point is kept as the extra value of its data. The
+ * last point is read again by the next update, it may change until a newer
+ * one comes.
+ */
+class LiveSeries {
+    interface Points {
+        int size();
+
+        /**
+         * @param index
+         * @return time in seconds, ascending with the index
+         */
+        double getTime(int index);
+
+        /**
+         * @param index
+         * @return value of the point, null to leave the point out
+         */
+        Number getValue(int index);
+    }
+
+    private final XYChart.Series<Number, Number> series = new XYChart.Series<>();
+    private final String color;
+    private double firstTime = Double.NaN;
+    private double lastTime = Double.NaN;
+    // time of the point before the last one, the points up to it are final
+    private double closedTime = Double.NEGATIVE_INFINITY;
+
+    LiveSeries(final String name, final String color) {
+        this.color = color;
+        series.setName(name);
+    }
+
+    XYChart.Series<Number, Number> getSeries() {
+        return series;
+    }
+
+    String getColor() {
+        return color;
+    }
+
+    void update(final Points points) {
+        final ObservableList<XYChart.Data<Number, Number>> data = series.getData();
+        final int size = points.size();
+        if (size == 0 || points.getTime(size - 1) < lastTime) {
+            data.clear();
+            firstTime = Double.NaN;
+            lastTime = Double.NaN;
+            closedTime = Double.NEGATIVE_INFINITY;
+            if (size == 0) {
+                return;
+            }
+        }
+        final double first = points.getTime(0);
+        final double last = points.getTime(size - 1);
+
+        int dropped = 0;
+        while (dropped < data.size() && getTime(data.get(dropped)) < first) {
+            dropped++;
+        }
+        if (dropped > 0) {
+            data.remove(0, dropped);
+        }
+
+        int from = size;
+        while (from > 0 && points.getTime(from - 1) > closedTime) {
+            from--;
+        }
+
+        // the window grew
+        int prepended = 0;
+        while (prepended < from && points.getTime(prepended) < firstTime) {
+            prepended++;
+        }
+        if (prepended > 0) {
+            data.addAll(0, createData(points, 0, prepended, last));
+        }
+
+        XYChart.Data<Number, Number> openData = null;
+        if (!data.isEmpty() && getTime(data.get(data.size() - 1)) > closedTime) {
+            openData = data.get(data.size() - 1);
+        }
+        int appended = from;
+        if (openData != null) {
+            while (appended < size && points.getValue(appended) == null) {
+                appended++;
+            }
+            if (appended < size) {
+                final double time = points.getTime(appended);
+                final Number value = points.getValue(appended);
+                openData.setExtraValue(time);
+                if (!value.equals(openData.getYValue())) {
+                    openData.setYValue(value);
+                }
+                appended++;
+            } else {
+                data.remove(data.size() - 1);
+            }
+        }
+
+        final double shift = last - lastTime;
+        if (shift != 0) {
+            for (final XYChart.Data<Number, Number> point : data) {
+                point.setXValue(getTime(point) - last);
+            }
+        }
+        if (appended < size) {
+            data.addAll(createData(points, appended, size, last));
+        }
+
+        firstTime = first;
+        lastTime = last;
+        closedTime = size > 1 ? points.getTime(size - 2) : Double.NEGATIVE_INFINITY;
+    }
+
+    private static List<XYChart.Data<Number, Number>> createData(
+            final Points points,
+            final int from,
+            final int to,
+            final double lastTime
+    ) {
+        final List<XYChart.Data<Number, Number>> created = new ArrayList<>(to - from);
+        for (int i = from; i < to; ++i) {
+            final Number value = points.getValue(i);
+            if (value != null) {
+                final double time = points.getTime(i);
+                created.add(new XYChart.Data<>(time - lastTime, value, time));
+            }
+        }
+        return created;
+    }
+
+    private static double getTime(final XYChart.Data<Number, Number> point) {
+        return (Double) point.getExtraValue();
+    }
+
+    /**
+     * Series of a chart by key, a render fetches the series it draws and the
+     * others are removed from the chart
+     */
+    static class Group<K> {
+        private final ObservableList<XYChart.Series<Number, Number>> chartData;
+        private final BiConsumer<XYChart.Series<?, ?>, String> colorSetter;
+        private final Map<K, LiveSeries> seriesMap = new LinkedHashMap<>();
+        private final Set<K> fetchedKeys = new HashSet<>();
+
+        Group(
+                final ObservableList<XYChart.Series<Number, Number>> chartData,
+                final BiConsumer<XYChart.Series<?, ?>, String> colorSetter
+        ) {
+            this.chartData = chartData;
+            this.colorSetter = colorSetter;
+        }
+
+        /**
+         * @param key
+         * @param name
+         * @param color
+         * @return series of the key, a new one if the color changed
+         */
+        LiveSeries fetch(final K key, final String name, final String color) {
+            fetchedKeys.add(key);
+            LiveSeries liveSeries = seriesMap.get(key);
+            if (liveSeries != null && !liveSeries.getColor().equals(color)) {
+                chartData.remove(liveSeries.getSeries());
+                liveSeries = null;
+            }
+            if (liveSeries == null) {
+                liveSeries = new LiveSeries(name, color);
+                colorSetter.accept(liveSeries.getSeries(), color);
+                chartData.add(liveSeries.getSeries());
+                seriesMap.put(key, liveSeries);
+            }
+            return liveSeries;
+        }
+
+        /**
+         * Remove the series not fetched since the previous call
+         */
+        void retainFetched() {
+            final Iterator<Map.Entry<K, LiveSeries>> iterator = seriesMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<K, LiveSeries> entry = iterator.next();
+                if (!fetchedKeys.contains(entry.getKey())) {
+                    chartData.remove(entry.getValue().getSeries());
+                    iterator.remove();
+                }
+            }
+            fetchedKeys.clear();
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
 import javafx.beans.property.IntegerProperty;
 
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stl.gui.storages.LatencyStatsStore;
 
 
 public class MaxLatencyController extends LatencyLineChartController {
@@ -15,7 +15,7 @@ public class MaxLatencyController extends LatencyLineChartController {
     }
 
     @Override
-    protected Number getValue(final LatencyStatPoint point) {
-        return point.getLatencyStat().getLat().getTotalMax();
+    protected double getValue(final LatencyStatsStore.Cursor point) {
+        return point.getTotalMax();
     }
 }
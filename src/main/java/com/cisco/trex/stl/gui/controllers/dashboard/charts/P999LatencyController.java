@@ -0,0 +1,22 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.charts;
+
+import javafx.beans.property.IntegerProperty;
+
+import com.cisco.trex.stl.gui.storages.LatencyStatsStore;
+
+
+public class P999LatencyController extends LatencyLineChartController {
+    public P999LatencyController(final IntegerProperty interval) {
+        super(interval);
+    }
+
+    protected String getYChartLabel() {
+        return "p99.9 Latency, last 10 s (\u00B5s)";
+    }
+
+    @Override
+    protected double getValue(final LatencyStatsStore.Cursor point) {
+        final int value = point.getWindowP999();
+        return value < 0 ? Double.NaN : value;
+    }
+}
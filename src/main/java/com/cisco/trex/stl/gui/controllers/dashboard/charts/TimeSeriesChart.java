@@ -0,0 +1,469 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.charts;
+
+import javafx.geometry.Side;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.StrokeLineJoin;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+import javafx.util.StringConverter;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.exalttech.trex.util.Formatter;
+
+
+/**
+ * Time series chart drawn on one canvas.
+ * <p>
+ * A LineChart creates scene graph nodes for every series and point, this
+ * chart draws all the series in a single pass instead. The points of a series
+ * are decimated as they are added: the points falling into one pixel column
+ * are reduced to their first, min, max and last values, so the drawing costs
+ * the same whatever the length of the history. The axes are plain
+ * {@link NumberAxis} nodes, the x-axis shows seconds before the last point.
+ * <p>
+ * Hovering the plot shows the value of the series closest to the pointer.
+ */
+public class TimeSeriesChart extends Region {
+    private static final double TOP_PADDING = 10;
+    private static final int X_TICKS = 6;
+    private static final int Y_TICKS = 5;
+    private static final int HOVER_COLUMNS = 4;
+    private static final Color BACKGROUND = Color.web("#f5f5f5");
+    private static final Color GRID = Color.web("#dddddd");
+    private static final Color CROSSHAIR = Color.web("#999999");
+    private static final Color READOUT_BACKGROUND = Color.rgb(255, 255, 255, 0.9);
+    private static final Color READOUT_TEXT = Color.web("#333333");
+
+    private final Canvas canvas = new Canvas();
+    private final NumberAxis xAxis = new NumberAxis();
+    private final NumberAxis yAxis = new NumberAxis();
+    private final Text readoutText = new Text();
+    private final DecimalFormat valueFormat = new DecimalFormat("0.###");
+    private final List<Series> seriesPool = new ArrayList<>();
+    private int seriesCount = 0;
+    private int columns = 0;
+    private double window = 60;
+    private String yName = "";
+    private String yUnits = null;
+    private Formatter formatter = new Formatter();
+    private double mouseX = Double.NaN;
+    private double mouseY = Double.NaN;
+    private Runnable onResized;
+
+    public TimeSeriesChart() {
+        xAxis.setSide(Side.BOTTOM);
+        xAxis.setLabel("Time (s)");
+        xAxis.setAutoRanging(false);
+        xAxis.setForceZeroInRange(false);
+        xAxis.setMinorTickVisible(false);
+        xAxis.setUpperBound(0);
+
+        yAxis.setSide(Side.RIGHT);
+        yAxis.setAutoRanging(false);
+        yAxis.setForceZeroInRange(false);
+        yAxis.setMinorTickVisible(false);
+        // the series keep the raw values, the axis shows them in the units of the label
+        yAxis.setTickLabelFormatter(new StringConverter<Number>() {
+            @Override
+            public String toString(final Number value) {
+                return formatValue(value.doubleValue());
+            }
+
+            @Override
+            public Number fromString(final String string) {
+                return null;
+            }
+        });
+
+        canvas.setOnMouseMoved(event -> {
+            mouseX = event.getX();
+            mouseY = event.getY();
+            draw();
+        });
+        canvas.setOnMouseExited(event -> {
+            mouseX = Double.NaN;
+            mouseY = Double.NaN;
+            draw();
+        });
+
+        setMinSize(0, 0);
+        getChildren().addAll(canvas, xAxis, yAxis);
+    }
+
+    /**
+     * @param label of the y-axis, values are shown as they are
+     */
+    public void setYLabel(final String label) {
+        yName = label;
+        yUnits = null;
+        yAxis.setLabel(label);
+    }
+
+    /**
+     * Values are scaled to K, M, G... and the label shows the prefix
+     *
+     * @param name
+     * @param units
+     */
+    public void setYLabel(final String name, final String units) {
+        yName = name;
+        yUnits = units;
+        updateYLabel();
+    }
+
+    /**
+     * @param onResized called when the plot width changes, the series have to
+     * be added again for the new pixel columns
+     */
+    public void setOnResized(final Runnable onResized) {
+        this.onResized = onResized;
+    }
+
+    /**
+     * Remove the series, the chart is drawn again by {@link #endUpdate()}
+     *
+     * @param window charted seconds before the last point of every series
+     */
+    public void beginUpdate(final double window) {
+        this.window = window;
+        seriesCount = 0;
+    }
+
+    /**
+     * @param name shown by the hover readout
+     * @param color CSS color
+     * @return series to add the points to
+     */
+    public Series addSeries(final String name, final String color) {
+        final Series series;
+        if (seriesCount < seriesPool.size()) {
+            series = seriesPool.get(seriesCount);
+        } else {
+            series = new Series();
+            seriesPool.add(series);
+        }
+        seriesCount++;
+        series.reset(name, color, columns, window);
+        return series;
+    }
+
+    public void endUpdate() {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < seriesCount; ++i) {
+            min = Math.min(min, seriesPool.get(i).minValue);
+            max = Math.max(max, seriesPool.get(i).maxValue);
+        }
+        if (min > max) {
+            min = 0;
+            max = 1;
+        } else if (min == max) {
+            final double padding = max == 0 ? 1 : Math.abs(max) / 10;
+            min -= padding;
+            max += padding;
+        }
+        final double yTickUnit = getTickUnit(max - min, Y_TICKS);
+        final double lowerBound = Math.floor(min / yTickUnit) * yTickUnit;
+        final double upperBound = Math.ceil(max / yTickUnit) * yTickUnit;
+
+        formatter = new Formatter();
+        if (yUnits != null) {
+            formatter.addValue(Math.max(Math.abs(lowerBound), Math.abs(upperBound)));
+            updateYLabel();
+        }
+        yAxis.setLowerBound(lowerBound);
+        yAxis.setUpperBound(upperBound);
+        yAxis.setTickUnit(yTickUnit);
+        xAxis.setLowerBound(-window);
+        xAxis.setTickUnit(getTickUnit(window, X_TICKS));
+
+        draw();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        final double width = snapSize(getWidth());
+        final double height = snapSize(getHeight());
+        final double yAxisWidth = snapSize(yAxis.prefWidth(-1));
+        final double xAxisHeight = snapSize(xAxis.prefHeight(-1));
+        final double plotWidth = Math.max(0, width - yAxisWidth);
+        final double plotHeight = Math.max(0, height - xAxisHeight - TOP_PADDING);
+
+        canvas.relocate(0, TOP_PADDING);
+        canvas.setWidth(plotWidth);
+        canvas.setHeight(plotHeight);
+        xAxis.resizeRelocate(0, TOP_PADDING + plotHeight, plotWidth, xAxisHeight);
+        yAxis.resizeRelocate(plotWidth, TOP_PADDING, yAxisWidth, plotHeight);
+
+        final int newColumns = (int) plotWidth;
+        if (newColumns != columns) {
+            columns = newColumns;
+            if (onResized != null) {
+                onResized.run();
+                return;
+            }
+        }
+        draw();
+    }
+
+    private void updateYLabel() {
+        yAxis.setLabel(String.format("%s (%s%s)", yName, formatter.getUnitsPrefix(), yUnits));
+    }
+
+    private String formatValue(final double value) {
+        return valueFormat.format(yUnits != null ? formatter.getFormattedValue(value) : value);
+    }
+
+    private void draw() {
+        final GraphicsContext gc = canvas.getGraphicsContext2D();
+        final double width = canvas.getWidth();
+        final double height = canvas.getHeight();
+        gc.setFill(BACKGROUND);
+        gc.fillRect(0, 0, width, height);
+        if (columns < 2 || height <= 0) {
+            return;
+        }
+
+        gc.setStroke(GRID);
+        gc.setLineWidth(1);
+        final double tickUnit = yAxis.getTickUnit();
+        for (double tick = yAxis.getLowerBound(); tick <= yAxis.getUpperBound() + tickUnit / 2; tick += tickUnit) {
+            final double y = Math.floor(toY(tick)) + 0.5;
+            gc.strokeLine(0, y, width, y);
+        }
+
+        gc.setLineWidth(2);
+        gc.setLineJoin(StrokeLineJoin.ROUND);
+        for (int i = 0; i < seriesCount; ++i) {
+            drawSeries(gc, seriesPool.get(i));
+        }
+
+        drawReadout(gc, width, height);
+    }
+
+    private void drawSeries(final GraphicsContext gc, final Series series) {
+        if (series.columns != columns) {
+            return;
+        }
+        gc.setStroke(series.color);
+        gc.beginPath();
+        boolean isStarted = false;
+        for (int column = 0; column < columns; ++column) {
+            final double first = series.first[column];
+            if (Double.isNaN(first)) {
+                continue;
+            }
+            final double x = column + 0.5;
+            if (isStarted) {
+                gc.lineTo(x, toY(first));
+            } else {
+                gc.moveTo(x, toY(first));
+                isStarted = true;
+            }
+            if (series.min[column] != series.max[column]) {
+                gc.lineTo(x, toY(series.min[column]));
+                gc.lineTo(x, toY(series.max[column]));
+            }
+            gc.lineTo(x, toY(series.last[column]));
+        }
+        gc.stroke();
+    }
+
+    private void drawReadout(final GraphicsContext gc, final double width, final double height) {
+        if (Double.isNaN(mouseX)) {
+            return;
+        }
+        final int mouseColumn = Math.max(0, Math.min(columns - 1, (int) mouseX));
+        gc.setStroke(CROSSHAIR);
+        gc.setLineWidth(1);
+        gc.strokeLine(mouseColumn + 0.5, 0, mouseColumn + 0.5, height);
+
+        Series closest = null;
+        int closestColumn = 0;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < seriesCount; ++i) {
+            final Series series = seriesPool.get(i);
+            if (series.columns != columns) {
+                continue;
+            }
+            final int column = series.findColumn(mouseColumn, HOVER_COLUMNS);
+            if (column < 0) {
+                continue;
+            }
+            final double distance = Math.abs(toY(series.last[column]) - mouseY) + Math.abs(column - mouseColumn);
+            if (distance < closestDistance) {
+                closest = series;
+                closestColumn = column;
+                closestDistance = distance;
+            }
+        }
+        if (closest == null) {
+            return;
+        }
+
+        final double value = closest.last[closestColumn];
+        final double pointX = closestColumn + 0.5;
+        final double pointY = toY(value);
+        gc.setFill(closest.color);
+        gc.fillOval(pointX - 4, pointY - 4, 8, 8);
+
+        final double time = (double) closestColumn / (columns - 1) * window - window;
+        String text = String.format("%s: %s", closest.name, formatValue(value));
+        if (yUnits != null) {
+            text += " " + formatter.getUnitsPrefix() + yUnits;
+        }
+        text += String.format(" at %s s", valueFormat.format(time));
+        readoutText.setText(text);
+        final double textWidth = readoutText.getLayoutBounds().getWidth();
+        final double textHeight = readoutText.getLayoutBounds().getHeight();
+        final double boxWidth = textWidth + 8;
+        final double boxHeight = textHeight + 6;
+        double boxX = pointX + 10;
+        if (boxX + boxWidth > width) {
+            boxX = pointX - 10 - boxWidth;
+        }
+        double boxY = pointY - 10 - boxHeight;
+        if (boxY < 0) {
+            boxY = pointY + 10;
+        }
+        gc.setFill(READOUT_BACKGROUND);
+        gc.fillRect(boxX, boxY, boxWidth, boxHeight);
+        gc.setStroke(closest.color);
+        gc.strokeRect(Math.floor(boxX) + 0.5, Math.floor(boxY) + 0.5, boxWidth, boxHeight);
+        gc.setFill(READOUT_TEXT);
+        gc.setFont(readoutText.getFont());
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        gc.fillText(text, boxX + 4, boxY + 3);
+    }
+
+    private double toY(final double value) {
+        final double lowerBound = yAxis.getLowerBound();
+        final double range = yAxis.getUpperBound() - lowerBound;
+        return canvas.getHeight() - (value - lowerBound) / range * canvas.getHeight();
+    }
+
+    static double getTickUnit(final double range, final int ticks) {
+        final double step = range / ticks;
+        final double magnitude = Math.pow(10, Math.floor(Math.log10(step)));
+        final double fraction = step / magnitude;
+        if (fraction <= 1) {
+            return magnitude;
+        } else if (fraction <= 2) {
+            return 2 * magnitude;
+        } else if (fraction <= 5) {
+            return 5 * magnitude;
+        }
+        return 10 * magnitude;
+    }
+
+    /**
+     * Points of one series reduced to the pixel columns of the plot
+     */
+    public static class Series {
+        private String name;
+        private String colorName;
+        private Color color;
+        private int columns;
+        private double window;
+        private double[] first = new double[0];
+        private double[] min = new double[0];
+        private double[] max = new double[0];
+        private double[] last = new double[0];
+        private double minValue;
+        private double maxValue;
+
+        Series() {
+        }
+
+        /**
+         * @param time in seconds before the last point, 0 or negative
+         * @param value NaN leaves the point out
+         */
+        public void add(final double time, final double value) {
+            if (columns < 2 || Double.isNaN(value) || time < -window || time > 0) {
+                return;
+            }
+            final int column = (int) Math.round((time + window) / window * (columns - 1));
+            if (Double.isNaN(first[column])) {
+                first[column] = value;
+                min[column] = value;
+                max[column] = value;
+            } else {
+                min[column] = Math.min(min[column], value);
+                max[column] = Math.max(max[column], value);
+            }
+            last[column] = value;
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
+        }
+
+        void reset(final String name, final String colorName, final int columns, final double window) {
+            this.name = name;
+            if (!colorName.equals(this.colorName)) {
+                this.colorName = colorName;
+                this.color = Color.web(colorName);
+            }
+            this.columns = columns;
+            this.window = window;
+            if (first.length < columns) {
+                first = new double[columns];
+                min = new double[columns];
+                max = new double[columns];
+                last = new double[columns];
+            }
+            Arrays.fill(first, 0, columns, Double.NaN);
+            minValue = Double.POSITIVE_INFINITY;
+            maxValue = Double.NEGATIVE_INFINITY;
+        }
+
+        /**
+         * @param column
+         * @return first value of the column, NaN if the column has no point
+         */
+        double getFirst(final int column) {
+            return first[column];
+        }
+
+        double getMin(final int column) {
+            return min[column];
+        }
+
+        double getMax(final int column) {
+            return max[column];
+        }
+
+        double getLast(final int column) {
+            return last[column];
+        }
+
+        double getMinValue() {
+            return minValue;
+        }
+
+        double getMaxValue() {
+            return maxValue;
+        }
+
+        private int findColumn(final int column, final int distance) {
+            for (int offset = 0; offset <= distance; ++offset) {
+                if (column - offset >= 0 && !Double.isNaN(first[column - offset])) {
+                    return column - offset;
+                }
+                if (column + offset < columns && !Double.isNaN(first[column + offset])) {
+                    return column + offset;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.cisco.trex.stl.gui.controllers.dashboard.charts;
 
 import javafx.beans.property.IntegerProperty;
 
-import com.cisco.trex.stl.gui.models.FlowStatPoint;
+import com.cisco.trex.stl.gui.storages.FlowStatsStore;
 
 
 public class TxBpsL1Controller extends StreamLineChartController {
@@ -18,7 +18,7 @@ public class TxBpsL1Controller extends StreamLineChartController {
         return "b/s";
     }
 
-    protected Number getValue(final FlowStatPoint point) {
+    protected double getValue(final FlowStatsStore.Cursor point) {
         return point.getTbsL1();
     }
 }
@@ -10,6 +10,7 @@ import java.util.Map;
 import org.apache.log4j.Logger;
 
 import com.cisco.trex.stl.gui.controllers.dashboard.GlobalStatsBaseController;
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
 import com.cisco.trex.stl.gui.storages.PGIDsStorage;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
 
@@ -45,11 +46,29 @@ public class GlobalStatsController extends GlobalStatsBaseController {
     @FXML
     private GlobalStatsPanelController queueFull;
 
+    private PollingCoordinator.Subscription pgIDsSubscription;
+
     public GlobalStatsController() {
         Initialization.initializeFXML(this, "/fxml/dashboard/global/GlobalStats.fxml");
         Initialization.initializeCloseEvent(root, this::onWindowCloseRequest);
     }
 
+    @Override
+    public void setActive(final boolean isActive) {
+        if (isActive() == isActive) {
+            return;
+        }
+
+        // the stream count needs the active PGIDs
+        if (isActive) {
+            pgIDsSubscription = StatsStorage.getInstance().getPGIDsStorage().subscribe();
+        } else {
+            pgIDsSubscription.cancel();
+            pgIDsSubscription = null;
+        }
+        super.setActive(isActive);
+    }
+
     @Override
     protected void render() {
         Map<String, String> currentStatsList = StatsLoader.getInstance().getLoadedStatsList();
@@ -6,38 +6,36 @@ import javafx.scene.control.Toggle;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.GridPane;
 import javafx.stage.WindowEvent;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
 
-import com.cisco.trex.stateless.model.stats.LatencyStat;
-import com.cisco.trex.stateless.model.stats.LatencyStatErr;
-import com.cisco.trex.stateless.model.stats.LatencyStatLat;
-
 import com.cisco.trex.stl.gui.controllers.dashboard.FlowStatsBaseController;
 import com.cisco.trex.stl.gui.controllers.dashboard.selectors.streams.StreamsSelectorController;
-import com.cisco.trex.stl.gui.models.FlowStatPoint;
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
+import com.cisco.trex.stl.gui.controllers.dashboard.table.PGIDStatsTable;
+import com.cisco.trex.stl.gui.controllers.dashboard.table.StatsGrid;
+import com.cisco.trex.stl.gui.storages.FlowStatsStore;
+import com.cisco.trex.stl.gui.storages.LatencyHistogramBins;
+import com.cisco.trex.stl.gui.storages.LatencyStatsStore;
 import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
 
-import com.exalttech.trex.ui.views.statistics.cells.CellType;
-import com.exalttech.trex.ui.views.statistics.cells.HeaderCell;
-import com.exalttech.trex.ui.views.statistics.cells.StatisticLabelCell;
-import com.exalttech.trex.util.ArrayHistory;
 import com.exalttech.trex.util.Initialization;
 import com.exalttech.trex.util.Util;
 
 
 public class LatencyController extends FlowStatsBaseController {
-    private static final int FIRST_COLUMN_WIDTH = 120;
-    private static final int COLUMN_WIDTH = 150;
     private static final int WINDOW_SIZE = 10;
     private static final int HISTOGRAM_SIZE = 11;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+    private static final String[] HISTOGRAM_ERROR_NAMES = {"Dropped", "Dup", "Out Of Order", "Seq To High", "Seq To Low"};
+    private static final List<StatsGrid.Row> WINDOW_ROWS = createWindowRows();
 
     @FXML
     private AnchorPane root;
@@ -46,13 +44,17 @@ public class LatencyController extends FlowStatsBaseController {
     @FXML
     private ToggleGroup toggleGroupMode;
     @FXML
-    private GridPane table;
+    private PGIDStatsTable table;
+
+    private int[] histogramBins = new int[0];
+    private List<StatsGrid.Row> histogramRows = Collections.emptyList();
 
     public LatencyController() {
         Initialization.initializeFXML(this, "/fxml/dashboard/latency/Latency.fxml");
         Initialization.initializeCloseEvent(root, this::onWindowCloseRequest);
 
         toggleGroupMode.selectedToggleProperty().addListener(this::typeChanged);
+        table.setOnChanged(this::requestRender);
     }
 
     @Override
@@ -73,7 +75,7 @@ public class LatencyController extends FlowStatsBaseController {
         if (newValue == null) {
             oldValue.setSelected(true);
         } else {
-            render();
+            requestRender();
         }
     }
 
@@ -87,176 +89,154 @@ public class LatencyController extends FlowStatsBaseController {
     }
 
     private void renderWindow() {
-        table.getChildren().clear();
-
-        int hCol = 0;
-        table.add(new HeaderCell(FIRST_COLUMN_WIDTH, "PG ID"), 0, hCol++);
-        table.add(new StatisticLabelCell("Tx pkt", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Rx pkt", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Max Latency", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Avg Latency", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Last (max)", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        for (int i = 0; i < WINDOW_SIZE - 1; ++i) {
-            table.add(new StatisticLabelCell(String.format("Last-%d", i + 1), FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        }
-        table.add(new StatisticLabelCell("Jitter", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Errors", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol);
-
         final PGIDStatsStorage pgIDStatsStorage = StatsStorage.getInstance().getPGIDStatsStorage();
-        final Map<Integer, ArrayHistory<FlowStatPoint>> flowStatPointHistoryMap =
-                pgIDStatsStorage.getFlowStatPointHistoryMap();
-        final Map<Integer, FlowStatPoint> flowStatPointShadowMap =
-                pgIDStatsStorage.getFlowStatPointShadowMap();
-        final Map<Integer, ArrayHistory<LatencyStatPoint>> latencyStatPointHistoryMap =
-                pgIDStatsStorage.getLatencyStatPointHistoryMap();
-        final Map<Integer, LatencyStatPoint> latencyStatPointShadowMap =
-                pgIDStatsStorage.getLatencyStatPointShadowMap();
-        final Map<Integer, Long> maxLatencyMap = pgIDStatsStorage.getMaxLatencyMap();
+        final FlowStatsStore flowStatsStore = pgIDStatsStorage.getFlowStatsStore();
+        final LatencyStatsStore latencyStatsStore = pgIDStatsStorage.getLatencyStatsStore();
         final Set<Integer> stoppedPGIds = pgIDStatsStorage.getStoppedPGIds();
 
-        int rowIndex = 1;
+        table.setRows(WINDOW_ROWS);
         synchronized (pgIDStatsStorage.getDataLock()) {
-            for (final Map.Entry<Integer, ArrayHistory<FlowStatPoint>> entry : flowStatPointHistoryMap.entrySet()) {
-                final int pgID = entry.getKey();
-
-                final ArrayHistory<FlowStatPoint> flowHistory = entry.getValue();
-                if (flowHistory == null || flowHistory.isEmpty()) {
-                    continue;
+            final FlowStatsStore.Cursor flowStatPoint = flowStatsStore.cursor();
+            final LatencyStatsStore.Cursor latencyStatPoint = latencyStatsStore.cursor();
+            table.update(flowStatsStore.getPGIDs(), stoppedPGIds, new PGIDStatsTable.Source() {
+                private int pgID;
+
+                @Override
+                public boolean select(final int pgID) {
+                    this.pgID = pgID;
+                    return flowStatPoint.select(pgID) && latencyStatPoint.select(pgID);
                 }
-                final FlowStatPoint flowStatPoint = flowHistory.last();
 
-                final ArrayHistory<LatencyStatPoint> latencyHistory = latencyStatPointHistoryMap.get(pgID);
-                if (latencyHistory == null || latencyHistory.isEmpty()) {
-                    continue;
+                @Override
+                public String getHeader(final int column) {
+                    return String.valueOf(pgID);
                 }
-                final LatencyStat latencyStat = latencyHistory.last().getLatencyStat();
 
-                final long[] window = new long[WINDOW_SIZE];
-                for (int i = 0; i < WINDOW_SIZE; ++i) {
-                    window[i] = 0;
-                }
-                final int latencyHistorySize = latencyHistory.size();
-                final int size = Math.min(latencyHistorySize, WINDOW_SIZE);
-                for (int i = 0; i < size; i++) {
-                    window[i] = latencyHistory
-                            .get(latencyHistorySize - 1 - i)
-                            .getLatencyStat()
-                            .getLat()
-                            .getLastMax();
+                @Override
+                public void read(final int column, final double[] values) {
+                    readWindow(flowStatPoint, latencyStatPoint, values);
                 }
+            });
+        }
+    }
 
-                long tp = flowStatPoint.getTp();
-                long rp = flowStatPoint.getRp();
+    private void renderHistogram() {
+        final PGIDStatsStorage pgIDStatsStorage = StatsStorage.getInstance().getPGIDStatsStorage();
+        final LatencyStatsStore latencyStatsStore = pgIDStatsStorage.getLatencyStatsStore();
+        final Set<Integer> stoppedPGIds = pgIDStatsStorage.getStoppedPGIds();
 
-                final FlowStatPoint flowShadow = flowStatPointShadowMap.get(pgID);
-                if (flowShadow != null) {
-                    tp -= flowShadow.getTp();
-                    rp -= flowShadow.getRp();
-                }
+        synchronized (pgIDStatsStorage.getDataLock()) {
+            final int[] bins = latencyStatsStore.getHistogramBins(HISTOGRAM_SIZE);
+            if (!Arrays.equals(bins, histogramBins) || histogramRows.isEmpty()) {
+                histogramBins = bins;
+                histogramRows = createHistogramRows(bins);
+            }
+            table.setRows(histogramRows);
 
-                long totalErr = latencyStat.getErr().getTotal();
+            final LatencyStatsStore.Cursor latencyStatPoint = latencyStatsStore.cursor();
+            table.update(latencyStatsStore.getPGIDs(), stoppedPGIds, new PGIDStatsTable.Source() {
+                private int pgID;
 
-                final LatencyStatPoint latencyShadow = latencyStatPointShadowMap.get(pgID);
-                if (latencyShadow != null) {
-                    totalErr -= latencyShadow.getLatencyStat().getErr().getTotal();
+                @Override
+                public boolean select(final int pgID) {
+                    this.pgID = pgID;
+                    return latencyStatPoint.select(pgID);
                 }
 
-                final LatencyStatLat lat = latencyStat.getLat();
-
-                final boolean isStopped = stoppedPGIds.contains(pgID);
-
-                int col = 0;
-                table.add(new HeaderCell(COLUMN_WIDTH, String.valueOf(pgID), isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(tp), true, "pkts"), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(rp), true, "pkts"), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.format("%d \u00B5s", maxLatencyMap.get(pgID)), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.format(Locale.US, "%.2f \u00B5s", round(lat.getAverage())), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
-                for (int i = 0; i < WINDOW_SIZE; ++i) {
-                    table.add(new StatisticLabelCell(String.valueOf(window[i]), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
+                @Override
+                public String getHeader(final int column) {
+                    return String.valueOf(pgID);
                 }
-                table.add(new StatisticLabelCell(String.format("%d \u00B5s", lat.getJit()), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.valueOf(totalErr), COLUMN_WIDTH, true, CellType.ERROR_CELL, true, isStopped), rowIndex, col++);
 
-                rowIndex++;
-            }
+                @Override
+                public void read(final int column, final double[] values) {
+                    readHistogram(latencyStatPoint, values);
+                }
+            });
         }
     }
 
-    private void renderHistogram() {
-        table.getChildren().clear();
-
-        final PGIDStatsStorage pgIDStatsStorage = StatsStorage.getInstance().getPGIDStatsStorage();
-        final Map<Integer, ArrayHistory<LatencyStatPoint>> latencyStatPointHistoryMap =
-                pgIDStatsStorage.getLatencyStatPointHistoryMap();
-        final Map<Integer, LatencyStatPoint> latencyStatPointShadowMap =
-                pgIDStatsStorage.getLatencyStatPointShadowMap();
-        final String[] histogramKeys = pgIDStatsStorage.getHistogramKeys(HISTOGRAM_SIZE);
-        final Set<Integer> stoppedPGIds = pgIDStatsStorage.getStoppedPGIds();
-
-        int hCol = 0;
-        table.add(new HeaderCell(FIRST_COLUMN_WIDTH, "PG ID"), 0, hCol++);
-        for (final String key : histogramKeys) {
-            table.add(new StatisticLabelCell(key, FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
+    private static void readWindow(
+            final FlowStatsStore.Cursor flowStatPoint,
+            final LatencyStatsStore.Cursor latencyStatPoint,
+            final double[] values
+    ) {
+        int row = 0;
+        values[row++] = flowStatPoint.getTp() - flowStatPoint.getShadowTp();
+        values[row++] = flowStatPoint.getRp() - flowStatPoint.getShadowRp();
+        values[row++] = latencyStatPoint.getMaxLatency();
+        values[row++] = latencyStatPoint.getAverage();
+
+        final LatencyHistogramBins bins = latencyStatPoint.getHistogram();
+        for (final double percentile : PERCENTILES) {
+            values[row++] = bins.getValueAtPercentile(percentile);
+        }
+        for (final double percentile : PERCENTILES) {
+            values[row++] = bins.getWindowValueAtPercentile(LatencyStatsStore.WINDOW_1MIN, percentile);
         }
-        table.add(new StatisticLabelCell("Dropped", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Dup", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Out Of Order", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Seq To High", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol++);
-        table.add(new StatisticLabelCell("Seq To Low", FIRST_COLUMN_WIDTH, hCol%2 == 0, CellType.DEFAULT_CELL, false), 0, hCol);
 
-        int rowIndex = 1;
-        synchronized (pgIDStatsStorage.getDataLock()) {
-            for (final Map.Entry<Integer, ArrayHistory<LatencyStatPoint>> entry : latencyStatPointHistoryMap.entrySet()) {
-                final int pgID = entry.getKey();
+        final int latencyHistorySize = latencyStatPoint.size();
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            if (i < latencyHistorySize) {
+                latencyStatPoint.moveTo(latencyHistorySize - 1 - i);
+                values[row++] = latencyStatPoint.getLastMax();
+            } else {
+                values[row++] = 0;
+            }
+        }
+        latencyStatPoint.moveToLast();
 
-                final ArrayHistory<LatencyStatPoint> latencyHistory = latencyStatPointHistoryMap.get(pgID);
-                if (latencyHistory == null || latencyHistory.isEmpty()) {
-                    continue;
-                }
-                final LatencyStat latencyStat = latencyHistory.last().getLatencyStat();
-
-                final Map<String, Long> histogram = latencyStat.getLat().getHistogram();
-
-                final LatencyStatErr latencyStatErr = latencyStat.getErr();
-                long drp = latencyStatErr.getDrp();
-                long dup = latencyStatErr.getDup();
-                long ooo = latencyStatErr.getOoo();
-                long sth = latencyStatErr.getSth();
-                long stl = latencyStatErr.getStl();
-
-                final LatencyStatPoint latencyShadow = latencyStatPointShadowMap.get(pgID);
-                Map<String, Long> shadowHistogram;
-                if (latencyShadow != null) {
-                    final LatencyStatErr latencyStatShadowErr = latencyShadow.getLatencyStat().getErr();
-                    drp -= latencyStatShadowErr.getDrp();
-                    dup -= latencyStatShadowErr.getDup();
-                    ooo -= latencyStatShadowErr.getOoo();
-                    sth -= latencyStatShadowErr.getSth();
-                    stl -= latencyStatShadowErr.getStl();
-
-                    shadowHistogram = latencyShadow.getLatencyStat().getLat().getHistogram();
-                } else {
-                    shadowHistogram = new HashMap<>();
-                }
+        values[row++] = latencyStatPoint.getJitter();
+        values[row] = latencyStatPoint.getErrors() - latencyStatPoint.getShadowErrors();
+    }
 
-                final boolean isStopped = stoppedPGIds.contains(pgID);
+    private void readHistogram(final LatencyStatsStore.Cursor latencyStatPoint, final double[] values) {
+        final LatencyHistogramBins bins = latencyStatPoint.getHistogram();
+        int row = 0;
+        for (final int bin : histogramBins) {
+            values[row++] = bins.getCountOf(bin);
+        }
+        values[row++] = latencyStatPoint.getDrp() - latencyStatPoint.getShadowDrp();
+        values[row++] = latencyStatPoint.getDup() - latencyStatPoint.getShadowDup();
+        values[row++] = latencyStatPoint.getOoo() - latencyStatPoint.getShadowOoo();
+        values[row++] = latencyStatPoint.getSth() - latencyStatPoint.getShadowSth();
+        values[row] = latencyStatPoint.getStl() - latencyStatPoint.getShadowStl();
+    }
 
-                int col = 0;
-                table.add(new HeaderCell(COLUMN_WIDTH, String.valueOf(pgID), isStopped), rowIndex, col++);
-                for (final String key : histogramKeys) {
-                    final long value = histogram.getOrDefault(key, 0L);
-                    final long shadowValue = shadowHistogram.getOrDefault(key, 0L);
-                    table.add(new StatisticLabelCell(String.valueOf(value - shadowValue), COLUMN_WIDTH, col % 2 == 0, CellType.DEFAULT_CELL, true, isStopped), rowIndex, col++);
-                }
-                table.add(new StatisticLabelCell(String.valueOf(drp), COLUMN_WIDTH, col % 2 == 0, CellType.ERROR_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.valueOf(dup), COLUMN_WIDTH, col % 2 == 0, CellType.ERROR_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.valueOf(ooo), COLUMN_WIDTH, col % 2 == 0, CellType.ERROR_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.valueOf(sth), COLUMN_WIDTH, col % 2 == 0, CellType.ERROR_CELL, true, isStopped), rowIndex, col++);
-                table.add(new StatisticLabelCell(String.valueOf(stl), COLUMN_WIDTH, col % 2 == 0, CellType.ERROR_CELL, true, isStopped), rowIndex, col);
+    private static List<StatsGrid.Row> createWindowRows() {
+        final List<StatsGrid.Row> rows = new ArrayList<>();
+        rows.add(new StatsGrid.Row("Tx pkt", value -> Util.getFormatted(String.valueOf((long) value), true, "pkts")));
+        rows.add(new StatsGrid.Row("Rx pkt", value -> Util.getFormatted(String.valueOf((long) value), true, "pkts")));
+        rows.add(new StatsGrid.Row("Max Latency", value -> String.format("%d \u00B5s", (long) value)));
+        rows.add(new StatsGrid.Row("Avg Latency", value -> String.format(Locale.US, "%.2f \u00B5s", round(value))));
+        for (final String name : PERCENTILE_NAMES) {
+            rows.add(new StatsGrid.Row(name, value -> formatPercentile((int) value)));
+        }
+        for (final String name : PERCENTILE_NAMES) {
+            rows.add(new StatsGrid.Row(name + " (1 min)", value -> formatPercentile((int) value)));
+        }
+        rows.add(new StatsGrid.Row("Last (max)", value -> String.valueOf((long) value)));
+        for (int i = 0; i < WINDOW_SIZE - 1; ++i) {
+            rows.add(new StatsGrid.Row(String.format("Last-%d", i + 1), value -> String.valueOf((long) value)));
+        }
+        rows.add(new StatsGrid.Row("Jitter", value -> String.format("%d \u00B5s", (long) value)));
+        rows.add(new StatsGrid.Row("Errors", value -> String.valueOf((long) value), true));
+        return rows;
+    }
 
-                rowIndex++;
-            }
+    private static List<StatsGrid.Row> createHistogramRows(final int[] bins) {
+        final List<StatsGrid.Row> rows = new ArrayList<>();
+        for (final int bin : bins) {
+            rows.add(new StatsGrid.Row(String.valueOf(bin), value -> String.valueOf((long) value)));
+        }
+        for (final String name : HISTOGRAM_ERROR_NAMES) {
+            rows.add(new StatsGrid.Row(name, value -> String.valueOf((long) value), true));
         }
+        return rows;
+    }
+
+    private static String formatPercentile(final int value) {
+        return value < 0 ? "-" : String.format("%d \u00B5s", value);
     }
 
     static double round(double value) {
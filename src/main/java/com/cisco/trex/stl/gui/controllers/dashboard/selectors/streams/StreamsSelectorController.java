@@ -1,5 +1,7 @@
 package com.cisco.trex.stl.gui.controllers.dashboard.selectors.streams;
 
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
+import com.cisco.trex.stl.gui.services.RenderScheduler;
 import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
 import javafx.event.Event;
 import javafx.fxml.FXML;
@@ -29,8 +31,11 @@ public class StreamsSelectorController extends GridPane {
     @FXML
     private VBox streamsContainer;
 
-    private PGIDsStorage.PGIDsChangedListener pgIDsChangedListener = this::render;
-    private PGIDStatsStorage.StatsChangedListener pgIDStatsChangedListener = this::render;
+    private final RenderScheduler.Target renderTarget = RenderScheduler.getInstance().createTarget(this, this::render);
+    private PGIDsStorage.PGIDsChangedListener pgIDsChangedListener = renderTarget::markDirty;
+    private PGIDStatsStorage.StatsChangedListener pgIDStatsChangedListener = renderTarget::markDirty;
+    private PollingCoordinator.Subscription pgIDsSubscription;
+    private PollingCoordinator.Subscription pgIDStatsSubscription;
 
     private boolean isActive = false;
     private Map<Integer, String> selectedPGIDs = new HashMap<>();
@@ -57,10 +62,17 @@ public class StreamsSelectorController extends GridPane {
         if (this.isActive) {
             pgIdsStorage.addPGIDsChangedListener(pgIDsChangedListener);
             pgIdStatsStorage.addStatsChangeListener(pgIDStatsChangedListener);
+            pgIDsSubscription = pgIdsStorage.subscribe();
+            pgIDStatsSubscription = pgIdStatsStorage.subscribe();
             render();
         } else {
             pgIdsStorage.removePGIDsChangedListener(pgIDsChangedListener);
             pgIdStatsStorage.removeStatsChangeListener(pgIDStatsChangedListener);
+            renderTarget.cancel();
+            pgIDsSubscription.cancel();
+            pgIDStatsSubscription.cancel();
+            pgIDsSubscription = null;
+            pgIDStatsSubscription = null;
         }
     }
 
@@ -124,8 +136,6 @@ public class StreamsSelectorController extends GridPane {
                 }
 
                 this.pgIDs = pgIDs;
-
-                streamsContainer.setDisable(selectedPGIDs != null && selectedPGIDs.size() >= 8);
             }
         }
     }
@@ -2,35 +2,54 @@ package com.cisco.trex.stl.gui.controllers.dashboard.streams;
 
 import com.cisco.trex.stl.gui.controllers.dashboard.FlowStatsBaseController;
 import com.cisco.trex.stl.gui.controllers.dashboard.selectors.streams.StreamsSelectorController;
-import com.cisco.trex.stl.gui.models.FlowStatPoint;
+import com.cisco.trex.stl.gui.controllers.dashboard.table.PGIDStatsTable;
+import com.cisco.trex.stl.gui.controllers.dashboard.table.StatsGrid;
+import com.cisco.trex.stl.gui.storages.FlowStatsStore;
 import com.cisco.trex.stl.gui.storages.PGIDStatsStorage;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
-import com.exalttech.trex.ui.views.statistics.cells.CellType;
-import com.exalttech.trex.ui.views.statistics.cells.HeaderCell;
-import com.exalttech.trex.ui.views.statistics.cells.StatisticLabelCell;
-import com.exalttech.trex.util.ArrayHistory;
 import com.exalttech.trex.util.Initialization;
 import com.exalttech.trex.util.Util;
 import javafx.fxml.FXML;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.GridPane;
 import javafx.stage.WindowEvent;
 
-import java.util.Map;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 
 public class StreamsController extends FlowStatsBaseController {
+    private static final List<StatsGrid.Row> ROWS = Arrays.asList(
+            new StatsGrid.Row("Tx pps", value -> Util.getFormatted(String.valueOf(round(value)), true, "pkt/s")),
+            new StatsGrid.Row("Tx bps L2", value -> Util.getFormatted(String.valueOf(round(value)), true, "b/s")),
+            new StatsGrid.Row("Tx bps L1", value -> Util.getFormatted(String.valueOf(round(value)), true, "b/s")),
+            new StatsGrid.Row("Rx pps", value -> Util.getFormatted(String.valueOf(round(value)), true, "pkt/s")),
+            new StatsGrid.Row("Rx bps L1", value -> Util.getFormatted(String.valueOf(round(value)), true, "b/s")),
+            new StatsGrid.Row("Rx bps L2", value -> Util.getFormatted(String.valueOf(round(value)), true, "b/s")),
+            new StatsGrid.Row("Tx pkts", value -> Util.getFormatted(String.valueOf((long) value), true, "pkts")),
+            new StatsGrid.Row("Rx pkts", value -> Util.getFormatted(String.valueOf((long) value), true, "pkts")),
+            new StatsGrid.Row("Tx bytes", value -> Util.getFormatted(String.valueOf((long) value), true, "B")),
+            new StatsGrid.Row("Rx bytes", value -> Util.getFormatted(String.valueOf((long) value), true, "B"))
+    );
+
     @FXML
     private AnchorPane root;
     @FXML
     private StreamsSelectorController streamSelector;
     @FXML
-    private GridPane table;
+    private PGIDStatsTable table;
+
+    private final Set<Integer> expandedPGIDs = new HashSet<>();
 
     public StreamsController() {
         Initialization.initializeFXML(this, "/fxml/dashboard/streams/Streams.fxml");
         Initialization.initializeCloseEvent(root, this::onWindowCloseRequest);
+
+        table.setRows(ROWS);
+        table.setHeaderTooltip("Click to show or hide the per port breakdown, right click to pin the PG ID");
+        table.setOnChanged(this::requestRender);
+        table.setOnPGIDClicked(this::togglePortBreakdown);
     }
 
     @Override
@@ -45,75 +64,100 @@ public class StreamsController extends FlowStatsBaseController {
 
     @Override
     protected void render() {
-        int firstColumnWidth = 120;
-        int secondHeaderWidth = 150;
-
-        table.getChildren().clear();
-
-        table.add(new HeaderCell(firstColumnWidth, "PG ID"), 0, 0);
-        table.add(new StatisticLabelCell("Tx pps", firstColumnWidth, false, CellType.DEFAULT_CELL, false), 0, 1);
-        table.add(new StatisticLabelCell("Tx bps L2", firstColumnWidth, true, CellType.DEFAULT_CELL, false), 0, 2);
-        table.add(new StatisticLabelCell("Tx bps L1", firstColumnWidth, false, CellType.DEFAULT_CELL, false), 0, 3);
-        table.add(new StatisticLabelCell("Rx pps", firstColumnWidth, true, CellType.DEFAULT_CELL, false), 0, 4);
-        table.add(new StatisticLabelCell("Rx bps L1", firstColumnWidth, false, CellType.DEFAULT_CELL, false), 0, 5);
-        table.add(new StatisticLabelCell("Rx bps L2", firstColumnWidth, true, CellType.DEFAULT_CELL, false), 0, 6);
-        table.add(new StatisticLabelCell("Tx pkts", firstColumnWidth, false, CellType.DEFAULT_CELL, false), 0, 7);
-        table.add(new StatisticLabelCell("Rx pkts", firstColumnWidth, true, CellType.DEFAULT_CELL, false), 0, 8);
-        table.add(new StatisticLabelCell("Tx bytes", firstColumnWidth, false, CellType.DEFAULT_CELL, false), 0, 9);
-        table.add(new StatisticLabelCell("Rx bytes", firstColumnWidth, true, CellType.DEFAULT_CELL, false), 0, 10);
-
-        int rowIndex = 1;
-
         final PGIDStatsStorage pgIDStatsStorage = StatsStorage.getInstance().getPGIDStatsStorage();
-        final Map<Integer, ArrayHistory<FlowStatPoint>> flowStatPointHistoryMap =
-                pgIDStatsStorage.getFlowStatPointHistoryMap();
-        final Map<Integer, FlowStatPoint> flowStatPointShadowMap =
-                pgIDStatsStorage.getFlowStatPointShadowMap();
+        final FlowStatsStore flowStatsStore = pgIDStatsStorage.getFlowStatsStore();
         final Set<Integer> stoppedPGIds = pgIDStatsStorage.getStoppedPGIds();
 
         synchronized (pgIDStatsStorage.getDataLock()) {
-            for (final Map.Entry<Integer, ArrayHistory<FlowStatPoint>> entry : flowStatPointHistoryMap.entrySet()) {
-                final int pgID = entry.getKey();
-                final ArrayHistory<FlowStatPoint> history = entry.getValue();
-                if (history == null || history.isEmpty()) {
-                    continue;
-                }
+            table.update(flowStatsStore.getPGIDs(), stoppedPGIds, new FlowStatsSource(flowStatsStore.cursor()));
+        }
+    }
 
-                final FlowStatPoint flowStatPoint = history.last();
+    private void togglePortBreakdown(final int pgID) {
+        if (!expandedPGIDs.remove(pgID)) {
+            expandedPGIDs.add(pgID);
+        }
+        requestRender();
+    }
+
+    static double round(double value) {
+        return ((long)(value*100))/100.0;
+    }
 
-                long tp = flowStatPoint.getTp();
-                long rp = flowStatPoint.getRp();
-                long tb = flowStatPoint.getTb();
-                long rb = flowStatPoint.getRb();
+    /**
+     * Totals of a PGID, followed by its ports when it is expanded
+     */
+    private class FlowStatsSource implements PGIDStatsTable.Source {
+        private final FlowStatsStore.Cursor point;
+        private int pgID;
+        private boolean isExpanded;
+        private int[] ports = new int[0];
+        private int portsCount = 0;
+
+        FlowStatsSource(final FlowStatsStore.Cursor point) {
+            this.point = point;
+        }
 
-                final FlowStatPoint shadow = flowStatPointShadowMap.get(pgID);
-                if (shadow != null) {
-                    tp -= shadow.getTp();
-                    rp -= shadow.getRp();
-                    tb -= shadow.getTb();
-                    rb -= shadow.getRb();
+        @Override
+        public boolean select(final int pgID) {
+            if (!point.select(pgID)) {
+                return false;
+            }
+            this.pgID = pgID;
+            isExpanded = expandedPGIDs.contains(pgID);
+            portsCount = 0;
+            if (isExpanded) {
+                if (ports.length < point.getPortsCount()) {
+                    ports = new int[point.getPortsCount()];
                 }
+                for (int port = 0; port < point.getPortsCount(); ++port) {
+                    if (point.hasPort(port)) {
+                        ports[portsCount++] = port;
+                    }
+                }
+            }
+            return true;
+        }
 
-                final boolean isStopped = stoppedPGIds.contains(pgID);
-
-                table.add(new HeaderCell(secondHeaderWidth, String.valueOf(pgID), isStopped), rowIndex, 0);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getTps())), true, "pkt/s"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 1);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getTbsL2())), true, "b/s"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 2);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getTbsL1())), true, "b/s"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 3);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getRps())), true, "pkt/s"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 4);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getRbsL1())), true, "b/s"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 5);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(round(flowStatPoint.getRbsL2())), true, "b/s"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 6);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(tp), true, "pkts"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 7);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(rp), true, "pkts"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 8);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(tb), true, "B"), secondHeaderWidth, false, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 9);
-                table.add(new StatisticLabelCell(Util.getFormatted(String.valueOf(rb), true, "B"), secondHeaderWidth, true, CellType.DEFAULT_CELL, true, isStopped), rowIndex, 10);
-
-                rowIndex++;
+        @Override
+        public int getColumnsCount() {
+            return 1 + portsCount;
+        }
+
+        @Override
+        public String getHeader(final int column) {
+            if (column == 0) {
+                return (isExpanded ? "- " : "+ ") + pgID;
             }
+            return String.format("%d: port %s", pgID, point.getPortName(ports[column - 1]));
         }
-    }
 
-    static double round(double value) {
-        return ((long)(value*100))/100.0;
+        @Override
+        public void read(final int column, final double[] values) {
+            if (column == 0) {
+                values[0] = point.getTps();
+                values[1] = point.getTbsL2();
+                values[2] = point.getTbsL1();
+                values[3] = point.getRps();
+                values[4] = point.getRbsL1();
+                values[5] = point.getRbsL2();
+                values[6] = point.getTp() - point.getShadowTp();
+                values[7] = point.getRp() - point.getShadowRp();
+                values[8] = point.getTb() - point.getShadowTb();
+                values[9] = point.getRb() - point.getShadowRb();
+                return;
+            }
+            final int port = ports[column - 1];
+            values[0] = point.getPortTps(port);
+            values[1] = point.getPortTbsL2(port);
+            values[2] = point.getPortTbsL1(port);
+            values[3] = point.getPortRps(port);
+            values[4] = point.getPortRbsL1(port);
+            values[5] = point.getPortRbsL2(port);
+            values[6] = point.getPortTp(port) - point.getPortShadowTp(port);
+            values[7] = point.getPortRp(port) - point.getPortShadowRp(port);
+            values[8] = point.getPortTb(port) - point.getPortShadowTb(port);
+            values[9] = point.getPortRb(port) - point.getPortShadowRb(port);
+        }
     }
 }
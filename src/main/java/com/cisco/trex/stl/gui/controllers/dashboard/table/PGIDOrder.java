@@ -0,0 +1,135 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.table;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Order of the PGIDs of a {@link PGIDStatsTable}: the pinned PGIDs first in
+ * the order they were pinned, then the PGIDs matching the search, sorted by
+ * the sort row or in the store order.
+ */
+class PGIDOrder {
+    private final Set<Integer> pinnedPGIDs = new LinkedHashSet<>();
+    private final List<Integer> pgIDs = new ArrayList<>();
+    private final List<SortEntry> others = new ArrayList<>();
+    private int pinnedCount = 0;
+    private int sortRow = -1;
+    private boolean isSortAscending = false;
+    private double[] values = new double[0];
+
+    /**
+     * @return sorted row, -1 for the store order
+     */
+    int getSortRow() {
+        return sortRow;
+    }
+
+    boolean isSortAscending() {
+        return isSortAscending;
+    }
+
+    /**
+     * Sort by the row, descending first, then ascending, then back to the
+     * store order
+     *
+     * @param row
+     */
+    void sortBy(final int row) {
+        if (row != sortRow) {
+            sortRow = row;
+            isSortAscending = false;
+        } else if (!isSortAscending) {
+            isSortAscending = true;
+        } else {
+            sortRow = -1;
+        }
+    }
+
+    void resetSort() {
+        sortRow = -1;
+    }
+
+    boolean isPinned(final int pgID) {
+        return pinnedPGIDs.contains(pgID);
+    }
+
+    void togglePin(final int pgID) {
+        if (!pinnedPGIDs.remove(pgID)) {
+            pinnedPGIDs.add(pgID);
+        }
+    }
+
+    /**
+     * @param storePGIDs PGIDs in the store order
+     * @param filter part of the PGIDs shown, empty to show all
+     * @param source
+     * @param rowsCount
+     * @return ordered PGIDs with stats, valid until the next call
+     */
+    List<Integer> order(
+            final Collection<Integer> storePGIDs,
+            final String filter,
+            final PGIDStatsTable.Source source,
+            final int rowsCount
+    ) {
+        if (values.length < rowsCount) {
+            values = new double[rowsCount];
+        }
+        pgIDs.clear();
+        for (final int pgID : pinnedPGIDs) {
+            if (storePGIDs.contains(pgID) && source.select(pgID)) {
+                pgIDs.add(pgID);
+            }
+        }
+        pinnedCount = pgIDs.size();
+
+        others.clear();
+        for (final int pgID : storePGIDs) {
+            if (pinnedPGIDs.contains(pgID)) {
+                continue;
+            }
+            if (!filter.isEmpty() && !String.valueOf(pgID).contains(filter)) {
+                continue;
+            }
+            if (!source.select(pgID)) {
+                continue;
+            }
+            double key = 0;
+            if (sortRow >= 0 && sortRow < rowsCount) {
+                source.read(0, values);
+                key = values[sortRow];
+            }
+            others.add(new SortEntry(pgID, key));
+        }
+        if (sortRow >= 0) {
+            final Comparator<SortEntry> comparator = Comparator.comparingDouble(entry -> entry.key);
+            others.sort(isSortAscending ? comparator : comparator.reversed());
+        }
+        for (final SortEntry entry : others) {
+            pgIDs.add(entry.pgID);
+        }
+        return pgIDs;
+    }
+
+    /**
+     * @return pinned PGIDs at the head of the last order
+     */
+    int getPinnedCount() {
+        return pinnedCount;
+    }
+
+    private static class SortEntry {
+        private final int pgID;
+        private final double key;
+
+        SortEntry(final int pgID, final double key) {
+            this.pgID = pgID;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.table;
+
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+
+/**
+ * PGID stats in a {@link StatsGrid} with a search field.
+ * <p>
+ * A click on a row header sorts the PGIDs by the row, descending first, then
+ * ascending, then back to the store order. A right click on a PGID header pins
+ * the PGID on the left of the table, pinned PGIDs are shown whatever the
+ * search is. A PGID can have more than one column, the columns of a PGID are
+ * kept together. The order itself is kept by a {@link PGIDOrder}.
+ */
+public class PGIDStatsTable extends VBox {
+    public interface Source {
+        /**
+         * @param pgID
+         * @return false if the PGID has no stats
+         */
+        boolean select(int pgID);
+
+        /**
+         * @return columns of the selected PGID, the first one is sorted on
+         */
+        default int getColumnsCount() {
+            return 1;
+        }
+
+        String getHeader(int column);
+
+        /**
+         * @param column of the selected PGID
+         * @param values of the rows to fill
+         */
+        void read(int column, double[] values);
+    }
+
+    private static final double FIRST_COLUMN_WIDTH = 120;
+    private static final double COLUMN_WIDTH = 150;
+
+    private final TextField searchField = new TextField();
+    private final StatsGrid grid = new StatsGrid(FIRST_COLUMN_WIDTH, COLUMN_WIDTH, "PG ID");
+    private final ContextMenu headerMenu = new ContextMenu();
+    private final PGIDOrder order = new PGIDOrder();
+    private List<StatsGrid.Row> rows = Collections.emptyList();
+    private int[] columnPGIDs = new int[16];
+    private int[] columnParts = new int[16];
+    private int columnsCount = 0;
+    private double[] values = new double[0];
+    private Runnable onChanged;
+    private IntConsumer onPGIDClicked;
+
+    public PGIDStatsTable() {
+        setSpacing(10);
+        searchField.setPromptText("Search PG ID");
+        searchField.textProperty().addListener(observable -> fireChanged());
+
+        grid.setOnRowClicked(this::sortBy);
+        grid.setOnHeaderClicked(this::handleHeaderClicked);
+        grid.setOnViewportChanged(this::fireChanged);
+        grid.setHeaderTooltip("Right click to pin the PG ID");
+        setVgrow(grid, Priority.ALWAYS);
+
+        getChildren().addAll(searchField, grid);
+    }
+
+    /**
+     * @param rows the table is reset only if the list is another one
+     */
+    public void setRows(final List<StatsGrid.Row> rows) {
+        if (this.rows != rows) {
+            this.rows = rows;
+            order.resetSort();
+            grid.setRows(rows);
+            grid.setSortRow(order.getSortRow(), order.isSortAscending());
+        }
+    }
+
+    public void setHeaderTooltip(final String text) {
+        grid.setHeaderTooltip(text);
+    }
+
+    /**
+     * @param onChanged called when the search, the sort, the pins or the
+     * visible columns changed
+     */
+    public void setOnChanged(final Runnable onChanged) {
+        this.onChanged = onChanged;
+    }
+
+    /**
+     * @param onPGIDClicked called on a left click on the first column of a
+     * PGID
+     */
+    public void setOnPGIDClicked(final IntConsumer onPGIDClicked) {
+        this.onPGIDClicked = onPGIDClicked;
+    }
+
+    /**
+     * Order the PGIDs and fill the visible columns, called under the data lock
+     *
+     * @param pgIDs
+     * @param stoppedPGIDs shown grayed
+     * @param source
+     */
+    public void update(final Collection<Integer> pgIDs, final Set<Integer> stoppedPGIDs, final Source source) {
+        if (values.length < rows.size()) {
+            values = new double[rows.size()];
+        }
+        final List<Integer> ordered = order.order(pgIDs, searchField.getText().trim(), source, rows.size());
+
+        columnsCount = 0;
+        int pinnedColumnsCount = 0;
+        for (int i = 0; i < ordered.size(); ++i) {
+            addColumns(ordered.get(i), source);
+            if (i < order.getPinnedCount()) {
+                pinnedColumnsCount = columnsCount;
+            }
+        }
+
+        grid.update(columnsCount, pinnedColumnsCount, (index, column) -> {
+            final int pgID = columnPGIDs[index];
+            final int part = columnParts[index];
+            source.select(pgID);
+            column.setHeader(source.getHeader(part), stoppedPGIDs.contains(pgID));
+            source.read(part, values);
+            for (int row = 0; row < rows.size(); ++row) {
+                column.setValue(row, values[row]);
+            }
+        });
+    }
+
+    private void addColumns(final int pgID, final Source source) {
+        source.select(pgID);
+        final int count = source.getColumnsCount();
+        if (columnsCount + count > columnPGIDs.length) {
+            final int capacity = Math.max(columnPGIDs.length * 2, columnsCount + count);
+            columnPGIDs = Arrays.copyOf(columnPGIDs, capacity);
+            columnParts = Arrays.copyOf(columnParts, capacity);
+        }
+        for (int part = 0; part < count; ++part) {
+            columnPGIDs[columnsCount] = pgID;
+            columnParts[columnsCount] = part;
+            columnsCount++;
+        }
+    }
+
+    private void sortBy(final int row) {
+        order.sortBy(row);
+        grid.setSortRow(order.getSortRow(), order.isSortAscending());
+        fireChanged();
+    }
+
+    private void handleHeaderClicked(final int index, final MouseEvent event) {
+        if (index >= columnsCount) {
+            return;
+        }
+        final int pgID = columnPGIDs[index];
+        if (event.getButton() == MouseButton.SECONDARY) {
+            final MenuItem item = new MenuItem((order.isPinned(pgID) ? "Unpin PG ID " : "Pin PG ID ") + pgID);
+            item.setOnAction(action -> {
+                order.togglePin(pgID);
+                fireChanged();
+            });
+            headerMenu.getItems().setAll(item);
+            headerMenu.show(grid, event.getScreenX(), event.getScreenY());
+        } else if (event.getButton() == MouseButton.PRIMARY && columnParts[index] == 0 && onPGIDClicked != null) {
+            onPGIDClicked.accept(pgID);
+        }
+    }
+
+    private void fireChanged() {
+        if (onChanged != null) {
+            onChanged.run();
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.table;
+
+import javafx.css.PseudoClass;
+import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
+import javafx.scene.Cursor;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.shape.Rectangle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import com.exalttech.trex.ui.views.statistics.cells.HeaderCell;
+
+
+/**
+ * Stats table with a column per stream and a row per value.
+ * <p>
+ * Only the visible cells exist: the cells of the columns scrolled out are
+ * reused for the columns scrolled in and a cell formats its value only when
+ * it changed. The first columns can be pinned, they stay on the left of the
+ * scrolled ones.
+ * <p>
+ * The grid holds no data. Every render passes the columns count and a writer
+ * that fills the visible columns, a scroll or a resize that shows other
+ * columns calls {@link #setOnViewportChanged(Runnable)} to render again.
+ */
+public class StatsGrid extends Region {
+    public interface Formatter {
+        String format(double value);
+    }
+
+    public interface ColumnWriter {
+        /**
+         * @param index of the column in the table
+         * @param column visible column to fill
+         */
+        void write(int index, Column column);
+    }
+
+    public interface HeaderHandler {
+        void handle(int index, MouseEvent event);
+    }
+
+    public static class Row {
+        private final String name;
+        private final Formatter formatter;
+        private final boolean isError;
+
+        public Row(final String name, final Formatter formatter) {
+            this(name, formatter, false);
+        }
+
+        /**
+         * @param name
+         * @param formatter
+         * @param isError values above 0 are shown as errors
+         */
+        public Row(final String name, final Formatter formatter, final boolean isError) {
+            this.name = name;
+            this.formatter = formatter;
+            this.isError = isError;
+        }
+    }
+
+    private static final double ROW_HEIGHT = 25;
+    private static final PseudoClass INVALID_PSEUDO_CLASS = PseudoClass.getPseudoClass("invalid");
+
+    private final double firstColumnWidth;
+    private final double columnWidth;
+    private final Pane scrolledPane = new Pane();
+    private final Pane fixedPane = new Pane();
+    private final Rectangle clip = new Rectangle();
+    private final Rectangle scrolledClip = new Rectangle();
+    private final ScrollBar hBar = new ScrollBar();
+    private final ScrollBar vBar = new ScrollBar();
+    private final HeaderCell corner;
+    private final List<Cell> rowHeaders = new ArrayList<>();
+    private final List<Column> pinnedColumns = new ArrayList<>();
+    private final List<Column> scrolledColumns = new ArrayList<>();
+    private final Tooltip headerTooltip = new Tooltip();
+    private List<Row> rows = Collections.emptyList();
+    private int columnsCount = 0;
+    private int pinnedCount = 0;
+    private int firstRow = 0;
+    private int visibleRows = 0;
+    private int firstScrolledColumn = 0;
+    private int visibleScrolledColumns = 0;
+    private int visiblePinnedColumns = 0;
+    private int sortRow = -1;
+    private boolean isSortAscending = false;
+    private boolean isRowsChanged = false;
+    private Runnable onViewportChanged;
+    private IntConsumer onRowClicked;
+    private HeaderHandler onHeaderClicked;
+
+    public StatsGrid(final double firstColumnWidth, final double columnWidth, final String firstHeader) {
+        this.firstColumnWidth = firstColumnWidth;
+        this.columnWidth = columnWidth;
+        corner = new HeaderCell(firstColumnWidth, firstHeader);
+
+        hBar.setOrientation(Orientation.HORIZONTAL);
+        vBar.setOrientation(Orientation.VERTICAL);
+        hBar.setUnitIncrement(columnWidth);
+        vBar.setUnitIncrement(1);
+        vBar.setBlockIncrement(1);
+        hBar.valueProperty().addListener(observable -> requestLayout());
+        vBar.valueProperty().addListener(observable -> requestLayout());
+        setOnScroll(this::handleScroll);
+
+        scrolledPane.setClip(scrolledClip);
+        fixedPane.getChildren().add(corner);
+        setClip(clip);
+        setMinSize(0, 0);
+        getStyleClass().add("statsTable");
+        getChildren().addAll(scrolledPane, fixedPane, hBar, vBar);
+    }
+
+    /**
+     * @param rows the grid is reset only if the list is another one
+     */
+    public void setRows(final List<Row> rows) {
+        if (this.rows != rows) {
+            this.rows = rows;
+            isRowsChanged = true;
+            requestLayout();
+        }
+    }
+
+    /**
+     * Show the sort order on the row header
+     *
+     * @param row -1 when the columns are not sorted
+     * @param isAscending
+     */
+    public void setSortRow(final int row, final boolean isAscending) {
+        sortRow = row;
+        isSortAscending = isAscending;
+        requestLayout();
+    }
+
+    public void setHeaderTooltip(final String text) {
+        headerTooltip.setText(text);
+    }
+
+    public void setOnViewportChanged(final Runnable onViewportChanged) {
+        this.onViewportChanged = onViewportChanged;
+    }
+
+    public void setOnRowClicked(final IntConsumer onRowClicked) {
+        this.onRowClicked = onRowClicked;
+    }
+
+    public void setOnHeaderClicked(final HeaderHandler onHeaderClicked) {
+        this.onHeaderClicked = onHeaderClicked;
+    }
+
+    /**
+     * Fill the visible columns
+     *
+     * @param columnsCount
+     * @param pinnedCount first columns kept visible
+     * @param writer called for every visible column
+     */
+    public void update(final int columnsCount, final int pinnedCount, final ColumnWriter writer) {
+        this.columnsCount = columnsCount;
+        this.pinnedCount = Math.min(pinnedCount, columnsCount);
+        layoutViewport();
+        for (int i = 0; i < visiblePinnedColumns; ++i) {
+            writer.write(i, pinnedColumns.get(i));
+        }
+        for (int i = 0; i < visibleScrolledColumns; ++i) {
+            writer.write(this.pinnedCount + firstScrolledColumn + i, scrolledColumns.get(i));
+        }
+    }
+
+    @Override
+    protected double computePrefWidth(final double height) {
+        return firstColumnWidth + Math.min(columnsCount, 1) * columnWidth;
+    }
+
+    @Override
+    protected double computePrefHeight(final double width) {
+        return (rows.size() + 1) * ROW_HEIGHT;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        if (layoutViewport() && onViewportChanged != null) {
+            onViewportChanged.run();
+        }
+    }
+
+    /**
+     * @return true if other columns or rows are visible
+     */
+    private boolean layoutViewport() {
+        final double width = getWidth();
+        final double height = getHeight();
+        final double hBarHeight = hBar.prefHeight(-1);
+        final double vBarWidth = vBar.prefWidth(-1);
+        final double contentWidth = firstColumnWidth + columnsCount * columnWidth;
+        final double contentHeight = (rows.size() + 1) * ROW_HEIGHT;
+        boolean needHBar = contentWidth > width;
+        final boolean needVBar = contentHeight > height - (needHBar ? hBarHeight : 0);
+        if (needVBar && !needHBar) {
+            needHBar = contentWidth > width - vBarWidth;
+        }
+        final double viewWidth = Math.max(0, width - (needVBar ? vBarWidth : 0));
+        final double viewHeight = Math.max(0, height - (needHBar ? hBarHeight : 0));
+
+        final int fullRows = Math.max(1, (int) ((viewHeight - ROW_HEIGHT) / ROW_HEIGHT));
+        final int maxFirstRow = Math.max(0, rows.size() - fullRows);
+        vBar.setMax(maxFirstRow);
+        vBar.setVisibleAmount(maxFirstRow * (double) fullRows / Math.max(1, rows.size()));
+        final int newFirstRow = Math.min(maxFirstRow, (int) Math.round(vBar.getValue()));
+        final int newVisibleRows = Math.max(0, Math.min(
+                rows.size() - newFirstRow,
+                (int) Math.ceil((viewHeight - ROW_HEIGHT) / ROW_HEIGHT)
+        ));
+
+        final double fixedWidth = firstColumnWidth + pinnedCount * columnWidth;
+        final double scrolledViewWidth = Math.max(0, viewWidth - fixedWidth);
+        final double scrolledContentWidth = (columnsCount - pinnedCount) * columnWidth;
+        final double maxScroll = Math.max(0, scrolledContentWidth - scrolledViewWidth);
+        hBar.setMax(maxScroll);
+        hBar.setBlockIncrement(Math.max(columnWidth, scrolledViewWidth));
+        hBar.setVisibleAmount(scrolledContentWidth > 0 ? maxScroll * scrolledViewWidth / scrolledContentWidth : 0);
+        final double scroll = Math.min(maxScroll, hBar.getValue());
+        final int newFirstScrolledColumn = (int) (scroll / columnWidth);
+        final double offset = scroll - newFirstScrolledColumn * columnWidth;
+        final int newVisibleScrolledColumns = Math.max(0, Math.min(
+                columnsCount - pinnedCount - newFirstScrolledColumn,
+                (int) Math.ceil((scrolledViewWidth + offset) / columnWidth)
+        ));
+        final int newVisiblePinnedColumns = Math.max(0, Math.min(
+                pinnedCount,
+                (int) Math.ceil((viewWidth - firstColumnWidth) / columnWidth)
+        ));
+
+        final boolean isChanged = isRowsChanged
+                || newFirstRow != firstRow
+                || newVisibleRows > visibleRows
+                || newFirstScrolledColumn != firstScrolledColumn
+                || newVisibleScrolledColumns > visibleScrolledColumns
+                || newVisiblePinnedColumns > visiblePinnedColumns;
+        isRowsChanged = false;
+        firstRow = newFirstRow;
+        visibleRows = newVisibleRows;
+        firstScrolledColumn = newFirstScrolledColumn;
+        visibleScrolledColumns = newVisibleScrolledColumns;
+        visiblePinnedColumns = newVisiblePinnedColumns;
+
+        layoutRowHeaders();
+        layoutColumns(pinnedColumns, visiblePinnedColumns, fixedPane, firstColumnWidth, true);
+        layoutColumns(scrolledColumns, visibleScrolledColumns, scrolledPane, fixedWidth - offset, false);
+
+        clip.setWidth(width);
+        clip.setHeight(height);
+        scrolledClip.setX(fixedWidth);
+        scrolledClip.setWidth(scrolledViewWidth);
+        scrolledClip.setHeight(viewHeight);
+        scrolledPane.resizeRelocate(0, 0, viewWidth, viewHeight);
+        fixedPane.resizeRelocate(0, 0, viewWidth, viewHeight);
+        hBar.setVisible(needHBar);
+        vBar.setVisible(needVBar);
+        hBar.resizeRelocate(0, viewHeight, viewWidth, hBarHeight);
+        vBar.resizeRelocate(viewWidth, 0, vBarWidth, viewHeight);
+        return isChanged;
+    }
+
+    private void layoutRowHeaders() {
+        corner.resizeRelocate(0, 0, firstColumnWidth, ROW_HEIGHT);
+        while (rowHeaders.size() < visibleRows) {
+            final Cell header = new Cell();
+            header.setCursor(Cursor.HAND);
+            header.setAlignment(Pos.CENTER_LEFT);
+            header.setOnMouseClicked(event -> {
+                if (onRowClicked != null) {
+                    onRowClicked.accept(firstRow + rowHeaders.indexOf(header));
+                }
+            });
+            rowHeaders.add(header);
+            fixedPane.getChildren().add(header);
+        }
+        for (int i = 0; i < rowHeaders.size(); ++i) {
+            final Cell header = rowHeaders.get(i);
+            header.setVisible(i < visibleRows);
+            if (i >= visibleRows) {
+                continue;
+            }
+            final int row = firstRow + i;
+            String text = rows.get(row).name;
+            if (row == sortRow) {
+                text += isSortAscending ? " \u25B2" : " \u25BC";
+            }
+            header.setText(text);
+            header.setOdd(row % 2 == 1);
+            header.resizeRelocate(0, (i + 1) * ROW_HEIGHT, firstColumnWidth, ROW_HEIGHT);
+        }
+    }
+
+    private void layoutColumns(
+            final List<Column> columns,
+            final int visibleCount,
+            final Pane pane,
+            final double x,
+            final boolean isPinned
+    ) {
+        while (columns.size() < visibleCount) {
+            columns.add(new Column(columns, pane, isPinned));
+        }
+        for (int i = 0; i < columns.size(); ++i) {
+            final Column column = columns.get(i);
+            column.layout(i < visibleCount, x + i * columnWidth);
+        }
+    }
+
+    private void handleScroll(final ScrollEvent event) {
+        if (event.getDeltaX() != 0) {
+            hBar.setValue(clamp(hBar, hBar.getValue() - event.getDeltaX()));
+        }
+        if (event.getDeltaY() != 0) {
+            if (vBar.isVisible()) {
+                vBar.setValue(clamp(vBar, vBar.getValue() - Math.signum(event.getDeltaY())));
+            } else {
+                hBar.setValue(clamp(hBar, hBar.getValue() - event.getDeltaY()));
+            }
+        }
+        event.consume();
+    }
+
+    private static double clamp(final ScrollBar bar, final double value) {
+        return Math.max(bar.getMin(), Math.min(bar.getMax(), value));
+    }
+
+    /**
+     * Visible column, filled by the {@link ColumnWriter}
+     */
+    public class Column {
+        private final List<Column> owner;
+        private final Pane pane;
+        private final HeaderCell header = new HeaderCell(columnWidth);
+        private final List<Cell> cells = new ArrayList<>();
+        private boolean isStopped = false;
+
+        private Column(final List<Column> owner, final Pane pane, final boolean isPinned) {
+            this.owner = owner;
+            this.pane = pane;
+            header.setCursor(Cursor.HAND);
+            Tooltip.install(header, headerTooltip);
+            header.setOnMouseClicked(this::handleHeaderClicked);
+            if (isPinned) {
+                header.getStyleClass().add("stats-table-pinned-header");
+            }
+            pane.getChildren().add(header);
+        }
+
+        /**
+         * @param text
+         * @param isStopped the column is shown grayed
+         */
+        public void setHeader(final String text, final boolean isStopped) {
+            header.setText(text);
+            if (this.isStopped != isStopped) {
+                this.isStopped = isStopped;
+                setMarked(header, isStopped);
+                for (final Cell cell : cells) {
+                    setMarked(cell, isStopped);
+                }
+            }
+        }
+
+        /**
+         * @param row
+         * @param value formatted by the row only if it changed, rows scrolled
+         * out are skipped
+         */
+        public void setValue(final int row, final double value) {
+            final int index = row - firstRow;
+            if (index >= 0 && index < visibleRows) {
+                cells.get(index).setValue(row, rows.get(row), value);
+            }
+        }
+
+        private void layout(final boolean isVisible, final double x) {
+            header.setVisible(isVisible);
+            while (isVisible && cells.size() < visibleRows) {
+                final Cell cell = new Cell();
+                cell.setAlignment(Pos.CENTER_RIGHT);
+                setMarked(cell, isStopped);
+                cells.add(cell);
+                pane.getChildren().add(cell);
+            }
+            for (int i = 0; i < cells.size(); ++i) {
+                final Cell cell = cells.get(i);
+                cell.setVisible(isVisible && i < visibleRows);
+                if (isVisible && i < visibleRows) {
+                    cell.resizeRelocate(x, (i + 1) * ROW_HEIGHT, columnWidth, ROW_HEIGHT);
+                }
+            }
+            if (isVisible) {
+                header.resizeRelocate(x, 0, columnWidth, ROW_HEIGHT);
+            }
+        }
+
+        private void handleHeaderClicked(final MouseEvent event) {
+            final int position = owner.indexOf(this);
+            final int index = owner == pinnedColumns ? position : pinnedCount + firstScrolledColumn + position;
+            if (onHeaderClicked != null && index < columnsCount) {
+                onHeaderClicked.handle(index, event);
+            }
+        }
+    }
+
+    private static void setMarked(final Label cell, final boolean isMarked) {
+        if (isMarked) {
+            cell.getStyleClass().add("stats-table-marked-cell");
+        } else {
+            cell.getStyleClass().remove("stats-table-marked-cell");
+        }
+    }
+
+    private static class Cell extends Label {
+        private Row row;
+        private int rowIndex = -1;
+        private double value = Double.NaN;
+        private boolean isOdd = false;
+
+        Cell() {
+            getStyleClass().add("statsTableColCell");
+        }
+
+        void setOdd(final boolean isOdd) {
+            if (this.isOdd != isOdd) {
+                this.isOdd = isOdd;
+                if (isOdd) {
+                    getStyleClass().add("statsTableColCellOdd");
+                } else {
+                    getStyleClass().remove("statsTableColCellOdd");
+                }
+            }
+        }
+
+        void setValue(final int rowIndex, final Row row, final double value) {
+            if (this.row != row || this.rowIndex != rowIndex) {
+                if (this.row == null || this.row.isError != row.isError) {
+                    if (row.isError) {
+                        getStyleClass().add("statsTableErrorsValue");
+                    } else {
+                        getStyleClass().remove("statsTableErrorsValue");
+                        pseudoClassStateChanged(INVALID_PSEUDO_CLASS, false);
+                    }
+                }
+                this.row = row;
+                this.rowIndex = rowIndex;
+                setOdd(rowIndex % 2 == 1);
+            } else if (Double.compare(this.value, value) == 0) {
+                return;
+            }
+            this.value = value;
+            setText(row.formatter.format(value));
+            if (row.isError) {
+                pseudoClassStateChanged(INVALID_PSEUDO_CLASS, value > 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.transport;
+
+import com.exalttech.trex.application.TrexApp;
+import com.exalttech.trex.core.AsyncResponseManager;
+import com.exalttech.trex.core.ConnectionManager;
+import com.exalttech.trex.core.rpc.LatencyHistogram;
+import com.exalttech.trex.core.rpc.TransportStats;
+import com.exalttech.trex.ui.views.logs.LogType;
+import com.exalttech.trex.ui.views.logs.LogsController;
+import com.exalttech.trex.util.FileChooserFactory;
+import com.exalttech.trex.util.Initialization;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.AnchorPane;
+import javafx.stage.FileChooser;
+import javafx.stage.WindowEvent;
+import javafx.util.Duration;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+public class TransportController extends AnchorPane {
+    private static final Logger LOG = Logger.getLogger(TransportController.class);
+    private static final Duration REFRESH_INTERVAL = Duration.seconds(1);
+
+    private static final int METHOD = 0;
+    private static final int PHASE = 1;
+    private static final int COUNT = 2;
+    private static final int P50 = 3;
+    private static final int P99 = 4;
+    private static final int MAX = 5;
+
+    @FXML
+    private AnchorPane root;
+
+    @FXML
+    private Label resends;
+
+    @FXML
+    private Label timeouts;
+
+    @FXML
+    private Label eagainEvents;
+
+    @FXML
+    private Label conflated;
+
+    @FXML
+    private TableView<String[]> table;
+
+    @FXML
+    private TableColumn<String[], String> methodColumn;
+
+    @FXML
+    private TableColumn<String[], String> phaseColumn;
+
+    @FXML
+    private TableColumn<String[], String> countColumn;
+
+    @FXML
+    private TableColumn<String[], String> p50Column;
+
+    @FXML
+    private TableColumn<String[], String> p99Column;
+
+    @FXML
+    private TableColumn<String[], String> maxColumn;
+
+    private final Timeline refreshTimeline = new Timeline(new KeyFrame(REFRESH_INTERVAL, event -> render()));
+
+    private boolean isActive = false;
+
+    public TransportController() {
+        Initialization.initializeFXML(this, "/fxml/dashboard/transport/Transport.fxml");
+        Initialization.initializeCloseEvent(root, this::onWindowCloseRequest);
+
+        bindColumn(methodColumn, METHOD);
+        bindColumn(phaseColumn, PHASE);
+        bindColumn(countColumn, COUNT);
+        bindColumn(p50Column, P50);
+        bindColumn(p99Column, P99);
+        bindColumn(maxColumn, MAX);
+
+        refreshTimeline.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    public void setActive(final boolean isActive) {
+        if (this.isActive == isActive) {
+            return;
+        }
+
+        this.isActive = isActive;
+        if (this.isActive) {
+            render();
+            refreshTimeline.play();
+        } else {
+            refreshTimeline.stop();
+        }
+    }
+
+    @FXML
+    public void handleExportButtonClicked(final ActionEvent event) {
+        FileChooser fileChooser = FileChooserFactory.get();
+        fileChooser.setTitle("Export transport stats");
+        fileChooser.setInitialFileName("trex-transport.csv");
+        File file = fileChooser.showSaveDialog(TrexApp.getPrimaryStage());
+        if (file == null) {
+            return;
+        }
+        try {
+            getTransportStats().exportTo(file);
+            LogsController.getInstance().appendText(LogType.INFO, "Transport stats exported to " + file.getAbsolutePath());
+        } catch (IOException ex) {
+            LOG.error("Error exporting transport stats", ex);
+            LogsController.getInstance().appendText(LogType.ERROR, "Error exporting transport stats: " + ex.getMessage());
+        }
+    }
+
+    @FXML
+    public void handleResetButtonClicked(final ActionEvent event) {
+        getTransportStats().reset();
+        AsyncResponseManager.getInstance().getMailbox().resetStats();
+        render();
+    }
+
+    private void onWindowCloseRequest(final WindowEvent window) {
+        setActive(false);
+    }
+
+    private static void bindColumn(final TableColumn<String[], String> column, final int index) {
+        column.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue()[index]));
+    }
+
+    private static TransportStats getTransportStats() {
+        return ConnectionManager.getInstance().getTransportStats();
+    }
+
+    private void render() {
+        final TransportStats transportStats = getTransportStats();
+        resends.setText("Resends: " + transportStats.getResends());
+        timeouts.setText("Timeouts: " + transportStats.getTimeouts());
+        eagainEvents.setText("EAGAIN: " + transportStats.getEagainEvents());
+        conflated.setText("Conflated: " + AsyncResponseManager.getInstance().getMailbox().getConflated());
+
+        final List<String[]> rows = new ArrayList<>();
+        for (TransportStats.MethodStats methodStats : transportStats.getMethodStats()) {
+            for (TransportStats.Phase phase : TransportStats.Phase.values()) {
+                final LatencyHistogram histogram = methodStats.get(phase);
+                if (histogram.getCount() == 0) {
+                    continue;
+                }
+                rows.add(new String[]{
+                        methodStats.getMethod(),
+                        phase.getTitle(),
+                        String.valueOf(histogram.getCount()),
+                        TransportStats.toMillis(histogram.getValueAtPercentile(50)),
+                        TransportStats.toMillis(histogram.getValueAtPercentile(99)),
+                        TransportStats.toMillis(histogram.getMax())
+                });
+            }
+        }
+        table.getItems().setAll(rows);
+    }
+}
@@ -3,6 +3,8 @@ package com.cisco.trex.stl.gui.controllers.dashboard.utilization;
 import com.cisco.trex.stl.gui.controllers.dashboard.charts.CPUUtilizationChartController;
 import com.cisco.trex.stl.gui.models.MemoryUtilizationModel;
 import com.cisco.trex.stl.gui.models.UtilizationCPUModel;
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
+import com.cisco.trex.stl.gui.services.RenderScheduler;
 import com.cisco.trex.stl.gui.storages.StatsStorage;
 import com.cisco.trex.stl.gui.storages.UtilizationStorage;
 import com.exalttech.trex.util.Initialization;
@@ -76,7 +78,9 @@ public class UtilizationController extends AnchorPane {
 
     private boolean isActive = false;
     
-    private UtilizationStorage.UtilizationChangedListener utilizationChangedListener = this::render;
+    private final RenderScheduler.Target renderTarget = RenderScheduler.getInstance().createTarget(this, this::render);
+    private UtilizationStorage.UtilizationChangedListener utilizationChangedListener = renderTarget::markDirty;
+    private PollingCoordinator.Subscription subscription;
 
     public UtilizationController() {
         Initialization.initializeFXML(this, "/fxml/dashboard/utilization/Utilization.fxml");
@@ -105,9 +109,13 @@ public class UtilizationController extends AnchorPane {
         final UtilizationStorage utilizationStorage = StatsStorage.getInstance().getUtilizationStorage();
         if (this.isActive) {
             utilizationStorage.addUtilizationChangedListener(utilizationChangedListener);
+            subscription = utilizationStorage.subscribe();
             render();
         } else {
             utilizationStorage.removeUtilizationChangedListener(utilizationChangedListener);
+            renderTarget.cancel();
+            subscription.cancel();
+            subscription = null;
         }
     }
 
@@ -0,0 +1,35 @@
+package com.cisco.trex.stl.gui.models;
+
+import com.cisco.trex.stateless.model.stats.PGIdStatsRPCResult;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+
+/**
+ * Reply of get_pgid_stats with the time the server read its counters, sent
+ * by the server as ticks of its high resolution clock and their frequency
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TimestampedPGIdStatsResult extends PGIdStatsRPCResult {
+    @JsonProperty("ts")
+    private Ticks ts;
+
+    /**
+     * @return server time in seconds, NaN if the server sent none
+     */
+    public double getTimestamp() {
+        if (ts == null || ts.freq <= 0) {
+            return Double.NaN;
+        }
+        return (double) ts.value / ts.freq;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private static class Ticks {
+        @JsonProperty("value")
+        private long value;
+
+        @JsonProperty("freq")
+        private long freq;
+    }
+}
@@ -1,49 +1,44 @@
 package com.cisco.trex.stl.gui.services;
 
-import javafx.concurrent.ScheduledService;
-import javafx.concurrent.Task;
-
-import org.apache.log4j.Logger;
-
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
 import com.cisco.trex.stateless.model.stats.ActivePGIdsRPCResult;
 
-import com.exalttech.trex.core.ConnectionManager;
-import com.exalttech.trex.core.RPCCommands;
+import com.exalttech.trex.util.Constants;
 
 
-public class ActivePGIDsService extends ScheduledService<Set<Integer>> {
-    private static Logger LOG = Logger.getLogger(ActivePGIDsService.class);
+public class ActivePGIDsService implements PollingCoordinator.Query<ActivePGIdsRPCResult> {
+    @Override
+    public String getMethod() {
+        return Constants.GET_ACTIVE_PGIDS_METHOD;
+    }
 
     @Override
-    protected Task<Set<Integer>> createTask() {
-        return new Task<Set<Integer>>() {
-            @Override
-            protected Set<Integer> call() {
-                // TODO: remove when ConnectionManager.isConnected will be returns valid result
-                if (ConnectionManager.getInstance().getApiH() == null) {
-                    return null;
-                }
-
-                Set<Integer> pgIDs = null;
-                try {
-                    final ActivePGIdsRPCResult activePGIdsRPCResult = RPCCommands.getActivePGIds();
-                    final int[] flowStats = activePGIdsRPCResult.getIds().getFlowStats();
-                    final int[] latency = activePGIdsRPCResult.getIds().getLatency();
-                    pgIDs = new HashSet<>();
-                    for (final int pgID : flowStats) {
-                        pgIDs.add(pgID);
-                    }
-                    for (final int pgID : latency) {
-                        pgIDs.add(pgID);
-                    }
-                } catch (Exception exc) {
-                    LOG.error("Failed to get active PGIDs", exc);
-                }
-                return pgIDs;
-            }
-        };
+    public Object getParameters() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Class<ActivePGIdsRPCResult> getResultType() {
+        return ActivePGIdsRPCResult.class;
+    }
+
+    /**
+     * @param activePGIdsRPCResult
+     * @return flow stats and latency PGIDs together
+     */
+    public static Set<Integer> toPGIDs(final ActivePGIdsRPCResult activePGIdsRPCResult) {
+        final int[] flowStats = activePGIdsRPCResult.getIds().getFlowStats();
+        final int[] latency = activePGIdsRPCResult.getIds().getLatency();
+        final Set<Integer> pgIDs = new HashSet<>();
+        for (final int pgID : flowStats) {
+            pgIDs.add(pgID);
+        }
+        for (final int pgID : latency) {
+            pgIDs.add(pgID);
+        }
+        return pgIDs;
     }
 }
@@ -1,23 +1,23 @@
 package com.cisco.trex.stl.gui.services;
 
 import com.cisco.trex.stateless.model.stats.PGIdStatsRPCResult;
-import com.exalttech.trex.core.ConnectionManager;
-import com.exalttech.trex.core.RPCCommands;
-import javafx.concurrent.ScheduledService;
-import javafx.concurrent.Task;
-import org.apache.log4j.Logger;
+import com.cisco.trex.stl.gui.models.TimestampedPGIdStatsResult;
+import com.exalttech.trex.util.Constants;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 
-public class PGIDStatsService extends ScheduledService<PGIdStatsRPCResult> {
-    private static Logger LOG = Logger.getLogger(PGIDStatsService.class);
-
+public class PGIDStatsService implements PollingCoordinator.Query<PGIdStatsRPCResult> {
     private Set<Integer> pgIDs = null;
     private final Object lock = new Object();
 
+    /**
+     * @param pgIDs PGIDs to poll, null or empty to stop polling
+     */
     public void setPGIDs(final Set<Integer> pgIDs) {
         synchronized (lock) {
             this.pgIDs = pgIDs != null ? new HashSet<>(pgIDs) : null;
@@ -29,34 +29,31 @@ public class PGIDStatsService extends ScheduledService<PGIdStatsRPCResult> {
     }
 
     @Override
-    public void reset() {
-        super.reset();
+    public String getMethod() {
+        return Constants.GET_PGID_STATS_METHOD;
+    }
+
+    @Override
+    public Object getParameters() {
         synchronized (lock) {
-            pgIDs = null;
+            if (pgIDs == null || pgIDs.isEmpty()) {
+                return null;
+            }
+            final Map<String, Object> parameters = new HashMap<>();
+            parameters.put("pgids", new ArrayList<>(pgIDs));
+            return parameters;
         }
     }
 
     @Override
-    protected Task<PGIdStatsRPCResult> createTask() {
-        return new Task<PGIdStatsRPCResult>() {
-            @Override
-            protected PGIdStatsRPCResult call() {
-                // TODO: remove when ConnectionManager.isConnected will be returns valid result
-                if (ConnectionManager.getInstance().getApiH() == null) {
-                    return null;
-                }
-
-                PGIdStatsRPCResult pgIDStats = null;
-                try {
-                    synchronized (lock) {
-                        pgIDStats = RPCCommands.getPGIdStats(new ArrayList<>(pgIDs));
-                    }
-                } catch (Exception exc) {
-                    LOG.error("Failed to get PGID stats", exc);
-                }
-
-                return pgIDStats;
-            }
-        };
+    public Class<TimestampedPGIdStatsResult> getResultType() {
+        return TimestampedPGIdStatsResult.class;
+    }
+
+    @Override
+    public double getServerTime(final PGIdStatsRPCResult result) {
+        return result instanceof TimestampedPGIdStatsResult
+                ? ((TimestampedPGIdStatsResult) result).getTimestamp()
+                : Double.NaN;
     }
 }
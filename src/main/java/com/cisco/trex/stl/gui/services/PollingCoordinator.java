@@ -0,0 +1,364 @@
+package com.cisco.trex.stl.gui.services;
+
+import com.exalttech.trex.core.ConnectionManager;
+import com.exalttech.trex.core.rpc.RPCReply;
+import javafx.util.Duration;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+
+/**
+ * One polling loop for all the periodic stats of a server.
+ * <p>
+ * Every kind of polled data is a topic. Views subscribe to the topics they
+ * show with the rate they need and cancel the subscription once they are
+ * hidden, a topic is polled at the fastest rate of its subscriptions and is
+ * suspended while it has none. On every tick the queries that are due go to
+ * the server as one JSON-RPC batch, the samplers that do not talk JSON-RPC
+ * through the connection manager run after it on the same thread.
+ * <p>
+ * Results are handed to the consumers on the sampling thread, see
+ * {@link SamplingScheduler}. A result carrying a server timestamp is timed
+ * with it, mapped to the client clock by the {@link ServerClock} of the
+ * server.
+ */
+public class PollingCoordinator {
+    public interface Query<T> {
+        String getMethod();
+
+        /**
+         * @return parameters of the request, api_h is added to them, null to
+         * skip the tick
+         */
+        Object getParameters();
+
+        Class<? extends T> getResultType();
+
+        /**
+         * @param result
+         * @return time the server took the result in seconds of its clock,
+         * NaN if the result carries none, see {@link ServerClock}
+         */
+        default double getServerTime(final T result) {
+            return Double.NaN;
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(PollingCoordinator.class);
+
+    public static final Duration TICK = Duration.millis(250);
+
+    private final ConnectionManager connectionManager;
+    private final Executor executor;
+    private final ServerClock serverClock = new ServerClock();
+    private final List<Topic<?>> topics = new ArrayList<>();
+    private SamplingScheduler.Job<List<Result<?>>> pollingJob;
+    private long ticks = 0;
+    private boolean isFailing = false;
+
+    public PollingCoordinator(final ConnectionManager connectionManager, final Executor executor) {
+        this.connectionManager = connectionManager;
+        this.executor = executor;
+    }
+
+    /**
+     * @param query
+     * @param consumer
+     * @return topic polled by the batch of every tick
+     */
+    public <T> Topic<T> addTopic(final Query<T> query, final SamplingScheduler.SampleConsumer<T> consumer) {
+        return addTopic(new Topic<>(query, null, consumer));
+    }
+
+    /**
+     * @param sampler
+     * @param consumer
+     * @return topic sampled after the batch of every tick
+     */
+    public <T> Topic<T> addTopic(
+            final SamplingScheduler.Sampler<T> sampler,
+            final SamplingScheduler.SampleConsumer<T> consumer
+    ) {
+        return addTopic(new Topic<>(null, sampler, consumer));
+    }
+
+    public void start() {
+        synchronized (topics) {
+            if (pollingJob == null) {
+                pollingJob = SamplingScheduler.getInstance().schedule(
+                        TICK,
+                        executor,
+                        this::sample,
+                        (results, timing) -> results.forEach(Result::dispatch)
+                );
+            }
+        }
+    }
+
+    /**
+     * Stop polling, the subscriptions are kept for the next start
+     */
+    public void stop() {
+        final SamplingScheduler.Job<List<Result<?>>> job;
+        synchronized (topics) {
+            job = pollingJob;
+            pollingJob = null;
+        }
+        if (job != null) {
+            job.cancel();
+        }
+    }
+
+    public boolean isRunning() {
+        synchronized (topics) {
+            return pollingJob != null;
+        }
+    }
+
+    private <T> Topic<T> addTopic(final Topic<T> topic) {
+        synchronized (topics) {
+            topics.add(topic);
+        }
+        return topic;
+    }
+
+    private List<Result<?>> sample() {
+        final List<Topic<?>> dueTopics = new ArrayList<>();
+        synchronized (topics) {
+            for (final Topic<?> topic : topics) {
+                if (topic.isDue(ticks)) {
+                    dueTopics.add(topic);
+                }
+            }
+            ticks++;
+        }
+        if (dueTopics.isEmpty()) {
+            return null;
+        }
+
+        final List<Result<?>> results = new ArrayList<>();
+        sampleQueries(dueTopics, results);
+        for (final Topic<?> topic : dueTopics) {
+            if (topic.sampler != null) {
+                sampleTopic(topic, results);
+            }
+        }
+        return results.isEmpty() ? null : results;
+    }
+
+    private void sampleQueries(final List<Topic<?>> dueTopics, final List<Result<?>> results) {
+        final List<Topic<?>> batchTopics = new ArrayList<>();
+        final List<String> methods = new ArrayList<>();
+        final List<Object> parameters = new ArrayList<>();
+        final List<Class<?>> resultTypes = new ArrayList<>();
+        for (final Topic<?> topic : dueTopics) {
+            if (topic.query == null) {
+                continue;
+            }
+            final Object topicParameters = topic.query.getParameters();
+            if (topicParameters != null) {
+                batchTopics.add(topic);
+                methods.add(topic.query.getMethod());
+                parameters.add(topicParameters);
+                resultTypes.add(topic.query.getResultType());
+            }
+        }
+        if (batchTopics.isEmpty() || !connectionManager.isSessionOpen()) {
+            return;
+        }
+
+        final long sendNanos = System.nanoTime();
+        final List<RPCReply<Object>> replies = connectionManager.sendBatchRequest(methods, parameters, resultTypes);
+        final long receiveNanos = System.nanoTime();
+        // a failing server is reported once, not on every tick
+        if (replies == null) {
+            if (!isFailing) {
+                LOG.error("Failed to poll " + methods);
+            }
+            isFailing = true;
+            return;
+        }
+        if (isFailing) {
+            LOG.info("Polling " + methods + " again");
+        }
+        isFailing = false;
+        for (int i = 0; i < replies.size(); ++i) {
+            final RPCReply<Object> reply = replies.get(i);
+            final Object result = reply != null ? reply.getResult() : null;
+            if (result != null) {
+                results.add(batchTopics.get(i).toResult(result, sendNanos, receiveNanos));
+            }
+        }
+    }
+
+    private void sampleTopic(final Topic<?> topic, final List<Result<?>> results) {
+        try {
+            final long sendNanos = System.nanoTime();
+            final Object value = topic.sampler.sample();
+            final long receiveNanos = System.nanoTime();
+            if (value != null) {
+                results.add(topic.toResult(value, sendNanos, receiveNanos));
+            }
+        } catch (Exception exc) {
+            LOG.error("Error sampling the stats", exc);
+        }
+    }
+
+    private SampleTiming toTiming(final long sendNanos, final long receiveNanos, final double serverTime) {
+        final SamplingScheduler scheduler = SamplingScheduler.getInstance();
+        return new SampleTiming(
+                serverClock.toClientTime(scheduler.toTime(sendNanos), scheduler.toTime(receiveNanos), serverTime),
+                (receiveNanos - sendNanos) / 1e9
+        );
+    }
+
+    public class Topic<T> {
+        private final Query<T> query;
+        private final SamplingScheduler.Sampler<T> sampler;
+        private final SamplingScheduler.SampleConsumer<T> consumer;
+        private final List<Subscription> subscriptions = new ArrayList<>();
+        private final List<Topic<?>> dependencies = new ArrayList<>();
+        private long nextTick = 0;
+        private boolean isRemoved = false;
+
+        private Topic(
+                final Query<T> query,
+                final SamplingScheduler.Sampler<T> sampler,
+                final SamplingScheduler.SampleConsumer<T> consumer
+        ) {
+            this.query = query;
+            this.sampler = sampler;
+            this.consumer = consumer;
+        }
+
+        /**
+         * @param period the topic is polled at the fastest period of its
+         * subscriptions, rounded to the tick
+         * @return subscription to cancel once the data is no longer shown
+         */
+        public Subscription subscribe(final Duration period) {
+            synchronized (topics) {
+                final Subscription subscription = new Subscription(
+                        this,
+                        Math.max(1, Math.round(period.toMillis() / TICK.toMillis()))
+                );
+                if (!isRemoved) {
+                    if (subscriptions.isEmpty()) {
+                        // a resumed topic is polled on the next tick
+                        nextTick = 0;
+                    }
+                    subscriptions.add(subscription);
+                    for (final Topic<?> dependency : dependencies) {
+                        subscription.dependencies.add(dependency.subscribe(period));
+                    }
+                }
+                return subscription;
+            }
+        }
+
+        /**
+         * Poll the given topic whenever this one is polled
+         *
+         * @param topic
+         */
+        public void addDependency(final Topic<?> topic) {
+            synchronized (topics) {
+                dependencies.add(topic);
+                for (final Subscription subscription : subscriptions) {
+                    subscription.dependencies.add(topic.subscribe(Duration.millis(subscription.periodTicks * TICK.toMillis())));
+                }
+            }
+        }
+
+        /**
+         * @return true if no subscription asks for the topic
+         */
+        public boolean isSuspended() {
+            synchronized (topics) {
+                return subscriptions.isEmpty();
+            }
+        }
+
+        /**
+         * Stop polling the topic for good, its subscriptions are cancelled
+         */
+        public void remove() {
+            synchronized (topics) {
+                new ArrayList<>(subscriptions).forEach(Subscription::cancel);
+                isRemoved = true;
+                topics.remove(this);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Result<T> toResult(final Object value, final long sendNanos, final long receiveNanos) {
+            final double serverTime = query != null ? query.getServerTime((T) value) : Double.NaN;
+            return new Result<>(this, value, toTiming(sendNanos, receiveNanos, serverTime));
+        }
+
+        private boolean isDue(final long tick) {
+            if (subscriptions.isEmpty() || tick < nextTick) {
+                return false;
+            }
+            long periodTicks = Long.MAX_VALUE;
+            for (final Subscription subscription : subscriptions) {
+                periodTicks = Math.min(periodTicks, subscription.periodTicks);
+            }
+            nextTick = tick + periodTicks;
+            return true;
+        }
+    }
+
+    public class Subscription {
+        private final Topic<?> topic;
+        private final long periodTicks;
+        private final List<Subscription> dependencies = new ArrayList<>();
+
+        private Subscription(final Topic<?> topic, final long periodTicks) {
+            this.topic = topic;
+            this.periodTicks = periodTicks;
+        }
+
+        /**
+         * Once the last subscription of a topic is cancelled the topic is
+         * suspended, cancelling twice does nothing
+         */
+        public void cancel() {
+            synchronized (topics) {
+                if (topic.subscriptions.remove(this)) {
+                    dependencies.forEach(Subscription::cancel);
+                    dependencies.clear();
+                }
+            }
+        }
+    }
+
+    private class Result<T> {
+        private final Topic<T> topic;
+        private final T value;
+        private final SampleTiming timing;
+
+        @SuppressWarnings("unchecked")
+        Result(final Topic<T> topic, final Object value, final SampleTiming timing) {
+            this.topic = topic;
+            this.value = (T) value;
+            this.timing = timing;
+        }
+
+        void dispatch() {
+            synchronized (topics) {
+                if (topic.isRemoved) {
+                    return;
+                }
+            }
+            try {
+                topic.consumer.accept(value, timing);
+            } catch (RuntimeException exc) {
+                LOG.error("Error handling the polled stats", exc);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.cisco.trex.stl.gui.services;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Rendering of the dashboard views on the JavaFX pulse.
+ * <p>
+ * The storages notify their listeners on every sample, the views only mark
+ * themselves dirty then. An animation timer renders every dirty view at most
+ * once per frame and only while it is showing: a view in a hidden tab or in a
+ * closed or minimized window stays dirty and is rendered on the first frame
+ * that finds it showing. The frames of all the views together are capped to
+ * {@link #getMaxFps()}. While only hidden views are dirty the timer looks for
+ * them to show up a few times per second, it stops once nothing is dirty and
+ * starts again on the next mark.
+ */
+public class RenderScheduler {
+    private static final Logger LOG = Logger.getLogger(RenderScheduler.class);
+
+    public static final int DEFAULT_MAX_FPS = 30;
+
+    /**
+     * Frame period while the dirty views are all hidden
+     */
+    private static final long IDLE_FRAME_NANOS = 250000000L;
+
+    private static RenderScheduler instance = null;
+
+    private final Set<Target> dirtyTargets = new LinkedHashSet<>();
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(final long now) {
+            renderFrame(now);
+        }
+    };
+    private boolean isRunning = false;
+    private boolean isIdle = false;
+    private volatile int maxFps = DEFAULT_MAX_FPS;
+    private long lastFrameNanos = 0;
+
+    public static synchronized RenderScheduler getInstance() {
+        if (instance == null) {
+            instance = new RenderScheduler();
+        }
+        return instance;
+    }
+
+    private RenderScheduler() {
+    }
+
+    /**
+     * @param view rendered only while it is showing
+     * @param renderer called on the JavaFX thread
+     * @return target to mark dirty
+     */
+    public Target createTarget(final Node view, final Runnable renderer) {
+        return new Target(view, renderer);
+    }
+
+    public int getMaxFps() {
+        return maxFps;
+    }
+
+    /**
+     * @param maxFps frames per second of all the views together
+     */
+    public void setMaxFps(final int maxFps) {
+        if (maxFps < 1) {
+            throw new IllegalArgumentException("Invalid FPS " + maxFps);
+        }
+        this.maxFps = maxFps;
+    }
+
+    private void start() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::start);
+            return;
+        }
+        isIdle = false;
+        if (!isRunning) {
+            isRunning = true;
+            timer.start();
+        }
+    }
+
+    private void renderFrame(final long now) {
+        if (now - lastFrameNanos < (isIdle ? IDLE_FRAME_NANOS : 1000000000L / maxFps)) {
+            return;
+        }
+        lastFrameNanos = now;
+
+        final List<Target> targets;
+        synchronized (dirtyTargets) {
+            targets = new ArrayList<>(dirtyTargets);
+        }
+        boolean hasRendered = false;
+        for (final Target target : targets) {
+            if (!isShowing(target.view)) {
+                continue;
+            }
+            synchronized (dirtyTargets) {
+                // cancelled by a view rendered before
+                if (!dirtyTargets.remove(target)) {
+                    continue;
+                }
+            }
+            try {
+                target.renderer.run();
+            } catch (RuntimeException exc) {
+                LOG.error("Error rendering the dashboard", exc);
+            }
+            hasRendered = true;
+        }
+        if (hasRendered) {
+            isIdle = false;
+            return;
+        }
+        synchronized (dirtyTargets) {
+            isIdle = !dirtyTargets.isEmpty();
+        }
+        if (!isIdle) {
+            isRunning = false;
+            timer.stop();
+        }
+    }
+
+    private static boolean isShowing(final Node view) {
+        final Scene scene = view.getScene();
+        final Window window = scene != null ? scene.getWindow() : null;
+        if (window == null || !window.isShowing()) {
+            return false;
+        }
+        if (window instanceof Stage && ((Stage) window).isIconified()) {
+            return false;
+        }
+        for (Node node = view; node != null; node = node.getParent()) {
+            if (!node.isVisible()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public class Target {
+        private final Node view;
+        private final Runnable renderer;
+
+        private Target(final Node view, final Runnable renderer) {
+            this.view = view;
+            this.renderer = renderer;
+        }
+
+        /**
+         * Render the view on a next frame, may be called from any thread
+         */
+        public void markDirty() {
+            final boolean isAdded;
+            synchronized (dirtyTargets) {
+                isAdded = dirtyTargets.add(this);
+            }
+            // a view already dirty is rendered once it shows
+            if (isAdded) {
+                start();
+            }
+        }
+
+        /**
+         * Drop the pending render, once the view is no longer active
+         */
+        public void cancel() {
+            synchronized (dirtyTargets) {
+                dirtyTargets.remove(this);
+            }
+        }
+    }
+}
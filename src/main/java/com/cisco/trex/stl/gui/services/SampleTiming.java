@@ -0,0 +1,31 @@
+package com.cisco.trex.stl.gui.services;
+
+
+/**
+ * When a stats sample was taken, see {@link SamplingScheduler}
+ */
+public class SampleTiming {
+    private final double time;
+    private final double rpcLatency;
+
+    public SampleTiming(final double time, final double rpcLatency) {
+        this.time = time;
+        this.rpcLatency = rpcLatency;
+    }
+
+    /**
+     * @return when the server took the sample, in seconds since the epoch of
+     * the client clock: the server timestamp when the reply carries one,
+     * otherwise the middle of the RPC round trip
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * @return RPC round trip in seconds
+     */
+    public double getRpcLatency() {
+        return rpcLatency;
+    }
+}
@@ -0,0 +1,236 @@
+package com.cisco.trex.stl.gui.services;
+
+import javafx.util.Duration;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Fixed-rate sampling of the server stats, off the JavaFX thread.
+ * <p>
+ * One timer thread keeps the ticks of all the jobs on a fixed grid, so the
+ * period does not drift with the RPC time. On every tick the sample runs on
+ * the executor of the job, a tick that finds the previous sample of the job
+ * still running is skipped instead of queued.
+ * <p>
+ * Every sample is timed with {@link System#nanoTime()} around the RPC, so
+ * busy FX or polling threads do not shift the timestamps. The sample time is
+ * the middle of the round trip, or the server timestamp of the reply mapped
+ * to the client clock by a {@link ServerClock}, see {@link PollingCoordinator}.
+ * <p>
+ * The monotonic clock is anchored to the wall clock, and anchored again when
+ * they drift apart: the monotonic clock stops during a suspend on some
+ * systems. A tick coming several periods late, after a suspend or a stall of
+ * the timer, starts the grid of its job again instead of firing the missed
+ * ticks in a burst.
+ */
+public class SamplingScheduler {
+    public interface Sampler<T> {
+        /**
+         * @return the sample, null if there is none
+         * @throws Exception
+         */
+        T sample() throws Exception;
+    }
+
+    public interface SampleConsumer<T> {
+        /**
+         * Called on the sampling thread, not on the JavaFX thread
+         *
+         * @param value
+         * @param timing
+         */
+        void accept(T value, SampleTiming timing);
+    }
+
+    private static final Logger LOG = Logger.getLogger(SamplingScheduler.class);
+
+    /**
+     * Drift between the monotonic and the wall clocks anchoring them again,
+     * in seconds
+     */
+    private static final double MAX_ANCHOR_DRIFT = 1;
+
+    /**
+     * Periods after which a late tick starts the grid again
+     */
+    private static final int STALLED_PERIODS = 3;
+
+    private static SamplingScheduler instance = null;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "stats-sampling");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Anchor anchor = new Anchor();
+
+    public static synchronized SamplingScheduler getInstance() {
+        if (instance == null) {
+            instance = new SamplingScheduler();
+        }
+        return instance;
+    }
+
+    private SamplingScheduler() {
+    }
+
+    /**
+     * Start sampling, the first sample is taken at once
+     *
+     * @param period
+     * @param executor the samples run on
+     * @param sampler
+     * @param consumer
+     * @return the job, to be cancelled
+     */
+    public <T> Job<T> schedule(
+            final Duration period,
+            final Executor executor,
+            final Sampler<T> sampler,
+            final SampleConsumer<T> consumer
+    ) {
+        final Job<T> job = new Job<>(executor, sampler, consumer, (long) (period.toMillis() * 1000000));
+        synchronized (job.lock) {
+            job.start();
+        }
+        return job;
+    }
+
+    /**
+     * @param nanos value of {@link System#nanoTime()}
+     * @return time in seconds since the epoch
+     */
+    public double toTime(final long nanos) {
+        final Anchor current = anchor;
+        return current.time + (nanos - current.nanos) / 1e9;
+    }
+
+    private void checkAnchor() {
+        final double drift = System.currentTimeMillis() / 1000.0 - toTime(System.nanoTime());
+        if (Math.abs(drift) > MAX_ANCHOR_DRIFT) {
+            LOG.info(String.format("Wall clock moved %.3f s away from the monotonic clock, anchoring again", drift));
+            anchor = new Anchor();
+        }
+    }
+
+    private static class Anchor {
+        private final long nanos = System.nanoTime();
+        private final double time = System.currentTimeMillis() / 1000.0;
+    }
+
+    public class Job<T> {
+        private final Executor executor;
+        private final Sampler<T> sampler;
+        private final SampleConsumer<T> consumer;
+        private final long periodNanos;
+        private final AtomicBoolean isSampling = new AtomicBoolean(false);
+        private final Object lock = new Object();
+        private volatile boolean isCancelled = false;
+        private volatile long skippedTicks = 0;
+        private long lastTickNanos = 0;
+        private ScheduledFuture<?> future;
+
+        private Job(
+                final Executor executor,
+                final Sampler<T> sampler,
+                final SampleConsumer<T> consumer,
+                final long periodNanos
+        ) {
+            this.executor = executor;
+            this.sampler = sampler;
+            this.consumer = consumer;
+            this.periodNanos = periodNanos;
+        }
+
+        /**
+         * Stop sampling, no sample is handed to the consumer after this
+         * returns but the one the consumer may be handling already, consumers
+         * check their own state under their own lock
+         */
+        public void cancel() {
+            synchronized (lock) {
+                isCancelled = true;
+                future.cancel(false);
+            }
+        }
+
+        public boolean isCancelled() {
+            return isCancelled;
+        }
+
+        /**
+         * @return ticks skipped because the previous sample was still running
+         */
+        public long getSkippedTicks() {
+            return skippedTicks;
+        }
+
+        /**
+         * Schedule the ticks from now, called under the lock
+         */
+        private void start() {
+            lastTickNanos = 0;
+            future = timer.scheduleAtFixedRate(this::tick, 0, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void tick() {
+            if (isCancelled) {
+                return;
+            }
+            checkAnchor();
+            final long nanos = System.nanoTime();
+            final boolean isStalled = lastTickNanos != 0 && nanos - lastTickNanos > STALLED_PERIODS * periodNanos;
+            lastTickNanos = nanos;
+            if (isStalled) {
+                synchronized (lock) {
+                    if (!isCancelled) {
+                        future.cancel(false);
+                        start();
+                    }
+                }
+                return;
+            }
+            if (!isSampling.compareAndSet(false, true)) {
+                skippedTicks++;
+                return;
+            }
+            try {
+                executor.execute(this::sample);
+            } catch (RuntimeException exc) {
+                isSampling.set(false);
+                LOG.error("Unable to start a stats sample", exc);
+            }
+        }
+
+        private void sample() {
+            try {
+                final long sendNanos = System.nanoTime();
+                final T value = sampler.sample();
+                final long receiveNanos = System.nanoTime();
+                if (value == null) {
+                    return;
+                }
+                final SampleTiming timing = new SampleTiming(
+                        toTime(sendNanos + (receiveNanos - sendNanos) / 2),
+                        (receiveNanos - sendNanos) / 1e9
+                );
+                // the consumer runs outside the lock, a long sample must not
+                // block a cancel from the FX thread
+                if (!isCancelled) {
+                    consumer.accept(value, timing);
+                }
+            } catch (Exception exc) {
+                LOG.error("Error sampling the stats", exc);
+            } finally {
+                isSampling.set(false);
+            }
+        }
+    }
+}
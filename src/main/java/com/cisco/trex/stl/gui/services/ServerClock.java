@@ -0,0 +1,61 @@
+package com.cisco.trex.stl.gui.services;
+
+
+/**
+ * Offset between the client clock and the clock of a server, estimated from
+ * the replies carrying a server timestamp.
+ * <p>
+ * The server read its clock between the request and the reply, so every reply
+ * bounds the offset by half its round trip. The estimate of the fastest round
+ * trip is kept, its error grows with its age so that a newer reply replaces
+ * it once the clocks may have drifted. A reply far off the estimate, after a
+ * server restart or a suspend of the client, starts the estimate over.
+ */
+public class ServerClock {
+    /**
+     * Drift allowed between the clocks, in seconds per second
+     */
+    private static final double MAX_DRIFT = 1e-3;
+
+    /**
+     * Offset change starting the estimate over, in seconds
+     */
+    private static final double MAX_STEP = 1;
+
+    private double offset = Double.NaN;
+    private double error = Double.POSITIVE_INFINITY;
+    private double estimateTime = Double.NaN;
+
+    /**
+     * @param sendTime client time of the request, in seconds
+     * @param receiveTime client time of the reply, in seconds
+     * @param serverTime server time in the reply, in seconds, NaN if unknown
+     * @return client time of the server time, within the round trip, the
+     * middle of the round trip if the server time is unknown
+     */
+    public synchronized double toClientTime(final double sendTime, final double receiveTime, final double serverTime) {
+        final double middle = (sendTime + receiveTime) / 2;
+        if (Double.isNaN(serverTime)) {
+            return middle;
+        }
+        final double replyOffset = serverTime - middle;
+        final double replyError = (receiveTime - sendTime) / 2;
+        final double agedError = error + (middle - estimateTime) * MAX_DRIFT;
+        if (Double.isNaN(offset)
+                || Math.abs(replyOffset - offset) > MAX_STEP + replyError + agedError
+                || replyError <= agedError) {
+            offset = replyOffset;
+            error = replyError;
+            estimateTime = middle;
+        }
+        return Math.min(receiveTime, Math.max(sendTime, serverTime - offset));
+    }
+
+    /**
+     * @return server time minus client time in seconds, NaN before the first
+     * server time
+     */
+    public synchronized double getOffset() {
+        return offset;
+    }
+}
@@ -1,31 +1,24 @@
 package com.cisco.trex.stl.gui.services;
 
 import com.cisco.trex.stateless.model.stats.Utilization;
-import com.exalttech.trex.core.ConnectionManager;
-import com.exalttech.trex.core.RPCCommands;
-import javafx.concurrent.ScheduledService;
-import javafx.concurrent.Task;
-import org.apache.log4j.Logger;
+import com.exalttech.trex.util.Constants;
 
+import java.util.Collections;
 
-public class UtilizationService extends ScheduledService<Utilization> {
-    private static Logger LOG = Logger.getLogger(UtilizationService.class);
 
+public class UtilizationService implements PollingCoordinator.Query<Utilization> {
     @Override
-    protected Task<Utilization> createTask() {
-        return new Task<Utilization>() {
-            @Override
-            protected Utilization call() {
-                try {
-                    if (ConnectionManager.getInstance().getApiH() == null) {
-                        return null;
-                    }
-                    return RPCCommands.getUtilization();
-                } catch (Exception exc) {
-                    LOG.error("Failed to get utilization", exc);
-                }
-                return null;
-            }
-        };
+    public String getMethod() {
+        return Constants.GET_UTILIZATION_METHOD;
+    }
+
+    @Override
+    public Object getParameters() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Class<Utilization> getResultType() {
+        return Utilization.class;
     }
 }
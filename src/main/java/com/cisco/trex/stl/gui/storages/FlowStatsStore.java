@@ -0,0 +1,660 @@
+package com.cisco.trex.stl.gui.storages;
+
+import com.cisco.trex.stateless.model.stats.FlowStat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Ring history of the PGID flow stats kept as primitive columns.
+ * <p>
+ * All PGIDs are sampled together, so the sample times are kept once in a
+ * shared time column. Every PGID has one column per metric indexed like the
+ * time column, and its history is the run of samples since it appeared or was
+ * restarted. Adding a sample allocates nothing once the PGID is known, apart
+ * from the growth of its rollups.
+ * <p>
+ * The rates are also rolled up into a {@link RollupHistory} per PGID, so
+ * windows longer than the raw history are read from coarser buckets, they
+ * grow to about 134 KB per PGID after a day of traffic. With a
+ * {@link HistoryArchive} set, every sample is appended to its flow log too.
+ * <p>
+ * The per port counters and rates of the last sample are kept too, only for
+ * the ports of the PGID, looked up by a port index shared by all PGIDs. They
+ * are filled while the totals are summed.
+ * <p>
+ * Data is read through a {@link Cursor}. The store is not thread safe, callers
+ * hold the data lock of {@link PGIDStatsStorage}.
+ */
+public class FlowStatsStore {
+    private static final int L1_OVERHEAD_BITS = 20 * 8;
+
+    private static final int ROLLUP_RBS = 0;
+    private static final int ROLLUP_RPS = 1;
+    private static final int ROLLUP_TBS = 2;
+    private static final int ROLLUP_TPS = 3;
+    private static final int ROLLUP_COLUMNS = 4;
+
+    private static final int RB = 0;
+    private static final int RP = 1;
+    private static final int TB = 2;
+    private static final int TP = 3;
+    private static final int RBS = 0;
+    private static final int RPS = 1;
+    private static final int TBS = 2;
+    private static final int TPS = 3;
+    private static final int PORT_METRICS = 4;
+
+    private final int capacity;
+    private final double[] time;
+    private final double[] rpcLatency;
+    private long samples = 0;
+    private final Map<Integer, Columns> columnsMap = new HashMap<>();
+    private final double[] rollupValues = new double[ROLLUP_COLUMNS];
+    private final double[] archiveValues = new double[HistoryArchive.FLOW_WIDTH];
+    private HistoryArchive archive;
+    private final Map<String, Integer> portIndexMap = new HashMap<>();
+    private final List<String> portNames = new ArrayList<>();
+
+    public FlowStatsStore(final int capacity) {
+        this.capacity = capacity;
+        this.time = new double[capacity];
+        this.rpcLatency = new double[capacity];
+    }
+
+    /**
+     * Start a new sample, the stats of the sample are then added per PGID
+     *
+     * @param sampleTime in seconds
+     * @param sampleRpcLatency round trip of the RPC that read the sample, in
+     * seconds, NaN if unknown
+     */
+    public void startSample(final double sampleTime, final double sampleRpcLatency) {
+        time[slot(samples)] = sampleTime;
+        rpcLatency[slot(samples)] = sampleRpcLatency;
+        samples++;
+    }
+
+    /**
+     * Add the stats of a PGID to the current sample
+     *
+     * @param pgID
+     * @param flowStat
+     * @return true if the tx packets counter did not move since the previous
+     * sample of the PGID
+     */
+    public boolean add(final int pgID, final FlowStat flowStat) {
+        final Columns columns = columns(pgID);
+        final int slot = slot(samples - 1);
+        final boolean hasPrevious = samples - 1 > columns.first;
+        final long previousTp = hasPrevious ? columns.tp[slot(samples - 2)] : -1;
+        final PortColumns ports = columns.ports;
+        ports.startSample();
+        columns.rb[slot] = sumCounter(flowStat.getRb(), ports, RB);
+        columns.rp[slot] = sumCounter(flowStat.getRp(), ports, RP);
+        columns.tb[slot] = sumCounter(flowStat.getTb(), ports, TB);
+        columns.tp[slot] = sumCounter(flowStat.getTp(), ports, TP);
+        columns.rbs[slot] = sumRate(flowStat.getRbs(), ports, RBS);
+        columns.rps[slot] = sumRate(flowStat.getRps(), ports, RPS);
+        columns.tbs[slot] = sumRate(flowStat.getTbs(), ports, TBS);
+        columns.tps[slot] = sumRate(flowStat.getTps(), ports, TPS);
+        completeSample(columns, slot);
+        if (archive != null) {
+            archive.append(archive.getFlowLog(), time[slot], pgID, toRecord(columns, slot));
+        }
+        return hasPrevious && previousTp == columns.tp[slot];
+    }
+
+    /**
+     * @param archive archive appended to on every sample, null to stop
+     */
+    public void setArchive(final HistoryArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Load the samples kept by a flow log, called on an empty store
+     *
+     * @param log
+     * @param from in seconds, older samples are skipped
+     * @throws IOException
+     */
+    public void restore(final SegmentLog log, final double from) throws IOException {
+        final double[] lastTime = {Double.NaN};
+        log.read(from, Double.MAX_VALUE, (final double sampleTime, final int pgID, final double[] values) -> {
+            if (sampleTime != lastTime[0]) {
+                startSample(sampleTime, Double.NaN);
+                lastTime[0] = sampleTime;
+            }
+            final Columns columns = columns(pgID);
+            if (columns.last < samples - 2) {
+                // the PGID missed samples, its raw history starts again
+                columns.first = samples - 1;
+            }
+            final int slot = slot(samples - 1);
+            columns.rb[slot] = (long) values[0];
+            columns.rp[slot] = (long) values[1];
+            columns.tb[slot] = (long) values[2];
+            columns.tp[slot] = (long) values[3];
+            columns.rbs[slot] = values[4];
+            columns.rps[slot] = values[5];
+            columns.tbs[slot] = values[6];
+            columns.tps[slot] = values[7];
+            completeSample(columns, slot);
+        });
+    }
+
+    /**
+     * Take the samples of a store of the same capacity, called on an empty
+     * store. The other store must not be used afterwards.
+     *
+     * @param restored store filled by {@link #restore}, off the data lock
+     */
+    public void takeOver(final FlowStatsStore restored) {
+        System.arraycopy(restored.time, 0, time, 0, capacity);
+        System.arraycopy(restored.rpcLatency, 0, rpcLatency, 0, capacity);
+        samples = restored.samples;
+        columnsMap.putAll(restored.columnsMap);
+        portIndexMap.putAll(restored.portIndexMap);
+        portNames.addAll(restored.portNames);
+    }
+
+    /**
+     * Drop the history and the shadow of a PGID, its history starts again with
+     * the current sample
+     *
+     * @param pgID
+     */
+    public void restart(final int pgID) {
+        final Columns columns = columnsMap.get(pgID);
+        if (columns != null) {
+            columns.first = samples - 1;
+            columns.hasShadow = false;
+            columns.rollups.clear();
+        }
+    }
+
+    /**
+     * Keep the last sample of every PGID only and use it as the shadow
+     */
+    public void reset() {
+        columnsMap.values().forEach((final Columns columns) -> {
+            columns.rollups.clear();
+            if (historySize(columns) > 0) {
+                columns.first = samples - 1;
+                columns.setShadow(slot(samples - 1));
+                addRollup(columns, slot(samples - 1));
+            } else {
+                columns.hasShadow = false;
+            }
+        });
+    }
+
+    public void remove(final int pgID) {
+        columnsMap.remove(pgID);
+    }
+
+    public void clear() {
+        columnsMap.clear();
+        portIndexMap.clear();
+        portNames.clear();
+    }
+
+    /**
+     * @return live view of the PGIDs in the store
+     */
+    public Set<Integer> getPGIDs() {
+        return columnsMap.keySet();
+    }
+
+    /**
+     * @return new cursor, cursors can be reused for several PGIDs
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private Columns columns(final int pgID) {
+        Columns columns = columnsMap.get(pgID);
+        if (columns == null) {
+            columns = new Columns(capacity, samples - 1);
+            columnsMap.put(pgID, columns);
+        }
+        return columns;
+    }
+
+    private void completeSample(final Columns columns, final int slot) {
+        columns.last = samples - 1;
+        if (!columns.hasShadow) {
+            columns.setShadow(slot);
+        }
+        addRollup(columns, slot);
+    }
+
+    private double[] toRecord(final Columns columns, final int slot) {
+        archiveValues[0] = columns.rb[slot];
+        archiveValues[1] = columns.rp[slot];
+        archiveValues[2] = columns.tb[slot];
+        archiveValues[3] = columns.tp[slot];
+        archiveValues[4] = columns.rbs[slot];
+        archiveValues[5] = columns.rps[slot];
+        archiveValues[6] = columns.tbs[slot];
+        archiveValues[7] = columns.tps[slot];
+        return archiveValues;
+    }
+
+    private void addRollup(final Columns columns, final int slot) {
+        rollupValues[ROLLUP_RBS] = columns.rbs[slot];
+        rollupValues[ROLLUP_RPS] = columns.rps[slot];
+        rollupValues[ROLLUP_TBS] = columns.tbs[slot];
+        rollupValues[ROLLUP_TPS] = columns.tps[slot];
+        columns.rollups.add(time[slot], rollupValues);
+    }
+
+    private int historySize(final Columns columns) {
+        return (int) Math.min(samples - columns.first, capacity);
+    }
+
+    private int slot(final long sample) {
+        return (int) (sample % capacity);
+    }
+
+    private long sumCounter(final Map<String, Long> values, final PortColumns ports, final int counter) {
+        long sum = 0;
+        if (values != null) {
+            for (final Map.Entry<String, Long> entry : values.entrySet()) {
+                final long value = entry.getValue();
+                final int position = ports.entry(portIndex(entry.getKey()));
+                ports.counters[counter][position] = value;
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    private double sumRate(final Map<String, Double> values, final PortColumns ports, final int rate) {
+        double sum = 0;
+        if (values != null) {
+            for (final Map.Entry<String, Double> entry : values.entrySet()) {
+                final double value = entry.getValue();
+                final int position = ports.entry(portIndex(entry.getKey()));
+                ports.rates[rate][position] = value;
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    private int portIndex(final String port) {
+        Integer index = portIndexMap.get(port);
+        if (index == null) {
+            index = portNames.size();
+            portIndexMap.put(port, index);
+            portNames.add(port);
+        }
+        return index;
+    }
+
+    /**
+     * Reads the history of one PGID, index 0 is the oldest sample.
+     * <p>
+     * When a rollup tier is selected the rates are the bucket averages and the
+     * counters are the ones of the last raw sample.
+     */
+    public class Cursor {
+        private Columns columns;
+        private RollupHistory.Tier tier;
+        private int size;
+        private long start;
+        private int slot;
+        private int index;
+
+        private Cursor() {
+        }
+
+        /**
+         * @param pgID
+         * @return false if the PGID has no history
+         */
+        public boolean select(final int pgID) {
+            tier = null;
+            columns = columnsMap.get(pgID);
+            if (columns == null) {
+                size = 0;
+                return false;
+            }
+            size = historySize(columns);
+            start = samples - size;
+            if (size > 0) {
+                moveToLast();
+            }
+            return size > 0;
+        }
+
+        /**
+         * Select the raw samples if they span the window, the matching rollup
+         * tier otherwise
+         *
+         * @param pgID
+         * @param window in seconds, the raw samples are one second apart
+         * @return false if the PGID has no history
+         */
+        public boolean select(final int pgID, final double window) {
+            if (!select(pgID) || window < capacity) {
+                return size > 0;
+            }
+            tier = columns.rollups.tierFor(window);
+            size = tier.size();
+            moveToLast();
+            return size > 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return bucket length in seconds, 0 for raw samples
+         */
+        public int getResolution() {
+            return tier != null ? tier.getResolution() : 0;
+        }
+
+        public void moveTo(final int index) {
+            this.index = index;
+            if (tier == null) {
+                slot = slot(start + index);
+            }
+        }
+
+        public void moveToLast() {
+            moveTo(size - 1);
+        }
+
+        public double getTime() {
+            return tier != null ? tier.getTime(index) : time[slot];
+        }
+
+        /**
+         * @return round trip of the RPC that read the raw sample in seconds,
+         * NaN if unknown
+         */
+        public double getRpcLatency() {
+            return rpcLatency[slot];
+        }
+
+        public long getRb() {
+            return columns.rb[slot];
+        }
+
+        public double getRbsL2() {
+            return rate(ROLLUP_RBS, columns.rbs);
+        }
+
+        public double getRbsL1() {
+            return getRbsL2() + L1_OVERHEAD_BITS * getRps();
+        }
+
+        public long getRp() {
+            return columns.rp[slot];
+        }
+
+        public double getRps() {
+            return rate(ROLLUP_RPS, columns.rps);
+        }
+
+        public long getTb() {
+            return columns.tb[slot];
+        }
+
+        public double getTbsL2() {
+            return rate(ROLLUP_TBS, columns.tbs);
+        }
+
+        public double getTbsL1() {
+            return getTbsL2() + L1_OVERHEAD_BITS * getTps();
+        }
+
+        public long getTp() {
+            return columns.tp[slot];
+        }
+
+        public double getTps() {
+            return rate(ROLLUP_TPS, columns.tps);
+        }
+
+        /**
+         * @return rx bytes counter at the last reset, 0 if there is none
+         */
+        public long getShadowRb() {
+            return columns.hasShadow ? columns.shadowRb : 0;
+        }
+
+        public long getShadowRp() {
+            return columns.hasShadow ? columns.shadowRp : 0;
+        }
+
+        public long getShadowTb() {
+            return columns.hasShadow ? columns.shadowTb : 0;
+        }
+
+        public long getShadowTp() {
+            return columns.hasShadow ? columns.shadowTp : 0;
+        }
+
+        /**
+         * @return ports seen so far, the range of the port indexes
+         */
+        public int getPortsCount() {
+            return portNames.size();
+        }
+
+        /**
+         * @param port port index
+         * @return port ID as reported by the server
+         */
+        public String getPortName(final int port) {
+            return portNames.get(port);
+        }
+
+        /**
+         * @param port port index
+         * @return true if the last sample of the PGID has stats on the port
+         */
+        public boolean hasPort(final int port) {
+            return columns.ports.find(port) >= 0;
+        }
+
+        /**
+         * @param port port index of a port the PGID has, see {@link #hasPort}
+         * @return rx bytes received on the port in the last sample
+         */
+        public long getPortRb(final int port) {
+            return columns.ports.getCounter(RB, port);
+        }
+
+        public long getPortRp(final int port) {
+            return columns.ports.getCounter(RP, port);
+        }
+
+        public long getPortTb(final int port) {
+            return columns.ports.getCounter(TB, port);
+        }
+
+        public long getPortTp(final int port) {
+            return columns.ports.getCounter(TP, port);
+        }
+
+        /**
+         * @param port port index of a port the PGID has, see {@link #hasPort}
+         * @return rx bytes counter of the port at the last reset
+         */
+        public long getPortShadowRb(final int port) {
+            return columns.hasShadow ? columns.ports.getShadow(RB, port) : 0;
+        }
+
+        public long getPortShadowRp(final int port) {
+            return columns.hasShadow ? columns.ports.getShadow(RP, port) : 0;
+        }
+
+        public long getPortShadowTb(final int port) {
+            return columns.hasShadow ? columns.ports.getShadow(TB, port) : 0;
+        }
+
+        public long getPortShadowTp(final int port) {
+            return columns.hasShadow ? columns.ports.getShadow(TP, port) : 0;
+        }
+
+        public double getPortRbsL2(final int port) {
+            return columns.ports.getRate(RBS, port);
+        }
+
+        public double getPortRbsL1(final int port) {
+            return getPortRbsL2(port) + L1_OVERHEAD_BITS * getPortRps(port);
+        }
+
+        public double getPortRps(final int port) {
+            return columns.ports.getRate(RPS, port);
+        }
+
+        public double getPortTbsL2(final int port) {
+            return columns.ports.getRate(TBS, port);
+        }
+
+        public double getPortTbsL1(final int port) {
+            return getPortTbsL2(port) + L1_OVERHEAD_BITS * getPortTps(port);
+        }
+
+        public double getPortTps(final int port) {
+            return columns.ports.getRate(TPS, port);
+        }
+
+        private double rate(final int rollupColumn, final double[] rates) {
+            return tier != null ? tier.getAvg(rollupColumn, index) : rates[slot];
+        }
+    }
+
+    private static class Columns {
+        private final long[] rb;
+        private final long[] rp;
+        private final long[] tb;
+        private final long[] tp;
+        private final double[] rbs;
+        private final double[] rps;
+        private final double[] tbs;
+        private final double[] tps;
+        private long first;
+        private long last;
+        private final RollupHistory rollups = new RollupHistory(ROLLUP_COLUMNS);
+        private final PortColumns ports = new PortColumns();
+
+        private boolean hasShadow = false;
+        private long shadowRb;
+        private long shadowRp;
+        private long shadowTb;
+        private long shadowTp;
+
+        Columns(final int capacity, final long first) {
+            rb = new long[capacity];
+            rp = new long[capacity];
+            tb = new long[capacity];
+            tp = new long[capacity];
+            rbs = new double[capacity];
+            rps = new double[capacity];
+            tbs = new double[capacity];
+            tps = new double[capacity];
+            this.first = first;
+            this.last = first;
+        }
+
+        void setShadow(final int slot) {
+            hasShadow = true;
+            shadowRb = rb[slot];
+            shadowRp = rp[slot];
+            shadowTb = tb[slot];
+            shadowTp = tp[slot];
+            ports.setShadow();
+        }
+    }
+
+    /**
+     * Per port stats of the last sample of a PGID, kept only for the ports the
+     * PGID has: a sorted array of port indexes and parallel value arrays
+     */
+    private static class PortColumns {
+        private int[] ports = new int[0];
+        private int count;
+        private final long[][] counters = new long[PORT_METRICS][0];
+        private final double[][] rates = new double[PORT_METRICS][0];
+        private int[] shadowPorts = new int[0];
+        private final long[][] shadow = new long[PORT_METRICS][0];
+
+        void startSample() {
+            count = 0;
+        }
+
+        /**
+         * @param port port index
+         * @return position of the port in the value arrays, added with zero
+         * values if the port is not in the sample yet
+         */
+        int entry(final int port) {
+            int position = find(port);
+            if (position >= 0) {
+                return position;
+            }
+            position = -position - 1;
+            if (count == ports.length) {
+                final int length = Math.max(4, 2 * count);
+                ports = Arrays.copyOf(ports, length);
+                for (int metric = 0; metric < PORT_METRICS; ++metric) {
+                    counters[metric] = Arrays.copyOf(counters[metric], length);
+                    rates[metric] = Arrays.copyOf(rates[metric], length);
+                }
+            }
+            final int moved = count - position;
+            System.arraycopy(ports, position, ports, position + 1, moved);
+            ports[position] = port;
+            for (int metric = 0; metric < PORT_METRICS; ++metric) {
+                System.arraycopy(counters[metric], position, counters[metric], position + 1, moved);
+                System.arraycopy(rates[metric], position, rates[metric], position + 1, moved);
+                counters[metric][position] = 0;
+                rates[metric][position] = 0;
+            }
+            count++;
+            return position;
+        }
+
+        int find(final int port) {
+            return Arrays.binarySearch(ports, 0, count, port);
+        }
+
+        long getCounter(final int metric, final int port) {
+            final int position = find(port);
+            return position >= 0 ? counters[metric][position] : 0;
+        }
+
+        double getRate(final int metric, final int port) {
+            final int position = find(port);
+            return position >= 0 ? rates[metric][position] : 0;
+        }
+
+        long getShadow(final int metric, final int port) {
+            final int position = Arrays.binarySearch(shadowPorts, port);
+            return position >= 0 ? shadow[metric][position] : 0;
+        }
+
+        void setShadow() {
+            shadowPorts = Arrays.copyOf(ports, count);
+            for (int metric = 0; metric < PORT_METRICS; ++metric) {
+                shadow[metric] = Arrays.copyOf(counters[metric], count);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.cisco.trex.stl.gui.storages;
+
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * Disk-backed stats history of one server, a {@link SegmentLog} per metric
+ * family in one directory.
+ * <p>
+ * An archive opened on a directory that already holds one goes on appending
+ * to it, so the history survives a GUI restart in the middle of a test.
+ * The oldest segments of a family are deleted once they are older than
+ * {@link #MAX_AGE} or the family takes more than {@link #MAX_BYTES}.
+ * A write error is logged once and stops recording the family, it never
+ * reaches the polling.
+ */
+public class HistoryArchive implements Closeable {
+    private static final Logger LOG = Logger.getLogger(HistoryArchive.class.getName());
+
+    /**
+     * Record per PGID: rb, rp, tb, tp, rbs, rps, tbs, tps
+     */
+    public static final String FLOW = "flow";
+
+    /**
+     * Record per socket: CPU utilization
+     */
+    public static final String UTILIZATION = "utilization";
+
+    /**
+     * Seconds of history kept per family
+     */
+    public static final double MAX_AGE = 7 * 24 * 60 * 60;
+
+    /**
+     * Bytes of history kept per family
+     */
+    public static final long MAX_BYTES = 512L * 1024 * 1024;
+
+    public static final int FLOW_WIDTH = 8;
+    public static final int UTILIZATION_WIDTH = 1;
+
+    private static final int SEGMENT_RECORDS = 1 << 16;
+
+    private final File directory;
+    private final SegmentLog flowLog;
+    private final SegmentLog utilizationLog;
+    private final Set<SegmentLog> failedLogs = Collections.synchronizedSet(new HashSet<>());
+
+    /**
+     * @param directory created if it does not exist
+     * @param readOnly true to open a finished session
+     * @throws IOException
+     */
+    public HistoryArchive(final File directory, final boolean readOnly) throws IOException {
+        this.directory = directory;
+        flowLog = new SegmentLog(directory, FLOW, FLOW_WIDTH, SEGMENT_RECORDS, readOnly);
+        utilizationLog = new SegmentLog(directory, UTILIZATION, UTILIZATION_WIDTH, SEGMENT_RECORDS, readOnly);
+        if (!readOnly) {
+            flowLog.setRetention(MAX_AGE, MAX_BYTES);
+            utilizationLog.setRetention(MAX_AGE, MAX_BYTES);
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public SegmentLog getFlowLog() {
+        return flowLog;
+    }
+
+    public SegmentLog getUtilizationLog() {
+        return utilizationLog;
+    }
+
+    /**
+     * Append a record, nothing is appended to a family that failed
+     *
+     * @param log
+     * @param time in seconds
+     * @param key
+     * @param values
+     */
+    public void append(final SegmentLog log, final double time, final int key, final double[] values) {
+        if (failedLogs.contains(log)) {
+            return;
+        }
+        try {
+            log.append(time, key, values);
+        } catch (IOException | RuntimeException exc) {
+            failedLogs.add(log);
+            LOG.error("Error appending to the stats history in " + directory, exc);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (final SegmentLog log : new SegmentLog[]{flowLog, utilizationLog}) {
+            try {
+                log.close();
+            } catch (IOException exc) {
+                LOG.error("Error closing the stats history in " + directory, exc);
+            }
+        }
+    }
+}
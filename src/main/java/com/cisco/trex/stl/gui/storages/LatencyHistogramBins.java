@@ -0,0 +1,306 @@
+package com.cisco.trex.stl.gui.storages;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Latency histogram of one PGID built from the cumulative histograms polled
+ * from the server.
+ * <p>
+ * Bins are keyed by the integer lower bound reported by the server and kept
+ * sorted. Every sample adds the per bin delta to the session counts and to
+ * the counts of every sliding window, the samples leaving a window are taken
+ * off again, so percentiles never need the server maps. Windows are in
+ * seconds of sample time, so after a polling gap they only hold the samples
+ * taken since, and they keep at most {@link #SAMPLES_PER_SECOND} samples per
+ * second of the longest window. The first sample is
+ * the baseline of the session, like the shadow of the other latency stats.
+ * The counts since the previous snapshot are kept too, see
+ * {@link #takeSnapshot}.
+ * <p>
+ * Not thread safe, callers hold the data lock of {@link PGIDStatsStorage}.
+ */
+public class LatencyHistogramBins {
+    /**
+     * Samples kept per second of the longest window, the stats are polled
+     * every second
+     */
+    public static final int SAMPLES_PER_SECOND = 2;
+
+    private static final Bin[] NO_BINS = new Bin[0];
+
+    private final double[] windows;
+    private final int ringSize;
+    private final double[] times;
+    private final long[] windowStarts;
+    private final Map<String, Bin> binsByKey = new HashMap<>();
+    private Bin[] bins = NO_BINS;
+    private long samples = 0;
+    private long sessionTotal = 0;
+    private final long[] windowTotals;
+
+    /**
+     * @param windows lengths of the sliding windows in seconds
+     */
+    public LatencyHistogramBins(final double... windows) {
+        this.windows = windows.clone();
+        this.windowTotals = new long[windows.length];
+        this.windowStarts = new long[windows.length];
+        double maxWindow = 1;
+        for (final double window : windows) {
+            if (!(window > 0)) {
+                throw new IllegalArgumentException("Invalid window " + window);
+            }
+            maxWindow = Math.max(maxWindow, window);
+        }
+        this.ringSize = (int) Math.ceil(maxWindow * SAMPLES_PER_SECOND);
+        this.times = new double[ringSize];
+    }
+
+    /**
+     * Add a sample
+     *
+     * @param histogram cumulative counts by bin lower bound, as sent by the
+     * server
+     * @param time of the sample in seconds
+     * @return true if a new bin appeared
+     */
+    public boolean update(final Map<String, Long> histogram, final double time) {
+        boolean isNewBin = false;
+        for (final Bin bin : bins) {
+            bin.delta = 0;
+        }
+        if (histogram != null) {
+            for (final Map.Entry<String, Long> entry : histogram.entrySet()) {
+                Bin bin = binsByKey.get(entry.getKey());
+                if (bin == null) {
+                    bin = addBin(entry.getKey());
+                    if (bin == null) {
+                        continue;
+                    }
+                    isNewBin = true;
+                }
+                final long cumulative = entry.getValue();
+                // counters going back were restarted by the server
+                bin.delta = cumulative >= bin.last ? cumulative - bin.last : cumulative;
+                bin.last = cumulative;
+            }
+        }
+
+        for (int w = 0; w < windows.length; ++w) {
+            // the slot of the new sample is freed from every window
+            while (windowStarts[w] < samples
+                    && (samples - windowStarts[w] >= ringSize || times[slot(windowStarts[w])] <= time - windows[w])) {
+                evict(w, slot(windowStarts[w]));
+                windowStarts[w]++;
+            }
+        }
+
+        final boolean isBaseline = samples == 0;
+        final int slot = slot(samples);
+        times[slot] = time;
+        for (final Bin bin : bins) {
+            final long delta = isBaseline ? 0 : bin.delta;
+            for (int w = 0; w < windows.length; ++w) {
+                bin.window[w] += delta;
+                windowTotals[w] += delta;
+            }
+            bin.ring[slot] = delta;
+            bin.session += delta;
+            bin.interval += delta;
+            sessionTotal += delta;
+        }
+        samples++;
+        return isNewBin;
+    }
+
+    /**
+     * Start the session and the windows again from the last sample
+     */
+    public void reset() {
+        for (final Bin bin : bins) {
+            bin.session = 0;
+            bin.interval = 0;
+            Arrays.fill(bin.window, 0);
+            Arrays.fill(bin.ring, 0);
+        }
+        sessionTotal = 0;
+        Arrays.fill(windowTotals, 0);
+        Arrays.fill(windowStarts, samples);
+    }
+
+    public int getBinsCount() {
+        return bins.length;
+    }
+
+    /**
+     * @param index bins are sorted by lower bound
+     * @return lower bound of the bin in microseconds
+     */
+    public int getBin(final int index) {
+        return bins[index].value;
+    }
+
+    /**
+     * @param index
+     * @return count of the bin since the session start
+     */
+    public long getCount(final int index) {
+        return bins[index].session;
+    }
+
+    /**
+     * @param index
+     * @return count of the bin since the previous snapshot
+     */
+    public long getIntervalCount(final int index) {
+        return bins[index].interval;
+    }
+
+    /**
+     * @param value lower bound of the bin in microseconds
+     * @return count of the bin since the session start, 0 for an unknown bin
+     */
+    public long getCountOf(final int value) {
+        int low = 0;
+        int high = bins.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (bins[middle].value < value) {
+                low = middle + 1;
+            } else if (bins[middle].value > value) {
+                high = middle - 1;
+            } else {
+                return bins[middle].session;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param index
+     * @return count of the bin in the last sample, 0 for the baseline
+     */
+    public long getLastCount(final int index) {
+        return samples == 0 ? 0 : bins[index].ring[slot(samples - 1)];
+    }
+
+    public long getTotal() {
+        return sessionTotal;
+    }
+
+    /**
+     * @param window index of the window given to the constructor
+     * @return count of the window, all bins together
+     */
+    public long getWindowTotal(final int window) {
+        return windowTotals[window];
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return lower bound of the bin holding the percentile of the session,
+     * -1 if the session is empty
+     */
+    public int getValueAtPercentile(final double percentile) {
+        return valueAtPercentile(percentile, sessionTotal, -1);
+    }
+
+    /**
+     * @param window index of the window given to the constructor
+     * @param percentile between 0 and 100
+     * @return lower bound of the bin holding the percentile of the window, -1
+     * if the window is empty
+     */
+    public int getWindowValueAtPercentile(final int window, final double percentile) {
+        return valueAtPercentile(percentile, windowTotals[window], window);
+    }
+
+    /**
+     * Copy the counts of the bins that moved since the previous snapshot and
+     * start the next one
+     *
+     * @param values filled with the lower bounds of the bins, at least
+     * {@link #getBinsCount()} long
+     * @param counts filled with the counts, as long as values
+     * @return number of bins copied
+     */
+    public int takeSnapshot(final int[] values, final long[] counts) {
+        int size = 0;
+        for (final Bin bin : bins) {
+            if (bin.interval != 0) {
+                values[size] = bin.value;
+                counts[size] = bin.interval;
+                size++;
+                bin.interval = 0;
+            }
+        }
+        return size;
+    }
+
+    private void evict(final int window, final int slot) {
+        for (final Bin bin : bins) {
+            bin.window[window] -= bin.ring[slot];
+            windowTotals[window] -= bin.ring[slot];
+        }
+    }
+
+    private int slot(final long sample) {
+        return (int) (sample % ringSize);
+    }
+
+    private int valueAtPercentile(final double percentile, final long total, final int window) {
+        if (total <= 0) {
+            return -1;
+        }
+        // the tolerance keeps 99.9% of 1000 at rank 999 despite the rounding
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total - 1e-6));
+        long count = 0;
+        for (final Bin bin : bins) {
+            count += window < 0 ? bin.session : bin.window[window];
+            if (count >= rank) {
+                return bin.value;
+            }
+        }
+        return bins[bins.length - 1].value;
+    }
+
+    private Bin addBin(final String key) {
+        final int value;
+        try {
+            value = Integer.parseInt(key);
+        } catch (NumberFormatException exc) {
+            return null;
+        }
+        final Bin bin = new Bin(value, windows.length, ringSize);
+        int index = 0;
+        while (index < bins.length && bins[index].value < value) {
+            index++;
+        }
+        final Bin[] newBins = new Bin[bins.length + 1];
+        System.arraycopy(bins, 0, newBins, 0, index);
+        newBins[index] = bin;
+        System.arraycopy(bins, index, newBins, index + 1, bins.length - index);
+        bins = newBins;
+        binsByKey.put(key, bin);
+        return bin;
+    }
+
+    private static class Bin {
+        private final int value;
+        private final long[] window;
+        private final long[] ring;
+        private long last = 0;
+        private long delta = 0;
+        private long session = 0;
+        private long interval = 0;
+
+        Bin(final int value, final int windows, final int ringSize) {
+            this.value = value;
+            this.window = new long[windows];
+            this.ring = new long[ringSize];
+        }
+    }
+}
@@ -0,0 +1,599 @@
+package com.cisco.trex.stl.gui.storages;
+
+import com.cisco.trex.stateless.model.stats.LatencyStat;
+import com.cisco.trex.stateless.model.stats.LatencyStatErr;
+import com.cisco.trex.stateless.model.stats.LatencyStatLat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+
+/**
+ * Ring history of the PGID latency stats kept as primitive columns.
+ * <p>
+ * Like {@link FlowStatsStore}, all PGIDs share one time column and every PGID
+ * has one column per scalar: total max, last max, average, jitter, errors and
+ * the p99/p99.9 of the last 10 s. The server latency objects are not retained,
+ * the error counters and the histogram are only kept for the last sample.
+ * <p>
+ * The histogram of every PGID lives in a {@link LatencyHistogramBins}. Every
+ * {@link #SNAPSHOT_PERIOD} samples the counts of the bins that moved since the
+ * previous snapshot are kept, so the histogram history costs a few sparse
+ * arrays per PGID and the histogram chart can count any window of the raw
+ * history, see {@link Cursor#getWindowCounts}. For the latency heatmap the
+ * counts of every sample are also kept per {@link #HEATMAP_ROWS} log scaled
+ * rows, as row/count cells of the rows holding packets only.
+ * <p>
+ * Data is read through a {@link Cursor}. The store is not thread safe, callers
+ * hold the data lock of {@link PGIDStatsStorage}.
+ */
+public class LatencyStatsStore {
+    /**
+     * Sliding windows of the latency percentiles, in seconds
+     */
+    private static final double[] WINDOWS = {10, 60};
+    public static final int WINDOW_10S = 0;
+    public static final int WINDOW_1MIN = 1;
+
+    public static final int SNAPSHOT_PERIOD = 10;
+    /**
+     * Row 0 below 10 us, then nine rows per decade up to 100 s
+     */
+    public static final int HEATMAP_ROWS = 64;
+
+    private static final int ERR_TOTAL = 0;
+    private static final int ERR_DRP = 1;
+    private static final int ERR_DUP = 2;
+    private static final int ERR_OOO = 3;
+    private static final int ERR_STH = 4;
+    private static final int ERR_STL = 5;
+    private static final int ERR_FIELDS = 6;
+
+    /**
+     * A heatmap cell packs the row above the count
+     */
+    private static final int HEATMAP_ROW_SHIFT = 58;
+    private static final long HEATMAP_COUNT_MASK = (1L << HEATMAP_ROW_SHIFT) - 1;
+    private static final long[] NO_CELLS = new long[0];
+
+    private final int capacity;
+    private final int snapshotsCapacity;
+    private final double[] time;
+    private final double[] rpcLatency;
+    private long samples = 0;
+    private final Map<Integer, Columns> columnsMap = new HashMap<>();
+    private int[] histogramBins = new int[0];
+    private boolean isBinsChanged = false;
+    private int[] snapshotValues = new int[0];
+    private long[] snapshotCounts = new long[0];
+    private final long[] heatmapCounts = new long[HEATMAP_ROWS];
+
+    public LatencyStatsStore(final int capacity) {
+        this.capacity = capacity;
+        this.snapshotsCapacity = capacity / SNAPSHOT_PERIOD + 1;
+        this.time = new double[capacity];
+        this.rpcLatency = new double[capacity];
+    }
+
+    /**
+     * Start a new sample, the stats of the sample are then added per PGID
+     *
+     * @param sampleTime in seconds
+     * @param sampleRpcLatency round trip of the RPC that read the sample, in
+     * seconds, NaN if unknown
+     */
+    public void startSample(final double sampleTime, final double sampleRpcLatency) {
+        time[slot(samples)] = sampleTime;
+        rpcLatency[slot(samples)] = sampleRpcLatency;
+        samples++;
+    }
+
+    /**
+     * Add the stats of a PGID to the current sample
+     *
+     * @param pgID
+     * @param latencyStat
+     */
+    public void add(final int pgID, final LatencyStat latencyStat) {
+        final Columns columns = columns(pgID);
+        final int slot = slot(samples - 1);
+        final LatencyStatLat lat = latencyStat.getLat();
+        final LatencyStatErr err = latencyStat.getErr();
+
+        if (columns.histogram.update(lat.getHistogram(), time[slot])) {
+            isBinsChanged = true;
+        }
+        updateHeatmap(columns, slot);
+
+        columns.totalMax[slot] = lat.getTotalMax();
+        columns.lastMax[slot] = lat.getLastMax();
+        columns.average[slot] = lat.getAverage();
+        columns.jitter[slot] = lat.getJit();
+        columns.errors[slot] = err.getTotal();
+        columns.p99[slot] = columns.histogram.getWindowValueAtPercentile(WINDOW_10S, 99);
+        columns.p999[slot] = columns.histogram.getWindowValueAtPercentile(WINDOW_10S, 99.9);
+
+        columns.err[ERR_TOTAL] = err.getTotal();
+        columns.err[ERR_DRP] = err.getDrp();
+        columns.err[ERR_DUP] = err.getDup();
+        columns.err[ERR_OOO] = err.getOoo();
+        columns.err[ERR_STH] = err.getSth();
+        columns.err[ERR_STL] = err.getStl();
+
+        columns.maxLatency = Math.max(columns.maxLatency, columns.lastMax[slot]);
+        if (!columns.hasShadow) {
+            columns.setShadow();
+        }
+        if ((samples - 1 - columns.first) % SNAPSHOT_PERIOD == SNAPSHOT_PERIOD - 1) {
+            takeSnapshot(columns);
+        }
+    }
+
+    /**
+     * Keep the last sample of every PGID only and use it as the shadow
+     */
+    public void reset() {
+        columnsMap.values().forEach((final Columns columns) -> {
+            columns.histogram.reset();
+            columns.snapshots.clear();
+            if (historySize(columns) > 0) {
+                columns.first = samples - 1;
+                columns.maxLatency = columns.lastMax[slot(samples - 1)];
+                columns.setShadow();
+            } else {
+                columns.maxLatency = 0;
+                columns.hasShadow = false;
+            }
+        });
+    }
+
+    /**
+     * Drop the history, the histogram and the shadow of a PGID, the next
+     * sample of the PGID starts them again
+     *
+     * @param pgID
+     */
+    public void remove(final int pgID) {
+        if (columnsMap.remove(pgID) != null) {
+            isBinsChanged = true;
+        }
+    }
+
+    public void clear() {
+        columnsMap.clear();
+        histogramBins = new int[0];
+        isBinsChanged = false;
+    }
+
+    /**
+     * @return live view of the PGIDs in the store
+     */
+    public Set<Integer> getPGIDs() {
+        return columnsMap.keySet();
+    }
+
+    /**
+     * @param size
+     * @return lower bounds of the last size histogram bins of all the PGIDs,
+     * sorted
+     */
+    public int[] getHistogramBins(final int size) {
+        if (isBinsChanged) {
+            final SortedSet<Integer> values = new TreeSet<>();
+            columnsMap.values().forEach((final Columns columns) -> {
+                for (int i = 0; i < columns.histogram.getBinsCount(); ++i) {
+                    values.add(columns.histogram.getBin(i));
+                }
+            });
+            histogramBins = values.stream().mapToInt(Integer::intValue).toArray();
+            isBinsChanged = false;
+        }
+        return Arrays.copyOfRange(histogramBins, Math.max(0, histogramBins.length - size), histogramBins.length);
+    }
+
+    /**
+     * @return new cursor, cursors can be reused for several PGIDs
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private Columns columns(final int pgID) {
+        Columns columns = columnsMap.get(pgID);
+        if (columns == null) {
+            columns = new Columns(capacity, snapshotsCapacity, samples - 1);
+            columnsMap.put(pgID, columns);
+        }
+        return columns;
+    }
+
+    /**
+     * @param bin lower bound of a histogram bin in microseconds
+     * @return heatmap row of the bin
+     */
+    public static int getHeatmapRow(final int bin) {
+        if (bin < 10) {
+            return 0;
+        }
+        int digit = bin;
+        int decade = 0;
+        while (digit >= 10) {
+            digit /= 10;
+            decade++;
+        }
+        return Math.min(HEATMAP_ROWS - 1, 1 + (decade - 1) * 9 + digit - 1);
+    }
+
+    /**
+     * @param row
+     * @return lower bound of the heatmap row in microseconds
+     */
+    public static int getHeatmapRowBound(final int row) {
+        if (row == 0) {
+            return 0;
+        }
+        int bound = (row - 1) % 9 + 1;
+        for (int decade = (row - 1) / 9 + 1; decade > 0; --decade) {
+            bound *= 10;
+        }
+        return bound;
+    }
+
+    private void updateHeatmap(final Columns columns, final int slot) {
+        Arrays.fill(heatmapCounts, 0);
+        int cellsCount = 0;
+        final LatencyHistogramBins histogram = columns.histogram;
+        for (int i = 0; i < histogram.getBinsCount(); ++i) {
+            final long count = histogram.getLastCount(i);
+            if (count > 0) {
+                final int row = getHeatmapRow(histogram.getBin(i));
+                if (heatmapCounts[row] == 0) {
+                    cellsCount++;
+                }
+                heatmapCounts[row] = Math.min(HEATMAP_COUNT_MASK, heatmapCounts[row] + count);
+            }
+        }
+
+        long[] cells = columns.heatmap[slot];
+        if (cells == null || cells.length != cellsCount) {
+            cells = cellsCount > 0 ? new long[cellsCount] : NO_CELLS;
+            columns.heatmap[slot] = cells;
+        }
+        int cell = 0;
+        for (int row = 0; row < HEATMAP_ROWS && cell < cellsCount; ++row) {
+            if (heatmapCounts[row] > 0) {
+                cells[cell++] = (long) row << HEATMAP_ROW_SHIFT | heatmapCounts[row];
+            }
+        }
+    }
+
+    private void takeSnapshot(final Columns columns) {
+        final int binsCount = columns.histogram.getBinsCount();
+        if (snapshotValues.length < binsCount) {
+            snapshotValues = new int[binsCount];
+            snapshotCounts = new long[binsCount];
+        }
+        final int size = columns.histogram.takeSnapshot(snapshotValues, snapshotCounts);
+        columns.snapshots.add(
+                time[slot(samples - 1)],
+                Arrays.copyOf(snapshotValues, size),
+                Arrays.copyOf(snapshotCounts, size)
+        );
+    }
+
+    private int historySize(final Columns columns) {
+        return (int) Math.min(samples - columns.first, capacity);
+    }
+
+    private int slot(final long sample) {
+        return (int) (sample % capacity);
+    }
+
+    /**
+     * Reads the history of one PGID, index 0 is the oldest sample
+     */
+    public class Cursor {
+        private Columns columns;
+        private int size;
+        private long start;
+        private int slot;
+
+        private Cursor() {
+        }
+
+        /**
+         * @param pgID
+         * @return false if the PGID has no history
+         */
+        public boolean select(final int pgID) {
+            columns = columnsMap.get(pgID);
+            if (columns == null) {
+                size = 0;
+                return false;
+            }
+            size = historySize(columns);
+            start = samples - size;
+            if (size > 0) {
+                moveToLast();
+            }
+            return size > 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void moveTo(final int index) {
+            slot = slot(start + index);
+        }
+
+        public void moveToLast() {
+            moveTo(size - 1);
+        }
+
+        public double getTime() {
+            return time[slot];
+        }
+
+        /**
+         * @return round trip of the RPC that read the sample in seconds, NaN
+         * if unknown
+         */
+        public double getRpcLatency() {
+            return rpcLatency[slot];
+        }
+
+        public long getTotalMax() {
+            return columns.totalMax[slot];
+        }
+
+        /**
+         * @return heatmap rows holding packets in the sample
+         */
+        public int getHeatmapCellsCount() {
+            final long[] cells = columns.heatmap[slot];
+            return cells != null ? cells.length : 0;
+        }
+
+        /**
+         * @param cell index below {@link #getHeatmapCellsCount()}, the cells
+         * are sorted by row
+         * @return heatmap row of the cell
+         */
+        public int getHeatmapCellRow(final int cell) {
+            return (int) (columns.heatmap[slot][cell] >>> HEATMAP_ROW_SHIFT);
+        }
+
+        /**
+         * @param cell index below {@link #getHeatmapCellsCount()}
+         * @return packets of the sample in the row of the cell
+         */
+        public long getHeatmapCellCount(final int cell) {
+            return columns.heatmap[slot][cell] & HEATMAP_COUNT_MASK;
+        }
+
+        public long getLastMax() {
+            return columns.lastMax[slot];
+        }
+
+        public double getAverage() {
+            return columns.average[slot];
+        }
+
+        public long getJitter() {
+            return columns.jitter[slot];
+        }
+
+        public long getErrors() {
+            return columns.errors[slot];
+        }
+
+        /**
+         * @return p99 latency of the 10 s up to the sample, -1 if unknown
+         */
+        public int getWindowP99() {
+            return columns.p99[slot];
+        }
+
+        /**
+         * @return p99.9 latency of the 10 s up to the sample, -1 if unknown
+         */
+        public int getWindowP999() {
+            return columns.p999[slot];
+        }
+
+        /**
+         * @return highest last max since the PGID appeared or the last reset
+         */
+        public long getMaxLatency() {
+            return columns.maxLatency;
+        }
+
+        /**
+         * @return histogram of the PGID
+         */
+        public LatencyHistogramBins getHistogram() {
+            return columns.histogram;
+        }
+
+        /**
+         * @return dropped packets counter of the last sample
+         */
+        public long getDrp() {
+            return columns.err[ERR_DRP];
+        }
+
+        public long getDup() {
+            return columns.err[ERR_DUP];
+        }
+
+        public long getOoo() {
+            return columns.err[ERR_OOO];
+        }
+
+        public long getSth() {
+            return columns.err[ERR_STH];
+        }
+
+        public long getStl() {
+            return columns.err[ERR_STL];
+        }
+
+        /**
+         * @return errors counter at the last reset, 0 if there is none
+         */
+        public long getShadowErrors() {
+            return columns.hasShadow ? columns.shadowErr[ERR_TOTAL] : 0;
+        }
+
+        public long getShadowDrp() {
+            return columns.hasShadow ? columns.shadowErr[ERR_DRP] : 0;
+        }
+
+        public long getShadowDup() {
+            return columns.hasShadow ? columns.shadowErr[ERR_DUP] : 0;
+        }
+
+        public long getShadowOoo() {
+            return columns.hasShadow ? columns.shadowErr[ERR_OOO] : 0;
+        }
+
+        public long getShadowSth() {
+            return columns.hasShadow ? columns.shadowErr[ERR_STH] : 0;
+        }
+
+        public long getShadowStl() {
+            return columns.hasShadow ? columns.shadowErr[ERR_STL] : 0;
+        }
+
+        /**
+         * Count the packets of the selected PGID in the last seconds, from the
+         * snapshots and the counts since the last one. The session is counted
+         * when the window starts before the snapshots kept.
+         *
+         * @param window in seconds before the last sample
+         * @param bins lower bounds of the counted bins, sorted
+         * @param counts filled with the counts, indexed like bins
+         */
+        public void getWindowCounts(final double window, final int[] bins, final long[] counts) {
+            Arrays.fill(counts, 0, bins.length, 0);
+            final LatencyHistogramBins histogram = columns.histogram;
+            final Snapshots snapshots = columns.snapshots;
+            final double from = time[slot(samples - 1)] - window;
+            if (snapshots.isTruncated() && snapshots.time[snapshots.slot(0)] > from) {
+                for (int i = 0; i < bins.length; ++i) {
+                    counts[i] = histogram.getCountOf(bins[i]);
+                }
+                return;
+            }
+            for (int snapshot = snapshots.size() - 1; snapshot >= 0; --snapshot) {
+                final int snapshotSlot = snapshots.slot(snapshot);
+                if (snapshots.time[snapshotSlot] <= from) {
+                    break;
+                }
+                final int[] snapshotValues = snapshots.values[snapshotSlot];
+                final long[] snapshotCounts = snapshots.counts[snapshotSlot];
+                for (int i = 0; i < snapshotValues.length; ++i) {
+                    addCount(bins, counts, snapshotValues[i], snapshotCounts[i]);
+                }
+            }
+            for (int i = 0; i < histogram.getBinsCount(); ++i) {
+                addCount(bins, counts, histogram.getBin(i), histogram.getIntervalCount(i));
+            }
+        }
+
+        private void addCount(final int[] bins, final long[] counts, final int bin, final long count) {
+            final int index = Arrays.binarySearch(bins, bin);
+            if (index >= 0) {
+                counts[index] += count;
+            }
+        }
+    }
+
+    private static class Columns {
+        private final long[] totalMax;
+        private final long[] lastMax;
+        private final double[] average;
+        private final long[] jitter;
+        private final long[] errors;
+        private final int[] p99;
+        private final int[] p999;
+        private final long[][] heatmap;
+        private long first;
+        private long maxLatency = 0;
+        private final long[] err = new long[ERR_FIELDS];
+        private final LatencyHistogramBins histogram = new LatencyHistogramBins(WINDOWS);
+        private final Snapshots snapshots;
+
+        private boolean hasShadow = false;
+        private final long[] shadowErr = new long[ERR_FIELDS];
+
+        Columns(final int capacity, final int snapshotsCapacity, final long first) {
+            totalMax = new long[capacity];
+            lastMax = new long[capacity];
+            average = new double[capacity];
+            jitter = new long[capacity];
+            errors = new long[capacity];
+            p99 = new int[capacity];
+            p999 = new int[capacity];
+            heatmap = new long[capacity][];
+            snapshots = new Snapshots(snapshotsCapacity);
+            this.first = first;
+        }
+
+        void setShadow() {
+            hasShadow = true;
+            System.arraycopy(err, 0, shadowErr, 0, ERR_FIELDS);
+        }
+    }
+
+    /**
+     * Ring of sparse histogram snapshots
+     */
+    private static class Snapshots {
+        private final double[] time;
+        private final int[][] values;
+        private final long[][] counts;
+        private long added = 0;
+        private long first = 0;
+
+        Snapshots(final int capacity) {
+            time = new double[capacity];
+            values = new int[capacity][];
+            counts = new long[capacity][];
+        }
+
+        void add(final double snapshotTime, final int[] snapshotValues, final long[] snapshotCounts) {
+            final int slot = (int) (added % time.length);
+            time[slot] = snapshotTime;
+            values[slot] = snapshotValues;
+            counts[slot] = snapshotCounts;
+            added++;
+        }
+
+        void clear() {
+            first = added;
+            Arrays.fill(values, null);
+            Arrays.fill(counts, null);
+        }
+
+        int size() {
+            return (int) Math.min(added - first, time.length);
+        }
+
+        /**
+         * @return true if snapshots of the session were dropped
+         */
+        boolean isTruncated() {
+            return added - first > time.length;
+        }
+
+        int slot(final int index) {
+            return (int) ((added - size() + index) % time.length);
+        }
+    }
+}
@@ -3,71 +3,69 @@ package com.cisco.trex.stl.gui.storages;
 import com.cisco.trex.stateless.model.stats.FlowStat;
 import com.cisco.trex.stateless.model.stats.LatencyStat;
 import com.cisco.trex.stateless.model.stats.PGIdStatsRPCResult;
-import com.cisco.trex.stl.gui.models.FlowStatPoint;
-import com.cisco.trex.stl.gui.models.LatencyStatPoint;
 import com.cisco.trex.stl.gui.services.PGIDStatsService;
-import com.exalttech.trex.util.ArrayHistory;
-import javafx.concurrent.WorkerStateEvent;
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
+import com.cisco.trex.stl.gui.services.RenderScheduler;
+import com.cisco.trex.stl.gui.services.SampleTiming;
 import javafx.util.Duration;
+import org.apache.log4j.Logger;
 
+import java.io.IOException;
 import java.util.*;
 
 
 public class PGIDStatsStorage {
     public interface StatsChangedListener {
+        /**
+         * Called on the sampling thread as well as on the JavaFX thread, views
+         * only mark themselves dirty, see {@link RenderScheduler}
+         */
         void flowStatsChanged();
     }
 
+    private static final Logger LOG = Logger.getLogger(PGIDStatsStorage.class);
+
     private static final Duration POLLING_INTERVAL = Duration.seconds(1);
     private static final int HISTORY_SIZE = 301;
+    private static final double RESTORE_WINDOW = 24 * 60 * 60;
 
     private final PGIDStatsService pgIDStatsService = new PGIDStatsService();
+    private final PollingCoordinator.Topic<PGIdStatsRPCResult> pollingTopic;
+    private boolean isPolling = false;
 
     private final Object dataLock = new Object();
 
-    private final Map<Integer, ArrayHistory<FlowStatPoint>> flowStatPointHistoryMap = new HashMap<>();
+    private final FlowStatsStore flowStatsStore = new FlowStatsStore(HISTORY_SIZE);
     private final Set<Integer> stoppedPGIds = new HashSet<>();
-    private final Map<Integer, FlowStatPoint> flowStatPointShadowMap = new HashMap<>();
 
-    private final Map<Integer, ArrayHistory<LatencyStatPoint>> latencyStatPointHistoryMap = new HashMap<>();
-    private final Map<Integer, Long> maxLatencyMap = new HashMap<>();
-    private final Map<Integer, LatencyStatPoint> latencyStatPointShadowMap = new HashMap<>();
-    private String[] histogramKeys = new String[0];
+    private final LatencyStatsStore latencyStatsStore = new LatencyStatsStore(HISTORY_SIZE);
 
     private Map<String, Integer> lastVerId = new HashMap<>();
 
+    private HistoryArchive archive;
+    private HistoryArchive pendingRestore;
+    private PollingCoordinator.Subscription archiveSubscription;
+
     private final List<StatsChangedListener> statsChangedListeners = new ArrayList<>();
 
+    public PGIDStatsStorage(final PollingCoordinator pollingCoordinator) {
+        pollingTopic = pollingCoordinator.addTopic(pgIDStatsService, this::handlePGIDStatsReceived);
+    }
+
     public Object getDataLock() {
         return dataLock;
     }
 
-    public Map<Integer, ArrayHistory<FlowStatPoint>> getFlowStatPointHistoryMap() {
-        return flowStatPointHistoryMap;
+    public FlowStatsStore getFlowStatsStore() {
+        return flowStatsStore;
     }
 
     public Set<Integer> getStoppedPGIds() {
         return stoppedPGIds;
     }
 
-    public Map<Integer, FlowStatPoint> getFlowStatPointShadowMap() {
-        return flowStatPointShadowMap;
-    }
-
-    public Map<Integer, ArrayHistory<LatencyStatPoint>> getLatencyStatPointHistoryMap() {
-        return latencyStatPointHistoryMap;
-    }
-
-    public Map<Integer, Long> getMaxLatencyMap() {
-        return maxLatencyMap;
-    }
-
-    public Map<Integer, LatencyStatPoint> getLatencyStatPointShadowMap() {
-        return latencyStatPointShadowMap;
-    }
-
-    public String[] getHistogramKeys(final int size) {
-        return Arrays.copyOfRange(histogramKeys, Math.max(0, histogramKeys.length - size), histogramKeys.length);
+    public LatencyStatsStore getLatencyStatsStore() {
+        return latencyStatsStore;
     }
 
     public void addStatsChangeListener(final StatsChangedListener listener) {
@@ -82,24 +80,47 @@ public class PGIDStatsStorage {
         }
     }
 
+    /**
+     * @param archive archive the flow stats are appended to, null to stop.
+     * The flow history of the archive is restored once, on the next sample.
+     * The stats are polled while they are archived, even with no view showing
+     * them.
+     */
+    public void setArchive(final HistoryArchive archive) {
+        synchronized (dataLock) {
+            this.archive = archive;
+            pendingRestore = archive;
+            flowStatsStore.setArchive(archive);
+            if (archive != null && archiveSubscription == null) {
+                archiveSubscription = subscribe();
+            } else if (archive == null && archiveSubscription != null) {
+                archiveSubscription.cancel();
+                archiveSubscription = null;
+            }
+        }
+    }
+
+    public PollingCoordinator.Topic<PGIdStatsRPCResult> getPollingTopic() {
+        return pollingTopic;
+    }
+
+    /**
+     * @return subscription to cancel once the stats are no longer shown
+     */
+    public PollingCoordinator.Subscription subscribe() {
+        return pollingTopic.subscribe(POLLING_INTERVAL);
+    }
+
     public void startPolling() {
         synchronized (pgIDStatsService) {
-            if (!pgIDStatsService.isRunning()) {
-                Set<Integer> savedPgIDs = pgIDStatsService.getPgIDs();
-                pgIDStatsService.reset();
-                pgIDStatsService.setPGIDs(savedPgIDs);
-                pgIDStatsService.setPeriod(POLLING_INTERVAL);
-                pgIDStatsService.setOnSucceeded(this::handlePGIDStatsReceived);
-                pgIDStatsService.start();
-            }
+            isPolling = true;
         }
     }
 
     public void stopPolling() {
         synchronized (pgIDStatsService) {
-            if (pgIDStatsService.isRunning()) {
-                pgIDStatsService.cancel();
-            }
+            isPolling = false;
+            pgIDStatsService.setPGIDs(null);
         }
 
         clearStats();
@@ -107,7 +128,7 @@ public class PGIDStatsStorage {
 
     public boolean isRunning() {
         synchronized (pgIDStatsService) {
-            return pgIDStatsService.isRunning();
+            return isPolling;
         }
     }
 
@@ -117,6 +138,38 @@ public class PGIDStatsStorage {
         }
     }
 
+    /**
+     * Read the flow stats of a finished session, the last day of its flow
+     * log, off the FX thread
+     *
+     * @param restoredArchive
+     * @return store holding the history, null on error
+     */
+    static FlowStatsStore readRestored(final HistoryArchive restoredArchive) {
+        return restoreFlowStats(restoredArchive, restoredArchive.getFlowLog().getLastTime());
+    }
+
+    /**
+     * Show the flow stats read by {@link #readRestored(HistoryArchive)}
+     *
+     * @param restored null to only clear the stats
+     * @return PGIDs of the restored stats
+     */
+    Set<Integer> showRestored(final FlowStatsStore restored) {
+        final Set<Integer> pgIDs;
+        synchronized (dataLock) {
+            clearFlowStats();
+            clearLatencyStats();
+            if (restored != null) {
+                flowStatsStore.takeOver(restored);
+            }
+            pgIDs = new HashSet<>(flowStatsStore.getPGIDs());
+        }
+
+        handleStatsChanged();
+        return pgIDs;
+    }
+
     public void reset() {
         synchronized (dataLock) {
             resetFlowStats();
@@ -135,50 +188,54 @@ public class PGIDStatsStorage {
         handleStatsChanged();
     }
 
-    private void handlePGIDStatsReceived(final WorkerStateEvent event) {
-        final PGIDStatsService service = (PGIDStatsService) event.getSource();
-        final PGIdStatsRPCResult receivedPGIDStats = service.getValue();
-
-        if (receivedPGIDStats == null) {
-            return;
-        }
-
-        final Map<String, Integer> verId = receivedPGIDStats.getVerId();
-        if (verId == null) {
-            clearStats();
-            return;
+    private void handlePGIDStatsReceived(final PGIdStatsRPCResult receivedPGIDStats, final SampleTiming timing) {
+        restorePendingFlowStats(timing.getTime());
+        synchronized (pgIDStatsService) {
+            // stats polled before stopPolling
+            if (!isPolling) {
+                return;
+            }
+            processPGIDStats(receivedPGIDStats, timing);
         }
 
-        final double time = System.currentTimeMillis() / 1000.0;
+        handleStatsChanged();
+    }
 
+    private void processPGIDStats(final PGIdStatsRPCResult receivedPGIDStats, final SampleTiming timing) {
+        final Map<String, Integer> verId = receivedPGIDStats.getVerId();
         synchronized (dataLock) {
+            if (verId == null) {
+                clearFlowStats();
+                clearLatencyStats();
+                return;
+            }
+
             final Map<String, FlowStat> flowStatMap = receivedPGIDStats.getFlowStats();
             if (flowStatMap != null) {
-                processFlowStats(receivedPGIDStats.getFlowStats(), verId, time);
+                processFlowStats(receivedPGIDStats.getFlowStats(), verId, timing);
             } else {
                 clearFlowStats();
             }
 
             final Map<String, LatencyStat> latencyStatMap = receivedPGIDStats.getLatency();
             if (latencyStatMap != null) {
-                processLatencyStats(receivedPGIDStats.getLatency(), verId, time);
+                processLatencyStats(receivedPGIDStats.getLatency(), verId, timing);
             } else {
                 clearLatencyStats();
             }
 
             lastVerId = verId;
         }
-
-        handleStatsChanged();
     }
 
     private void processFlowStats(
             final Map<String, FlowStat> flowStatMap,
             final Map<String, Integer> verId,
-            final double time
+            final SampleTiming timing
     ) {
-        final Set<Integer> unvisitedStreams = new HashSet<>(flowStatPointHistoryMap.keySet());
+        final Set<Integer> unvisitedStreams = new HashSet<>(flowStatsStore.getPGIDs());
 
+        flowStatsStore.startSample(timing.getTime(), timing.getRpcLatency());
         flowStatMap.forEach((final String pgID, final FlowStat flowStat) -> {
             int intPGID;
             try {
@@ -187,63 +244,83 @@ public class PGIDStatsStorage {
                 return;
             }
 
-            unvisitedStreams.remove(intPGID);
-
-            final FlowStatPoint statsFlowHistoryPoint = new FlowStatPoint(flowStat, time);
-            ArrayHistory<FlowStatPoint> history = flowStatPointHistoryMap.get(intPGID);
-            if (history == null) {
-                history = new ArrayHistory<>(HISTORY_SIZE);
-                flowStatPointHistoryMap.put(intPGID, history);
-            } else if (!verId.get(pgID).equals(lastVerId.get(pgID))) {
-                history.clear();
+            final boolean isKnown = unvisitedStreams.remove(intPGID);
+            // restored PGIDs have no previous version
+            if (isKnown && lastVerId.containsKey(pgID) && !verId.get(pgID).equals(lastVerId.get(pgID))) {
+                flowStatsStore.restart(intPGID);
+            }
+            if (flowStatsStore.add(intPGID, flowStat)) {
+                stoppedPGIds.add(intPGID);
+            } else {
                 stoppedPGIds.remove(intPGID);
-                flowStatPointShadowMap.remove(intPGID);
-            } else if (!history.isEmpty()) {
-                final FlowStatPoint last = history.last();
-                if (last.getTp() == statsFlowHistoryPoint.getTp()) {
-                    stoppedPGIds.add(intPGID);
-                } else {
-                    stoppedPGIds.remove(intPGID);
-                }
             }
-            history.add(statsFlowHistoryPoint);
-
-            flowStatPointShadowMap.putIfAbsent(intPGID, statsFlowHistoryPoint);
         });
 
         unvisitedStreams.forEach((final Integer pgID) -> {
-            flowStatPointHistoryMap.remove(pgID);
+            flowStatsStore.remove(pgID);
             stoppedPGIds.remove(pgID);
-            flowStatPointShadowMap.remove(pgID);
         });
     }
 
     private void clearFlowStats() {
-        flowStatPointHistoryMap.clear();
+        flowStatsStore.clear();
         stoppedPGIds.clear();
-        flowStatPointShadowMap.clear();
     }
 
     private void resetFlowStats() {
-        flowStatPointShadowMap.clear();
-        flowStatPointHistoryMap.forEach((final Integer pgID, final ArrayHistory<FlowStatPoint> history) -> {
-            if (!history.isEmpty()) {
-                final FlowStatPoint last = history.last();
-                flowStatPointShadowMap.put(pgID, history.last());
-                history.clear();
-                history.add(last);
+        flowStatsStore.reset();
+    }
+
+    /**
+     * Restore the flow history of a newly set archive, the log is read with no
+     * lock held and the restored samples are taken only by an empty store
+     *
+     * @param time of the sample being received, in seconds
+     */
+    private void restorePendingFlowStats(final double time) {
+        final HistoryArchive restoredArchive;
+        synchronized (dataLock) {
+            restoredArchive = pendingRestore;
+            pendingRestore = null;
+        }
+        if (restoredArchive == null) {
+            return;
+        }
+        final FlowStatsStore restored = restoreFlowStats(restoredArchive, time);
+        if (restored == null) {
+            return;
+        }
+        synchronized (dataLock) {
+            if (archive == restoredArchive && flowStatsStore.getPGIDs().isEmpty()) {
+                flowStatsStore.takeOver(restored);
             }
-        });
+        }
+    }
+
+    /**
+     * @param restoredArchive
+     * @param time end of the restored history, in seconds
+     * @return store holding the history, null on error
+     */
+    private static FlowStatsStore restoreFlowStats(final HistoryArchive restoredArchive, final double time) {
+        final FlowStatsStore restored = new FlowStatsStore(HISTORY_SIZE);
+        try {
+            restored.restore(restoredArchive.getFlowLog(), time - RESTORE_WINDOW);
+            return restored;
+        } catch (IOException exc) {
+            LOG.error("Error restoring the flow stats history", exc);
+            return null;
+        }
     }
 
     private void processLatencyStats(
             final Map<String, LatencyStat> latencyStatMap,
             final Map<String, Integer> verId,
-            final double time
+            final SampleTiming timing
     ) {
-        final Set<Integer> unvisitedStreams = new HashSet<>(latencyStatPointHistoryMap.keySet());
-        final Set<String> histogramKeysSet = new HashSet<>();
+        final Set<Integer> unvisitedStreams = new HashSet<>(latencyStatsStore.getPGIDs());
 
+        latencyStatsStore.startSample(timing.getTime(), timing.getRpcLatency());
         latencyStatMap.forEach((final String pgID, final LatencyStat latencyStat) -> {
             int intPGID;
             try {
@@ -252,60 +329,22 @@ public class PGIDStatsStorage {
                 return;
             }
 
-            unvisitedStreams.remove(intPGID);
-
-            final LatencyStatPoint statsFlowHistoryPoint = new LatencyStatPoint(latencyStat, time);
-            ArrayHistory<LatencyStatPoint> history = latencyStatPointHistoryMap.get(intPGID);
-            if (history == null) {
-                history = new ArrayHistory<>(HISTORY_SIZE);
-                latencyStatPointHistoryMap.put(intPGID, history);
-            } else if (!verId.get(pgID).equals(lastVerId.get(pgID))) {
-                history.clear();
-                maxLatencyMap.remove(intPGID);
-                latencyStatPointShadowMap.remove(intPGID);
-            }
-            history.add(statsFlowHistoryPoint);
-
-            final long lastMax = latencyStat.getLat().getLastMax();
-            final Long maxLatency = maxLatencyMap.get(intPGID);
-            if (maxLatency == null || lastMax > maxLatency) {
-                maxLatencyMap.put(intPGID, lastMax);
+            final boolean isKnown = unvisitedStreams.remove(intPGID);
+            if (isKnown && !verId.get(pgID).equals(lastVerId.get(pgID))) {
+                latencyStatsStore.remove(intPGID);
             }
-
-            histogramKeysSet.addAll(latencyStat.getLat().getHistogram().keySet());
-
-            latencyStatPointShadowMap.putIfAbsent(intPGID, statsFlowHistoryPoint);
+            latencyStatsStore.add(intPGID, latencyStat);
         });
 
-        histogramKeys = new String[histogramKeysSet.size()];
-        histogramKeysSet.toArray(histogramKeys);
-        Arrays.sort(histogramKeys, PGIDStatsStorage::compareHistogramKeys);
-
-        unvisitedStreams.forEach((final Integer pgID) -> {
-            latencyStatPointHistoryMap.remove(pgID);
-            maxLatencyMap.remove(pgID);
-            latencyStatPointShadowMap.remove(pgID);
-        });
+        unvisitedStreams.forEach(latencyStatsStore::remove);
     }
 
     private void clearLatencyStats() {
-        latencyStatPointHistoryMap.clear();
-        maxLatencyMap.clear();
-        latencyStatPointShadowMap.clear();
+        latencyStatsStore.clear();
     }
 
     private void resetLatencyStats() {
-        latencyStatPointShadowMap.clear();
-        maxLatencyMap.clear();
-        latencyStatPointHistoryMap.forEach((final Integer pgID, final ArrayHistory<LatencyStatPoint> history) -> {
-            if (!history.isEmpty()) {
-                final LatencyStatPoint last = history.last();
-                maxLatencyMap.put(pgID, last.getLatencyStat().getLat().getLastMax());
-                latencyStatPointShadowMap.put(pgID, last);
-                history.clear();
-                history.add(last);
-            }
-        });
+        latencyStatsStore.reset();
     }
 
     private void handleStatsChanged() {
@@ -313,8 +352,4 @@ public class PGIDStatsStorage {
             statsChangedListeners.forEach(StatsChangedListener::flowStatsChanged);
         }
     }
-
-    private static int compareHistogramKeys(final String key1, final String key2) {
-        return Integer.parseInt(key1) - Integer.parseInt(key2);
-    }
 }
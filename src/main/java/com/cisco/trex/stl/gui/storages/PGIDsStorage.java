@@ -1,7 +1,10 @@
 package com.cisco.trex.stl.gui.storages;
 
+import com.cisco.trex.stateless.model.stats.ActivePGIdsRPCResult;
 import com.cisco.trex.stl.gui.services.ActivePGIDsService;
-import javafx.concurrent.WorkerStateEvent;
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
+import javafx.application.Platform;
+import javafx.scene.paint.Color;
 import javafx.util.Duration;
 
 import java.util.*;
@@ -15,23 +18,29 @@ public class PGIDsStorage {
 
     private static final Duration POLLING_INTERVAL = Duration.seconds(1);
 
-    private final Map<String, Boolean> legendColorMap = new LinkedHashMap<String, Boolean>(){{
-        put("#f3622d", false);
-        put("#fba71b", false);
-        put("#57b757", false);
-        put("#41a9c9", false);
-        put("#4258c9", false);
-        put("#9a42c8", false);
-        put("#c84164", false);
-        put("#888888", false);
-    }};
+    private static final String[] BASE_COLORS = {
+            "#f3622d", "#fba71b", "#57b757", "#41a9c9", "#4258c9", "#9a42c8", "#c84164", "#888888"
+    };
 
+    private final BitSet heldColors = new BitSet();
+    private final Map<Integer, Integer> colorIndexes = new HashMap<>();
     private final ActivePGIDsService activePGIDsService = new ActivePGIDsService();
+    private final PollingCoordinator.Topic<ActivePGIdsRPCResult> pollingTopic;
+    private boolean isPolling = false;
     private Set<Integer> pgIDs = new HashSet<>();
     private Map<Integer, String> selectedPGIds = null;
     private final Object dataLock = new Object();
     private final List<PGIDsChangedListener> pgIDsChangedListeners = new ArrayList<>();
 
+    public PGIDsStorage(final PollingCoordinator pollingCoordinator) {
+        pollingTopic = pollingCoordinator.addTopic(
+                activePGIDsService,
+                (result, timing) -> Platform.runLater(
+                        () -> handlePGIDsReceived(ActivePGIDsService.toPGIDs(result))
+                )
+        );
+    }
+
     public Object getDataLock() {
         return dataLock;
     }
@@ -44,37 +53,52 @@ public class PGIDsStorage {
         return selectedPGIds;
     }
 
+    public PollingCoordinator.Topic<ActivePGIdsRPCResult> getPollingTopic() {
+        return pollingTopic;
+    }
+
+    /**
+     * @return subscription to cancel once the PGIDs are no longer shown
+     */
+    public PollingCoordinator.Subscription subscribe() {
+        return pollingTopic.subscribe(POLLING_INTERVAL);
+    }
+
     public void startPolling() {
         synchronized (activePGIDsService) {
-            if (!activePGIDsService.isRunning()) {
-                activePGIDsService.reset();
-                activePGIDsService.setPeriod(POLLING_INTERVAL);
-                activePGIDsService.setOnSucceeded(this::handlePGIDsReceived);
-                activePGIDsService.start();
-            }
+            isPolling = true;
         }
     }
 
     public void stopPolling() {
         synchronized (activePGIDsService) {
-            if (activePGIDsService.isRunning()) {
-                activePGIDsService.cancel();
-            }
+            isPolling = false;
         }
 
         synchronized (dataLock) {
             pgIDs.clear();
             selectedPGIds = null;
+            heldColors.clear();
+            colorIndexes.clear();
         }
     }
 
+    /**
+     * Show the PGIDs of a finished session, nothing is polled
+     *
+     * @param restoredPGIDs
+     */
+    public void restore(final Set<Integer> restoredPGIDs) {
+        Platform.runLater(() -> updatePGIDs(restoredPGIDs));
+    }
+
     public void selectPGID(final Integer pgID) {
         synchronized (dataLock) {
             if (selectedPGIds == null) {
                 selectedPGIds = new HashMap<>();
             }
 
-            selectedPGIds.put(pgID, holdColor());
+            selectedPGIds.put(pgID, holdColor(pgID));
         }
 
         handlePGIDsChanged();
@@ -86,7 +110,7 @@ public class PGIDsStorage {
                 return;
             }
 
-            freeColor(selectedPGIds.get(pgID));
+            freeColor(pgID);
             selectedPGIds.remove(pgID);
         }
 
@@ -105,14 +129,18 @@ public class PGIDsStorage {
         }
     }
 
-    private void handlePGIDsReceived(final WorkerStateEvent event) {
-        final ActivePGIDsService service = (ActivePGIDsService) event.getSource();
-        final Set<Integer> receivedPGIds = service.getValue();
-
-        if (receivedPGIds == null) {
-            return;
+    private void handlePGIDsReceived(final Set<Integer> receivedPGIds) {
+        synchronized (activePGIDsService) {
+            // PGIDs posted before stopPolling
+            if (!isPolling) {
+                return;
+            }
         }
 
+        updatePGIDs(receivedPGIds);
+    }
+
+    private void updatePGIDs(final Set<Integer> receivedPGIds) {
         synchronized (dataLock) {
             if (pgIDs.equals(receivedPGIds)) {
                 return;
@@ -124,7 +152,7 @@ public class PGIDsStorage {
                 selectedPGIds = new HashMap<>();
                 int count = 4;
                 for (final int pgid : pgIDs) {
-                    selectedPGIds.put(pgid, holdColor());
+                    selectedPGIds.put(pgid, holdColor(pgid));
                     if (--count == 0) {
                         break;
                     }
@@ -147,17 +175,41 @@ public class PGIDsStorage {
         }
     }
 
-    private String holdColor() {
-        for (final Map.Entry<String, Boolean> entry : legendColorMap.entrySet()) {
-            if (!entry.getValue()) {
-                entry.setValue(true);
-                return entry.getKey();
-            }
+    private String holdColor(final int pgID) {
+        final int index = heldColors.nextClearBit(0);
+        heldColors.set(index);
+        colorIndexes.put(pgID, index);
+        return getColor(index);
+    }
+
+    private void freeColor(final int pgID) {
+        final Integer index = colorIndexes.remove(pgID);
+        if (index != null) {
+            heldColors.clear(index);
         }
-        return null;
     }
 
-    private void freeColor(final String color) {
-        legendColorMap.put(color, false);
+    /**
+     * @param index
+     * @return the base colors first, then colors spread over the hues by the
+     * golden angle, darker and paler on every turn
+     */
+    static String getColor(final int index) {
+        if (index < BASE_COLORS.length) {
+            return BASE_COLORS[index];
+        }
+        final int generated = index - BASE_COLORS.length;
+        final int turn = generated / 12;
+        final Color color = Color.hsb(
+                (15 + generated * 137.508) % 360,
+                0.8 - 0.2 * (turn % 3),
+                0.85 - 0.15 * (turn / 3 % 3)
+        );
+        return String.format(
+                "#%02x%02x%02x",
+                Math.round(color.getRed() * 255),
+                Math.round(color.getGreen() * 255),
+                Math.round(color.getBlue() * 255)
+        );
     }
 }
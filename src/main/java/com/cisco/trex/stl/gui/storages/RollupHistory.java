@@ -0,0 +1,245 @@
+package com.cisco.trex.stl.gui.storages;
+
+import java.util.Arrays;
+
+
+/**
+ * Coarse history of a set of value columns rolled up into fixed time buckets.
+ * <p>
+ * Every tier keeps min/avg/max/last per column and bucket, as floats which
+ * are precise enough for charts. Samples are added
+ * to the open bucket of every tier as they arrive, a sample falling into a new
+ * bucket closes the open one. The open bucket is readable as the last entry of
+ * its tier so that charts reach the newest sample.
+ * <p>
+ * Tier arrays are allocated by the first sample and grow with the history up
+ * to their capacity, then the oldest buckets are dropped. A full tier takes
+ * 12 + 16 * columns bytes per bucket, so the default tiers of the 4 rate
+ * columns of a PGID reach about 134 KB after a day of traffic and a history
+ * that never gets a sample costs nothing. The history is not thread safe.
+ */
+public class RollupHistory {
+    private static final int[] DEFAULT_RESOLUTIONS = {10, 60};
+    private static final int[] DEFAULT_CAPACITIES = {360, 1440};
+    private static final int INITIAL_LENGTH = 16;
+
+    private final Tier[] tiers;
+
+    /**
+     * Constructor, 10 s buckets for an hour and 1 min buckets for a day
+     *
+     * @param columns
+     */
+    public RollupHistory(final int columns) {
+        this(columns, DEFAULT_RESOLUTIONS, DEFAULT_CAPACITIES);
+    }
+
+    /**
+     * @param columns
+     * @param resolutions bucket length of every tier in seconds, finest first
+     * @param capacities buckets kept by every tier
+     */
+    public RollupHistory(final int columns, final int[] resolutions, final int[] capacities) {
+        if (resolutions.length == 0 || resolutions.length != capacities.length) {
+            throw new IllegalArgumentException("Every tier needs a resolution and a capacity");
+        }
+        tiers = new Tier[resolutions.length];
+        for (int i = 0; i < tiers.length; ++i) {
+            tiers[i] = new Tier(columns, resolutions[i], capacities[i]);
+        }
+    }
+
+    /**
+     * @param sampleTime in seconds
+     * @param values one value per column, not kept by the history
+     */
+    public void add(final double sampleTime, final double[] values) {
+        for (final Tier tier : tiers) {
+            tier.add(sampleTime, values);
+        }
+    }
+
+    public void clear() {
+        for (final Tier tier : tiers) {
+            tier.clear();
+        }
+    }
+
+    public int getTiersCount() {
+        return tiers.length;
+    }
+
+    public Tier getTier(final int index) {
+        return tiers[index];
+    }
+
+    /**
+     * @return bytes taken by the bucket arrays of all the tiers
+     */
+    public long getAllocatedBytes() {
+        long bytes = 0;
+        for (final Tier tier : tiers) {
+            bytes += tier.getAllocatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @param window in seconds
+     * @return finest tier spanning the window, the coarsest one if none does
+     */
+    public Tier tierFor(final double window) {
+        for (final Tier tier : tiers) {
+            if (tier.getSpan() >= window) {
+                return tier;
+            }
+        }
+        return tiers[tiers.length - 1];
+    }
+
+    /**
+     * Buckets of one resolution, index 0 is the oldest bucket
+     */
+    public static class Tier {
+        private final int resolution;
+        private final int capacity;
+        private final int columns;
+
+        private double[] time;
+        private int[] count;
+        private float[][] min;
+        private float[][] max;
+        private float[][] sum;
+        private float[][] last;
+
+        private int head = 0;
+        private int size = 0;
+        private long openBucket = Long.MIN_VALUE;
+
+        Tier(final int columns, final int resolution, final int capacity) {
+            this.columns = columns;
+            this.resolution = resolution;
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return bucket length in seconds
+         */
+        public int getResolution() {
+            return resolution;
+        }
+
+        /**
+         * @return seconds covered by a full tier
+         */
+        public double getSpan() {
+            return (double) resolution * capacity;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param index
+         * @return time of the last sample of the bucket
+         */
+        public double getTime(final int index) {
+            return time[slot(index)];
+        }
+
+        public double getMin(final int column, final int index) {
+            return min[column][slot(index)];
+        }
+
+        public double getMax(final int column, final int index) {
+            return max[column][slot(index)];
+        }
+
+        public double getAvg(final int column, final int index) {
+            final int slot = slot(index);
+            return (double) sum[column][slot] / count[slot];
+        }
+
+        public double getLast(final int column, final int index) {
+            return last[column][slot(index)];
+        }
+
+        void add(final double sampleTime, final double[] values) {
+            final long bucket = (long) Math.floor(sampleTime / resolution);
+            int slot;
+            if (size > 0 && bucket == openBucket) {
+                slot = slot(size - 1);
+                for (int column = 0; column < columns; ++column) {
+                    final float value = (float) values[column];
+                    min[column][slot] = Math.min(min[column][slot], value);
+                    max[column][slot] = Math.max(max[column][slot], value);
+                    sum[column][slot] += value;
+                    last[column][slot] = value;
+                }
+                count[slot]++;
+            } else {
+                slot = openSlot();
+                for (int column = 0; column < columns; ++column) {
+                    final float value = (float) values[column];
+                    min[column][slot] = value;
+                    max[column][slot] = value;
+                    sum[column][slot] = value;
+                    last[column][slot] = value;
+                }
+                count[slot] = 1;
+                openBucket = bucket;
+            }
+            time[slot] = sampleTime;
+        }
+
+        long getAllocatedBytes() {
+            if (time == null) {
+                return 0;
+            }
+            return (long) time.length * (Double.BYTES + Integer.BYTES + 4L * columns * Float.BYTES);
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+            openBucket = Long.MIN_VALUE;
+        }
+
+        private int openSlot() {
+            if (time == null) {
+                allocate(Math.min(INITIAL_LENGTH, capacity));
+            } else if (size == time.length && size < capacity) {
+                allocate(Math.min(size * 2, capacity));
+            }
+            if (size < time.length) {
+                return slot(size++);
+            }
+            final int slot = head;
+            head = (head + 1) % time.length;
+            return slot;
+        }
+
+        private void allocate(final int length) {
+            // the history only wraps once it is full, so the rows are in order
+            time = time == null ? new double[length] : Arrays.copyOf(time, length);
+            count = count == null ? new int[length] : Arrays.copyOf(count, length);
+            min = grow(min, length);
+            max = grow(max, length);
+            sum = grow(sum, length);
+            last = grow(last, length);
+        }
+
+        private float[][] grow(final float[][] rows, final int length) {
+            final float[][] result = new float[columns][];
+            for (int column = 0; column < columns; ++column) {
+                result[column] = rows == null ? new float[length] : Arrays.copyOf(rows[column], length);
+            }
+            return result;
+        }
+
+        private int slot(final int index) {
+            return (head + index) % time.length;
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.cisco.trex.stl.gui.storages;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Append-only log of fixed width samples kept in memory-mapped segment files.
+ * <p>
+ * Every record holds the sample time, a key (the PGID, socket...) and a fixed
+ * number of values. Segments hold a fixed number of records and start with a
+ * header updated on every append, so a segment stays readable if the GUI dies
+ * while writing. Sealed segments are listed with their time range in a small
+ * index file so that reads only map the segments they need.
+ * <p>
+ * With a retention set, the oldest sealed segments are deleted whenever a
+ * segment is sealed, once they are older than the retention age or the
+ * segments take more than the retention size.
+ * <p>
+ * The log is not meant to be shared between processes.
+ */
+public class SegmentLog implements Closeable {
+    public interface RecordVisitor {
+        /**
+         * @param time in seconds
+         * @param key
+         * @param values reused between records
+         */
+        void visit(double time, int key, double[] values);
+    }
+
+    static final int MAGIC = 0x54524853;
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+    private static final int COUNT_OFFSET = 12;
+    private static final int FIRST_TIME_OFFSET = 16;
+    private static final int LAST_TIME_OFFSET = 24;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final String family;
+    private final int width;
+    private final int segmentRecords;
+    private final int recordSize;
+    private final boolean readOnly;
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private long records = 0;
+    private boolean closed = false;
+    private double maxAge = Double.POSITIVE_INFINITY;
+    private long maxBytes = Long.MAX_VALUE;
+
+    /**
+     * Open the log, its existing segments are kept and appended to
+     *
+     * @param directory
+     * @param family file name prefix of the segments
+     * @param width values per record
+     * @param segmentRecords records per segment
+     * @param readOnly true to read an existing log only
+     * @throws IOException
+     */
+    public SegmentLog(
+            final File directory,
+            final String family,
+            final int width,
+            final int segmentRecords,
+            final boolean readOnly
+    ) throws IOException {
+        this.directory = directory;
+        this.family = family;
+        this.width = width;
+        this.segmentRecords = segmentRecords;
+        this.recordSize = 12 + 8 * width;
+        this.readOnly = readOnly;
+        if (!readOnly && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        load();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    /**
+     * Delete the oldest sealed segments now and whenever a segment is sealed,
+     * the active segment is always kept
+     *
+     * @param maxAge in seconds before the last record
+     * @param maxBytes size of the segment files
+     * @throws IOException
+     */
+    public synchronized void setRetention(final double maxAge, final long maxBytes) throws IOException {
+        this.maxAge = maxAge;
+        this.maxBytes = maxBytes;
+        prune();
+    }
+
+    /**
+     * @return size of the segment files in bytes
+     */
+    public synchronized long getSize() {
+        return segments.size() * segmentSize();
+    }
+
+    /**
+     * @return time of the first record, NaN if the log is empty
+     */
+    public synchronized double getFirstTime() {
+        for (final Segment segment : segments) {
+            if (segment.records > 0) {
+                return segment.firstTime;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * @return time of the last record, NaN if the log is empty
+     */
+    public synchronized double getLastTime() {
+        for (int i = segments.size() - 1; i >= 0; --i) {
+            if (segments.get(i).records > 0) {
+                return segments.get(i).lastTime;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * @param time in seconds, not earlier than the previous record
+     * @param key
+     * @param values width values
+     * @throws IOException
+     */
+    public synchronized void append(final double time, final int key, final double[] values) throws IOException {
+        if (readOnly || closed) {
+            throw new IllegalStateException("Log " + family + " is read only or closed");
+        }
+        if (active == null || active.records == segmentRecords) {
+            roll();
+            prune();
+        }
+        final MappedByteBuffer buffer = active.buffer;
+        int position = HEADER_SIZE + active.records * recordSize;
+        buffer.putDouble(position, time);
+        buffer.putInt(position + 8, key);
+        position += 12;
+        for (int i = 0; i < width; ++i) {
+            buffer.putDouble(position + 8 * i, values[i]);
+        }
+        if (active.records == 0) {
+            active.firstTime = time;
+            buffer.putDouble(FIRST_TIME_OFFSET, time);
+        }
+        active.lastTime = time;
+        buffer.putDouble(LAST_TIME_OFFSET, time);
+        // the count goes last so that a torn record is never read
+        active.records++;
+        buffer.putInt(COUNT_OFFSET, active.records);
+        records++;
+    }
+
+    /**
+     * Visit the records in the time range in append order
+     *
+     * @param from in seconds, inclusive
+     * @param to in seconds, inclusive
+     * @param visitor
+     * @return records visited
+     * @throws IOException
+     */
+    public synchronized long read(final double from, final double to, final RecordVisitor visitor) throws IOException {
+        final double[] values = new double[width];
+        long visited = 0;
+        for (final Segment segment : segments) {
+            if (segment.records == 0 || segment.lastTime < from || segment.firstTime > to) {
+                continue;
+            }
+            final MappedByteBuffer buffer = segment.buffer != null ? segment.buffer : map(segment.id, true);
+            for (int record = 0; record < segment.records; ++record) {
+                final int position = HEADER_SIZE + record * recordSize;
+                final double time = buffer.getDouble(position);
+                if (time < from || time > to) {
+                    continue;
+                }
+                final int key = buffer.getInt(position + 8);
+                for (int i = 0; i < width; ++i) {
+                    values[i] = buffer.getDouble(position + 12 + 8 * i);
+                }
+                visitor.visit(time, key, values);
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Write the active segment to the disk
+     */
+    public synchronized void flush() {
+        if (active != null) {
+            active.buffer.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        closed = true;
+        active = null;
+        segments.forEach((final Segment segment) -> segment.buffer = null);
+    }
+
+    private void load() throws IOException {
+        final Map<Integer, Segment> indexed = readIndex();
+        final File[] files = directory.listFiles((final File dir, final String name) ->
+                name.startsWith(family + "-") && name.endsWith(SEGMENT_SUFFIX));
+        final int[] ids = files == null ? new int[0] : Arrays.stream(files)
+                .map(File::getName)
+                .mapToInt(this::segmentId)
+                .filter(id -> id >= 0)
+                .sorted()
+                .toArray();
+        for (final int id : ids) {
+            Segment segment = indexed.get(id);
+            if (segment == null) {
+                // the segment was active when the log was closed
+                segment = new Segment(id);
+                final MappedByteBuffer buffer = map(id, readOnly);
+                segment.records = Math.min(buffer.getInt(COUNT_OFFSET), segmentRecords);
+                segment.firstTime = buffer.getDouble(FIRST_TIME_OFFSET);
+                segment.lastTime = buffer.getDouble(LAST_TIME_OFFSET);
+                if (!readOnly && segment.records < segmentRecords) {
+                    segment.buffer = buffer;
+                    if (active != null) {
+                        active.buffer = null;
+                    }
+                    active = segment;
+                }
+            }
+            segments.add(segment);
+            records += segment.records;
+        }
+        if (active != null && active != segments.get(segments.size() - 1)) {
+            active.buffer = null;
+            active = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        final int id;
+        if (active != null) {
+            active.buffer.force();
+            appendIndex(active);
+            active.buffer = null;
+            id = active.id + 1;
+        } else {
+            id = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).id + 1;
+        }
+        final Segment segment = new Segment(id);
+        segment.buffer = map(id, false);
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, VERSION);
+        segment.buffer.putInt(8, width);
+        segment.buffer.putInt(COUNT_OFFSET, 0);
+        segments.add(segment);
+        active = segment;
+    }
+
+    private void prune() throws IOException {
+        if (readOnly || closed) {
+            return;
+        }
+        final double lastTime = getLastTime();
+        boolean isPruned = false;
+        while (segments.size() > 1 && segments.get(0) != active) {
+            final Segment oldest = segments.get(0);
+            final boolean isTooOld = oldest.records > 0 && oldest.lastTime < lastTime - maxAge;
+            if (!isTooOld && getSize() <= maxBytes) {
+                break;
+            }
+            // a segment still mapped by a reader can not be deleted everywhere,
+            // it is tried again on the next roll
+            if (!segmentFile(oldest.id).delete()) {
+                break;
+            }
+            segments.remove(0);
+            records -= oldest.records;
+            isPruned = true;
+        }
+        if (isPruned) {
+            writeIndex();
+        }
+    }
+
+    private long segmentSize() {
+        return HEADER_SIZE + (long) segmentRecords * recordSize;
+    }
+
+    private MappedByteBuffer map(final int id, final boolean mapReadOnly) throws IOException {
+        final File file = segmentFile(id);
+        final long size = segmentSize();
+        try (RandomAccessFile raf = new RandomAccessFile(file, mapReadOnly ? "r" : "rw")) {
+            if (!mapReadOnly && raf.length() < size) {
+                raf.setLength(size);
+            }
+            if (raf.length() < size) {
+                throw new IOException(file.getName() + " is truncated");
+            }
+            final MappedByteBuffer buffer = raf.getChannel()
+                    .map(mapReadOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 0, size);
+            if (buffer.getInt(0) != 0 && (buffer.getInt(0) != MAGIC || buffer.getInt(8) != width)) {
+                throw new IOException(file.getName() + " is not a " + family + " segment");
+            }
+            return buffer;
+        }
+    }
+
+    private Map<Integer, Segment> readIndex() throws IOException {
+        final Map<Integer, Segment> indexed = new HashMap<>();
+        final File file = new File(directory, family + INDEX_SUFFIX);
+        if (!file.exists()) {
+            return indexed;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            final int entries = (int) (file.length() / 24);
+            for (int i = 0; i < entries; ++i) {
+                final Segment segment = new Segment(in.readInt());
+                segment.records = in.readInt();
+                segment.firstTime = in.readDouble();
+                segment.lastTime = in.readDouble();
+                indexed.put(segment.id, segment);
+            }
+        }
+        return indexed;
+    }
+
+    private void appendIndex(final Segment segment) throws IOException {
+        final File file = new File(directory, family + INDEX_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+            out.writeInt(segment.id);
+            out.writeInt(segment.records);
+            out.writeDouble(segment.firstTime);
+            out.writeDouble(segment.lastTime);
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        final File file = new File(directory, family + INDEX_SUFFIX);
+        final File temporary = new File(directory, family + INDEX_SUFFIX + TEMPORARY_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(temporary))) {
+            for (final Segment segment : segments) {
+                if (segment != active) {
+                    out.writeInt(segment.id);
+                    out.writeInt(segment.records);
+                    out.writeDouble(segment.firstTime);
+                    out.writeDouble(segment.lastTime);
+                }
+            }
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private File segmentFile(final int id) {
+        return new File(directory, String.format("%s-%06d%s", family, id, SEGMENT_SUFFIX));
+    }
+
+    private int segmentId(final String name) {
+        try {
+            return Integer.parseInt(name.substring(family.length() + 1, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException exc) {
+            return -1;
+        }
+    }
+
+    private static class Segment {
+        private final int id;
+        private int records;
+        private double firstTime;
+        private double lastTime;
+        private MappedByteBuffer buffer;
+
+        Segment(final int id) {
+            this.id = id;
+        }
+    }
+}
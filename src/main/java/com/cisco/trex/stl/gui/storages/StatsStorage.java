@@ -1,41 +1,109 @@
 package com.cisco.trex.stl.gui.storages;
 
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
+import com.exalttech.trex.core.ConnectionManager;
+import com.cisco.trex.stl.gui.models.CpuUtilStatPoint;
+import com.exalttech.trex.core.SessionManager;
+import com.exalttech.trex.util.ArrayHistory;
+import javafx.application.Platform;
+
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 
 public class StatsStorage {
-    private static StatsStorage instance;
-
+    /**
+     * @return stats storage of the main server session
+     */
     public static StatsStorage getInstance() {
-        if (instance == null) {
-            instance = new StatsStorage();
-        }
-        return instance;
+        return SessionManager.getInstance().getPrimarySession().getStatsStorage();
     }
 
-    private final PGIDsStorage pgIDsStorage = new PGIDsStorage();
-    private final PGIDStatsStorage pgIDStatsStorage = new PGIDStatsStorage();
-    private final UtilizationStorage utilizationStorage = new UtilizationStorage();
+    private final PollingCoordinator pollingCoordinator;
+    private final PGIDsStorage pgIDsStorage;
+    private final PGIDStatsStorage pgIDStatsStorage;
+    private final UtilizationStorage utilizationStorage;
+    private final Executor executor;
+    private volatile boolean isRestored = false;
+    private volatile HistoryArchive restoredArchive;
 
-    private StatsStorage() {
+    public StatsStorage(final ConnectionManager connectionManager, final Executor executor) {
+        this.executor = executor;
+        pollingCoordinator = new PollingCoordinator(connectionManager, executor);
+        pgIDsStorage = new PGIDsStorage(pollingCoordinator);
+        pgIDStatsStorage = new PGIDStatsStorage(pollingCoordinator);
+        utilizationStorage = new UtilizationStorage(pollingCoordinator);
+        // the polled PGIDs follow the active ones
+        pgIDStatsStorage.getPollingTopic().addDependency(pgIDsStorage.getPollingTopic());
         pgIDsStorage.addPGIDsChangedListener(this::handleSelectedPGIDsChanged);
     }
 
     public void startPolling() {
         pgIDsStorage.startPolling();
         utilizationStorage.startPolling();
+        pollingCoordinator.start();
     }
 
     public void stopPolling() {
+        final boolean wasRestored = isRestored;
+        isRestored = false;
+        restoredArchive = null;
+        pollingCoordinator.stop();
         pgIDsStorage.stopPolling();
         utilizationStorage.stopPolling();
 
-        if (pgIDStatsStorage.isRunning()) {
+        if (wasRestored) {
+            utilizationStorage.clearHistory();
+        }
+        if (wasRestored || pgIDStatsStorage.isRunning()) {
             pgIDStatsStorage.stopPolling();
         }
     }
 
+    /**
+     * @param archive archive the PGID stats and utilization are appended to,
+     * null to stop
+     */
+    public void setArchive(final HistoryArchive archive) {
+        pgIDStatsStorage.setArchive(archive);
+        utilizationStorage.setArchive(archive);
+    }
+
+    /**
+     * Show the stats kept by a finished session, nothing is polled until
+     * {@link #stopPolling()}. The logs are read on the executor and the stats
+     * shown on the FX thread once read.
+     *
+     * @param archive read only archive
+     */
+    public void restore(final HistoryArchive archive) {
+        isRestored = true;
+        restoredArchive = archive;
+        pgIDsStorage.stopPolling();
+        executor.execute(() -> {
+            final Map<String, ArrayHistory<CpuUtilStatPoint>> utilization = UtilizationStorage.readRestored(archive);
+            final FlowStatsStore flowStats = PGIDStatsStorage.readRestored(archive);
+            Platform.runLater(() -> {
+                // closed or replaced while it was read
+                if (restoredArchive != archive) {
+                    return;
+                }
+                utilizationStorage.showRestored(utilization);
+                pgIDsStorage.restore(pgIDStatsStorage.showRestored(flowStats));
+            });
+        });
+    }
+
+    /**
+     * @return polling loop of the server, the periodic stats of the views are
+     * subscribed to it
+     */
+    public PollingCoordinator getPollingCoordinator() {
+        return pollingCoordinator;
+    }
+
     public PGIDsStorage getPGIDsStorage() {
         return pgIDsStorage;
     }
@@ -49,6 +117,10 @@ public class StatsStorage {
     }
 
     private void handleSelectedPGIDsChanged() {
+        // the restored stats are all kept whatever the selection
+        if (isRestored) {
+            return;
+        }
         synchronized (pgIDsStorage.getDataLock()) {
             final Set<Integer> pgIdsToRequest = new HashSet<>(pgIDsStorage.getSelectedPGIds().keySet());
             pgIdsToRequest.retainAll(pgIDsStorage.getPgIDs());
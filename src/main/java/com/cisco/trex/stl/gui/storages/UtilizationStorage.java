@@ -5,11 +5,14 @@ import com.cisco.trex.stateless.model.stats.UtilizationCPU;
 import com.cisco.trex.stl.gui.models.CpuUtilStatPoint;
 import com.cisco.trex.stl.gui.models.MemoryUtilizationModel;
 import com.cisco.trex.stl.gui.models.UtilizationCPUModel;
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
 import com.cisco.trex.stl.gui.services.UtilizationService;
 import com.exalttech.trex.util.ArrayHistory;
-import javafx.concurrent.WorkerStateEvent;
+import javafx.application.Platform;
 import javafx.util.Duration;
+import org.apache.log4j.Logger;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -17,10 +20,21 @@ import static java.util.stream.Collectors.*;
 
 
 public class UtilizationStorage {
+    private static final Logger LOG = Logger.getLogger(UtilizationStorage.class);
+
+    /**
+     * Seconds of CPU utilization charted, one point per second
+     */
+    private static final int HISTORY_SIZE = 303;
+
     private List<UtilizationCPUModel> cpuUtilsModels = new ArrayList<>();
     private List<MemoryUtilizationModel> memUtilsModels = new ArrayList<>();
     private Object utilizationStatsMonitor = new Object();
     private Map<String, ArrayHistory<CpuUtilStatPoint>> cpuUtilizationHistoryMap = new HashMap<>();
+    private HistoryArchive archive;
+    private HistoryArchive pendingRestore;
+    private PollingCoordinator.Subscription archiveSubscription;
+    private final double[] utilizationRecord = new double[HistoryArchive.UTILIZATION_WIDTH];
 
     public interface UtilizationChangedListener {
         void utilizationChanged();
@@ -29,11 +43,23 @@ public class UtilizationStorage {
     private static final Duration POLLING_INTERVAL = Duration.seconds(1);
 
     private final UtilizationService utilizationService = new UtilizationService();
+    private final PollingCoordinator.Topic<Utilization> pollingTopic;
+    private boolean isPolling = false;
 
     private Utilization utilization = null;
     private final Object dataLock = new Object();
     private final List<UtilizationChangedListener> utilizationChangedListeners = new ArrayList<>();
 
+    public UtilizationStorage(final PollingCoordinator pollingCoordinator) {
+        pollingTopic = pollingCoordinator.addTopic(
+                utilizationService,
+                (receivedUtilization, timing) -> {
+                    restorePendingHistory(timing.getTime());
+                    Platform.runLater(() -> handleUtilizationReceived(receivedUtilization, timing.getTime()));
+                }
+        );
+    }
+
     public Object getDataLock() {
         return dataLock;
     }
@@ -54,22 +80,74 @@ public class UtilizationStorage {
         return memUtilsModels;
     }
 
+    /**
+     * @param archive archive the CPU utilization is appended to, null to stop.
+     * The CPU history of the archive is restored once, on the next sample.
+     * The utilization is polled while it is archived, even with no view
+     * showing it.
+     */
+    public void setArchive(final HistoryArchive archive) {
+        synchronized (dataLock) {
+            this.archive = archive;
+            pendingRestore = archive;
+            if (archive != null && archiveSubscription == null) {
+                archiveSubscription = subscribe();
+            } else if (archive == null && archiveSubscription != null) {
+                archiveSubscription.cancel();
+                archiveSubscription = null;
+            }
+        }
+    }
+
+    /**
+     * @return subscription to cancel once the utilization is no longer shown
+     */
+    public PollingCoordinator.Subscription subscribe() {
+        return pollingTopic.subscribe(POLLING_INTERVAL);
+    }
+
+    /**
+     * Read the CPU utilization of a finished session, the end of its
+     * utilization log, off the FX thread
+     *
+     * @param restoredArchive
+     * @return history per socket, empty on error
+     */
+    static Map<String, ArrayHistory<CpuUtilStatPoint>> readRestored(final HistoryArchive restoredArchive) {
+        return readHistory(restoredArchive, restoredArchive.getUtilizationLog().getLastTime());
+    }
+
+    /**
+     * Show the CPU utilization read by {@link #readRestored(HistoryArchive)}
+     *
+     * @param restored
+     */
+    void showRestored(final Map<String, ArrayHistory<CpuUtilStatPoint>> restored) {
+        synchronized (dataLock) {
+            cpuUtilizationHistoryMap.clear();
+            cpuUtilizationHistoryMap.putAll(restored);
+        }
+
+        handleUtilizationChanged();
+    }
+
+    public void clearHistory() {
+        synchronized (dataLock) {
+            cpuUtilizationHistoryMap.clear();
+        }
+
+        handleUtilizationChanged();
+    }
+
     public void startPolling() {
         synchronized (utilizationService) {
-            if (!utilizationService.isRunning()) {
-                utilizationService.reset();
-                utilizationService.setPeriod(POLLING_INTERVAL);
-                utilizationService.setOnSucceeded(this::handleUtilizationReceived);
-                utilizationService.start();
-            }
+            isPolling = true;
         }
     }
 
     public void stopPolling() {
         synchronized (utilizationService) {
-            if (utilizationService.isRunning()) {
-                utilizationService.cancel();
-            }
+            isPolling = false;
         }
 
         synchronized (dataLock) {
@@ -89,12 +167,12 @@ public class UtilizationStorage {
         }
     }
 
-    private void handleUtilizationReceived(final WorkerStateEvent event) {
-        final UtilizationService service = (UtilizationService) event.getSource();
-        final Utilization receivedUtilization = service.getValue();
-
-        if (receivedUtilization == null) {
-            return;
+    private void handleUtilizationReceived(final Utilization receivedUtilization, final double time) {
+        synchronized (utilizationService) {
+            // a sample posted before stopPolling
+            if (!isPolling) {
+                return;
+            }
         }
         synchronized (utilizationStatsMonitor) {
             synchronized (dataLock) {
@@ -117,11 +195,14 @@ public class UtilizationStorage {
                         history = entryOptional.get().getValue();
                         cpuUtilizationHistoryMap.remove(entryOptional.get().getKey());
                     } else {
-                        history = new ArrayHistory<>(303);
+                        history = new ArrayHistory<>(HISTORY_SIZE);
                     }
                     int value = cpuUtilizationStat.getHistory().get(0);
-                    double time = System.currentTimeMillis() / 1000.0;
                     history.add(new CpuUtilStatPoint(value, time));
+                    if (archive != null) {
+                        utilizationRecord[0] = value;
+                        archive.append(archive.getUtilizationLog(), time, idx, utilizationRecord);
+                    }
                     cpuUtilizationHistoryMap.put(key, history);
                     idx++;
                 }
@@ -136,6 +217,59 @@ public class UtilizationStorage {
         handleUtilizationChanged();
     }
 
+    /**
+     * Restore the CPU history of a newly set archive for the sockets with no
+     * history yet, the next sample of a socket goes on with it
+     *
+     * @param time of the sample being received, in seconds
+     */
+    private void restorePendingHistory(final double time) {
+        final HistoryArchive restoredArchive;
+        synchronized (dataLock) {
+            restoredArchive = pendingRestore;
+            pendingRestore = null;
+        }
+        if (restoredArchive == null) {
+            return;
+        }
+        final Map<String, ArrayHistory<CpuUtilStatPoint>> restored = readHistory(restoredArchive, time);
+        synchronized (dataLock) {
+            if (archive != restoredArchive) {
+                return;
+            }
+            restored.forEach((socketKey, history) -> {
+                final boolean isCharted = cpuUtilizationHistoryMap.keySet()
+                                                                  .stream()
+                                                                  .anyMatch(key -> key.equals(socketKey) || key.startsWith(socketKey + " "));
+                if (!isCharted) {
+                    cpuUtilizationHistoryMap.put(socketKey, history);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param restoredArchive
+     * @param time end of the restored history, in seconds
+     * @return history per socket, keyed by the socket only
+     */
+    private static Map<String, ArrayHistory<CpuUtilStatPoint>> readHistory(
+            final HistoryArchive restoredArchive,
+            final double time
+    ) {
+        final Map<String, ArrayHistory<CpuUtilStatPoint>> restored = new HashMap<>();
+        try {
+            restoredArchive.getUtilizationLog().read(time - HISTORY_SIZE, time, (sampleTime, socket, values) ->
+                    restored.computeIfAbsent(String.format("Socket %s", socket), key -> new ArrayHistory<>(HISTORY_SIZE))
+                            .add(new CpuUtilStatPoint((int) values[0], sampleTime))
+            );
+        } catch (IOException exc) {
+            LOG.error("Error restoring the CPU utilization history", exc);
+            restored.clear();
+        }
+        return restored;
+    }
+
     private ArrayHistory<Integer> toArrayHistory(List<Integer> utilizationHistory) {
         ArrayHistory<Integer> result = new ArrayHistory<>(utilizationHistory.size());
         utilizationHistory.forEach(result::add);
@@ -0,0 +1,17 @@
+package com.exalttech.trex.application.guice;
+
+import com.exalttech.trex.core.RPCMethods;
+import com.exalttech.trex.core.SessionManager;
+import com.google.inject.Provider;
+
+/**
+ * The RPC methods of the main session, they hold the port handlers so there
+ * must be a single instance per server
+ */
+public class RPCMethodsProvider implements Provider<RPCMethods> {
+
+    @Override
+    public RPCMethods get() {
+        return SessionManager.getInstance().getPrimarySession().getRPCMethods();
+    }
+}
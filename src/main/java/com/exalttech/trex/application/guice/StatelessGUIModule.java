@@ -12,7 +12,7 @@ public class StatelessGUIModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(EventBus.class).in(Singleton.class);
-        bind(RPCMethods.class).in(Singleton.class);
+        bind(RPCMethods.class).toProvider(RPCMethodsProvider.class);
         bind(RunningConfiguration.class).in(Singleton.class);
         bind(ProtocolDataView.class).toProvider(ProtocolDataViewProvider.class);
     }
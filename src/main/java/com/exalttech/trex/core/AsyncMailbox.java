@@ -0,0 +1,228 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.exalttech.trex.core.rpc.AsyncMessageRouter.AsyncMessageHandler;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hand-off of the async stats messages from the subscriber thread to the FX
+ * thread.
+ * <p>
+ * Every message name has one slot holding the latest sample only, a sample
+ * not drained yet is replaced by the newer one and counted as conflated. The
+ * slots are drained once per FX pulse, so slow consumers never hold the
+ * subscriber and the UI always gets the freshest sample.
+ */
+public class AsyncMailbox {
+
+    private static final Logger LOG = Logger.getLogger(AsyncMailbox.class.getName());
+
+    private final Map<String, Slot<?>> slots = new ConcurrentHashMap<>();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final boolean drainOnPulse;
+    private AnimationTimer drainTimer;
+
+    /**
+     * Constructor, draining starts on the first posted sample
+     */
+    public AsyncMailbox() {
+        this(true);
+    }
+
+    /**
+     * @param drainOnPulse false to leave draining to the caller
+     */
+    AsyncMailbox(boolean drainOnPulse) {
+        this.drainOnPulse = drainOnPulse;
+    }
+
+    /**
+     * Wrap a handler so that it is called on the FX thread with the latest
+     * sample only
+     *
+     * @param name message name
+     * @param handler called on the FX thread
+     * @return handler posting to the slot of the name
+     */
+    public <T> AsyncMessageHandler<T> conflating(String name, AsyncMessageHandler<T> handler) {
+        Slot<T> slot = new Slot<>(name, handler);
+        slots.put(name, slot);
+        return (type, data) -> {
+            slot.post(type, data);
+            pending.set(true);
+            startDraining();
+        };
+    }
+
+    /**
+     * Deliver the pending samples to their handlers, called by the pulse timer
+     */
+    public void drain() {
+        if (!pending.getAndSet(false)) {
+            return;
+        }
+        for (Slot<?> slot : slots.values()) {
+            try {
+                slot.deliver();
+            } catch (Exception ex) {
+                LOG.error("Error handling async message " + slot.name, ex);
+            }
+        }
+    }
+
+    /**
+     * Stop draining, pending samples are kept until the next post
+     */
+    public void stop() {
+        if (started.compareAndSet(true, false)) {
+            Platform.runLater(() -> {
+                if (drainTimer != null) {
+                    drainTimer.stop();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return counters of every slot sorted by message name
+     */
+    public List<SlotStats> getStats() {
+        List<SlotStats> result = new ArrayList<>();
+        for (Slot<?> slot : slots.values()) {
+            result.add(new SlotStats(slot.name, slot.posted.sum(), slot.conflated.sum()));
+        }
+        result.sort(Comparator.comparing(SlotStats::getName));
+        return result;
+    }
+
+    /**
+     * @return samples replaced before being delivered, all slots together
+     */
+    public long getConflated() {
+        long conflated = 0;
+        for (Slot<?> slot : slots.values()) {
+            conflated += slot.conflated.sum();
+        }
+        return conflated;
+    }
+
+    /**
+     * Forget the counters
+     */
+    public void resetStats() {
+        for (Slot<?> slot : slots.values()) {
+            slot.posted.reset();
+            slot.conflated.reset();
+        }
+    }
+
+    private void startDraining() {
+        if (!drainOnPulse || !started.compareAndSet(false, true)) {
+            return;
+        }
+        Platform.runLater(() -> {
+            if (drainTimer == null) {
+                drainTimer = new AnimationTimer() {
+                    @Override
+                    public void handle(long now) {
+                        drain();
+                    }
+                };
+            }
+            drainTimer.start();
+        });
+    }
+
+    /**
+     * Counters of one message name
+     */
+    public static class SlotStats {
+
+        private final String name;
+        private final long posted;
+        private final long conflated;
+
+        SlotStats(String name, long posted, long conflated) {
+            this.name = name;
+            this.posted = posted;
+            this.conflated = conflated;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getPosted() {
+            return posted;
+        }
+
+        public long getConflated() {
+            return conflated;
+        }
+    }
+
+    private static class Slot<T> {
+
+        private final String name;
+        private final AsyncMessageHandler<T> handler;
+        private final AtomicReference<Sample<T>> latest = new AtomicReference<>();
+        private final LongAdder posted = new LongAdder();
+        private final LongAdder conflated = new LongAdder();
+
+        Slot(String name, AsyncMessageHandler<T> handler) {
+            this.name = name;
+            this.handler = handler;
+        }
+
+        void post(int type, T data) {
+            posted.increment();
+            if (latest.getAndSet(new Sample<>(type, data)) != null) {
+                conflated.increment();
+            }
+        }
+
+        void deliver() {
+            Sample<T> sample = latest.getAndSet(null);
+            if (sample != null) {
+                handler.handle(sample.type, sample.data);
+            }
+        }
+    }
+
+    private static class Sample<T> {
+
+        private final int type;
+        private final T data;
+
+        Sample(int type, T data) {
+            this.type = type;
+            this.data = data;
+        }
+    }
+}
@@ -15,19 +15,16 @@
  */
 package com.exalttech.trex.core;
 
+import com.exalttech.trex.core.rpc.AsyncMessageRouter;
 import com.exalttech.trex.remote.models.AsyncEvent;
+import com.exalttech.trex.remote.models.AsyncEventData;
 import com.exalttech.trex.ui.views.logs.LogType;
 import com.exalttech.trex.ui.views.logs.LogsController;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.exalttech.trex.util.Constants;
+import com.fasterxml.jackson.databind.JsonNode;
 import javafx.beans.property.*;
-import javafx.beans.value.ChangeListener;
-import javafx.beans.value.ObservableValue;
 import org.apache.log4j.Logger;
 
-import java.io.IOException;
-
 /**
  *
  * @author Georgekh
@@ -35,27 +32,22 @@ import java.io.IOException;
 public class AsyncResponseManager {
 
     private static final Logger LOG = Logger.getLogger(AsyncResponseManager.class.getName());
-    private static AsyncResponseManager instance = null;
+    private static final int SERVER_STOPPED_TYPE = 100;
     private boolean muteLogger = false;
-    private Gson gson = new Gson();
     private boolean eventHandlingDisable;
 
     /**
      *
-     * @return
+     * @return async response manager of the main server session
      */
     public static AsyncResponseManager getInstance() {
-        if (instance == null) {
-            instance = new AsyncResponseManager();
-        }
-        return instance;
+        return SessionManager.getInstance().getPrimarySession().getAsyncResponseManager();
     }
-    private StringProperty trexGlobalResponse = new SimpleStringProperty();
-    private StringProperty trexEventValueProperty = new SimpleStringProperty();
-    private StringProperty trexLatencyProperty = new SimpleStringProperty();
-    private StringProperty trexFlowStatsProperty = new SimpleStringProperty();
+    private final AsyncMessageRouter messageRouter = new AsyncMessageRouter();
+    private final AsyncMailbox mailbox = new AsyncMailbox();
+    private ObjectProperty<JsonNode> trexLatencyProperty = new SimpleObjectProperty<>();
+    private ObjectProperty<JsonNode> trexFlowStatsProperty = new SimpleObjectProperty<>();
     private BooleanProperty trexEventProperty = new SimpleBooleanProperty();
-    private StringProperty asyncEventProperty = new SimpleStringProperty();
     private ObjectProperty<TrexEvent> asyncEventObjectProperty = new SimpleObjectProperty<>();
 
     /**
@@ -65,54 +57,27 @@ public class AsyncResponseManager {
         initializeDataBinding();
     }
 
-    public void setAsyncEvent(String asyncEvent) {
-        this.asyncEventProperty.set(asyncEvent);
-        
-        asyncEventObjectProperty.setValue(parseTrexEvent(asyncEvent));
-    }
-
-    private TrexEvent parseTrexEvent(String asyncEventJSON) {
-        JsonObject eventJson = gson.fromJson(asyncEventJSON, JsonObject.class);
-        return new TrexEvent(
-                eventJson.get("type").getAsInt(),
-                eventJson.get("name").getAsString(),
-                eventJson.getAsJsonObject("data")
-        );
-    }
-
     public ObjectProperty<TrexEvent> asyncEventObjectProperty() {
         return asyncEventObjectProperty;
     }
 
-    public StringProperty asyncEventProperty() {
-        return asyncEventProperty;
-    }
-
     /**
-     * Return trex global property
+     * Return the router of the async messages, trex-global handler is
+     * registered by the stats loader
      *
      * @return
      */
-    public StringProperty getTrexGlobalProperty() {
-        return trexGlobalResponse;
-    }
-
-    /**
-     * Set trex global response
-     *
-     * @param trexGlobalResponse
-     */
-    public void setTrexGlobalResponse(String trexGlobalResponse) {
-        this.trexGlobalResponse.set(trexGlobalResponse);
+    public AsyncMessageRouter getMessageRouter() {
+        return messageRouter;
     }
 
     /**
-     * Set event value
+     * Return the mailbox handing the stats messages over to the FX thread
      *
-     * @param val
+     * @return
      */
-    public void setTRexEventValue(String val) {
-        this.trexEventValueProperty.setValue(val);
+    public AsyncMailbox getMailbox() {
+        return mailbox;
     }
 
     /**
@@ -124,81 +89,63 @@ public class AsyncResponseManager {
         return trexEventProperty;
     }
 
-    /**
-     * Set trex latency response
-     *
-     * @param trexLatencyResponse
-     */
-    public void setTrexLatencyProperty(String trexLatencyResponse) {
-        this.trexLatencyProperty.set(trexLatencyResponse);
-    }
-
-    /**
-     * Set trex latency response
-     *
-     * @param trexFlowStatsResponse
-     */
-    public void setTrexFlowStatsProperty(String trexFlowStatsResponse) {
-        this.trexFlowStatsProperty.set(trexFlowStatsResponse);
-    }
-
     /**
      * Return trex latency property
      *
      * @return
      */
-    public StringProperty getTrexLatencyProperty() {
+    public ObjectProperty<JsonNode> getTrexLatencyProperty() {
         return trexLatencyProperty;
     }
 
     /**
-     * Return trex latency property
+     * Return trex flow stats property
      *
      * @return
      */
-    public StringProperty getTrexFlowStatsProperty() {
+    public ObjectProperty<JsonNode> getTrexFlowStatsProperty() {
         return trexFlowStatsProperty;
     }
 
     /**
      *
-     * @param event
+     * @param type event type
+     * @param data event data
      */
-    public void handleAsyncEvent(String event) {
+    public void handleAsyncEvent(int type, AsyncEventData data) {
         if (eventHandlingDisable) {
             return;
         }
-        setAsyncEvent(event);
-        if (!event.contains("trex-event")) {
+        asyncEventObjectProperty.setValue(new TrexEvent(type, Constants.TREX_EVENT, data));
+        trexEventProperty.set(!trexEventProperty.get());
+        if (muteLogger) {
             return;
         }
-        trexEventProperty.set(!trexEventProperty.get());
-        // Update Port status
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            AsyncEvent serverEvent = mapper.readValue(event, AsyncEvent.class);
-            String eventMessage = serverEvent.toString();
-            if (eventMessage != null && !muteLogger) {
-                LogsController.getInstance().appendText(LogType.SERVER_EVENT, eventMessage);
-            }
-        } catch (IOException ex) {
-            LOG.error("Error handling async event", ex);
+        AsyncEvent serverEvent = new AsyncEvent();
+        serverEvent.setName(Constants.TREX_EVENT);
+        serverEvent.setType(type);
+        serverEvent.setData(data);
+        if (data == null && type != SERVER_STOPPED_TYPE) {
+            LOG.error("Async event " + type + " has no data");
+            return;
+        }
+        String eventMessage = serverEvent.toString();
+        if (eventMessage != null) {
+            LogsController.getInstance().appendText(LogType.SERVER_EVENT, eventMessage);
         }
     }
 
     /**
-     * Listening to changes on TRex event response property
+     * Register the handlers of the TRex event and stats messages, events are
+     * delivered on the subscriber thread as they must not be conflated
      */
     public void initializeDataBinding() {
-        trexEventValueProperty.addListener(new ChangeListener<String>() {
-            @Override
-            public void changed(ObservableValue<? extends String> observable, String oldValue, String newValue) {
-                handleAsyncEvent(newValue);
-            }
-        });
-
+        messageRouter.setHandler(Constants.TREX_EVENT, AsyncEventData.class, this::handleAsyncEvent);
+        messageRouter.setHandler(Constants.TREX_LATENCY, JsonNode.class,
+                mailbox.conflating(Constants.TREX_LATENCY, (type, data) -> trexLatencyProperty.set(data)));
+        messageRouter.setHandler(Constants.TREX_FLOW_STATS, JsonNode.class,
+                mailbox.conflating(Constants.TREX_FLOW_STATS, (type, data) -> trexFlowStatsProperty.set(data)));
     }
-
     /**
      * Mute printing in LogsController
      */
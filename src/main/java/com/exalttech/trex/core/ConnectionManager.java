@@ -19,43 +19,57 @@ package com.exalttech.trex.core;
 import com.cisco.trex.stateless.TRexClient;
 import com.cisco.trex.stateless.exception.TRexConnectionException;
 import com.exalttech.trex.application.TrexApp;
+import com.exalttech.trex.core.rpc.JournalReplayer;
+import com.exalttech.trex.core.rpc.RPCFrame;
+import com.exalttech.trex.core.rpc.RPCFrameCodec;
+import com.exalttech.trex.core.rpc.RPCReply;
+import com.exalttech.trex.core.rpc.RPCRequestEncoder;
+import com.exalttech.trex.core.rpc.RPCResponseDecoder;
+import com.exalttech.trex.core.rpc.StreamJournal;
+import com.exalttech.trex.core.rpc.TransportStats;
+import com.exalttech.trex.core.rpc.WireLog;
+import com.exalttech.trex.core.rpc.RPCTransport;
+import com.exalttech.trex.core.rpc.TransportStats.Phase;
 import com.exalttech.trex.remote.exceptions.IncorrectRPCMethodException;
 import com.exalttech.trex.remote.exceptions.InvalidRPCResponseException;
-import com.exalttech.trex.remote.models.common.RPCError;
-import com.exalttech.trex.remote.models.common.RPCRequest;
+import com.exalttech.trex.remote.models.common.Error;
 import com.exalttech.trex.remote.models.params.Params;
 import com.exalttech.trex.remote.models.profiles.Profile;
 import com.exalttech.trex.ui.models.Port;
+import com.exalttech.trex.ui.models.PortStatus;
 import com.exalttech.trex.ui.views.logs.LogType;
 import com.exalttech.trex.ui.views.logs.LogsController;
-import com.exalttech.trex.util.CompressionUtils;
 import com.exalttech.trex.util.Constants;
 import com.exalttech.trex.util.Util;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.xored.javafx.packeteditor.scapy.ScapyServerClient;
 import javafx.application.Platform;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.beans.property.StringProperty;
 import javafx.concurrent.Task;
 import org.apache.log4j.Logger;
 import org.zeromq.ZContext;
 import org.zeromq.ZMQ;
-import org.zeromq.ZMQException;
-import org.zeromq.ZPoller;
 import zmq.ZError;
 
-import javax.xml.bind.DatatypeConverter;
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.DataFormatException;
 
@@ -65,25 +79,33 @@ public class ConnectionManager {
     private TRexClient trexClient;
     private ScapyServerClient scapyServerClient;
     private static final Logger LOG = Logger.getLogger(ConnectionManager.class.getName());
-    private static ConnectionManager instance = null;
-    private static final StringProperty logProperty = new SimpleStringProperty();
     private final static String ASYNC_PASS_STATUS = "Pass";
 
-    private final Object sendRequestMonitor = new Object();
-
     private final List<DisconnectListener> disconnectListeners = Collections.synchronizedList(new ArrayList<>());
     private boolean serverRestarted = false;
     private final Object serverRestartedMonitor = new Object();
 
     private final static int INTERNAL_TIMEOUT = 1000;
     private final static int DEFAULT_TIMEOUT = 3000;
-
+    private final static String BATCH_METHOD = "batch";
+    private final static String INVALID_HANDLER_ERROR = "API handler provided mismatch";
+
+    // polled stats replies kept in the journal next to the async frames, a
+    // replay answers with the last reply of the method, so the xstats are the
+    // ones of the port shown while recording
+    private final static Set<String> JOURNALED_METHODS = new HashSet<>(Arrays.asList(
+            Constants.GET_ACTIVE_PGIDS_METHOD,
+            Constants.GET_PGID_STATS_METHOD,
+            Constants.GET_UTILIZATION_METHOD,
+            Constants.PORT_XSTATS_NAMES_METHOD,
+            Constants.PORT_XSTATS_VALUES_METHOD
+    ));
+
+    /**
+     * @return connection of the main server session
+     */
     public static ConnectionManager getInstance() {
-        if (instance == null) {
-            instance = new ConnectionManager();
-            instance.scapyServerClient = TrexApp.injector.getInstance(ScapyServerClient.class);
-        }
-        return instance;
+        return SessionManager.getInstance().getPrimarySession().getConnectionManager();
     }
 
     private String apiH;
@@ -94,19 +116,32 @@ public class ConnectionManager {
     private String asyncPort;
     private String scapyPort;
     private int timeout = DEFAULT_TIMEOUT;
-    private boolean connected = false;
+    private volatile boolean connected = false;
 
     private AtomicBoolean connectionTimeout = new AtomicBoolean(false);
 
-    private ZMQ.Socket requester = null;
+    private RPCTransport transport = null;
     private Task task;
+    private volatile CountDownLatch subscriberStopped;
     private ZContext context = new ZContext();
-    private ZPoller poller = new ZPoller(context);
     private String connectionString;
 
-
-
-    private ConnectionManager() {
+    private final AsyncResponseManager asyncResponseManager;
+    private final Executor executor;
+    private final TransportStats transportStats = new TransportStats();
+    private volatile StreamJournal journal;
+    private volatile JournalReplayer replayer;
+    private final Map<String, byte[]> replayedReplies = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param asyncResponseManager receives the async messages of the server
+     * @param executor runs the async subscriber
+     */
+    ConnectionManager(AsyncResponseManager asyncResponseManager, Executor executor) {
+        this.asyncResponseManager = asyncResponseManager;
+        this.executor = executor;
         try {
             InetAddress ip = InetAddress.getLocalHost();
             String hostname = ip.getHostName();
@@ -132,6 +167,7 @@ public class ConnectionManager {
                                         int timeout,
                                         String clientName,
                                         boolean isReadOnly) throws TRexConnectionException {
+        stopReplay();
         synchronized (serverRestartedMonitor) {
             serverRestarted = false;
         }
@@ -162,9 +198,8 @@ public class ConnectionManager {
         connectionString = "tcp://" + ip + ":" + rpcPort;
         try {
             LogsController.getInstance().appendText(LogType.INFO, "Connecting to Trex server: " + connectionString);
-            requester = buildRequester();
-            requester.connect(connectionString);
-            poller.register(requester, ZMQ.Poller.POLLIN);
+            transport = new RPCTransport(context, connectionString);
+            transport.start();
             LogsController.getInstance().appendText(LogType.INFO, "Connected");
         } catch (Exception ex) {
             LOG.error("Invalid hostname", ex);
@@ -172,18 +207,13 @@ public class ConnectionManager {
         }
 
         // Just try to connect but don't account
-        scapyServerClient.connect("tcp://" + ip + ":" + scapyPort, timeout);
+        if (isPrimarySession()) {
+            getScapyServerClient().connect("tcp://" + ip + ":" + scapyPort, timeout);
+        }
 
         return true;
     }
 
-    private ZMQ.Socket buildRequester() {
-        ZMQ.Socket s = context.createSocket(ZMQ.REQ);
-        s.setReceiveTimeOut(INTERNAL_TIMEOUT);
-        s.setSendTimeOut(INTERNAL_TIMEOUT);
-        return s;
-    }
-
     public boolean testConnection(boolean isAsync) {
         if (isAsync) {
             return !Util.isNullOrEmpty(getAsyncResponse());
@@ -193,8 +223,10 @@ public class ConnectionManager {
             }
         }
         // Just try to connect, but don't take into the account
-        disconnectScapy();
-        connectScapy();
+        if (isPrimarySession()) {
+            disconnectScapy();
+            connectScapy();
+        }
 
         return true;
     }
@@ -213,8 +245,8 @@ public class ConnectionManager {
 
     public boolean connectScapy(String scapy_ip, String scapy_port) {
         LogsController.getInstance().appendText(LogType.INFO, "Connecting to Scapy server: " + "tcp://" + scapy_ip + ":" + scapy_port);
-        scapyServerClient.connect("tcp://" + scapy_ip + ":" + scapy_port, DEFAULT_TIMEOUT);
-        if (scapyServerClient.isConnected()) {
+        getScapyServerClient().connect("tcp://" + scapy_ip + ":" + scapy_port, DEFAULT_TIMEOUT);
+        if (getScapyServerClient().isConnected()) {
             LogsController.getInstance().appendText(LogType.INFO, "Connected");
             return true;
         }
@@ -223,182 +255,339 @@ public class ConnectionManager {
     }
 
     private void disconnectScapy() {
-        scapyServerClient.closeConnection();
+        getScapyServerClient().closeConnection();
+    }
+
+    /**
+     * @return scapy client of the application, looked up on first use so a
+     * connection without scapy does not need the injector
+     */
+    private ScapyServerClient getScapyServerClient() {
+        if (scapyServerClient == null) {
+            scapyServerClient = TrexApp.injector.getInstance(ScapyServerClient.class);
+        }
+        return scapyServerClient;
     }
 
     private String sendRequest(String cmd) {
-        return sendRequest(cmd, null);
+        return sendRequest(cmd, (String) null);
     }
 
     public String sendRequest(String cmd, String parameters) {
+        return getResult(sendRequestAsync(cmd, parameters));
+    }
+
+    public <T> RPCReply<T> sendRequest(String cmd, Map<String, Object> parameters, Class<T> resultType) {
+        return getResult(sendRequestAsync(cmd, parameters, resultType));
+    }
 
+    /**
+     * Send request without waiting for the reply, several requests can be in
+     * flight at once
+     *
+     * @param cmd
+     * @param parameters
+     * @return future completed with the server response, or with null when
+     * the request failed
+     */
+    public CompletableFuture<String> sendRequestAsync(String cmd, String parameters) {
+        final String request;
         try {
-            String param = parameters;
-            ObjectMapper mapper = new ObjectMapper();
-            if (parameters != null) {
-                String apiHParam = "\"api_h\": \"" + apiH + "\"";
-                if ("".equals(parameters)) {
-                    param = "{\"api_h\": \"" + apiH + "\"}";
-                } else if ("api_sync".equals(cmd)) {
-                    param = "{" + parameters + "}";
-                } else {
-                    param = "{" + apiHParam + " , " + parameters + "}";
-                }
+            request = RPCRequestEncoder.encodeFields(cmd, parameters, "api_sync".equals(cmd) ? null : apiH);
+        } catch (IOException ex) {
+            LOG.error("Error encoding request", ex);
+            return CompletableFuture.completedFuture(null);
+        }
+        return sendEncodedRequestAsync(cmd, request);
+    }
 
+    /**
+     * Send request without waiting for the reply, the reply is decoded
+     * directly into the result type
+     *
+     * @param cmd
+     * @param parameters request parameters, api_h is added to them
+     * @param resultType
+     * @return future completed with the decoded reply, or with null when the
+     * request failed
+     */
+    public <T> CompletableFuture<RPCReply<T>> sendRequestAsync(String cmd, Map<String, Object> parameters, Class<T> resultType) {
+        final String request;
+        try {
+            request = RPCRequestEncoder.encode(cmd, parameters != null ? parameters : Collections.emptyMap(), apiH);
+        } catch (IOException ex) {
+            LOG.error("Error encoding request", ex);
+            return CompletableFuture.completedFuture(null);
+        }
+        return getServerRPCResponseAsync(cmd, request).thenApplyAsync(reply -> {
+            if (reply == null) {
+                return null;
             }
-            String request = "{   \"id\" : \"aggogxls\",   \"jsonrpc\" : \"2.0\",   \"method\" : \"" + cmd + "\",   \"params\" :" + param + " }";
-            LOG.trace("Sending request \n" + Util.toPrettyFormat(request));
-            logProperty.setValue("Sending request " + Util.toPrettyFormat(request));
-            byte[] reply = getServerRPCResponse(request);
+            try {
+                long start = System.nanoTime();
+                RPCReply<T> rpcReply = RPCResponseDecoder.decodeFirst(reply, resultType);
+                transportStats.record(cmd, Phase.PARSE, System.nanoTime() - start);
+                if (rpcReply.isError()) {
+                    logRPCError(rpcReply.getError());
+                }
+                return rpcReply;
+            } catch (IOException ex) {
+                LOG.error("Error parsing response", ex);
+                return null;
+            }
+        });
+    }
 
-            if (reply != null) {
+    private CompletableFuture<String> sendEncodedRequestAsync(String method, String request) {
+        return getServerRPCResponseAsync(method, request).thenApplyAsync(reply -> {
+            if (reply == null) {
+                return null;
+            }
+            try {
                 String serversResponse = new String(reply, "UTF-8");
-                LOG.trace("Received Server response \n" + Util.toPrettyFormat(serversResponse));
-                logProperty.setValue("Received Server response " + Util.toPrettyFormat(serversResponse));
-                if (serversResponse.contains("\"error\"")) {
-                    try {
-                        String rpcResponse = Util.removeFirstBrackets(serversResponse);
-                        RPCError rpcError = mapper.readValue(rpcResponse, RPCError.class);
-                        LOG.error(rpcError.getError().getSpecificErr());
-                        LogsController.getInstance().appendText(LogType.ERROR, rpcError.getError().getSpecificErr());
-
-                    } catch (IOException ex) {
-                        LOG.warn("Error parsing response", ex);
+                try {
+                    Error error = findError(method, reply);
+                    if (error != null) {
+                        logRPCError(error);
                     }
+                } catch (IOException ex) {
+                    LOG.warn("Error parsing response", ex);
                 }
                 return serversResponse;
+            } catch (UnsupportedEncodingException ex) {
+                LOG.error("Error while sending request", ex);
+                return null;
             }
-        } catch (UnsupportedEncodingException ex) {
-            LOG.error("Error while sending request", ex);
-        }
-
-        return null;
+        });
     }
 
     String sendRPCRequest(String method, Params params) throws JsonProcessingException, UnsupportedEncodingException, InvalidRPCResponseException, IncorrectRPCMethodException {
-        RPCRequest rpcRequest = new RPCRequest();
-        ObjectMapper mapper = new ObjectMapper();
-        rpcRequest.setId(Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
-        rpcRequest.setMethod(method);
-        if (params != null) {
-            rpcRequest.setParams(params);
-        }
-        String jsonRequestString = mapper.writeValueAsString(rpcRequest);
-        jsonRequestString = Util.tuneJSONParams(jsonRequestString, params, apiH);
-        LOG.trace("Sending request \n" + Util.toPrettyFormat(jsonRequestString));
-        logProperty.setValue("Sending request " + Util.toPrettyFormat(jsonRequestString));
-        byte[] serverResponse = getServerRPCResponse(jsonRequestString);
-        return handleResponse(serverResponse, true);
+        String jsonRequestString = encodeRequest(method, params);
+        byte[] serverResponse = getServerRPCResponse(method, jsonRequestString);
+        return handleResponse(method, serverResponse);
     }
 
-    String sendAddStreamRequest(Profile[] profilesList) throws JsonProcessingException, UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
-        List<String> addStreamCommandList = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
-        RPCRequest rpcRequest = new RPCRequest();
-        String jsonRequestString;
-        for (Profile aProfilesList : profilesList) {
-
-            rpcRequest.setId(Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
-            rpcRequest.setMethod(Constants.ADD_STREAM_METHOD);
-            rpcRequest.setParams(aProfilesList);
-
-            jsonRequestString = mapper.writeValueAsString(rpcRequest);
-            jsonRequestString = Util.tuneJSONParams(jsonRequestString, aProfilesList, apiH);
-            addStreamCommandList.add(jsonRequestString);
+    /**
+     * Send requests of the same method in one batch. Errors are reported per
+     * reply so that one failing request does not fail the others.
+     *
+     * @param method RPC method
+     * @param paramsList parameters of every request
+     * @param resultType type of the result field
+     * @return replies in the order of the parameters list
+     * @throws JsonProcessingException
+     * @throws InvalidRPCResponseException if there is no valid reply for every
+     * request
+     */
+    <T> List<RPCReply<T>> sendBatchRPCRequest(String method, List<? extends Params> paramsList, Class<T> resultType) throws JsonProcessingException, InvalidRPCResponseException {
+        if (paramsList.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String jsonRequestString = encodeBatchRequest(method, paramsList);
+        byte[] serverResponse = getServerRPCResponse(method, jsonRequestString);
+        if (serverResponse == null) {
+            throw new InvalidRPCResponseException();
+        }
 
+        List<RPCReply<T>> replies;
+        try {
+            replies = decode(method, serverResponse, resultType);
+        } catch (IOException ex) {
+            LOG.error("Error parsing " + method + " response", ex);
+            throw new InvalidRPCResponseException();
+        }
+        if (replies.size() != paramsList.size()) {
+            throw new InvalidRPCResponseException();
+        }
+        for (RPCReply<T> reply : replies) {
+            if (reply.isError()) {
+                logRPCError(reply.getError());
+            }
         }
-        String requestCommand = Util.toPrettyFormat(addStreamCommandList.toString());
-        LOG.info(requestCommand);
-        logProperty.setValue("Sending request " + requestCommand);
-        byte[] serverResponse = getServerRPCResponse(addStreamCommandList.toString());
-        return handleResponse(serverResponse, false);
+        return replies;
     }
 
-    public String sendPortStatusRequest(List<Port> portList) throws JsonProcessingException, UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
-        List<String> addStreamCommandList = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
-        RPCRequest rpcRequest = new RPCRequest();
-        String jsonRequestString;
-        for (Port port : portList) {
-            rpcRequest.setId(Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
-            rpcRequest.setMethod(Constants.PORT_STATUS_METHOD);
-            rpcRequest.setParams(port.getPortParam());
-
-            jsonRequestString = mapper.writeValueAsString(rpcRequest);
-            jsonRequestString = Util.tuneJSONParams(jsonRequestString, port.getPortParam(), apiH);
-            addStreamCommandList.add(jsonRequestString);
+    /**
+     * Send requests of different methods in one batch, the stats polling
+     * sends everything due on a tick this way. While a journal is recorded or
+     * replayed the requests go one by one, as journals keep one reply per
+     * method. The phases of a batch are recorded in the transport stats under
+     * the method of every request.
+     *
+     * @param methods RPC method of every request
+     * @param paramsList parameters of every request, api_h is added to them
+     * @param resultTypes type of the result of every request
+     * @return replies in the order of the requests, null when the batch failed,
+     * a null reply for a request sent on its own that failed, or that the
+     * replayed journal has no reply to yet
+     */
+    public List<RPCReply<Object>> sendBatchRequest(List<String> methods, List<?> paramsList, List<Class<?>> resultTypes) {
+        if (methods.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (journal != null || replayer != null) {
+            List<RPCReply<Object>> replies = new ArrayList<>(methods.size());
+            for (int i = 0; i < methods.size(); i++) {
+                List<RPCReply<Object>> reply = sendRequests(
+                        methods.get(i),
+                        Collections.singletonList(methods.get(i)),
+                        Collections.singletonList(paramsList.get(i)),
+                        Collections.singletonList(resultTypes.get(i))
+                );
+                replies.add(reply != null ? reply.get(0) : null);
+            }
+            return replies;
+        }
+        return sendRequests(BATCH_METHOD, methods, paramsList, resultTypes);
+    }
 
+    /**
+     * @param method method of the request or {@link #BATCH_METHOD}, the
+     * journal keeps the reply under it
+     * @param methods method of every request, the transport stats are recorded
+     * under them
+     * @param paramsList
+     * @param resultTypes
+     * @return
+     */
+    private List<RPCReply<Object>> sendRequests(String method, List<String> methods, List<?> paramsList, List<Class<?>> resultTypes) {
+        final String request;
+        try {
+            request = methods.size() == 1
+                    ? RPCRequestEncoder.encode(methods.get(0), paramsList.get(0), apiH)
+                    : RPCRequestEncoder.encodeBatch(methods, paramsList, apiH);
+        } catch (IOException ex) {
+            LOG.error("Error encoding request", ex);
+            return null;
+        }
+        boolean isResendable = true;
+        for (String requestMethod : methods) {
+            isResendable &= isReadOnly(requestMethod);
+        }
+        byte[] serverResponse = getResult(getServerRPCResponseAsync(method, methods, request, isResendable));
+        if (serverResponse == null) {
+            return null;
         }
-        String requestCommand = Util.toPrettyFormat(addStreamCommandList.toString());
-        LOG.info("Send port status request \n " + requestCommand);
-        byte[] serverResponse = getServerRPCResponse(addStreamCommandList.toString());
 
-        return handleResponse(serverResponse, false);
+        List<RPCReply<Object>> replies;
+        try {
+            long start = System.nanoTime();
+            replies = RPCResponseDecoder.decode(serverResponse, resultTypes);
+            transportStats.record(methods, Phase.PARSE, System.nanoTime() - start);
+        } catch (IOException ex) {
+            LOG.error("Error parsing " + method + " response", ex);
+            return null;
+        }
+        if (replies.size() != methods.size()) {
+            LOG.error("Expected " + methods.size() + " replies to " + method + ", got " + replies.size());
+            return null;
+        }
+        for (RPCReply<Object> reply : replies) {
+            if (reply.isError()) {
+                if (reply.getErrorMessage().contains(INVALID_HANDLER_ERROR)) {
+                    notifyServerWasRestarted();
+                }
+                logRPCError(reply.getError());
+            }
+        }
+        return replies;
     }
 
-    public String sendPortXStatsNamesRequest(Port port) throws JsonProcessingException, UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
-        List<String> addStreamCommandList = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
-        RPCRequest rpcRequest = new RPCRequest();
-        String jsonRequestString;
-
-        rpcRequest.setId(Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
-        rpcRequest.setMethod(Constants.PORT_XSTATS_NAMES_METHOD);
-        rpcRequest.setParams(port.getPortParam());
+    String sendAddStreamRequest(Profile[] profilesList) throws JsonProcessingException, UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
+        String jsonRequestString = encodeBatchRequest(Constants.ADD_STREAM_METHOD, Arrays.asList(profilesList));
+        LOG.info("Sending " + profilesList.length + " add_stream requests");
+        byte[] serverResponse = getServerRPCResponse(Constants.ADD_STREAM_METHOD, jsonRequestString);
+        return handleResponse(Constants.ADD_STREAM_METHOD, serverResponse);
+    }
 
-        jsonRequestString = mapper.writeValueAsString(rpcRequest);
-        jsonRequestString = Util.tuneJSONParams(jsonRequestString, port.getPortParam(), apiH);
-        addStreamCommandList.add(jsonRequestString);
+    /**
+     * Request status of several ports in one batch
+     *
+     * @param portList
+     * @return port status results in the order of the port list
+     * @throws JsonProcessingException
+     * @throws IncorrectRPCMethodException if the server replied with an error
+     * @throws InvalidRPCResponseException if there is no valid reply
+     */
+    public List<PortStatus.PortStatusResult> sendPortStatusRequest(List<Port> portList) throws JsonProcessingException, IncorrectRPCMethodException, InvalidRPCResponseException {
+        List<Params> paramsList = new ArrayList<>(portList.size());
+        for (Port port : portList) {
+            paramsList.add(port.getPortParam());
+        }
+        String jsonRequestString = encodeBatchRequest(Constants.PORT_STATUS_METHOD, paramsList);
+        byte[] serverResponse = getServerRPCResponse(Constants.PORT_STATUS_METHOD, jsonRequestString);
+        if (serverResponse == null) {
+            throw new InvalidRPCResponseException();
+        }
 
-        String requestCommand = Util.toPrettyFormat(addStreamCommandList.toString());
-        LOG.info("Send port xstats_names request \n " + requestCommand);
+        List<RPCReply<PortStatus.PortStatusResult>> replies;
+        try {
+            replies = decode(Constants.PORT_STATUS_METHOD, serverResponse, PortStatus.PortStatusResult.class);
+        } catch (IOException ex) {
+            LOG.error("Error parsing port status response", ex);
+            throw new InvalidRPCResponseException();
+        }
+        List<PortStatus.PortStatusResult> results = new ArrayList<>(replies.size());
+        for (RPCReply<PortStatus.PortStatusResult> reply : replies) {
+            if (reply.isError()) {
+                logRPCError(reply.getError());
+                throw new IncorrectRPCMethodException(reply.getErrorMessage());
+            }
+            results.add(reply.getResult());
+        }
+        if (results.size() != portList.size()) {
+            throw new InvalidRPCResponseException();
+        }
+        return results;
+    }
 
-        byte[] serverResponse = getServerRPCResponse(addStreamCommandList.toString());
+    public String sendPortXStatsNamesRequest(Port port) throws JsonProcessingException, UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
+        String jsonRequestString = encodeBatchRequest(Constants.PORT_XSTATS_NAMES_METHOD, Collections.singletonList(port.getPortParam()));
+        byte[] serverResponse = getServerRPCResponse(Constants.PORT_XSTATS_NAMES_METHOD, jsonRequestString);
 
-        return handleResponse(serverResponse, false);
+        return handleResponse(Constants.PORT_XSTATS_NAMES_METHOD, serverResponse);
     }
 
     public String sendPortXStatsValuesRequest(Port port) throws JsonProcessingException, UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
-        List<String> addStreamCommandList = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
-        RPCRequest rpcRequest = new RPCRequest();
-        String jsonRequestString;
+        String jsonRequestString = encodeBatchRequest(Constants.PORT_XSTATS_VALUES_METHOD, Collections.singletonList(port.getPortParam()));
+        byte[] serverResponse = getServerRPCResponse(Constants.PORT_XSTATS_VALUES_METHOD, jsonRequestString);
 
-        rpcRequest.setId(Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
-        rpcRequest.setMethod(Constants.PORT_XSTATS_VALUES_METHOD);
-        rpcRequest.setParams(port.getPortParam());
-
-        jsonRequestString = mapper.writeValueAsString(rpcRequest);
-        jsonRequestString = Util.tuneJSONParams(jsonRequestString, port.getPortParam(), apiH);
-        addStreamCommandList.add(jsonRequestString);
-
-        String requestCommand = Util.toPrettyFormat(addStreamCommandList.toString());
-        LOG.info("Send port xstats_values request \n " + requestCommand);
+        return handleResponse(Constants.PORT_XSTATS_VALUES_METHOD, serverResponse);
+    }
 
-        byte[] serverResponse = getServerRPCResponse(addStreamCommandList.toString());
+    private String encodeRequest(String method, Params params) throws JsonProcessingException {
+        try {
+            return RPCRequestEncoder.encode(method, params, apiH);
+        } catch (JsonProcessingException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new JsonMappingException("Error encoding request", ex);
+        }
+    }
 
-        return handleResponse(serverResponse, false);
+    private String encodeBatchRequest(String method, List<? extends Params> paramsList) throws JsonProcessingException {
+        try {
+            return RPCRequestEncoder.encodeBatch(method, paramsList, apiH);
+        } catch (JsonProcessingException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new JsonMappingException("Error encoding request", ex);
+        }
     }
 
-    private String handleResponse(byte[] serverResponse, boolean writeToLog) throws UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
+    private String handleResponse(String method, byte[] serverResponse) throws UnsupportedEncodingException, IncorrectRPCMethodException, InvalidRPCResponseException {
         if (serverResponse != null) {
             String rpcResponse = new String(serverResponse, "UTF-8");
 
-            LOG.trace("Received Server response \n" + Util.toPrettyFormat(rpcResponse));
-
-            if (writeToLog) {
-                logProperty.setValue("Received Server response " + Util.toPrettyFormat(rpcResponse));
+            Error error = null;
+            try {
+                error = findError(method, serverResponse);
+            } catch (IOException ex) {
+                LOG.warn("Error parsing response", ex);
             }
-            if (rpcResponse.contains("\"error\"")) {
-                try {
-                    rpcResponse = Util.removeFirstBrackets(rpcResponse);
-                    RPCError rpcError = new ObjectMapper().readValue(rpcResponse, RPCError.class);
-                    LOG.error(rpcError.getError().getSpecificErr());
-                    LogsController.getInstance().appendText(LogType.ERROR, rpcError.getError().getSpecificErr());
-                    throw new IncorrectRPCMethodException(rpcError.getError().getSpecificErr() + "\n " + Util.toPrettyFormat(rpcResponse));
-                } catch (IOException ex) {
-                    LOG.warn("Error parsing response", ex);
-                }
+            if (error != null) {
+                logRPCError(error);
+                throw new IncorrectRPCMethodException(error.getSpecificErr() + "\n " + Util.toPrettyFormat(rpcResponse));
             }
             return rpcResponse;
         } else {
@@ -406,6 +595,25 @@ public class ConnectionManager {
         }
     }
 
+    private <T> List<RPCReply<T>> decode(String method, byte[] serverResponse, Class<T> resultType) throws IOException {
+        long start = System.nanoTime();
+        List<RPCReply<T>> replies = RPCResponseDecoder.decode(serverResponse, resultType);
+        transportStats.record(method, Phase.PARSE, System.nanoTime() - start);
+        return replies;
+    }
+
+    private Error findError(String method, byte[] serverResponse) throws IOException {
+        long start = System.nanoTime();
+        Error error = RPCResponseDecoder.findError(serverResponse);
+        transportStats.record(method, Phase.PARSE, System.nanoTime() - start);
+        return error;
+    }
+
+    private void logRPCError(Error error) {
+        LOG.error(error.getSpecificErr());
+        LogsController.getInstance().appendText(LogType.ERROR, error.getSpecificErr());
+    }
+
     private String getAsyncResponse() {
         String ret;
         final String address = "tcp://" + ip + ":" + asyncPort;
@@ -419,9 +627,9 @@ public class ConnectionManager {
                     subscriber.connect(address);
                     subscriber.subscribe(ZMQ.SUBSCRIPTION_ALL);
 
-                    String res;
+                    byte[] res;
                     try {
-                        res = getDecompressedString(subscriber.recv());
+                        res = getDecompressed(subscriber.recv());
                         if (res != null) {
                             handleAsyncResponse(res);
                         } else {
@@ -445,12 +653,15 @@ public class ConnectionManager {
             ret = null;
         }
 
-        // Create async task
+        // Create async task, its socket lives in the context of this connection
+        final ZContext subscriberContext = context;
+        final CountDownLatch stopped = new CountDownLatch(1);
+        subscriberStopped = stopped;
         task = new Task<Void>() {
             @Override
             protected Void call() throws Exception {
                 try {
-                    ZMQ.Socket subscriber = context.createSocket(ZMQ.SUB);
+                    ZMQ.Socket subscriber = subscriberContext.createSocket(ZMQ.SUB);
                     subscriber.setReceiveTimeOut(INTERNAL_TIMEOUT);
                     subscriber.connect(address);
                     subscriber.subscribe(ZMQ.SUBSCRIPTION_ALL);
@@ -458,13 +669,15 @@ public class ConnectionManager {
                     int failsCount = 0;
                     while (!isCancelled() && !Thread.currentThread().isInterrupted()) {
                         try {
-                            final String res = getDecompressedString(subscriber.recv());
+                            final byte[] frame = subscriber.recv();
+                            journalAsyncFrame(frame);
+                            final byte[] res = getDecompressed(frame);
                             if (res != null) {
                                 handleAsyncResponse(res);
                                 failsCount = 0;
                             } else if (subscriber.base().errno() == ZError.EAGAIN) {
                                 if (!isConnected()) {
-                                    context.destroySocket(subscriber);
+                                    subscriberContext.destroySocket(subscriber);
                                     return null;
                                 }
 
@@ -478,6 +691,7 @@ public class ConnectionManager {
                                 }
 
                                 failsCount++;
+                                transportStats.incrementEagainEvents();
 
                                 LOG.error("Got EAGAIN while getting async TRex response");
                             }
@@ -486,15 +700,17 @@ public class ConnectionManager {
                         }
                     }
 
-                    context.destroySocket(subscriber);
+                    subscriberContext.destroySocket(subscriber);
                 } catch (Exception ex) {
                     LOG.error("Possible error while reading the Async request", ex);
+                } finally {
+                    stopped.countDown();
                 }
                 return null;
             }
 
         };
-        new Thread(task).start();
+        executor.execute(task);
 
         // return verified async port connection result
         return ret;
@@ -524,49 +740,148 @@ public class ConnectionManager {
 
     }
 
-    private String getDecompressedString(byte[] data) {
-        if (data == null) return null;
+    private byte[] getDecompressed(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return RPCFrameCodec.decode(data);
+        } catch (DataFormatException ex) {
+            LOG.error("Failed to decompress data ", ex);
+            return null;
+        }
+    }
+
+    private void handleAsyncResponse(byte[] res) throws IOException {
+        asyncResponseManager.getMessageRouter().route(res);
+    }
 
-        // if the length is larger than 8 bytes
-        if (data.length > 8) {
+    /**
+     * Start recording the async frames and the polled stats replies
+     *
+     * @param file journal file, overwritten if it exists
+     * @throws IOException
+     */
+    public synchronized void startJournal(File file) throws IOException {
+        stopJournal();
+        journal = new StreamJournal(file);
+        LogsController.getInstance().appendText(LogType.INFO, "Recording journal to " + file.getAbsolutePath());
+    }
 
-            // Take the first 4 bytes
-            byte[] magicBytes = Arrays.copyOfRange(data, 0, 4);
+    /**
+     * Stop recording the journal
+     */
+    public synchronized void stopJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+            LogsController.getInstance().appendText(LogType.INFO, "Journal closed, " + journal.getRecords() + " records");
+        } catch (IOException ex) {
+            LOG.error("Error closing journal", ex);
+        }
+        journal = null;
+    }
 
-            String magicString = DatatypeConverter.printHexBinary(magicBytes);
+    public boolean isJournaling() {
+        return journal != null;
+    }
 
-            /* check MAGIC in the first 4 bytes in case we have it, it is compressed */
-            String MAGIC_STRING = "ABE85CEA";
-            if (magicString.equals(MAGIC_STRING)) {
+    private void journalAsyncFrame(byte[] frame) {
+        final StreamJournal current = journal;
+        if (current == null || frame == null) {
+            return;
+        }
+        try {
+            current.recordAsyncFrame(frame);
+        } catch (IOException ex) {
+            LOG.error("Error writing journal", ex);
+            stopJournal();
+        }
+    }
 
-                // Skip another  4 bytes containing the uncompressed size of the  message
-                byte[] compressedData = Arrays.copyOfRange(data, 8, data.length);
+    private void journalReply(String method, byte[] reply) {
+        final StreamJournal current = journal;
+        if (current == null || !JOURNALED_METHODS.contains(method)) {
+            return;
+        }
+        try {
+            current.recordReply(method, reply);
+        } catch (IOException ex) {
+            LOG.error("Error writing journal", ex);
+            stopJournal();
+        }
+    }
 
+    /**
+     * Replay a journal instead of talking to a server. Async frames go through
+     * the async message router, recorded replies answer the requests of their
+     * method and the other requests fail.
+     *
+     * @param file journal file
+     * @param speed replay speed, {@link JournalReplayer#MAX_SPEED} for as fast
+     * as possible
+     * @return false if the connection is in use
+     */
+    public synchronized boolean startReplay(File file, double speed) {
+        if (isConnected()) {
+            LogsController.getInstance().appendText(LogType.ERROR, "Disconnect from TRex before replaying a journal");
+            return false;
+        }
+        stopReplay();
+        replayer = new JournalReplayer(file, speed, new JournalReplayer.ReplaySink() {
+            @Override
+            public void asyncFrame(byte[] frame) {
+                final byte[] res = getDecompressed(frame);
+                if (res == null) {
+                    return;
+                }
                 try {
-                    return new String(CompressionUtils.decompress(compressedData));
-                } catch (IOException | DataFormatException ex) {
-                    LOG.error("Failed to decompress data ", ex);
+                    handleAsyncResponse(res);
+                } catch (IOException ex) {
+                    LOG.warn("Invalid async frame in journal", ex);
+                }
+            }
+
+            @Override
+            public void reply(String method, byte[] reply) {
+                final byte[] response = getDecompressed(reply);
+                if (response != null) {
+                    replayedReplies.put(method, response);
                 }
+            }
 
+            @Override
+            public void finished(long records, boolean complete) {
+                LogsController.getInstance().appendText(LogType.INFO, "Journal replay " + (complete ? "finished" : "stopped") + ", " + records + " records");
             }
+        });
+        LogsController.getInstance().appendText(LogType.INFO, "Replaying journal " + file.getAbsolutePath());
+        replayer.start();
+        return true;
+    }
 
+    /**
+     * Stop replaying and forget the replayed replies
+     */
+    public synchronized void stopReplay() {
+        if (replayer == null) {
+            return;
         }
-        return new String(data);
+        replayer.stop();
+        replayer = null;
+        replayedReplies.clear();
     }
 
-    private void handleAsyncResponse(String res) {
-        if (res.contains(Constants.TREX_GLOBAL_TAG)) {
-            AsyncResponseManager.getInstance().setTrexGlobalResponse(res);
-        } else if (res.contains(Constants.TREX_EVENT)) {
-            AsyncResponseManager.getInstance().setTRexEventValue(res);
-        } else if (res.contains(Constants.TREX_LATENCY)) {
-            AsyncResponseManager.getInstance().setTrexLatencyProperty(res);
-        } else if (res.contains(Constants.TREX_FLOW_STATS)) {
-            AsyncResponseManager.getInstance().setTrexFlowStatsProperty(res);
-        }
+    public boolean isReplaying() {
+        return replayer != null;
     }
 
     private void disconnectSubscriber() {
+        if (task == null) {
+            return;
+        }
         try {
             task.cancel(true);
         } catch (Exception ex) {
@@ -580,8 +895,9 @@ public class ConnectionManager {
 
     private void disconnectRequester() {
         setConnected(false);
-        requester.disconnect(connectionString);
-        requester.close();
+        if (transport != null) {
+            transport.close();
+        }
     }
 
     public String getIPAddress() {
@@ -596,94 +912,138 @@ public class ConnectionManager {
         return this.connected;
     }
 
+    /**
+     * @return true while requests get replies: connected with an API handler,
+     * or replaying a journal
+     */
+    public boolean isSessionOpen() {
+        return replayer != null || connected && apiH != null;
+    }
+
     public boolean isScapyConnected() {
-        return scapyServerClient.isConnected();
+        return getScapyServerClient().isConnected();
     }
 
     public void setConnected(boolean connected) {
         this.connected = connected;
     }
 
-    private byte[] getServerRPCResponse(String request) {
-        try {
-            // prepare compression header
-            ByteBuffer headerByteBuffer = ByteBuffer.allocate(8);
-            headerByteBuffer.put((byte) 0xAB);
-            headerByteBuffer.put((byte) 0xE8);
-            headerByteBuffer.put((byte) 0x5C);
-            headerByteBuffer.put((byte) 0xEA);
-            headerByteBuffer.putInt(request.length());
-            byte[] headerBytes = headerByteBuffer.array();
-            // compress request
-            byte[] compressedRequest = CompressionUtils.compress(request.getBytes());
-            byte[] finalRequest = concatByteArrays(headerBytes, compressedRequest);
-            byte[] serverResponse;
-            boolean success;
-
-            synchronized (sendRequestMonitor) {
-                if (connectionTimeout.get()) {
-                    return null;
-                }
-                try {
-                    success = requester.send(finalRequest);
-                } catch (ZMQException e) {
-                    if (e.getErrorCode() == ZError.EFSM) {
-                        success = resend(finalRequest);
-                    } else {
-                        throw e;
-                    }
-                }
-                if (success) {
-                    serverResponse = requester.recv(0);
-                    if (serverResponse == null) {
-                        if (requester.base().errno() == ZError.EAGAIN) {
-                            int retries = timeout / INTERNAL_TIMEOUT;
-                            while (serverResponse == null && retries > 0) {
-                                if (connectionTimeout.get()) {
-                                    return null;
-                                }
+    /**
+     * @return histograms and counters of the requests sent to the server
+     */
+    public TransportStats getTransportStats() {
+        return transportStats;
+    }
 
-                                retries--;
-                                serverResponse = requester.recv(0);
-                            }
-                            if (retries == 0 && resend(finalRequest)) {
-                                serverResponse = requester.recv(0);
-                            }
-                        } else {
-                            LOG.error("Error sending request");
-                        }
-                    }
-                } else {
-                    LOG.error("Error sending request");
-                    return null;
-                }
-            }
+    private byte[] getServerRPCResponse(String method, String request) {
+        return getResult(getServerRPCResponseAsync(method, request));
+    }
 
-            return serverResponse == null
-                ? null
-                : getDecompressedString(serverResponse).getBytes();
-        } catch (IOException ex) {
-            LOG.error("Error sending request", ex);
-            return null;
-        }
+    private CompletableFuture<byte[]> getServerRPCResponseAsync(String method, String request) {
+        return getServerRPCResponseAsync(method, request, isReadOnly(method));
+    }
+
+    /**
+     * @param method
+     * @return true if sending the request twice does no harm
+     */
+    private static boolean isReadOnly(String method) {
+        return method.startsWith("get_") || Constants.PING_METHOD.equals(method);
     }
 
-    private boolean resend(byte[] msg) {
+    /**
+     * @param method
+     * @param request
+     * @param isResendable the request is sent again once if the server does
+     * not reply in time, only for requests that change nothing on the server
+     * @return future completed with the decompressed reply, or with null when
+     * the request failed
+     */
+    private CompletableFuture<byte[]> getServerRPCResponseAsync(String method, String request, boolean isResendable) {
+        return getServerRPCResponseAsync(method, Collections.singletonList(method), request, isResendable);
+    }
+
+    /**
+     * @param method method of the request, the journal keeps the reply under
+     * it
+     * @param statsMethods methods of the requests sent in one batch, the
+     * phases of the batch are recorded under every one of them
+     * @param request
+     * @param isResendable
+     * @return future completed with the decompressed reply, or with null when
+     * the request failed
+     */
+    private CompletableFuture<byte[]> getServerRPCResponseAsync(String method, List<String> statsMethods, String request, boolean isResendable) {
+        if (replayer != null) {
+            return CompletableFuture.completedFuture(replayedReplies.get(method));
+        }
         if (connectionTimeout.get()) {
-            return false;
+            return CompletableFuture.completedFuture(null);
         }
+        final RPCFrame finalRequest;
+        try {
+            long start = System.nanoTime();
+            finalRequest = RPCFrameCodec.encode(request);
+            transportStats.record(statsMethods, Phase.COMPRESS, System.nanoTime() - start);
+        } catch (IOException ex) {
+            LOG.error("Error sending request", ex);
+            return CompletableFuture.completedFuture(null);
+        }
+        WireLog.getInstance().logRequest(request, finalRequest.getLength());
+
+        final CompletableFuture<byte[]> serverResponse = new CompletableFuture<>();
+        final long sendTime = System.nanoTime();
+        transport.send(finalRequest, timeout).whenComplete((reply, error) -> {
+            if (error == null) {
+                serverResponse.complete(reply);
+            } else if (error instanceof TimeoutException && isResendable && !connectionTimeout.get()) {
+                LOG.warn("No reply from server, resending request");
+                transportStats.incrementResends();
+                transport.send(finalRequest, timeout).whenComplete((retryReply, retryError) -> {
+                    if (retryError == null) {
+                        serverResponse.complete(retryReply);
+                    } else {
+                        serverResponse.completeExceptionally(retryError);
+                    }
+                });
+            } else {
+                serverResponse.completeExceptionally(error);
+            }
+        });
 
-        context.destroySocket(requester);
-        requester = buildRequester();
-        requester.connect(connectionString);
-        return requester.send(msg);
+        return serverResponse.handle((reply, error) -> {
+            finalRequest.release();
+            if (error != null) {
+                if (error instanceof TimeoutException) {
+                    transportStats.incrementTimeouts();
+                }
+                LOG.error("Error sending request", error);
+                return null;
+            }
+            transportStats.record(statsMethods, Phase.ROUND_TRIP, System.nanoTime() - sendTime);
+            journalReply(method, reply);
+            try {
+                long start = System.nanoTime();
+                byte[] response = RPCFrameCodec.decode(reply);
+                transportStats.record(statsMethods, Phase.DECOMPRESS, System.nanoTime() - start);
+                WireLog.getInstance().logResponse(response, reply.length);
+                return response;
+            } catch (DataFormatException ex) {
+                LOG.error("Failed to decompress data ", ex);
+                return null;
+            }
+        });
     }
 
-    private byte[] concatByteArrays(byte[] firstDataArray, byte[] secondDataArray) {
-        byte[] concatedDataArray = new byte[firstDataArray.length + secondDataArray.length];
-        System.arraycopy(firstDataArray, 0, concatedDataArray, 0, firstDataArray.length);
-        System.arraycopy(secondDataArray, 0, concatedDataArray, firstDataArray.length, secondDataArray.length);
-        return concatedDataArray;
+    private static <T> T getResult(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            LOG.error("Error while sending request", ex.getCause());
+        }
+        return null;
     }
 
     void setApiH(String apiH) {
@@ -704,23 +1064,50 @@ public class ConnectionManager {
 
     public void disconnect() {
         setConnected(false);
+        stopJournal();
 
         disconnectSubscriber();
         disconnectRequester();
-        disconnectScapy();
+        if (isPrimarySession()) {
+            disconnectScapy();
+        }
         getTrexClient().disconnect();
 
-        if (poller != null) {
+        destroyContext();
+    }
+
+    /**
+     * Replace the ZMQ context, the old one is destroyed once the async
+     * subscriber closed its socket, which takes up to its receive timeout
+     */
+    private void destroyContext() {
+        final ZContext oldContext = context;
+        final CountDownLatch stopped = subscriberStopped;
+        subscriberStopped = null;
+        context = new ZContext();
+        executor.execute(() -> {
             try {
-                poller.close();
-            } catch (IOException ex) {
-                LOG.error("Error poller closing", ex);
+                if (stopped != null && !stopped.await(timeout + INTERNAL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    LOG.warn("Async subscriber is still running, its ZMQ context is left open");
+                    return;
+                }
+                oldContext.destroy();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (Exception ex) {
+                LOG.warn("Error destroying the ZMQ context", ex);
             }
-            poller.destroy();
-        }
+        });
+    }
 
-        context = new ZContext();
-        poller = new ZPoller(context);
+    /**
+     * The scapy client is an application singleton, it follows the main
+     * session only
+     *
+     * @return true if this is the connection of the main session
+     */
+    private boolean isPrimarySession() {
+        return getInstance() == this;
     }
 
     void notifyServerWasRestarted() {
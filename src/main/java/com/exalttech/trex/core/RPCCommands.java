@@ -1,12 +1,9 @@
 package com.exalttech.trex.core;
 
-import com.cisco.trex.stateless.model.RPCResponseError;
 import com.cisco.trex.stateless.model.stats.ActivePGIdsRPCResult;
 import com.cisco.trex.stateless.model.stats.PGIdStatsRPCResult;
-import com.cisco.trex.stateless.model.RPCResponse;
 import com.cisco.trex.stateless.model.stats.Utilization;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.exalttech.trex.core.rpc.RPCReply;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -25,52 +22,51 @@ public class RPCCommands {
     private RPCCommands() {}
 
     public static ActivePGIdsRPCResult getActivePGIds() throws IOException {
-        final String jsonResult = sendRequest(Commands.GET_ACTIVE_PGIDS, null);
-        return new ObjectMapper().readValue(jsonResult, ActivePGIdsRPCResult.class);
+        return getActivePGIds(ConnectionManager.getInstance());
+    }
+
+    public static ActivePGIdsRPCResult getActivePGIds(final ConnectionManager connectionManager) throws IOException {
+        return sendRequest(connectionManager, Commands.GET_ACTIVE_PGIDS, null, ActivePGIdsRPCResult.class);
     }
 
     public static PGIdStatsRPCResult getPGIdStats(List<Integer> pgIds) throws IOException {
+        return getPGIdStats(ConnectionManager.getInstance(), pgIds);
+    }
+
+    public static PGIdStatsRPCResult getPGIdStats(final ConnectionManager connectionManager, List<Integer> pgIds) throws IOException {
         if (pgIds == null) {
             pgIds = new ArrayList<>();
         }
         final Map<String, Object> parameters = new HashMap<>();
         parameters.put("pgids", pgIds);
-        final String jsonResult = sendRequest(Commands.GET_PGID_STATS, parameters);
-        return new ObjectMapper().readValue(jsonResult, PGIdStatsRPCResult.class);
+        return sendRequest(connectionManager, Commands.GET_PGID_STATS, parameters, PGIdStatsRPCResult.class);
     }
 
     public static Utilization getUtilization() throws IOException {
-        final String jsonResult = sendRequest(Commands.GET_UTILIZATION, null);
-        return new ObjectMapper().readValue(jsonResult, Utilization.class);
+        return getUtilization(ConnectionManager.getInstance());
+    }
+
+    public static Utilization getUtilization(final ConnectionManager connectionManager) throws IOException {
+        return sendRequest(connectionManager, Commands.GET_UTILIZATION, null, Utilization.class);
     }
 
     // Should be removed from here, it is needed only for old architecture
-    private static String sendRequest(final String command, final Map<String, Object> parameters) throws
+    private static <T> T sendRequest(final ConnectionManager connectionManager, final String command, final Map<String, Object> parameters, final Class<T> resultType) throws
             IOException
     {
-        String stringParameters = "";
-        if (parameters != null) {
-            final String jsonParameters = new ObjectMapper().writeValueAsString(parameters);
-            stringParameters = jsonParameters.substring(1, jsonParameters.length() - 1);
+        final RPCReply<T> reply = connectionManager.sendRequest(command, parameters, resultType);
+        if (reply == null) {
+            throw new IOException("No valid response for " + command);
         }
-        final String jsonRPCResult = ConnectionManager.getInstance().sendRequest(command, stringParameters);
-        final RPCResponse[] rpcResult = new ObjectMapper().readValue(jsonRPCResult, RPCResponse[].class);
-        final String specError = extractSpecError(rpcResult[0]);
         final String invalidHandlerErrorPart = "API handler provided mismatch";
 
-        if (specError.contains(invalidHandlerErrorPart)) {
-            ConnectionManager.getInstance().notifyServerWasRestarted();
+        if (reply.getErrorMessage().contains(invalidHandlerErrorPart)) {
+            connectionManager.notifyServerWasRestarted();
         }
-
-        return rpcResult[0].getResult();
-    }
-
-    private static String extractSpecError(final RPCResponse resp) {
-        final RPCResponseError err = resp.getError();
-        if (err != null) {
-            return err.getSpecificErr();
+        if (reply.isError()) {
+            throw new IOException(reply.getErrorMessage());
         }
 
-        return "";
+        return reply.getResult();
     }
 }
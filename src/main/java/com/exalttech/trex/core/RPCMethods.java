@@ -20,7 +20,9 @@ import com.exalttech.trex.remote.exceptions.IncorrectRPCMethodException;
 import com.exalttech.trex.remote.exceptions.InvalidRPCResponseException;
 import com.exalttech.trex.remote.exceptions.PortAcquireException;
 import com.exalttech.trex.remote.exceptions.TrafficException;
+import com.exalttech.trex.core.rpc.RPCReply;
 import com.exalttech.trex.remote.models.TrafficResponse;
+import com.exalttech.trex.remote.models.TrafficResult;
 import com.exalttech.trex.remote.models.apisync.ApiSyncResult;
 import com.exalttech.trex.remote.models.multiplier.Multiplier;
 import com.exalttech.trex.remote.models.params.*;
@@ -38,8 +40,11 @@ import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 /**
@@ -53,9 +58,17 @@ public class RPCMethods {
     private static final int API_VERSION_MINOR = 0;
     private static final String API_VERSION_TYPE = "core";
     private HashMap connectionHandler = new HashMap();
-    private final ConnectionManager serverConnectionManager = ConnectionManager.getInstance();
+    private final ConnectionManager serverConnectionManager;
     private String apiH = "";
 
+    /**
+     *
+     * @param serverConnectionManager connection requests are sent over
+     */
+    public RPCMethods(ConnectionManager serverConnectionManager) {
+        this.serverConnectionManager = serverConnectionManager;
+    }
+
     /**
      *
      * @param portID the port ID
@@ -92,13 +105,55 @@ public class RPCMethods {
 
     }
 
+    /**
+     * Acquire several ports with one batch request
+     *
+     * @param portIDs the port IDs
+     * @param force if force is set to true then the ports will be acquired
+     * even though they are owned by other
+     * @return connection handlers of the acquired ports, ports the server
+     * refused are missing
+     * @throws PortAcquireException if the batch could not be sent
+     */
+    public Map<Integer, String> acquireServerPorts(List<Integer> portIDs, boolean force) throws PortAcquireException {
+        LOG.trace("Acquiring port(s) " + portIDs);
+        LogsController.getInstance().appendText(LogType.INFO, "Acquiring port(s) " + portIDs);
+        List<AcquireParams> paramsList = new ArrayList<>(portIDs.size());
+        for (Integer portID : portIDs) {
+            AcquireParams acquireParams = new AcquireParams();
+            acquireParams.setPortId(portID);
+            acquireParams.setForce(force);
+            acquireParams.setUser(serverConnectionManager.getClientName());
+            acquireParams.setSessionId(Util.getRandomID());
+            paramsList.add(acquireParams);
+        }
+
+        try {
+            List<RPCReply<String>> replies = serverConnectionManager.sendBatchRPCRequest(Constants.ACQUIRE_METHOD, paramsList, String.class);
+            Map<Integer, String> handlers = new LinkedHashMap<>();
+            for (int i = 0; i < replies.size(); i++) {
+                String handler = replies.get(i).getResult();
+                if (handler != null) {
+                    int portID = portIDs.get(i);
+                    connectionHandler.put(portID, handler);
+                    serverConnectionManager.propagatePortHandler(portID, handler);
+                    handlers.put(portID, handler);
+                }
+            }
+            return handlers;
+
+        } catch (JsonProcessingException | InvalidRPCResponseException ex) {
+            throw new PortAcquireException(ex.getMessage());
+        }
+    }
+
     /**
      *
      */
     public void serverApiSync() {
         try {
             String params = "\"api_vers\": [ {\"major\": " + API_VERSION_MAJOR + ",\"minor\": " + API_VERSION_MINOR + ",\"type\": \"" + API_VERSION_TYPE + "\"}]";
-            String apiSync = ConnectionManager.getInstance().sendRequest("api_sync", params);
+            String apiSync = serverConnectionManager.sendRequest("api_sync", params);
             apiSync = Util.removeFirstBrackets(apiSync);
             ObjectMapper mapper = new ObjectMapper();
             ApiSyncResult apiSyncResult = mapper.readValue(apiSync, ApiSyncResult.class);
@@ -122,6 +177,60 @@ public class RPCMethods {
 
     }
 
+    /**
+     * Send the same command to several ports in one batch
+     *
+     * @param portIDs
+     * @param method
+     * @return ports the command succeeded on
+     */
+    private List<Integer> buildCommonRPCRequest(List<Integer> portIDs, String method) {
+        List<CommonParams> paramsList = new ArrayList<>(portIDs.size());
+        for (Integer portID : portIDs) {
+            paramsList.add(new CommonParams(portID, (String) connectionHandler.get(portID)));
+        }
+        List<Integer> succeeded = new ArrayList<>(portIDs.size());
+        try {
+            List<RPCReply<Object>> replies = serverConnectionManager.sendBatchRPCRequest(method, paramsList, null);
+            for (int i = 0; i < replies.size(); i++) {
+                if (!replies.get(i).isError()) {
+                    succeeded.add(portIDs.get(i));
+                }
+            }
+        } catch (JsonProcessingException | InvalidRPCResponseException ex) {
+            LOG.error("Failed to send " + method + " to port(s) " + portIDs, ex);
+        }
+        return succeeded;
+    }
+
+    /**
+     * Send traffic requests in one batch
+     *
+     * @param method
+     * @param paramsList
+     * @return multiplier value from the server of every port the request
+     * succeeded on
+     * @throws TrafficException if the batch could not be sent
+     */
+    private Map<Integer, Double> sendTrafficRequests(String method, List<TrafficParams> paramsList) throws TrafficException {
+        try {
+            List<RPCReply<TrafficResult>> replies = serverConnectionManager.sendBatchRPCRequest(method, paramsList, TrafficResult.class);
+            Map<Integer, Double> multipliers = new LinkedHashMap<>();
+            for (int i = 0; i < replies.size(); i++) {
+                RPCReply<TrafficResult> reply = replies.get(i);
+                if (!reply.isError()) {
+                    TrafficResult result = reply.getResult();
+                    Double multiplier = result != null ? result.getMultiplier() : null;
+                    multipliers.put(paramsList.get(i).getPortId(), multiplier != null ? multiplier : -1);
+                }
+            }
+            return multipliers;
+
+        } catch (JsonProcessingException | InvalidRPCResponseException ex) {
+            throw new TrafficException(ex.toString());
+        }
+    }
+
     /**
      *
      * @param portID
@@ -212,6 +321,28 @@ public class RPCMethods {
         }
     }
 
+    /**
+     * Start traffic on several ports with one batch request, so that all of
+     * them start at the same time
+     *
+     * @param multipliers multiplier of every port
+     * @param force
+     * @param duration
+     * @return multiplier value from the server of every started port
+     * @throws TrafficException if the batch could not be sent
+     */
+    public Map<Integer, Double> startTraffic(Map<Integer, Multiplier> multipliers, boolean force, double duration) throws TrafficException {
+        LogsController.getInstance().appendText(LogType.INFO, "Starting Traffic on Port(s) " + multipliers.keySet());
+        List<TrafficParams> paramsList = new ArrayList<>(multipliers.size());
+        for (Map.Entry<Integer, Multiplier> entry : multipliers.entrySet()) {
+            String handler = (String) connectionHandler.get(entry.getKey());
+            TrafficParams trafficParams = new TrafficParams(force, handler, entry.getValue(), entry.getKey());
+            trafficParams.setDuration(duration);
+            paramsList.add(trafficParams);
+        }
+        return sendTrafficRequests(Constants.START_TRAFFIC_METHOD, paramsList);
+    }
+
     /**
      *
      * @param portID
@@ -225,6 +356,17 @@ public class RPCMethods {
 
     }
 
+    /**
+     *
+     * @param portIDs
+     * @return ports the streams were removed from
+     */
+    public List<Integer> removeAllStreams(List<Integer> portIDs) {
+        LOG.trace("Removing all streams from port(s) " + portIDs + ":");
+        LogsController.getInstance().appendText(LogType.INFO, "Removing all streams from port(s) " + portIDs + ":");
+        return buildCommonRPCRequest(portIDs, Constants.REMOVE_ALL_STREAMS_METHOD);
+    }
+
     /**
      *
      * @param portID
@@ -236,6 +378,16 @@ public class RPCMethods {
         return buildCommonRPCRequest(portID, handler, Constants.STOP_TRAFFIC_METHOD);
     }
 
+    /**
+     *
+     * @param portIDs
+     * @return ports the traffic was stopped on
+     */
+    public List<Integer> stopTraffic(List<Integer> portIDs) {
+        LogsController.getInstance().appendText(LogType.INFO, "Stopping traffic on port(s) " + portIDs + ":");
+        return buildCommonRPCRequest(portIDs, Constants.STOP_TRAFFIC_METHOD);
+    }
+
     /**
      * Remove RX filter command
      *
@@ -248,6 +400,17 @@ public class RPCMethods {
         return buildCommonRPCRequest(portID, handler, Constants.REMOVE_RX_FILTER_METHOD);
     }
 
+    /**
+     * Remove RX filter command for several ports
+     *
+     * @param portIDs
+     * @return ports the filter was removed from
+     */
+    public List<Integer> removeRXFilter(List<Integer> portIDs) {
+        LogsController.getInstance().appendText(LogType.INFO, "Remove RX filter " + portIDs + ":");
+        return buildCommonRPCRequest(portIDs, Constants.REMOVE_RX_FILTER_METHOD);
+    }
+
     /**
      * Stop port traffic
      *
@@ -258,6 +421,16 @@ public class RPCMethods {
         removeRXFilter(portID);
     }
 
+    /**
+     * Stop traffic of several ports
+     *
+     * @param portIDs
+     */
+    public void stopPortTraffic(List<Integer> portIDs) {
+        stopTraffic(portIDs);
+        removeRXFilter(portIDs);
+    }
+
     /**
      *
      * @param portID
@@ -286,6 +459,21 @@ public class RPCMethods {
         return released;
     }
 
+    /**
+     *
+     * @param portIDs
+     * @return ports the handler was released from
+     */
+    public List<Integer> releaseHandler(List<Integer> portIDs) {
+        LOG.trace("Releasing Handler from port(s) " + portIDs + ":");
+        LogsController.getInstance().appendText(LogType.INFO, "Releasing Handler from port(s) " + portIDs + ":");
+        List<Integer> released = buildCommonRPCRequest(portIDs, Constants.RELEASE_HANDLER_METHOD);
+        for (Integer portID : released) {
+            serverConnectionManager.invalidatePortHandler(portID);
+        }
+        return released;
+    }
+
     /**
      *
      * @param portID
@@ -298,6 +486,17 @@ public class RPCMethods {
         return buildCommonRPCRequest(portID, handler, Constants.RESUME_TRAFFIC_METHOD);
     }
 
+    /**
+     *
+     * @param portIDs
+     * @return ports the traffic was resumed on
+     */
+    public List<Integer> resumeTraffic(List<Integer> portIDs) {
+        LOG.trace("Resuming Traffic on port(s) " + portIDs + ":");
+        LogsController.getInstance().appendText(LogType.INFO, "Resuming Traffic Handler on port(s) " + portIDs + ":");
+        return buildCommonRPCRequest(portIDs, Constants.RESUME_TRAFFIC_METHOD);
+    }
+
     /**
      *
      * @param portID
@@ -330,11 +529,11 @@ public class RPCMethods {
     public void acquireAllServerPorts(List<Port> portList, Boolean force) {
         try {
             connectionHandler.clear();
+            List<Integer> portIDs = new ArrayList<>(portList.size());
             for (Port port : portList) {
-                String handler = this.acquireServerPort(port.getIndex(), force);
-                connectionHandler.put(port.getIndex(), handler);
-
+                portIDs.add(port.getIndex());
             }
+            acquireServerPorts(portIDs, force);
 
         } catch (PortAcquireException ex) {
             LOG.error("------" + ex.getMessage());
@@ -354,6 +553,21 @@ public class RPCMethods {
         releaseHandler(portIndex);
     }
 
+    /**
+     * Release several ports, every step is sent as one batch
+     *
+     * @param portIndexes
+     * @param stopTraffic
+     * @return released ports
+     */
+    public List<Integer> releasePorts(List<Integer> portIndexes, boolean stopTraffic) {
+        if (stopTraffic) {
+            stopTraffic(portIndexes);
+            removeAllStreams(portIndexes);
+        }
+        return releaseHandler(portIndexes);
+    }
+
     /**
      *
      * @return
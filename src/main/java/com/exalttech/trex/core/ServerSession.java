@@ -0,0 +1,263 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.cisco.trex.stl.gui.storages.HistoryArchive;
+import com.cisco.trex.stl.gui.storages.StatsStorage;
+import com.exalttech.trex.core.rpc.JournalReplayer;
+import com.exalttech.trex.ui.PortsManager;
+import com.exalttech.trex.ui.models.SystemInfoReq;
+import com.exalttech.trex.ui.models.datastore.Preferences;
+import com.exalttech.trex.ui.views.logs.LogType;
+import com.exalttech.trex.ui.views.logs.LogsController;
+import com.exalttech.trex.ui.views.statistics.StatsLoader;
+import com.exalttech.trex.util.PreferencesManager;
+import com.exalttech.trex.util.Util;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * Everything the GUI keeps for one TRex server: the RPC connection with its
+ * async subscriber, the port manager and the stats storages.
+ * <p>
+ * The main session is the one the connect dialog drives, the rest are opened
+ * from the servers view to watch and control several nodes at once.
+ */
+public class ServerSession {
+
+    private static final Logger LOG = Logger.getLogger(ServerSession.class.getName());
+
+    private final AsyncResponseManager asyncResponseManager;
+    private final ConnectionManager connectionManager;
+    private final RPCMethods rpcMethods;
+    private final PortsManager portsManager;
+    private final StatsLoader statsLoader;
+    private final StatsStorage statsStorage;
+    private HistoryArchive historyArchive;
+    private HistoryArchive openedArchive;
+
+    /**
+     * Constructor
+     *
+     * @param executor shared by the async subscriber and stats polling of all
+     * sessions
+     */
+    ServerSession(Executor executor) {
+        asyncResponseManager = new AsyncResponseManager();
+        connectionManager = new ConnectionManager(asyncResponseManager, executor);
+        rpcMethods = new RPCMethods(connectionManager);
+        portsManager = new PortsManager(connectionManager);
+        statsLoader = new StatsLoader(asyncResponseManager);
+        statsStorage = new StatsStorage(connectionManager, executor);
+    }
+
+    /**
+     * Connect to the server, sync the API and load its ports
+     *
+     * @param ip
+     * @param rpcPort
+     * @param asyncPort
+     * @param scapyPort
+     * @param timeout connection timeout in milliseconds
+     * @param clientName
+     * @return true if the server is up and its ports are loaded
+     */
+    boolean open(String ip, String rpcPort, String asyncPort, String scapyPort, int timeout, String clientName) {
+        // server events are reported by the main session only
+        asyncResponseManager.muteLogger();
+        try {
+            if (!connectionManager.initializeConnection(ip, rpcPort, asyncPort, scapyPort, timeout, clientName, false)
+                    || !connectionManager.testConnection(false)
+                    || !connectionManager.testConnection(true)) {
+                LogsController.getInstance().appendText(LogType.ERROR, "Failed to connect to TRex " + ip + ":" + rpcPort);
+                connectionManager.disconnect();
+                return false;
+            }
+            connectionManager.setConnected(true);
+            rpcMethods.serverApiSync();
+
+            String data = Util.removeFirstBrackets(connectionManager.sendRequest("get_system_info", ""));
+            SystemInfoReq systemInfoReq = (SystemInfoReq) Util.fromJSONString(data, SystemInfoReq.class);
+            portsManager.setPortList(systemInfoReq.getResult().getPorts());
+
+            openHistory();
+            statsLoader.start();
+            statsStorage.startPolling();
+            portsManager.updatePortForce();
+            return true;
+        } catch (Exception ex) {
+            LOG.error("Error opening session to " + ip + ":" + rpcPort, ex);
+            LogsController.getInstance().appendText(LogType.ERROR, "Failed to connect to TRex " + ip + ":" + rpcPort);
+            return false;
+        }
+    }
+
+    /**
+     * Stop polling and disconnect from the server
+     */
+    void close() {
+        statsStorage.stopPolling();
+        closeHistory();
+        connectionManager.disconnect();
+        asyncResponseManager.getMailbox().stop();
+    }
+
+    /**
+     * Keep the stats history on disk if a history location is set in the
+     * preferences. Every server has its own directory under the location, a
+     * history left there by a previous run is continued.
+     */
+    public synchronized void openHistory() {
+        closeHistory();
+        Preferences preferences = PreferencesManager.getInstance().getPreferences();
+        String location = preferences != null ? preferences.getHistoryLocation() : null;
+        String name = getName();
+        if (Util.isNullOrEmpty(location) || name == null) {
+            return;
+        }
+        File directory = new File(location, name.replace(':', '_'));
+        try {
+            historyArchive = new HistoryArchive(directory, false);
+        } catch (IOException ex) {
+            LOG.error("Error opening the stats history in " + directory, ex);
+            LogsController.getInstance().appendText(LogType.ERROR, "Unable to keep the stats history in " + directory + ": " + ex.getMessage());
+            return;
+        }
+        statsStorage.setArchive(historyArchive);
+    }
+
+    /**
+     * Stop keeping the stats history on disk
+     */
+    public synchronized void closeHistory() {
+        if (historyArchive == null) {
+            return;
+        }
+        statsStorage.setArchive(null);
+        historyArchive.close();
+        historyArchive = null;
+    }
+
+    /**
+     * Show the stats history of a finished session in the storages, no server
+     * is needed. The history is read in the background and shown once read.
+     *
+     * @param directory history directory of one server
+     * @return true if a history was found
+     */
+    public synchronized boolean openArchive(File directory) {
+        closeArchive();
+        HistoryArchive archive;
+        try {
+            archive = new HistoryArchive(directory, true);
+        } catch (IOException ex) {
+            LOG.error("Error opening the stats history in " + directory, ex);
+            LogsController.getInstance().appendText(LogType.ERROR, "Unable to open the stats history in " + directory + ": " + ex.getMessage());
+            return false;
+        }
+        if (archive.getFlowLog().getRecords() == 0 && archive.getUtilizationLog().getRecords() == 0) {
+            archive.close();
+            LogsController.getInstance().appendText(LogType.ERROR, "No stats history in " + directory);
+            return false;
+        }
+        openedArchive = archive;
+        statsStorage.restore(openedArchive);
+        return true;
+    }
+
+    /**
+     * Clear the stats shown by {@link #openArchive(File)}
+     */
+    public synchronized void closeArchive() {
+        if (openedArchive == null) {
+            return;
+        }
+        statsStorage.stopPolling();
+        openedArchive.close();
+        openedArchive = null;
+    }
+
+    public synchronized boolean isArchiveOpened() {
+        return openedArchive != null;
+    }
+
+    /**
+     * Feed a recorded journal to the stats loader and storages, no server is
+     * needed
+     *
+     * @param file journal file
+     * @param speed replay speed, {@link JournalReplayer#MAX_SPEED} for as fast
+     * as possible
+     * @return true if the replay started
+     */
+    public boolean replay(File file, double speed) {
+        if (!connectionManager.startReplay(file, speed)) {
+            return false;
+        }
+        statsLoader.start();
+        statsStorage.startPolling();
+        return true;
+    }
+
+    /**
+     * Stop a replay started by {@link #replay(File, double)}
+     */
+    public void stopReplay() {
+        if (!connectionManager.isReplaying()) {
+            return;
+        }
+        statsStorage.stopPolling();
+        connectionManager.stopReplay();
+        asyncResponseManager.getMailbox().stop();
+    }
+
+    /**
+     * @return server address as ip:rpcPort, null before connecting
+     */
+    public String getName() {
+        if (connectionManager.getIPAddress() == null) {
+            return null;
+        }
+        return connectionManager.getIPAddress() + ":" + connectionManager.getRpcPort();
+    }
+
+    public AsyncResponseManager getAsyncResponseManager() {
+        return asyncResponseManager;
+    }
+
+    public ConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    public RPCMethods getRPCMethods() {
+        return rpcMethods;
+    }
+
+    public PortsManager getPortsManager() {
+        return portsManager;
+    }
+
+    public StatsLoader getStatsLoader() {
+        return statsLoader;
+    }
+
+    public StatsStorage getStatsStorage() {
+        return statsStorage;
+    }
+}
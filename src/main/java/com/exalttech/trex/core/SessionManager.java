@@ -0,0 +1,186 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.exalttech.trex.ui.views.logs.LogType;
+import com.exalttech.trex.ui.views.logs.LogsController;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the sessions of all the TRex servers the GUI is connected to.
+ * <p>
+ * The main session always exists and backs the getInstance() of the
+ * connection, port and stats singletons, so the main view keeps driving a
+ * single server. Additional sessions share one thread pool for their async
+ * subscribers and stats polling.
+ */
+public class SessionManager {
+
+    private static final Logger LOG = Logger.getLogger(SessionManager.class.getName());
+    private static SessionManager instance = null;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "trex-session-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ServerSession primarySession = new ServerSession(executor);
+    private final List<ServerSession> sessions = new ArrayList<>();
+    private final List<SessionsChangedListener> sessionsChangedListeners = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     *
+     * @return
+     */
+    public static synchronized SessionManager getInstance() {
+        if (instance == null) {
+            instance = new SessionManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructor
+     */
+    private SessionManager() {
+        sessions.add(primarySession);
+    }
+
+    /**
+     * @return session of the server the main view is connected to
+     */
+    public ServerSession getPrimarySession() {
+        return primarySession;
+    }
+
+    /**
+     * @return all sessions, the main session first
+     */
+    public synchronized List<ServerSession> getSessions() {
+        return new ArrayList<>(sessions);
+    }
+
+    /**
+     * @return thread pool shared by all sessions
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Connect to one more server. Blocks until the server answers, do not call
+     * it from the JavaFX thread.
+     *
+     * @param ip
+     * @param rpcPort
+     * @param asyncPort
+     * @param scapyPort
+     * @param timeout connection timeout in milliseconds
+     * @return the new session, null if the server is unreachable or already
+     * connected
+     */
+    public ServerSession openSession(String ip, String rpcPort, String asyncPort, String scapyPort, int timeout) {
+        String name = ip + ":" + rpcPort;
+        if (findSession(name) != null) {
+            LogsController.getInstance().appendText(LogType.ERROR, "Already connected to TRex " + name);
+            return null;
+        }
+        ServerSession session = new ServerSession(executor);
+        String clientName = primarySession.getConnectionManager().getClientName();
+        if (!session.open(ip, rpcPort, asyncPort, scapyPort, timeout, clientName)) {
+            return null;
+        }
+        synchronized (this) {
+            sessions.add(session);
+        }
+        LOG.info("Opened session to " + name);
+        fireSessionsChanged();
+        return session;
+    }
+
+    /**
+     * Disconnect an additional session, the main session is disconnected by
+     * the main view only
+     *
+     * @param session
+     */
+    public void closeSession(ServerSession session) {
+        if (session == primarySession) {
+            return;
+        }
+        synchronized (this) {
+            if (!sessions.remove(session)) {
+                return;
+            }
+        }
+        session.close();
+        LOG.info("Closed session to " + session.getName());
+        fireSessionsChanged();
+    }
+
+    /**
+     * Disconnect all additional sessions
+     */
+    public void closeAdditionalSessions() {
+        for (ServerSession session : getSessions()) {
+            closeSession(session);
+        }
+    }
+
+    /**
+     *
+     * @param name server address as ip:rpcPort
+     * @return session connected to the server, null if there is none
+     */
+    public synchronized ServerSession findSession(String name) {
+        for (ServerSession session : sessions) {
+            if (name.equals(session.getName()) && session.getConnectionManager().isConnected()) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    public void addSessionsChangedListener(SessionsChangedListener listener) {
+        sessionsChangedListeners.add(listener);
+    }
+
+    public void removeSessionsChangedListener(SessionsChangedListener listener) {
+        sessionsChangedListeners.remove(listener);
+    }
+
+    private void fireSessionsChanged() {
+        synchronized (sessionsChangedListeners) {
+            sessionsChangedListeners.forEach(SessionsChangedListener::sessionsChanged);
+        }
+    }
+
+    /**
+     * Sessions listener
+     */
+    public interface SessionsChangedListener {
+
+        void sessionsChanged();
+    }
+}
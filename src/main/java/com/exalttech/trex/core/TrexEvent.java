@@ -1,14 +1,13 @@
 package com.exalttech.trex.core;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.exalttech.trex.remote.models.AsyncEventData;
 
 public class TrexEvent {
     private TrexEventType type;
     
     private String name;
     
-    private JsonObject data;
+    private AsyncEventData data;
 
     public TrexEventType getType() {
         return type;
@@ -18,11 +17,11 @@ public class TrexEvent {
         return name;
     }
 
-    public JsonObject getData() {
+    public AsyncEventData getData() {
         return data;
     }
 
-    public TrexEvent(int type, String name, JsonObject data) {
+    public TrexEvent(int type, String name, AsyncEventData data) {
         
         switch (type) {
             case 0:
@@ -70,7 +69,6 @@ public class TrexEvent {
     }
 
     public String getUser() {
-        JsonElement who = data.get("who"); 
-        return who != null ? who.getAsString() : null;
+        return data != null ? data.getWho() : null;
     }
 }
@@ -0,0 +1,162 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatches the messages published on the async port.
+ * <p>
+ * Messages look like {"name": ..., "type": ..., "data": {...}}. The router
+ * streams the message, picks the handler by name and binds the data straight
+ * into the type the handler registered, so every message is parsed once.
+ * Messages nobody handles are dropped as soon as their name is read.
+ */
+public class AsyncMessageRouter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, Route<?>> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Register the handler of a message name, replacing the previous one
+     *
+     * @param name message name
+     * @param dataType type the data is decoded into
+     * @param handler
+     */
+    public <T> void setHandler(String name, Class<T> dataType, AsyncMessageHandler<T> handler) {
+        routes.put(name, new Route<>(MAPPER.readerFor(dataType), handler));
+    }
+
+    /**
+     * Register the handler of a message name, replacing the previous one
+     *
+     * @param name message name
+     * @param dataType generic type the data is decoded into
+     * @param handler
+     */
+    public <T> void setHandler(String name, TypeReference<T> dataType, AsyncMessageHandler<T> handler) {
+        routes.put(name, new Route<>(MAPPER.readerFor(dataType), handler));
+    }
+
+    /**
+     * @param name message name
+     */
+    public void removeHandler(String name) {
+        routes.remove(name);
+    }
+
+    /**
+     * Decode a message and pass it to the handler of its name
+     *
+     * @param message uncompressed message
+     * @return true if a handler was called
+     * @throws IOException if the message is not valid JSON
+     */
+    public boolean route(byte[] message) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException("Async message is not an object", parser.getCurrentLocation());
+            }
+            Route<?> route = null;
+            int type = 0;
+            Object data = null;
+            TokenBuffer bufferedData = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name":
+                        route = routes.get(parser.getText());
+                        if (route == null) {
+                            return false;
+                        }
+                        break;
+                    case "type":
+                        type = parser.getValueAsInt();
+                        break;
+                    case "data":
+                        if (route != null) {
+                            data = route.read(parser);
+                        } else {
+                            // name comes after the data, keep the tokens
+                            // until it is known
+                            bufferedData = new TokenBuffer(parser);
+                            bufferedData.copyCurrentStructure(parser);
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+            if (route == null) {
+                return false;
+            }
+            if (bufferedData != null) {
+                try (JsonParser dataParser = bufferedData.asParser()) {
+                    dataParser.nextToken();
+                    data = route.read(dataParser);
+                }
+            }
+            route.dispatch(type, data);
+            return true;
+        }
+    }
+
+    /**
+     * Handler of one message name
+     *
+     * @param <T> data type
+     */
+    public interface AsyncMessageHandler<T> {
+
+        void handle(int type, T data);
+    }
+
+    private static class Route<T> {
+
+        private final ObjectReader reader;
+        private final AsyncMessageHandler<T> handler;
+
+        Route(ObjectReader reader, AsyncMessageHandler<T> handler) {
+            this.reader = reader;
+            this.handler = handler;
+        }
+
+        Object read(JsonParser parser) throws IOException {
+            if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            return reader.readValue(parser);
+        }
+
+        @SuppressWarnings("unchecked")
+        void dispatch(int type, Object data) {
+            handler.handle(type, (T) data);
+        }
+    }
+}
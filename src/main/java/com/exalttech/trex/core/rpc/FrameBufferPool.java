@@ -0,0 +1,86 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Pool of frame buffers bucketed by power of two sizes. Buffers are acquired
+ * by the thread building a request and released by whoever completes it, so
+ * the buckets are lock-free queues rather than thread locals.
+ */
+final class FrameBufferPool {
+
+    private static final int MIN_SIZE_SHIFT = 10;
+    private static final int MAX_SIZE_SHIFT = 24;
+    private static final int MAX_BUFFERS_PER_BUCKET = 16;
+
+    private static final Queue<byte[]>[] BUCKETS = createBuckets();
+    private static final AtomicIntegerArray BUCKET_SIZES = new AtomicIntegerArray(MAX_SIZE_SHIFT - MIN_SIZE_SHIFT + 1);
+
+    private FrameBufferPool() {
+    }
+
+    /**
+     * @param minLength required capacity
+     * @return a buffer of at least minLength bytes, contents are undefined
+     */
+    static byte[] acquire(int minLength) {
+        int bucket = bucketOf(minLength);
+        if (bucket < 0) {
+            return new byte[minLength];
+        }
+        byte[] buffer = BUCKETS[bucket].poll();
+        if (buffer == null) {
+            return new byte[1 << (bucket + MIN_SIZE_SHIFT)];
+        }
+        BUCKET_SIZES.decrementAndGet(bucket);
+        return buffer;
+    }
+
+    /**
+     * Return a buffer obtained from {@link #acquire(int)}
+     *
+     * @param buffer
+     */
+    static void release(byte[] buffer) {
+        int bucket = bucketOf(buffer.length);
+        if (bucket < 0 || buffer.length != 1 << (bucket + MIN_SIZE_SHIFT)) {
+            return;
+        }
+        if (BUCKET_SIZES.incrementAndGet(bucket) > MAX_BUFFERS_PER_BUCKET) {
+            BUCKET_SIZES.decrementAndGet(bucket);
+            return;
+        }
+        BUCKETS[bucket].offer(buffer);
+    }
+
+    private static int bucketOf(int length) {
+        int shift = Math.max(MIN_SIZE_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(length, 1) - 1));
+        return shift > MAX_SIZE_SHIFT ? -1 : shift - MIN_SIZE_SHIFT;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Queue<byte[]>[] createBuckets() {
+        Queue<byte[]>[] buckets = new Queue[MAX_SIZE_SHIFT - MIN_SIZE_SHIFT + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds a {@link StreamJournal} back at its recorded pace, or faster.
+ * <p>
+ * Records are delivered on the replay thread in journal order, at
+ * recorded time divided by the speed. At {@link #MAX_SPEED} they are
+ * delivered without waiting.
+ */
+public class JournalReplayer {
+
+    /**
+     * Receives the replayed records
+     */
+    public interface ReplaySink {
+
+        /**
+         * @param frame raw async frame
+         */
+        void asyncFrame(byte[] frame);
+
+        /**
+         * @param method RPC method
+         * @param reply raw reply
+         */
+        void reply(String method, byte[] reply);
+
+        /**
+         * Called once the journal ends, fails or is stopped
+         *
+         * @param records records delivered
+         * @param complete true if the journal was replayed to its end
+         */
+        void finished(long records, boolean complete);
+    }
+
+    public static final double MAX_SPEED = 0;
+
+    private static final Logger LOG = Logger.getLogger(JournalReplayer.class.getName());
+
+    private final File file;
+    private final double speed;
+    private final ReplaySink sink;
+    private volatile boolean stopped = false;
+    private Thread thread;
+
+    /**
+     * Constructor
+     *
+     * @param file journal file
+     * @param speed replay speed, 1 for the recorded pace, MAX_SPEED for as
+     * fast as possible
+     * @param sink
+     */
+    public JournalReplayer(File file, double speed, ReplaySink sink) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("Invalid replay speed " + speed);
+        }
+        this.file = file;
+        this.speed = speed;
+        this.sink = sink;
+    }
+
+    /**
+     * Replay on a new daemon thread
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this::run, "journal-replay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop replaying, the sink is notified from the replay thread
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Replay on the calling thread
+     */
+    public void run() {
+        long records = 0;
+        boolean complete = false;
+        try (StreamJournalReader reader = new StreamJournalReader(file)) {
+            long startNanos = System.nanoTime();
+            StreamJournalReader.Record record;
+            while (!stopped && (record = reader.next()) != null) {
+                if (!waitFor(record, startNanos)) {
+                    break;
+                }
+                if (record.getKind() == StreamJournal.ASYNC_FRAME) {
+                    sink.asyncFrame(record.getFrame());
+                } else {
+                    sink.reply(record.getMethod(), record.getFrame());
+                }
+                records++;
+            }
+            complete = !stopped;
+        } catch (IOException ex) {
+            LOG.error("Error replaying journal " + file, ex);
+        } finally {
+            sink.finished(records, complete);
+        }
+    }
+
+    private boolean waitFor(StreamJournalReader.Record record, long startNanos) {
+        if (speed == MAX_SPEED) {
+            return true;
+        }
+        long due = startNanos + (long) (record.getNanos() / speed);
+        long delay;
+        while ((delay = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(delay);
+            if (stopped || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
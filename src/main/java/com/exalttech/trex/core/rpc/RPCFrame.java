@@ -0,0 +1,52 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+/**
+ * Encoded request frame, the first {@link #getLength()} bytes of
+ * {@link #getData()}. Pooled frames must be released once no more sends of
+ * the frame can happen.
+ */
+public final class RPCFrame {
+
+    private byte[] data;
+    private final int length;
+    private final boolean pooled;
+
+    RPCFrame(byte[] data, int length, boolean pooled) {
+        this.data = data;
+        this.length = length;
+        this.pooled = pooled;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Return the buffer to the pool. The frame must not be used afterwards.
+     */
+    public synchronized void release() {
+        if (pooled && data != null) {
+            FrameBufferPool.release(data);
+        }
+        data = null;
+    }
+}
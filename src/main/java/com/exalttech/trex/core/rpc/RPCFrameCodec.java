@@ -0,0 +1,130 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import com.exalttech.trex.util.CompressionUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+
+/**
+ * TRex wire framing. Compressed messages start with an 8 bytes header, the
+ * 0xABE85CEA magic followed by the uncompressed length, both big endian, and
+ * the zlib stream right after it. Messages without the magic are plain JSON,
+ * the server accepts both.
+ */
+public final class RPCFrameCodec {
+
+    public static final int MAGIC = 0xABE85CEA;
+    public static final int HEADER_SIZE = 8;
+
+    /**
+     * Requests below this size are sent uncompressed, same as the python client
+     */
+    public static final int COMPRESSION_THRESHOLD = 256;
+
+    /**
+     * Largest uncompressed length accepted from a header
+     */
+    public static final int MAX_UNCOMPRESSED_LENGTH = 1 << 28;
+
+    /**
+     * Highest compression ratio of deflate, a header claiming more is corrupt
+     */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private RPCFrameCodec() {
+    }
+
+    /**
+     * Encode a JSON-RPC request
+     *
+     * @param request
+     * @return frame backed by a pooled buffer when compressed
+     * @throws IOException
+     */
+    public static RPCFrame encode(String request) throws IOException {
+        byte[] payload = request.getBytes(StandardCharsets.UTF_8);
+        if (payload.length < COMPRESSION_THRESHOLD) {
+            return new RPCFrame(payload, payload.length, false);
+        }
+        byte[] buffer = FrameBufferPool.acquire(HEADER_SIZE + CompressionUtils.maxCompressedLength(payload.length));
+        try {
+            writeInt(buffer, 0, MAGIC);
+            writeInt(buffer, 4, payload.length);
+            int compressedLength = CompressionUtils.deflate(payload, 0, payload.length, buffer, HEADER_SIZE);
+            return new RPCFrame(buffer, HEADER_SIZE + compressedLength, true);
+        } catch (IOException | RuntimeException ex) {
+            FrameBufferPool.release(buffer);
+            throw ex;
+        }
+    }
+
+    /**
+     * Decode a message, decompressing it if it carries the header
+     *
+     * @param data raw message
+     * @return uncompressed payload, data itself if it was not compressed
+     * @throws DataFormatException if the compressed data is corrupted or its
+     * header claims a length the data cannot hold
+     */
+    public static byte[] decode(byte[] data) throws DataFormatException {
+        if (!isCompressed(data)) {
+            return data;
+        }
+        int length = readInt(data, 4);
+        // the length comes from the wire, checked before allocating it
+        if (length < 0 || length > MAX_UNCOMPRESSED_LENGTH
+                || length > (long) (data.length - HEADER_SIZE) * MAX_DEFLATE_RATIO) {
+            throw new DataFormatException("Invalid uncompressed length " + (length & 0xFFFFFFFFL));
+        }
+        byte[] output = new byte[length];
+        CompressionUtils.inflate(data, HEADER_SIZE, data.length - HEADER_SIZE, output);
+        return output;
+    }
+
+    /**
+     * @param data raw message
+     * @return decoded message as UTF-8 string, null if data is null
+     * @throws DataFormatException if the compressed data is corrupted
+     */
+    public static String decodeString(byte[] data) throws DataFormatException {
+        return data == null ? null : new String(decode(data), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param data raw message
+     * @return true if the message starts with the compression header
+     */
+    public static boolean isCompressed(byte[] data) {
+        return data != null && data.length > HEADER_SIZE && readInt(data, 0) == MAGIC;
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xFF) << 24
+                | (buffer[offset + 1] & 0xFF) << 16
+                | (buffer[offset + 2] & 0xFF) << 8
+                | (buffer[offset + 3] & 0xFF);
+    }
+}
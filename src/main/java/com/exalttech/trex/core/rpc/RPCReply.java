@@ -0,0 +1,65 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import com.exalttech.trex.remote.models.common.Error;
+
+/**
+ * Decoded JSON-RPC reply, holds either a typed result or an error
+ *
+ * @param <T> result type
+ */
+public final class RPCReply<T> {
+
+    private final String id;
+    private final T result;
+    private final Error error;
+
+    RPCReply(String id, T result, Error error) {
+        this.id = id;
+        this.result = result;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return result, null if the server replied with an error
+     */
+    public T getResult() {
+        return result;
+    }
+
+    public Error getError() {
+        return error;
+    }
+
+    public boolean isError() {
+        return error != null;
+    }
+
+    /**
+     * @return the most specific error message, empty string if no error
+     */
+    public String getErrorMessage() {
+        if (error == null) {
+            return "";
+        }
+        return error.getSpecificErr() != null ? error.getSpecificErr() : String.valueOf(error.getMessage());
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import com.exalttech.trex.remote.models.profiles.Profile;
+import com.exalttech.trex.remote.models.profiles.Stream;
+import com.exalttech.trex.util.Constants;
+import com.exalttech.trex.util.Util;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds JSON-RPC requests in a single streaming pass.
+ * <p>
+ * Everything the server expects on top of the plain model serialization is
+ * done while writing: the api_h is the first field of the params object,
+ * streams get default vm and rx_stats blocks, and "0x.." string values of
+ * profiles are written as numbers.
+ */
+public final class RPCRequestEncoder {
+
+    private static final String JSON_RPC_VERSION = "2.0";
+    private static final String API_HANDLER = "api_h";
+    private static final String VM = "vm";
+    private static final String RX_STATS = "rx_stats";
+    private static final String SPLIT_BY_VAR = "split_by_var";
+    private static final String HEX_PREFIX = "0x";
+
+    private static final ObjectMapper MAPPER = createMapper();
+    private static final ObjectWriter PARAMS_WRITER = MAPPER.writer();
+
+    private RPCRequestEncoder() {
+    }
+
+    /**
+     * Encode request with model parameters
+     *
+     * @param method RPC method
+     * @param params model or map parameters, no params field when null
+     * @param apiH API handler, not injected when null
+     * @return JSON request
+     * @throws IOException
+     */
+    public static String encode(String method, Object params, String apiH) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(writer)) {
+            writeRequest(generator, method, params, apiH);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Encode several requests of the same method as one JSON array
+     *
+     * @param method RPC method
+     * @param paramsList parameters of every request
+     * @param apiH API handler, not injected when null
+     * @return JSON array of requests
+     * @throws IOException
+     */
+    public static String encodeBatch(String method, List<?> paramsList, String apiH) throws IOException {
+        StringWriter writer = new StringWriter(paramsList.size() * 256);
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(writer)) {
+            generator.writeStartArray();
+            for (Object params : paramsList) {
+                writeRequest(generator, method, params, apiH);
+            }
+            generator.writeEndArray();
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Encode requests of different methods as one JSON array
+     *
+     * @param methods RPC method of every request
+     * @param paramsList parameters of every request, as long as the methods
+     * @param apiH API handler, not injected when null
+     * @return JSON array of requests
+     * @throws IOException
+     */
+    public static String encodeBatch(List<String> methods, List<?> paramsList, String apiH) throws IOException {
+        StringWriter writer = new StringWriter(methods.size() * 128);
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(writer)) {
+            generator.writeStartArray();
+            for (int i = 0; i < methods.size(); i++) {
+                writeRequest(generator, methods.get(i), paramsList.get(i), apiH);
+            }
+            generator.writeEndArray();
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Encode request with parameters given as a list of JSON fields without
+     * the surrounding braces
+     *
+     * @param method RPC method
+     * @param fields JSON fields, null params when null
+     * @param apiH API handler, not injected when null
+     * @return JSON request
+     * @throws IOException
+     */
+    public static String encodeFields(String method, String fields, String apiH) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(writer)) {
+            writeEnvelope(generator, method);
+            generator.writeFieldName("params");
+            if (fields == null) {
+                generator.writeNull();
+            } else {
+                generator.writeStartObject();
+                if (apiH != null) {
+                    generator.writeStringField(API_HANDLER, apiH);
+                }
+                if (!fields.trim().isEmpty()) {
+                    generator.writeRaw(apiH != null ? "," + fields : fields);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+        return writer.toString();
+    }
+
+    private static void writeEnvelope(JsonGenerator generator, String method) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", Util.getRandomID(Constants.RPC_REQUEST_ID_LENGTH));
+        generator.writeStringField("jsonrpc", JSON_RPC_VERSION);
+        generator.writeStringField("method", method);
+    }
+
+    private static void writeRequest(JsonGenerator generator, String method, Object params, String apiH) throws IOException {
+        writeEnvelope(generator, method);
+        if (params != null) {
+            generator.writeFieldName("params");
+            PARAMS_WRITER.writeValue(new ParamsGenerator(generator, apiH, params instanceof Profile), params);
+        }
+        generator.writeEndObject();
+    }
+
+    private static ObjectMapper createMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+            @Override
+            public boolean hasAnyGetterAnnotation(AnnotatedMethod am) {
+                // stream extra properties are written by StreamSerializer
+                return am.getDeclaringClass() != Stream.class && super.hasAnyGetterAnnotation(am);
+            }
+        });
+        SimpleModule module = new SimpleModule("RPCRequestEncoder");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc, JsonSerializer<?> serializer) {
+                if (beanDesc.getBeanClass() == Stream.class && serializer instanceof BeanSerializerBase) {
+                    return new StreamSerializer((BeanSerializerBase) serializer);
+                }
+                return serializer;
+            }
+        });
+        mapper.registerModule(module);
+        return mapper;
+    }
+
+    /**
+     * Writes stream properties followed by its extra properties, with the
+     * vm and rx_stats blocks completed with the defaults the server requires
+     */
+    private static class StreamSerializer extends JsonSerializer<Stream> implements ResolvableSerializer {
+
+        private final BeanSerializerBase beanSerializer;
+        private JsonSerializer<Object> fieldsSerializer;
+
+        StreamSerializer(BeanSerializerBase beanSerializer) {
+            this.beanSerializer = beanSerializer;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            beanSerializer.resolve(provider);
+            fieldsSerializer = beanSerializer.unwrappingSerializer(NameTransformer.NOP);
+        }
+
+        @Override
+        public void serialize(Stream stream, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            fieldsSerializer.serialize(stream, generator, provider);
+            Map<String, Object> additionalProperties = stream.getAdditionalProperties();
+            for (Map.Entry<String, Object> property : additionalProperties.entrySet()) {
+                String name = property.getKey();
+                Object value = property.getValue();
+                if (VM.equals(name)) {
+                    writeVm(generator, value, provider);
+                } else if (RX_STATS.equals(name)) {
+                    writeRxStats(generator, value, provider);
+                } else {
+                    provider.defaultSerializeField(name, value, generator);
+                }
+            }
+            if (!additionalProperties.containsKey(VM)) {
+                writeVm(generator, null, provider);
+            }
+            if (!additionalProperties.containsKey(RX_STATS)) {
+                writeRxStats(generator, null, provider);
+            }
+            generator.writeEndObject();
+        }
+
+        private static void writeVm(JsonGenerator generator, Object vm, SerializerProvider provider) throws IOException {
+            generator.writeFieldName(VM);
+            if (vm == null || isEmptyList(vm)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("instructions");
+                generator.writeEndArray();
+                generator.writeStringField(SPLIT_BY_VAR, "");
+                generator.writeEndObject();
+            } else if (vm instanceof Map && !((Map<?, ?>) vm).containsKey(SPLIT_BY_VAR)) {
+                generator.writeStartObject();
+                generator.writeStringField(SPLIT_BY_VAR, "");
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) vm).entrySet()) {
+                    provider.defaultSerializeField(String.valueOf(entry.getKey()), entry.getValue(), generator);
+                }
+                generator.writeEndObject();
+            } else {
+                provider.defaultSerializeValue(vm, generator);
+            }
+        }
+
+        private static void writeRxStats(JsonGenerator generator, Object rxStats, SerializerProvider provider) throws IOException {
+            generator.writeFieldName(RX_STATS);
+            if (rxStats == null || isEmptyList(rxStats)) {
+                generator.writeStartObject();
+                generator.writeBooleanField("enabled", false);
+                generator.writeEndObject();
+            } else {
+                provider.defaultSerializeValue(rxStats, generator);
+            }
+        }
+
+        private static boolean isEmptyList(Object value) {
+            return value instanceof List && ((List<?>) value).isEmpty();
+        }
+    }
+
+    /**
+     * Injects the api_h into the params object and optionally writes hex
+     * string values as numbers
+     */
+    private static class ParamsGenerator extends JsonGeneratorDelegate {
+
+        private final boolean convertHex;
+        private String apiH;
+
+        ParamsGenerator(JsonGenerator generator, String apiH, boolean convertHex) {
+            super(generator, false);
+            this.apiH = apiH;
+            this.convertHex = convertHex;
+        }
+
+        @Override
+        public void writeStartObject() throws IOException {
+            super.writeStartObject();
+            if (apiH != null) {
+                super.writeStringField(API_HANDLER, apiH);
+                apiH = null;
+            }
+        }
+
+        @Override
+        public void writeString(String text) throws IOException {
+            if (convertHex && text != null && text.startsWith(HEX_PREFIX)) {
+                try {
+                    super.writeNumber(Long.parseLong(text.substring(HEX_PREFIX.length()), 16));
+                    return;
+                } catch (NumberFormatException ex) {
+                    // not a number, keep the string
+                }
+            }
+            super.writeString(text);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the request generator is owned by the encoder
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import com.exalttech.trex.remote.models.common.Error;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Decodes JSON-RPC replies straight from the received bytes.
+ * <p>
+ * The payload is walked once with a streaming parser, the result and error
+ * members are bound by cached readers while envelope fields and results
+ * nobody asked for are skipped without building any object.
+ */
+public final class RPCResponseDecoder {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader ERROR_READER = MAPPER.readerFor(Error.class);
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private RPCResponseDecoder() {
+    }
+
+    /**
+     * Decode a single reply or a batch of replies
+     *
+     * @param data reply payload
+     * @param resultType type of the results, results are skipped when null
+     * @return replies in the order they were received
+     * @throws IOException if the payload is not a valid JSON-RPC reply
+     */
+    public static <T> List<RPCReply<T>> decode(byte[] data, Class<T> resultType) throws IOException {
+        ObjectReader reader = getReader(resultType);
+        return decodeReplies(data, index -> reader);
+    }
+
+    /**
+     * Decode a batch of replies to requests of different methods
+     *
+     * @param data reply payload
+     * @param resultTypes type of the result of every reply in order, results
+     * of a null type or past the end of the list are skipped
+     * @return replies in the order they were received
+     * @throws IOException if the payload is not a valid JSON-RPC reply
+     */
+    public static List<RPCReply<Object>> decode(byte[] data, List<Class<?>> resultTypes) throws IOException {
+        return decodeReplies(data, index -> index < resultTypes.size() ? getReader(resultTypes.get(index)) : null);
+    }
+
+    private static <T> List<RPCReply<T>> decodeReplies(byte[] data, IntFunction<ObjectReader> readers) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(data)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                return Collections.singletonList(readReply(parser, readers.apply(0)));
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new JsonParseException("Unexpected RPC reply start " + token, parser.getCurrentLocation());
+            }
+            List<RPCReply<T>> replies = new ArrayList<>();
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                replies.add(readReply(parser, readers.apply(replies.size())));
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new JsonParseException("Unexpected token in RPC reply batch " + token, parser.getCurrentLocation());
+            }
+            return replies;
+        }
+    }
+
+    /**
+     * Decode the first reply of the payload
+     *
+     * @param data reply payload
+     * @param resultType type of the result
+     * @return first reply
+     * @throws IOException if the payload is not a valid JSON-RPC reply or it
+     * is empty
+     */
+    public static <T> RPCReply<T> decodeFirst(byte[] data, Class<T> resultType) throws IOException {
+        List<RPCReply<T>> replies = decode(data, resultType);
+        if (replies.isEmpty()) {
+            throw new IOException("Empty RPC reply batch");
+        }
+        return replies.get(0);
+    }
+
+    /**
+     * Look for an error without binding any result
+     *
+     * @param data reply payload
+     * @return first error of the payload, null if there is none
+     * @throws IOException if the payload is not a valid JSON-RPC reply
+     */
+    public static Error findError(byte[] data) throws IOException {
+        List<RPCReply<Object>> replies = decodeReplies(data, index -> null);
+        for (RPCReply<Object> reply : replies) {
+            if (reply.isError()) {
+                return reply.getError();
+            }
+        }
+        return null;
+    }
+
+    private static ObjectReader getReader(Class<?> resultType) {
+        return resultType != null ? READERS.computeIfAbsent(resultType, MAPPER::readerFor) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> RPCReply<T> readReply(JsonParser parser, ObjectReader reader) throws IOException {
+        String id = null;
+        T result = null;
+        Error error = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    id = parser.getValueAsString();
+                    parser.skipChildren();
+                    break;
+                case "result":
+                    if (reader != null) {
+                        result = (T) reader.readValue(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "error":
+                    error = ERROR_READER.readValue(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return new RPCReply<>(id, result, error);
+    }
+}
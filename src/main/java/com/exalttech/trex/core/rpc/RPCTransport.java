@@ -0,0 +1,295 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import org.apache.log4j.Logger;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+import zmq.PollItem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipelined JSON-RPC transport.
+ * <p>
+ * All requests go through one DEALER socket owned by a dedicated I/O thread.
+ * Every request is prefixed with a request id frame; the server REP socket
+ * treats it as part of the envelope and echoes it back with the reply, so
+ * replies are matched to their futures without parsing the payload. Callers
+ * never wait on each other and several requests can be in flight at once.
+ * <p>
+ * Futures are completed on the I/O thread, heavy continuations should use the
+ * async variants of {@link CompletableFuture}.
+ */
+public class RPCTransport {
+
+    private static final Logger LOG = Logger.getLogger(RPCTransport.class.getName());
+    private static final long POLL_INTERVAL = 50;
+    private static final byte[] EMPTY_DELIMITER = new byte[0];
+    private static final byte[] WAKEUP_SIGNAL = new byte[]{1};
+
+    private final ZContext context;
+    private final String connectionString;
+    private final Queue<PendingRequest> outgoing = new ConcurrentLinkedQueue<>();
+    private final Map<Long, PendingRequest> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requestIdSequence = new AtomicLong();
+    private final Pipe wakeupPipe;
+
+    private volatile boolean running = false;
+    private volatile boolean reconnectRequested = false;
+    private ZMQ.Socket dealer;
+    private Thread ioThread;
+
+    /**
+     * Constructor
+     *
+     * @param context ZMQ context the socket is created in
+     * @param connectionString RPC endpoint, e.g. tcp://host:4501
+     * @throws IOException if the wakeup pipe cannot be opened
+     */
+    public RPCTransport(ZContext context, String connectionString) throws IOException {
+        this.context = context;
+        this.connectionString = connectionString;
+        wakeupPipe = Pipe.open();
+        wakeupPipe.source().configureBlocking(false);
+        wakeupPipe.sink().configureBlocking(false);
+    }
+
+    /**
+     * Connect the socket and start the I/O thread. The socket is connected on
+     * the calling thread so that an invalid address is reported to the caller.
+     */
+    public void start() {
+        dealer = buildDealer();
+        running = true;
+        ioThread = new Thread(this::run, "rpc-transport-" + connectionString);
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * Queue a request frame
+     *
+     * @param frame encoded request frame, it is not touched anymore once the
+     * returned future is completed
+     * @param timeout reply timeout in milliseconds
+     * @return future completed with the raw reply frame, or exceptionally with
+     * a {@link TimeoutException} when no reply arrives in time
+     */
+    public CompletableFuture<byte[]> send(RPCFrame frame, long timeout) {
+        final PendingRequest request = new PendingRequest(
+                requestIdSequence.incrementAndGet(),
+                frame,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout)
+        );
+        if (!running) {
+            request.future.completeExceptionally(new IOException("RPC transport is closed"));
+            return request.future;
+        }
+        outgoing.add(request);
+        wakeup();
+        return request.future;
+    }
+
+    /**
+     * Rebuild the socket on the I/O thread. Requests already in flight keep
+     * their deadlines, replies to them arriving on the old socket are lost.
+     */
+    public void reconnect() {
+        reconnectRequested = true;
+        wakeup();
+    }
+
+    /**
+     * @return number of queued and in-flight requests
+     */
+    public int getPendingCount() {
+        return outgoing.size() + inFlight.size();
+    }
+
+    /**
+     * Stop the I/O thread and fail every pending request
+     */
+    public void close() {
+        running = false;
+        wakeup();
+        if (ioThread != null && ioThread != Thread.currentThread()) {
+            try {
+                ioThread.join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            wakeupPipe.source().close();
+            wakeupPipe.sink().close();
+        } catch (IOException ex) {
+            LOG.warn("Error closing RPC transport wakeup pipe", ex);
+        }
+    }
+
+    private ZMQ.Socket buildDealer() {
+        ZMQ.Socket socket = context.createSocket(ZMQ.DEALER);
+        socket.setLinger(0);
+        socket.connect(connectionString);
+        return socket;
+    }
+
+    private void wakeup() {
+        try {
+            synchronized (wakeupPipe) {
+                // a full pipe means the I/O thread has a wakeup pending already
+                wakeupPipe.sink().write(ByteBuffer.wrap(WAKEUP_SIGNAL));
+            }
+        } catch (IOException ex) {
+            LOG.warn("Error waking up RPC transport", ex);
+        }
+    }
+
+    private void run() {
+        // the selector of a context poller lives as long as the context, this
+        // one is closed with the transport
+        Selector selector = null;
+        try {
+            selector = Selector.open();
+            final PollItem[] items = {
+                    new PollItem(dealer.base(), zmq.ZMQ.ZMQ_POLLIN),
+                    new PollItem(wakeupPipe.source(), zmq.ZMQ.ZMQ_POLLIN)
+            };
+            while (running) {
+                zmq.ZMQ.poll(selector, items, POLL_INTERVAL);
+                drainWakeupPipe();
+                if (reconnectRequested) {
+                    reconnectRequested = false;
+                    context.destroySocket(dealer);
+                    dealer = buildDealer();
+                    items[0] = new PollItem(dealer.base(), zmq.ZMQ.ZMQ_POLLIN);
+                }
+                flushOutgoing();
+                receiveReplies();
+                expireRequests();
+            }
+        } catch (Exception ex) {
+            LOG.error("RPC transport stopped unexpectedly", ex);
+            running = false;
+        } finally {
+            failPending(new IOException("RPC transport is closed"));
+            context.destroySocket(dealer);
+            if (selector != null) {
+                try {
+                    selector.close();
+                } catch (IOException ex) {
+                    LOG.warn("Error closing RPC transport selector", ex);
+                }
+            }
+        }
+    }
+
+    private void drainWakeupPipe() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        while (wakeupPipe.source().read(buffer) > 0) {
+            buffer.clear();
+        }
+    }
+
+    private void flushOutgoing() {
+        PendingRequest request;
+        while ((request = outgoing.poll()) != null) {
+            if (request.future.isDone()) {
+                continue;
+            }
+            inFlight.put(request.id, request);
+            boolean sent = dealer.send(request.idFrame(), ZMQ.SNDMORE | ZMQ.DONTWAIT)
+                    && dealer.send(EMPTY_DELIMITER, ZMQ.SNDMORE)
+                    && dealer.send(request.frame.getData(), 0, request.frame.getLength(), 0);
+            if (!sent) {
+                inFlight.remove(request.id);
+                request.future.completeExceptionally(new IOException("Error sending request"));
+            }
+        }
+    }
+
+    private void receiveReplies() {
+        byte[] idFrame;
+        while ((idFrame = dealer.recv(ZMQ.DONTWAIT)) != null) {
+            byte[] delimiter = dealer.hasReceiveMore() ? dealer.recv(0) : null;
+            byte[] payload = dealer.hasReceiveMore() ? dealer.recv(0) : null;
+            while (dealer.hasReceiveMore()) {
+                dealer.recv(0);
+            }
+            if (idFrame.length != Long.BYTES || delimiter == null || payload == null) {
+                LOG.warn("Dropping malformed RPC reply");
+                continue;
+            }
+            PendingRequest request = inFlight.remove(ByteBuffer.wrap(idFrame).getLong());
+            if (request == null) {
+                LOG.debug("Dropping RPC reply to expired request");
+                continue;
+            }
+            request.future.complete(payload);
+        }
+    }
+
+    private void expireRequests() {
+        final long now = System.nanoTime();
+        Iterator<PendingRequest> iterator = inFlight.values().iterator();
+        while (iterator.hasNext()) {
+            PendingRequest request = iterator.next();
+            if (now - request.deadline > 0) {
+                iterator.remove();
+                request.future.completeExceptionally(new TimeoutException("No reply from RPC server"));
+            }
+        }
+    }
+
+    private void failPending(Throwable cause) {
+        PendingRequest request;
+        while ((request = outgoing.poll()) != null) {
+            request.future.completeExceptionally(cause);
+        }
+        inFlight.values().forEach(pending -> pending.future.completeExceptionally(cause));
+        inFlight.clear();
+    }
+
+    private static class PendingRequest {
+        private final long id;
+        private final RPCFrame frame;
+        private final long deadline;
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        PendingRequest(long id, RPCFrame frame, long deadline) {
+            this.id = id;
+            this.frame = frame;
+            this.deadline = deadline;
+        }
+
+        byte[] idFrame() {
+            return ByteBuffer.allocate(Long.BYTES).putLong(id).array();
+        }
+    }
+}
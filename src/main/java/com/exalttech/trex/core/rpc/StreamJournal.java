@@ -0,0 +1,116 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Journal of the raw async frames and polled stats replies of a connection.
+ * <p>
+ * The file is gzip compressed and starts with {@link #MAGIC}, the format
+ * version and the wall clock start time. Every record holds its kind, the
+ * nanoseconds since the journal was opened, the RPC method for replies, and
+ * the length prefixed frame as it came from the socket.
+ */
+public class StreamJournal implements Closeable {
+
+    public static final int MAGIC = 0x54524A4C;
+    public static final int VERSION = 1;
+
+    /**
+     * Frame published on the async port
+     */
+    public static final byte ASYNC_FRAME = 0;
+
+    /**
+     * Reply of a polled RPC method
+     */
+    public static final byte RPC_REPLY = 1;
+
+    private static final long FLUSH_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final DataOutputStream out;
+    private final long startNanos;
+    private long lastFlushNanos;
+    private long records = 0;
+
+    /**
+     * Create the journal file, overwriting it if it exists
+     *
+     * @param file
+     * @throws IOException
+     */
+    public StreamJournal(File file) throws IOException {
+        out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file)), true));
+        startNanos = System.nanoTime();
+        lastFlushNanos = startNanos;
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    /**
+     * @param frame raw async frame
+     * @throws IOException
+     */
+    public void recordAsyncFrame(byte[] frame) throws IOException {
+        write(ASYNC_FRAME, null, frame);
+    }
+
+    /**
+     * @param method RPC method
+     * @param reply raw reply
+     * @throws IOException
+     */
+    public void recordReply(String method, byte[] reply) throws IOException {
+        write(RPC_REPLY, method, reply);
+    }
+
+    /**
+     * @return records written so far
+     */
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    private synchronized void write(byte kind, String method, byte[] frame) throws IOException {
+        long now = System.nanoTime();
+        out.writeByte(kind);
+        out.writeLong(now - startNanos);
+        if (kind == RPC_REPLY) {
+            out.writeUTF(method);
+        }
+        out.writeInt(frame.length);
+        out.write(frame);
+        records++;
+        // keep the journal readable if the GUI dies while recording
+        if (now - lastFlushNanos > FLUSH_INTERVAL_NANOS) {
+            out.flush();
+            lastFlushNanos = now;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
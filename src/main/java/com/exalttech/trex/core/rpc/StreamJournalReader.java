@@ -0,0 +1,141 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Sequential reader of a {@link StreamJournal} file
+ */
+public class StreamJournalReader implements Closeable {
+
+    private final DataInputStream in;
+    private final long startTime;
+
+    /**
+     * Open the journal and check its header
+     *
+     * @param file
+     * @throws IOException if the file is not a journal
+     */
+    public StreamJournalReader(File file) throws IOException {
+        in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+        try {
+            if (in.readInt() != StreamJournal.MAGIC) {
+                throw new IOException(file.getName() + " is not a stream journal");
+            }
+            int version = in.readInt();
+            if (version != StreamJournal.VERSION) {
+                throw new IOException("Unsupported journal version " + version);
+            }
+            startTime = in.readLong();
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return wall clock time the journal was started at, in milliseconds
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return next record, null at the end of the journal. A record cut by
+     * an unclean end of recording is treated as the end.
+     * @throws IOException
+     */
+    public Record next() throws IOException {
+        try {
+            int kind = in.read();
+            if (kind < 0) {
+                return null;
+            }
+            long nanos = in.readLong();
+            String method = kind == StreamJournal.RPC_REPLY ? in.readUTF() : null;
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Invalid record length " + length);
+            }
+            byte[] frame = new byte[length];
+            in.readFully(frame);
+            return new Record((byte) kind, nanos, method, frame);
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * One journal record
+     */
+    public static class Record {
+
+        private final byte kind;
+        private final long nanos;
+        private final String method;
+        private final byte[] frame;
+
+        Record(byte kind, long nanos, String method, byte[] frame) {
+            this.kind = kind;
+            this.nanos = nanos;
+            this.method = method;
+            this.frame = frame;
+        }
+
+        /**
+         * @return {@link StreamJournal#ASYNC_FRAME} or
+         * {@link StreamJournal#RPC_REPLY}
+         */
+        public byte getKind() {
+            return kind;
+        }
+
+        /**
+         * @return nanoseconds since the journal was started
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return RPC method of a reply, null for async frames
+         */
+        public String getMethod() {
+            return method;
+        }
+
+        /**
+         * @return frame as it was received, possibly compressed
+         */
+        public byte[] getFrame() {
+            return frame;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport health of one server connection: per method histograms of the
+ * request phases and counters of the transport incidents.
+ */
+public class TransportStats {
+
+    /**
+     * Timed phases of a request
+     */
+    public enum Phase {
+        COMPRESS("Compress"),
+        ROUND_TRIP("Round trip"),
+        DECOMPRESS("Decompress"),
+        PARSE("Parse");
+
+        private final String title;
+
+        Phase(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+    private final LongAdder resends = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder eagainEvents = new LongAdder();
+
+    /**
+     * Record the duration of a request phase
+     *
+     * @param method RPC method
+     * @param phase
+     * @param nanos
+     */
+    public void record(String method, Phase phase, long nanos) {
+        methods.computeIfAbsent(method, MethodStats::new).get(phase).record(nanos);
+    }
+
+    /**
+     * Record the duration of a phase shared by the requests of a batch, once
+     * per request
+     *
+     * @param methods RPC method of every request
+     * @param phase
+     * @param nanos
+     */
+    public void record(List<String> methods, Phase phase, long nanos) {
+        for (String method : methods) {
+            record(method, phase, nanos);
+        }
+    }
+
+    /**
+     * Count a request sent again after a timeout
+     */
+    public void incrementResends() {
+        resends.increment();
+    }
+
+    /**
+     * Count a request with no reply even after resending it
+     */
+    public void incrementTimeouts() {
+        timeouts.increment();
+    }
+
+    /**
+     * Count an empty read of the async subscriber
+     */
+    public void incrementEagainEvents() {
+        eagainEvents.increment();
+    }
+
+    public long getResends() {
+        return resends.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getEagainEvents() {
+        return eagainEvents.sum();
+    }
+
+    /**
+     * @return stats of every method seen so far, sorted by method name
+     */
+    public List<MethodStats> getMethodStats() {
+        List<MethodStats> result = new ArrayList<>(methods.values());
+        result.sort(Comparator.comparing(MethodStats::getMethod));
+        return result;
+    }
+
+    /**
+     * Forget all histograms and counters
+     */
+    public void reset() {
+        methods.clear();
+        resends.reset();
+        timeouts.reset();
+        eagainEvents.reset();
+    }
+
+    /**
+     * Export as CSV, durations in milliseconds
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void exportTo(File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            writer.println("method,phase,count,mean_ms,p50_ms,p90_ms,p99_ms,max_ms");
+            for (MethodStats stats : getMethodStats()) {
+                for (Phase phase : Phase.values()) {
+                    LatencyHistogram histogram = stats.get(phase);
+                    if (histogram.getCount() == 0) {
+                        continue;
+                    }
+                    writer.println(String.join(",",
+                            stats.getMethod(),
+                            phase.name().toLowerCase(Locale.ROOT),
+                            String.valueOf(histogram.getCount()),
+                            toMillis(histogram.getMean()),
+                            toMillis(histogram.getValueAtPercentile(50)),
+                            toMillis(histogram.getValueAtPercentile(90)),
+                            toMillis(histogram.getValueAtPercentile(99)),
+                            toMillis(histogram.getMax())
+                    ));
+                }
+            }
+            writer.println();
+            writer.println("resends," + getResends());
+            writer.println("timeouts," + getTimeouts());
+            writer.println("eagain_events," + getEagainEvents());
+        }
+    }
+
+    /**
+     * Format nanoseconds as milliseconds
+     *
+     * @param nanos
+     * @return
+     */
+    public static String toMillis(double nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Histograms of one RPC method
+     */
+    public static class MethodStats {
+
+        private final String method;
+        private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+
+        MethodStats(String method) {
+            this.method = method;
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram();
+            }
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public LatencyHistogram get(Phase phase) {
+            return histograms[phase.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Bounded in-memory log of the raw RPC traffic.
+ * <p>
+ * Recording a message only stores a reference to the bytes that were sent or
+ * received. Messages are decoded and formatted when trace logging is enabled
+ * for this class, when a listener such as the log viewer is registered, or on
+ * export.
+ * <p>
+ * The log is bounded both by the number of messages and by their uncompressed
+ * size, so a few large stats replies do not keep megabytes of history alive.
+ */
+public class WireLog {
+
+    /**
+     * Wire log listener
+     */
+    public interface WireLogListener {
+
+        /**
+         * Called on the thread that recorded the message
+         *
+         * @param entry
+         */
+        void entryAdded(WireLogEntry entry);
+    }
+
+    private static final Logger LOG = Logger.getLogger(WireLog.class.getName());
+    private static final int DEFAULT_CAPACITY = 500;
+    private static final long DEFAULT_MAX_BYTES = 2 * 1024 * 1024;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static WireLog instance = null;
+
+    private final WireLogEntry[] entries;
+    private final long maxBytes;
+    private final List<WireLogListener> listeners = new CopyOnWriteArrayList<>();
+    private int head = 0;
+    private int size = 0;
+    private long bytes = 0;
+
+    /**
+     * @return instance of the wire log
+     */
+    public static synchronized WireLog getInstance() {
+        if (instance == null) {
+            instance = new WireLog(DEFAULT_CAPACITY, DEFAULT_MAX_BYTES);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param capacity number of messages kept, the oldest ones are dropped
+     * @param maxBytes uncompressed size of the kept messages, the newest
+     * message is always kept
+     */
+    WireLog(int capacity, long maxBytes) {
+        entries = new WireLogEntry[capacity];
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Record a sent request
+     *
+     * @param request JSON request
+     * @param wireSize size of the encoded frame
+     */
+    public void logRequest(String request, int wireSize) {
+        add(new WireLogEntry(System.currentTimeMillis(), WireLogEntry.Direction.REQUEST, wireSize, request, null));
+    }
+
+    /**
+     * Record a received response
+     *
+     * @param response decoded response bytes, must not be modified afterwards
+     * @param wireSize size of the received frame
+     */
+    public void logResponse(byte[] response, int wireSize) {
+        add(new WireLogEntry(System.currentTimeMillis(), WireLogEntry.Direction.RESPONSE, wireSize, null, response));
+    }
+
+    private void add(WireLogEntry entry) {
+        synchronized (entries) {
+            if (size == entries.length) {
+                dropOldest();
+            }
+            entries[(head + size) % entries.length] = entry;
+            size++;
+            bytes += entry.getSize();
+            while (bytes > maxBytes && size > 1) {
+                dropOldest();
+            }
+        }
+        if (LOG.isTraceEnabled()) {
+            LOG.trace(entry.getDirection().getTitle() + " \n" + entry.getPrettyText());
+        }
+        for (WireLogListener listener : listeners) {
+            listener.entryAdded(entry);
+        }
+    }
+
+    private void dropOldest() {
+        bytes -= entries[head].getSize();
+        entries[head] = null;
+        head = (head + 1) % entries.length;
+        size--;
+    }
+
+    /**
+     * @return recorded messages, oldest first
+     */
+    public List<WireLogEntry> getEntries() {
+        synchronized (entries) {
+            List<WireLogEntry> snapshot = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                snapshot.add(entries[(head + i) % entries.length]);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Drop all recorded messages
+     */
+    public void clear() {
+        synchronized (entries) {
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = null;
+            }
+            head = 0;
+            size = 0;
+            bytes = 0;
+        }
+    }
+
+    public void addListener(WireLogListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(WireLogListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Write all recorded messages to a file, pretty printed
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void exportTo(File file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (WireLogEntry entry : getEntries()) {
+                writer.write(formatHeader(entry));
+                writer.newLine();
+                writer.write(entry.getPrettyText());
+                writer.newLine();
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * @param entry
+     * @return one line description of the entry
+     */
+    public static String formatHeader(WireLogEntry entry) {
+        return TIME_FORMAT.format(Instant.ofEpochMilli(entry.getTimestamp())) + "   " + entry.getDirection().getTitle()
+                + " (" + entry.getSize() + " bytes, " + entry.getWireSize() + " on the wire)";
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import com.exalttech.trex.util.Util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Raw RPC message kept by the {@link WireLog}. The text is decoded and
+ * pretty printed only when someone asks for it.
+ */
+public final class WireLogEntry {
+
+    public enum Direction {
+        REQUEST("Sending request"),
+        RESPONSE("Received Server response");
+
+        private final String title;
+
+        Direction(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private final long timestamp;
+    private final Direction direction;
+    private final int wireSize;
+    private final String text;
+    private final byte[] data;
+
+    WireLogEntry(long timestamp, Direction direction, int wireSize, String text, byte[] data) {
+        this.timestamp = timestamp;
+        this.direction = direction;
+        this.wireSize = wireSize;
+        this.text = text;
+        this.data = data;
+    }
+
+    /**
+     * @return time the message was sent or received in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return size of the message on the wire, after compression
+     */
+    public int getWireSize() {
+        return wireSize;
+    }
+
+    /**
+     * @return uncompressed size of the message
+     */
+    public int getSize() {
+        return data != null ? data.length : text.length();
+    }
+
+    public String getText() {
+        return text != null ? text : new String(data, StandardCharsets.UTF_8);
+    }
+
+    public String getPrettyText() {
+        String rawText = getText();
+        return rawText.isEmpty() ? rawText : Util.toPrettyFormat(rawText);
+    }
+}
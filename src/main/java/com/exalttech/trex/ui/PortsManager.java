@@ -17,11 +17,11 @@ package com.exalttech.trex.ui;
 
 import com.cisco.trex.stateless.model.port.PortVlan;
 import com.exalttech.trex.core.ConnectionManager;
+import com.exalttech.trex.core.SessionManager;
 import com.exalttech.trex.ui.models.Port;
 import com.exalttech.trex.ui.models.PortModel;
 import com.exalttech.trex.ui.models.PortStatus;
 import com.exalttech.trex.util.Util;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.log4j.Logger;
 
 import java.util.*;
@@ -40,34 +40,30 @@ public class PortsManager {
 
     private static final Logger logger = Logger.getLogger(PortsManager.class);
     
-    private static PortsManager instance = null;
-
-    ObjectMapper mapper = new ObjectMapper();
-    
     private List<PortServiceModeChangedListener> portServiceModeChangedListeners = Collections.synchronizedList(new ArrayList<>());
     
     /**
-     * Return instance of Port manager
+     * Return port manager of the main server session
      *
      * @return
      */
     public static PortsManager getInstance() {
-        if (instance == null) {
-            instance = new PortsManager();
-        }
-
-        return instance;
+        return SessionManager.getInstance().getPrimarySession().getPortsManager();
     }
     private List<Port> portList;
     PortManagerEventHandler portManagerHandler;
 
     private Map<Integer, PortModel> portModels = new HashMap<>();
     
+    private final ConnectionManager connectionManager;
+
     /**
-     * Protected constructor
+     * Constructor
+     *
+     * @param connectionManager connection to the server the ports belong to
      */
-    protected PortsManager() {
-        // constructor
+    public PortsManager(ConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
     }
 
     public void addPortServiceModeChangedListener(final PortServiceModeChangedListener listener) {
@@ -140,13 +136,10 @@ public class PortsManager {
                                   .collect(Collectors.toList());
 
         try {
-            String response = ConnectionManager.getInstance().sendPortStatusRequest(list);
-            if (response == null) {
-                return;
-            }
-            List<PortStatus> portStatusList = mapper.readValue(response, mapper.getTypeFactory().constructCollectionType(List.class, PortStatus.class));
-            for (Port port : list) {
-                PortStatus.PortStatusResult portStatus = portStatusList.get(list.indexOf(port)).getResult();
+            List<PortStatus.PortStatusResult> portStatusList = connectionManager.sendPortStatusRequest(list);
+            for (int i = 0; i < list.size(); i++) {
+                Port port = list.get(i);
+                PortStatus.PortStatusResult portStatus = portStatusList.get(i);
                 port.setOwner(portStatus.getOwner());
                 port.setStatus(portStatus.getState());
                 port.setAttr(portStatus.getAttr());
@@ -155,7 +148,9 @@ public class PortsManager {
                 port.linkProperty().set(portStatus.getAttr().getLink().getUp());
                 updateModel(port.getIndex(), portStatus);
             }
-            portManagerHandler.onPortListUpdated(true);
+            if (portManagerHandler != null) {
+                portManagerHandler.onPortListUpdated(true);
+            }
         } catch (Exception ex) {
             logger.error("Error reading port status", ex);
         }
@@ -188,7 +183,7 @@ public class PortsManager {
             }
 
             for (Port port : portList) {
-                if (port.getOwner().equals(ConnectionManager.getInstance().getClientName())) {
+                if (port.getOwner().equals(connectionManager.getClientName())) {
                     count++;
                 }
             }
@@ -220,7 +215,7 @@ public class PortsManager {
      * @return
      */
     public boolean isCurrentUserOwner(int portIndex) {
-        return portList.get(portIndex).getOwner().equals(ConnectionManager.getInstance().getClientName());
+        return portList.get(portIndex).getOwner().equals(connectionManager.getClientName());
     }
 
     /**
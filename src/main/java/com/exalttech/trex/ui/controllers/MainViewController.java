@@ -22,11 +22,14 @@ import com.exalttech.trex.application.TrexApp;
 import com.exalttech.trex.core.AsyncResponseManager;
 import com.exalttech.trex.core.ConnectionManager;
 import com.exalttech.trex.core.RPCMethods;
+import com.exalttech.trex.core.SessionManager;
 import com.exalttech.trex.core.TrexEvent;
+import com.exalttech.trex.core.rpc.JournalReplayer;
 import com.exalttech.trex.remote.exceptions.IncorrectRPCMethodException;
 import com.exalttech.trex.remote.exceptions.InvalidRPCResponseException;
 import com.exalttech.trex.remote.exceptions.PortAcquireException;
 import com.exalttech.trex.remote.exceptions.TrafficException;
+import com.exalttech.trex.remote.models.multiplier.Multiplier;
 import com.exalttech.trex.remote.models.profiles.FlowStats;
 import com.exalttech.trex.remote.models.profiles.Profile;
 import com.exalttech.trex.remote.models.validate.StreamValidation;
@@ -45,6 +48,7 @@ import com.exalttech.trex.ui.models.PortModel;
 import com.exalttech.trex.ui.models.SystemInfoReq;
 import com.exalttech.trex.ui.models.datastore.Connection;
 import com.exalttech.trex.ui.models.datastore.ConnectionsWrapper;
+import com.exalttech.trex.ui.models.datastore.Preferences;
 import com.exalttech.trex.ui.util.AlertUtils;
 import com.exalttech.trex.ui.views.MultiplierOptionChangeHandler;
 import com.exalttech.trex.ui.views.MultiplierView;
@@ -52,6 +56,8 @@ import com.exalttech.trex.ui.views.PacketTableUpdatedHandler;
 import com.exalttech.trex.ui.views.PacketTableView;
 import com.exalttech.trex.ui.views.logs.LogType;
 import com.exalttech.trex.ui.views.logs.LogsController;
+import com.exalttech.trex.ui.views.logs.WireLogView;
+import com.exalttech.trex.ui.views.sessions.SessionsView;
 import com.exalttech.trex.ui.views.models.AssignedProfile;
 import com.exalttech.trex.ui.views.models.ProfileMultiplier;
 import com.exalttech.trex.ui.views.services.CountdownService;
@@ -59,6 +65,8 @@ import com.exalttech.trex.ui.views.services.RefreshingService;
 import com.exalttech.trex.ui.views.statistics.StatsLoader;
 import com.exalttech.trex.ui.views.statistics.StatsTableGenerator;
 import com.exalttech.trex.util.Constants;
+import com.exalttech.trex.util.FileChooserFactory;
+import com.exalttech.trex.util.PreferencesManager;
 import com.exalttech.trex.util.ProfileManager;
 import com.exalttech.trex.util.Util;
 import com.exalttech.trex.util.files.XMLFileManager;
@@ -90,6 +98,8 @@ import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.Pane;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import javafx.stage.WindowEvent;
 import javafx.util.Duration;
 import org.apache.log4j.Logger;
@@ -99,7 +109,6 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.util.*;
-import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
@@ -111,7 +120,7 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     MultiplierOptionChangeHandler, PortManagerEventHandler, PacketTableUpdatedHandler {
 
     private static final Logger LOG = Logger.getLogger(MainViewController.class.getName());
-    private final RPCMethods serverRPCMethods = TrexApp.injector.getInstance(RPCMethods.class);
+    private final RPCMethods serverRPCMethods = SessionManager.getInstance().getPrimarySession().getRPCMethods();
     private final RunningConfiguration runningConfiguration = TrexApp.injector.getInstance(RunningConfiguration.class);
     private static final String DISABLED_MULTIPLIER_MSG = "Multiplier is disabled because all streams have latency enabled";
 
@@ -145,6 +154,12 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     MenuItem statsMenuItem;
     @FXML
     MenuItem captureMenuItem;
+    @FXML
+    MenuItem recordJournalMenuItem;
+    @FXML
+    MenuItem replayJournalMenuItem;
+    @FXML
+    MenuItem openHistoryMenuItem;
 
     @FXML
     AnchorPane multiplierOptionContainer;
@@ -163,6 +178,10 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
 
     @FXML
     AnchorPane logContainer;
+    @FXML
+    AnchorPane wireLogContainer;
+    @FXML
+    AnchorPane sessionsContainer;
 
     @FXML
     Label startStream;
@@ -193,6 +212,10 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     @FXML
     Tab logTab;
     @FXML
+    Tab wireLogTab;
+    @FXML
+    Tab sessionsTab;
+    @FXML
     Button copyToClipboardBtn;
     @FXML
     Label dashboardIcon;
@@ -231,12 +254,21 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     private CountdownService countdownService;
     private PortsManager portManager;
     private final BooleanProperty disableProfileProperty = new SimpleBooleanProperty();
+    private final WireLogView wireLogView = new WireLogView();
+    private final SessionsView sessionsView = new SessionsView();
     StatsTableGenerator statsTableGenerator;
     boolean doAssignProfile = true;
     private boolean allStreamWithLatency;
     private boolean isFirstPortStatusRequest = true;
     private static final String DISCONNECT_MENU_ITEM_TITLE = "Disconnect";
     private static final String CONNECT_MENU_ITEM_TITLE = "Connect";
+    private static final String RECORD_JOURNAL_MENU_ITEM_TITLE = "Record Journal...";
+    private static final String STOP_RECORDING_MENU_ITEM_TITLE = "Stop Recording Journal";
+    private static final String REPLAY_JOURNAL_MENU_ITEM_TITLE = "Replay Journal...";
+    private static final String STOP_REPLAY_MENU_ITEM_TITLE = "Stop Replay";
+    private static final String MAX_REPLAY_SPEED = "Max";
+    private static final String OPEN_HISTORY_MENU_ITEM_TITLE = "Open Stats History...";
+    private static final String CLOSE_HISTORY_MENU_ITEM_TITLE = "Close Stats History";
 
     private int lastLoadedPortPtofileIndex = -1;
     private boolean profileLoaded = false;
@@ -273,7 +305,7 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
                 case PORT_ATTR_CHANGED:
                 case PORT_STARTED:
                 case PORT_STOPPED:
-                    final int portId = newVal.getData().getAsJsonPrimitive("port_id").getAsInt();
+                    final int portId = newVal.getData().getPortId();
                     PortModel portModel = portManager.getPortModel(portId);
 
                     if (ConnectionManager.getInstance().isConnected()) {
@@ -348,6 +380,8 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
      * Open connect dialog
      */
     private void openConnectDialog() {
+        stopJournalReplay();
+        closeStatsHistory();
         try {
             DialogWindow connectWindow = new DialogWindow("ConnectDialog.fxml", "Connect", 300, 100, false, TrexApp.getPrimaryStage());
             connectWindow.show(true);
@@ -355,6 +389,7 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
                 serverRPCMethods.serverApiSync();
 
                 loadSystemInfo();
+                SessionManager.getInstance().getPrimarySession().openHistory();
                 StatsLoader.getInstance().start();
                 StatsStorage.getInstance().startPolling();
                 portManager.updatePortForce();
@@ -598,6 +633,7 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
 
         Platform.runLater(() -> {
             StatsStorage.getInstance().stopPolling();
+            SessionManager.getInstance().getPrimarySession().closeHistory();
             shutdownRunningServices();
             LogsController.getInstance().getView().clear();
 
@@ -612,6 +648,7 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
             serviceModeLabel.setVisible(false);
 
             connectMenuItem.setText(CONNECT_MENU_ITEM_TITLE);
+            recordJournalMenuItem.setText(RECORD_JOURNAL_MENU_ITEM_TITLE);
             statsMenuItem.setDisable(true);
             captureMenuItem.setDisable(true);
             dashboardIcon.setDisable(true);
@@ -887,6 +924,10 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
             }
         });
         logContainer.getChildren().add(LogsController.getInstance().getView());
+        wireLogContainer.getChildren().add(wireLogView);
+        wireLogTab.selectedProperty().addListener((observable, oldValue, newValue) -> wireLogView.setOpen(newValue));
+        sessionsContainer.getChildren().add(sessionsView);
+        sessionsTab.selectedProperty().addListener((observable, oldValue, newValue) -> sessionsView.setOpen(newValue));
 
         // initialize countdown service
         countdownService = new CountdownService();
@@ -1127,16 +1168,45 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     @FXML
     public void startAllTransitBtnCLicked(MouseEvent event) {
         LOG.trace("Clicked on the Start All Transit Button");
-        portManager.getPortList().stream().forEach(new Consumer<Port>() {
-            @Override
-            public void accept(Port port) {
-                PortState portState = PortState.getPortStatus(port.getStatus());
-                if (portManager.isCurrentUserOwner(port.getIndex())
-                    && portState != PortState.TX && portState != PortState.IDLE) {
-                    doStartResume(port.getIndex());
+        List<Integer> pausedPorts = new ArrayList<>();
+        Map<Integer, Multiplier> stoppedPorts = new LinkedHashMap<>();
+        for (Port port : portManager.getPortList()) {
+            PortState portState = PortState.getPortStatus(port.getStatus());
+            if (portManager.isCurrentUserOwner(port.getIndex())
+                && portState != PortState.TX && portState != PortState.IDLE) {
+                if (portState == PortState.PAUSE) {
+                    pausedPorts.add(port.getIndex());
+                } else {
+                    stoppedPorts.put(port.getIndex(), getStartMultiplier(port.getIndex()));
                 }
             }
-        });
+        }
+        if (pausedPorts.isEmpty() && stoppedPorts.isEmpty()) {
+            return;
+        }
+        // disable start button to avoid another quick click
+        startStream.setDisable(true);
+        if (!pausedPorts.isEmpty()) {
+            serverRPCMethods.resumeTraffic(pausedPorts);
+        }
+        if (!stoppedPorts.isEmpty()) {
+            try {
+                Map<Integer, Double> startedPorts = serverRPCMethods.startTraffic(stoppedPorts, false, multiplierView.getDuration());
+                for (Integer portID : startedPorts.keySet()) {
+                    updateStartedProfile(portID);
+                }
+                if (startedPorts.size() != stoppedPorts.size()) {
+                    startStream.setDisable(false);
+                }
+            } catch (TrafficException ex) {
+                // re-enable start button in case of errors
+                startStream.setDisable(false);
+                LOG.error("Error starting traffic", ex);
+            }
+        }
+        List<Integer> updatedPorts = new ArrayList<>(pausedPorts);
+        updatedPorts.addAll(stoppedPorts.keySet());
+        portManager.updatedPorts(updatedPorts);
     }
 
     /**
@@ -1146,19 +1216,9 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
      */
     private void startTraffic(int portID) {
         try {
-            AssignedProfile assignedProf = assignedPortProfileMap.get(portID);
-
-            if (assignedProf != null && assignedProf.isAllStreamsWithLatency()) {
-                serverRPCMethods.startTraffic(portID, false, "percentage", 100, multiplierView.getDuration());
-            } else {
-                serverRPCMethods.startTraffic(portID, false, "pps", multiplierView.getPPSValue(), multiplierView.getDuration());
-            }
-
-            if (assignedProf != null) {
-                assignedProf.setStreamStarted(true);
-                assignedProf.setHasDuration(multiplierView.isDurationEnable());
-                updateMultiplierValues(assignedProf);
-            }
+            Multiplier multiplier = getStartMultiplier(portID);
+            serverRPCMethods.startTraffic(portID, false, multiplier.getType(), multiplier.getValue(), multiplierView.getDuration());
+            updateStartedProfile(portID);
         } catch (TrafficException ex) {
             // re-enable start button in case of errors
             startStream.setDisable(false);
@@ -1166,6 +1226,35 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
         }
     }
 
+    /**
+     * Return the multiplier traffic is started with on port, streams with
+     * latency only are always started at full rate
+     *
+     * @param portID
+     * @return
+     */
+    private Multiplier getStartMultiplier(int portID) {
+        AssignedProfile assignedProf = assignedPortProfileMap.get(portID);
+        if (assignedProf != null && assignedProf.isAllStreamsWithLatency()) {
+            return new Multiplier("percentage", 100);
+        }
+        return new Multiplier("pps", multiplierView.getPPSValue());
+    }
+
+    /**
+     * Mark the assigned profile of port as started
+     *
+     * @param portID
+     */
+    private void updateStartedProfile(int portID) {
+        AssignedProfile assignedProf = assignedPortProfileMap.get(portID);
+        if (assignedProf != null) {
+            assignedProf.setStreamStarted(true);
+            assignedProf.setHasDuration(multiplierView.isDurationEnable());
+            updateMultiplierValues(assignedProf);
+        }
+    }
+
     /**
      * stop transit btn clicked
      *
@@ -1192,13 +1281,17 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
     @FXML
     public void stopAllTransitBtnCLicked(MouseEvent event) {
         LOG.trace("Clicked on the Stop All Transit Button ");
-        portManager.getPortList().stream().forEach(port -> {
+        List<Integer> txPorts = new ArrayList<>();
+        for (Port port : portManager.getPortList()) {
             PortState portState = PortState.getPortStatus(port.getStatus());
             if (portManager.isCurrentUserOwner(port.getIndex()) && portState == PortState.TX) {
-                serverRPCMethods.stopPortTraffic(port.getIndex());
-                portManager.updatedPorts(Arrays.asList(port.getIndex()));
+                txPorts.add(port.getIndex());
             }
-        });
+        }
+        if (!txPorts.isEmpty()) {
+            serverRPCMethods.stopPortTraffic(txPorts);
+            portManager.updatedPorts(txPorts);
+        }
         enableUpdateBtn(false, false);
     }
 
@@ -1335,11 +1428,26 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
      * Release all ports
      */
     private void releaseAllPort(boolean stopTraffic) {
-        portManager.getPortList().stream().forEach(port -> {
+        List<Integer> ownedPorts = new ArrayList<>();
+        for (Port port : portManager.getPortList()) {
             if (PortsManager.getInstance().isCurrentUserOwner(port.getIndex())) {
-                releasePort(port.getIndex(), false, stopTraffic);
+                ownedPorts.add(port.getIndex());
             }
-        });
+        }
+        if (ownedPorts.isEmpty()) {
+            return;
+        }
+        serverRPCMethods.releasePorts(ownedPorts, stopTraffic);
+        // remove saved assigned profiles
+        for (Integer portIndex : ownedPorts) {
+            assignedPortProfileMap.remove(portIndex);
+        }
+        if (!resetAppInProgress) {
+            final int selectedPortIndex = getSelectedPortIndex();
+            if (ownedPorts.contains(selectedPortIndex)) {
+                portManager.getPortModel(selectedPortIndex).setIsOwned(false);
+            }
+        }
     }
 
     /**
@@ -1350,15 +1458,19 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
      * @throws PortAcquireException
      */
     private void acquireAllPorts(boolean force, boolean acquireOwnedOnly) {
+        List<Integer> portIDs = new ArrayList<>();
         for (Port port : portManager.getPortList()) {
-            try {
-                if (!acquireOwnedOnly || (acquireOwnedOnly && portManager.isCurrentUserOwner(port.getIndex()))) {
-                    serverRPCMethods.acquireServerPort(port.getIndex(), force);
-                }
-            } catch (PortAcquireException ex) {
-                LOG.error("Error handling context menu item clicked", ex);
+            if (!acquireOwnedOnly || portManager.isCurrentUserOwner(port.getIndex())) {
+                portIDs.add(port.getIndex());
             }
         }
+        try {
+            if (!portIDs.isEmpty()) {
+                serverRPCMethods.acquireServerPorts(portIDs, force);
+            }
+        } catch (PortAcquireException ex) {
+            LOG.error("Error handling context menu item clicked", ex);
+        }
         portManager.updatePortForce();
     }
 
@@ -1419,6 +1531,8 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
             if (!portManager.getPortList().isEmpty() && !portManager.getPortList().isEmpty()) {
                 releaseAllPort(false);
             }
+            SessionManager.getInstance().closeAdditionalSessions();
+            SessionManager.getInstance().getPrimarySession().closeHistory();
             // stop async subscriber
             if (ConnectionManager.getInstance().isConnected()) {
                 ConnectionManager.getInstance().disconnect();
@@ -1497,6 +1611,141 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
         openPreferencesWindow();
     }
 
+    /**
+     * Start or stop recording the async stream journal
+     *
+     * @param event
+     */
+    @FXML
+    public void handleRecordJournalMenuItemClicked(ActionEvent event) {
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+        if (connectionManager.isJournaling()) {
+            connectionManager.stopJournal();
+            recordJournalMenuItem.setText(RECORD_JOURNAL_MENU_ITEM_TITLE);
+            return;
+        }
+        FileChooser fileChooser = FileChooserFactory.get();
+        fileChooser.setTitle("Record journal");
+        fileChooser.setInitialFileName("trex-journal.trj");
+        File file = fileChooser.showSaveDialog(TrexApp.getPrimaryStage());
+        if (file == null) {
+            return;
+        }
+        try {
+            connectionManager.startJournal(file);
+            recordJournalMenuItem.setText(STOP_RECORDING_MENU_ITEM_TITLE);
+        } catch (IOException ex) {
+            LOG.error("Error creating journal", ex);
+            LogsController.getInstance().appendText(LogType.ERROR, "Error creating journal: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Start or stop replaying a recorded journal without a server
+     *
+     * @param event
+     */
+    @FXML
+    public void handleReplayJournalMenuItemClicked(ActionEvent event) {
+        if (ConnectionManager.getInstance().isReplaying()) {
+            stopJournalReplay();
+            return;
+        }
+        closeStatsHistory();
+        if (ConnectionManager.getInstance().isConnected()) {
+            AlertUtils.construct(
+                Alert.AlertType.ERROR,
+                "Replay journal",
+                "Unable to replay journal",
+                "Disconnect from TRex server before replaying a journal")
+                .show();
+            return;
+        }
+        FileChooser fileChooser = FileChooserFactory.get();
+        fileChooser.setTitle("Replay journal");
+        File file = fileChooser.showOpenDialog(TrexApp.getPrimaryStage());
+        if (file == null) {
+            return;
+        }
+        ChoiceDialog<String> speedDialog = new ChoiceDialog<>("1x", "1x", "2x", "5x", "10x", MAX_REPLAY_SPEED);
+        speedDialog.setTitle("Replay journal");
+        speedDialog.setHeaderText("Replay speed");
+        speedDialog.initOwner(TrexApp.getPrimaryStage());
+        Optional<String> speed = speedDialog.showAndWait();
+        if (!speed.isPresent()) {
+            return;
+        }
+        double replaySpeed = MAX_REPLAY_SPEED.equals(speed.get())
+                ? JournalReplayer.MAX_SPEED
+                : Double.parseDouble(speed.get().replace("x", ""));
+        if (SessionManager.getInstance().getPrimarySession().replay(file, replaySpeed)) {
+            replayJournalMenuItem.setText(STOP_REPLAY_MENU_ITEM_TITLE);
+            statsMenuItem.setDisable(false);
+            dashboardIcon.setDisable(false);
+            openStateDialog();
+        }
+    }
+
+    private void stopJournalReplay() {
+        if (!ConnectionManager.getInstance().isReplaying()) {
+            return;
+        }
+        SessionManager.getInstance().getPrimarySession().stopReplay();
+        replayJournalMenuItem.setText(REPLAY_JOURNAL_MENU_ITEM_TITLE);
+        statsMenuItem.setDisable(true);
+        dashboardIcon.setDisable(true);
+    }
+
+    /**
+     * Open or close the stats history of a finished session, the dashboard
+     * shows it without a server
+     *
+     * @param event
+     */
+    @FXML
+    public void handleOpenHistoryMenuItemClicked(ActionEvent event) {
+        if (SessionManager.getInstance().getPrimarySession().isArchiveOpened()) {
+            closeStatsHistory();
+            return;
+        }
+        if (ConnectionManager.getInstance().isConnected() || ConnectionManager.getInstance().isReplaying()) {
+            AlertUtils.construct(
+                Alert.AlertType.ERROR,
+                "Open stats history",
+                "Unable to open stats history",
+                "Disconnect from TRex server before opening a stats history")
+                .show();
+            return;
+        }
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Open stats history");
+        Preferences preferences = PreferencesManager.getInstance().getPreferences();
+        String location = preferences != null ? preferences.getHistoryLocation() : null;
+        if (!Util.isNullOrEmpty(location) && new File(location).isDirectory()) {
+            directoryChooser.setInitialDirectory(new File(location));
+        }
+        File directory = directoryChooser.showDialog(TrexApp.getPrimaryStage());
+        if (directory == null) {
+            return;
+        }
+        if (SessionManager.getInstance().getPrimarySession().openArchive(directory)) {
+            openHistoryMenuItem.setText(CLOSE_HISTORY_MENU_ITEM_TITLE);
+            statsMenuItem.setDisable(false);
+            dashboardIcon.setDisable(false);
+            openStateDialog();
+        }
+    }
+
+    private void closeStatsHistory() {
+        if (!SessionManager.getInstance().getPrimarySession().isArchiveOpened()) {
+            return;
+        }
+        SessionManager.getInstance().getPrimarySession().closeArchive();
+        openHistoryMenuItem.setText(OPEN_HISTORY_MENU_ITEM_TITLE);
+        statsMenuItem.setDisable(true);
+        dashboardIcon.setDisable(true);
+    }
+
     /**
      * Open preferences window
      */
@@ -1603,11 +1852,15 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
      */
     private void reAcquireOwnedPorts() {
         try {
+            List<Integer> ownedPorts = new ArrayList<>();
             for (Port port : portManager.getPortList()) {
                 if (portManager.isCurrentUserOwner(port.getIndex())) {
-                    serverRPCMethods.acquireServerPort(port.getIndex(), true);
+                    ownedPorts.add(port.getIndex());
                 }
             }
+            if (!ownedPorts.isEmpty()) {
+                serverRPCMethods.acquireServerPorts(ownedPorts, true);
+            }
         } catch (PortAcquireException ex) {
             LOG.error("Error re-acquiring port", ex);
         }
@@ -1639,6 +1892,9 @@ public class MainViewController implements Initializable, EventHandler<KeyEvent>
             LogsController.getInstance().getView().copyToClipboard();
             return;
         }
+        if (wireLogTab.isSelected()) {
+            wireLogView.copyToClipboard();
+        }
     }
 
     /**
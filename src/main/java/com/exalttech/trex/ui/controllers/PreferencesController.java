@@ -50,6 +50,8 @@ public class PreferencesController extends DialogView implements Initializable {
     TextField templatesLocation;
     @FXML
     TextField wiresharkLocation;
+    @FXML
+    TextField historyLocation;
 
     DirectoryChooser chooser = new DirectoryChooser();
     
@@ -84,7 +86,7 @@ public class PreferencesController extends DialogView implements Initializable {
      */
     private void savePreferences(Stage current) {
         // update prefernces file
-        Preferences pref = new Preferences(loadLocation.getText(), savedLocation.getText(), templatesLocation.getText(), wiresharkLocation.getText());
+        Preferences pref = new Preferences(loadLocation.getText(), savedLocation.getText(), templatesLocation.getText(), wiresharkLocation.getText(), historyLocation.getText());
         
         PreferencesManager.getInstance().savePreferences(pref);
 
@@ -102,6 +104,7 @@ public class PreferencesController extends DialogView implements Initializable {
             savedLocation.setText(pref.getSavedLocation());
             templatesLocation.setText(pref.getTemplatesLocation());
             templatesLocation.setPromptText(FileManager.getTemplatesFilePath());
+            historyLocation.setText(pref.getHistoryLocation());
         }
     }
 
@@ -177,6 +180,24 @@ public class PreferencesController extends DialogView implements Initializable {
         }
     }
 
+    /**
+     * Select stats history location choose button click handler
+     *
+     * @param event
+     */
+    @FXML
+    public void selectHistoryLocation(ActionEvent event) {
+        chooser.setTitle("Stats History Directory");
+        File historyDirectory = new File(historyLocation.getText());
+        if (!Util.isNullOrEmpty(historyLocation.getText()) && historyDirectory.exists()) {
+            chooser.setInitialDirectory(historyDirectory);
+        }
+        File location = chooser.showDialog(((Button) (event.getSource())).getScene().getWindow());
+        if (location != null) {
+            historyLocation.setText(location.getAbsolutePath());
+        }
+    }
+
     @Override
     public void onEnterKeyPressed(Stage stage) {
         savePreferences(stage);
@@ -1,13 +1,14 @@
 package com.exalttech.trex.ui.controllers.ports.tabs;
 
-import com.exalttech.trex.core.ConnectionManager;
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
+import com.cisco.trex.stl.gui.storages.StatsStorage;
 import com.exalttech.trex.ui.PortsManager;
 import com.exalttech.trex.ui.models.Port;
 import com.exalttech.trex.ui.models.PortModel;
-import com.exalttech.trex.ui.views.services.RefreshingService;
 import com.exalttech.trex.ui.views.statistics.StatsTableGenerator;
+import com.exalttech.trex.util.Constants;
 import com.exalttech.trex.util.Initialization;
-import com.exalttech.trex.util.Util;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
@@ -18,6 +19,8 @@ import javafx.scene.layout.Pane;
 import javafx.util.Duration;
 import org.controlsfx.control.textfield.CustomTextField;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class PortHardwareCounters extends BorderPane {
@@ -33,9 +36,15 @@ public class PortHardwareCounters extends BorderPane {
     @FXML
     Button resetCounters;
     
+    private static final Duration POLLING_INTERVAL = Duration.seconds(0.5);
+    // the counter names only change with the port driver
+    private static final Duration NAMES_POLLING_INTERVAL = Duration.seconds(10);
+
     private boolean resetCountersRequested = false;
-    
-    private RefreshingService refreshingService;
+
+    private PollingCoordinator.Topic<Map> namesTopic;
+    private PollingCoordinator.Topic<Map> valuesTopic;
+    private List<?> xStatsNames;
 
     private Port port;
 
@@ -48,18 +57,12 @@ public class PortHardwareCounters extends BorderPane {
         portManager = PortsManager.getInstance();
         statsTableGenerator = new StatsTableGenerator();
         
-        refreshingService = new RefreshingService();
-        refreshingService.setPeriod(Duration.seconds(0.5));
-        refreshingService.setOnSucceeded(e -> update());
-        
         resetCounters.setOnAction(e -> resetCountersRequested = true);
     }
     
     
     public void bindModel(PortModel model, boolean runPolling) {
-        if (refreshingService.isRunning()) {
-            refreshingService.cancel();
-        }
+        stopPolling();
         port = portManager.getPortList().get(model.getIndex());
 
         if (runPolling) {
@@ -67,11 +70,15 @@ public class PortHardwareCounters extends BorderPane {
         }
     }
     
-    private void update() {
+    private void update(List<?> xStatsValues) {
+        if (valuesTopic == null || xStatsNames == null || xStatsNames.size() != xStatsValues.size()) {
+            return;
+        }
         try {
-            String xStatsNames = ConnectionManager.getInstance().sendPortXStatsNamesRequest(port);
-            String xStatsValues = ConnectionManager.getInstance().sendPortXStatsValuesRequest(port);
-            Map<String, Long> loadedXStatsList = Util.getXStatsFromJSONString(xStatsNames, xStatsValues);
+            Map<String, Long> loadedXStatsList = new HashMap<>();
+            for (int i = 0; i < xStatsNames.size(); i++) {
+                loadedXStatsList.put(String.valueOf(xStatsNames.get(i)), ((Number) xStatsValues.get(i)).longValue());
+            }
             port.setXstats(loadedXStatsList);
             Pane pane = statsTableGenerator.generateXStatPane(true, port, statXTableNotEmpty.isSelected(), statXTableFilter.getText(), resetCountersRequested);
             statXTableContainer.setContent(pane);
@@ -84,11 +91,64 @@ public class PortHardwareCounters extends BorderPane {
     }
     
     public void startPolling() {
-        update();
-        refreshingService.restart();
+        if (valuesTopic != null || port == null) {
+            return;
+        }
+        final Port polledPort = port;
+        PollingCoordinator pollingCoordinator = StatsStorage.getInstance().getPollingCoordinator();
+        namesTopic = pollingCoordinator.addTopic(
+                new XStatsQuery(Constants.PORT_XSTATS_NAMES_METHOD, polledPort),
+                (result, timing) -> Platform.runLater(() -> {
+                    if (port == polledPort) {
+                        xStatsNames = (List<?>) result.get("xstats_names");
+                    }
+                })
+        );
+        valuesTopic = pollingCoordinator.addTopic(
+                new XStatsQuery(Constants.PORT_XSTATS_VALUES_METHOD, polledPort),
+                (result, timing) -> Platform.runLater(() -> {
+                    if (port == polledPort) {
+                        update((List<?>) result.get("xstats_values"));
+                    }
+                })
+        );
+        namesTopic.subscribe(NAMES_POLLING_INTERVAL);
+        valuesTopic.subscribe(POLLING_INTERVAL);
     }
 
     public void stopPolling() {
-        refreshingService.cancel();
-    } 
+        if (valuesTopic == null) {
+            return;
+        }
+        namesTopic.remove();
+        valuesTopic.remove();
+        namesTopic = null;
+        valuesTopic = null;
+        xStatsNames = null;
+    }
+
+    private static class XStatsQuery implements PollingCoordinator.Query<Map> {
+        private final String method;
+        private final Port port;
+
+        XStatsQuery(String method, Port port) {
+            this.method = method;
+            this.port = port;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public Object getParameters() {
+            return port.getPortParam();
+        }
+
+        @Override
+        public Class<Map> getResultType() {
+            return Map.class;
+        }
+    }
 }
@@ -112,7 +112,7 @@ public class PortStatus {
             "rx_info",
             "state"
     })
-    public class PortStatusResult {
+    public static class PortStatusResult {
 
         @JsonProperty("attr")
         private PortStatusResultAttr attr;
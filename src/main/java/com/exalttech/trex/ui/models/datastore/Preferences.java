@@ -33,6 +33,7 @@ public class Preferences {
     private String savedLocation = "";
     private String templatesLocation = "";
     private String wireSharkLocation = "";
+    private String historyLocation = "";
 
     /**
      *
@@ -47,11 +48,12 @@ public class Preferences {
      * @param savedLocation
      * @param templatesLocation
      */
-    public Preferences(String loadLocation, String savedLocation, String templatesLocation, String wireSharkLocation) {
+    public Preferences(String loadLocation, String savedLocation, String templatesLocation, String wireSharkLocation, String historyLocation) {
         this.loadLocation = loadLocation;
         this.savedLocation = savedLocation;
         this.templatesLocation = templatesLocation;
         this.wireSharkLocation = wireSharkLocation;
+        this.historyLocation = historyLocation;
     }
 
     /**
@@ -109,4 +111,17 @@ public class Preferences {
     public void setWireSharkLocation(String wireSharkLocation) {
         this.wireSharkLocation = wireSharkLocation;
     }
+
+    /**
+     * @return directory the stats history is kept in, empty to keep it in
+     * memory only
+     */
+    @XmlElement(name = "history_location")
+    public String getHistoryLocation() {
+        return historyLocation;
+    }
+
+    public void setHistoryLocation(String historyLocation) {
+        this.historyLocation = historyLocation;
+    }
 }
@@ -0,0 +1,170 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.ui.views.logs;
+
+import com.exalttech.trex.application.TrexApp;
+import com.exalttech.trex.core.rpc.WireLog;
+import com.exalttech.trex.core.rpc.WireLogEntry;
+import com.exalttech.trex.util.FileChooserFactory;
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.control.Button;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TextArea;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * RPC wire log viewer. Entries are listed by their header only, the
+ * selected one is pretty printed on demand. The view follows the wire log
+ * only while it is open.
+ */
+public class WireLogView extends AnchorPane implements WireLog.WireLogListener {
+
+    private static final Logger LOG = Logger.getLogger(WireLogView.class.getName());
+    private static final int MAX_DISPLAYED_ENTRIES = 500;
+
+    private ListView<WireLogEntry> entriesList;
+    private TextArea entryText;
+    private boolean open = false;
+
+    /**
+     *
+     */
+    public WireLogView() {
+        setTopAnchor(this, 0d);
+        setLeftAnchor(this, 0d);
+        setBottomAnchor(this, 0d);
+        setRightAnchor(this, 0d);
+        buildUI();
+    }
+
+    private void buildUI() {
+        entriesList = new ListView<>();
+        entriesList.setCellFactory(list -> new ListCell<WireLogEntry>() {
+            @Override
+            protected void updateItem(WireLogEntry entry, boolean empty) {
+                super.updateItem(entry, empty);
+                setText(empty || entry == null ? null : WireLog.formatHeader(entry));
+            }
+        });
+        entriesList.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) ->
+                entryText.setText(newValue == null ? "" : newValue.getPrettyText())
+        );
+
+        entryText = new TextArea();
+        entryText.setEditable(false);
+
+        SplitPane contentWrapper = new SplitPane(entriesList, entryText);
+        contentWrapper.setOrientation(Orientation.HORIZONTAL);
+        contentWrapper.setDividerPositions(0.35);
+
+        Button exportBtn = new Button("Export");
+        exportBtn.getStyleClass().add("normalButton");
+        exportBtn.setOnAction(event -> exportToFile());
+        Button clearBtn = new Button("Clear");
+        clearBtn.getStyleClass().add("normalButton");
+        clearBtn.setOnAction(event -> clear());
+        HBox toolbar = new HBox(5, exportBtn, clearBtn);
+
+        getChildren().addAll(contentWrapper, toolbar);
+
+        setTopAnchor(toolbar, 2d);
+        setRightAnchor(toolbar, 15d);
+        setTopAnchor(contentWrapper, 32d);
+        setLeftAnchor(contentWrapper, 0d);
+        setBottomAnchor(contentWrapper, 0d);
+        setRightAnchor(contentWrapper, 0d);
+    }
+
+    /**
+     * Start or stop following the wire log, nothing is formatted while the
+     * view is closed
+     *
+     * @param open
+     */
+    public void setOpen(boolean open) {
+        if (this.open == open) {
+            return;
+        }
+        this.open = open;
+        if (open) {
+            WireLog.getInstance().addListener(this);
+            entriesList.getItems().setAll(WireLog.getInstance().getEntries());
+            entriesList.scrollTo(entriesList.getItems().size() - 1);
+        } else {
+            WireLog.getInstance().removeListener(this);
+            entriesList.getItems().clear();
+        }
+    }
+
+    @Override
+    public void entryAdded(WireLogEntry entry) {
+        Platform.runLater(() -> {
+            if (!open) {
+                return;
+            }
+            entriesList.getItems().add(entry);
+            if (entriesList.getItems().size() > MAX_DISPLAYED_ENTRIES) {
+                entriesList.getItems().remove(0);
+            }
+        });
+    }
+
+    /**
+     * Copy the selected message to clipboard
+     */
+    public void copyToClipboard() {
+        final Clipboard clipboard = Clipboard.getSystemClipboard();
+        final ClipboardContent content = new ClipboardContent();
+        content.putString(entryText.getText());
+        clipboard.setContent(content);
+    }
+
+    /**
+     * Clear the wire log and the view
+     */
+    public void clear() {
+        WireLog.getInstance().clear();
+        entriesList.getItems().clear();
+    }
+
+    private void exportToFile() {
+        FileChooser fileChooser = FileChooserFactory.get();
+        fileChooser.setTitle("Export RPC log");
+        fileChooser.setInitialFileName("trex-rpc.log");
+        File file = fileChooser.showSaveDialog(TrexApp.getPrimaryStage());
+        if (file == null) {
+            return;
+        }
+        try {
+            WireLog.getInstance().exportTo(file);
+            LogsController.getInstance().appendText(LogType.INFO, "RPC log exported to " + file.getAbsolutePath());
+        } catch (IOException ex) {
+            LOG.error("Error exporting RPC log", ex);
+            LogsController.getInstance().appendText(LogType.ERROR, "Error exporting RPC log: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,440 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.ui.views.sessions;
+
+import com.exalttech.trex.core.RPCMethods;
+import com.exalttech.trex.core.ServerSession;
+import com.exalttech.trex.core.SessionManager;
+import com.exalttech.trex.remote.exceptions.PortAcquireException;
+import com.exalttech.trex.remote.exceptions.TrafficException;
+import com.exalttech.trex.remote.models.multiplier.Multiplier;
+import com.exalttech.trex.ui.PortState;
+import com.exalttech.trex.ui.PortsManager;
+import com.exalttech.trex.ui.models.Port;
+import com.exalttech.trex.ui.views.logs.LogType;
+import com.exalttech.trex.ui.views.logs.LogsController;
+import com.exalttech.trex.util.Util;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.geometry.Orientation;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Separator;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.HBox;
+import javafx.util.Duration;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Servers view: a combined port tree and dashboard of every connected TRex
+ * server, with all-ports actions sent to all servers at once.
+ */
+public class SessionsView extends AnchorPane implements SessionManager.SessionsChangedListener {
+
+    private static final Logger LOG = Logger.getLogger(SessionsView.class.getName());
+    private static final Duration REFRESH_INTERVAL = Duration.seconds(1);
+    private static final int CONNECT_TIMEOUT = 3000;
+    private static final String TOTAL_ROW_NAME = "Total";
+
+    private final SessionManager sessionManager = SessionManager.getInstance();
+    private final Timeline refreshTimeline = new Timeline(new KeyFrame(REFRESH_INTERVAL, event -> refresh()));
+
+    private TextField hostField;
+    private TextField rpcPortField;
+    private TextField asyncPortField;
+    private TextField scapyPortField;
+    private TextField rateField;
+    private TreeView<String> portsTree;
+    private TableView<ServerStatsRow> statsTable;
+    private boolean open = false;
+    private boolean refreshInProgress = false;
+
+    /**
+     *
+     */
+    public SessionsView() {
+        setTopAnchor(this, 0d);
+        setLeftAnchor(this, 0d);
+        setBottomAnchor(this, 0d);
+        setRightAnchor(this, 0d);
+        refreshTimeline.setCycleCount(Timeline.INDEFINITE);
+        buildUI();
+    }
+
+    private void buildUI() {
+        hostField = createField("Host", "", 120);
+        rpcPortField = createField("RPC port", "4501", 50);
+        asyncPortField = createField("Async port", "4500", 50);
+        scapyPortField = createField("Scapy port", "4507", 50);
+        rateField = createField("Rate %", "100", 50);
+
+        HBox toolbar = new HBox(5,
+                hostField, rpcPortField, asyncPortField, scapyPortField,
+                createButton("Connect", this::connectServer),
+                createButton("Disconnect", this::disconnectSelectedServer),
+                new Separator(Orientation.VERTICAL),
+                createButton("Acquire All", this::acquireAll),
+                new Label("Rate %"), rateField,
+                createButton("Start All", this::startAll),
+                createButton("Stop All", this::stopAll),
+                createButton("Release All", this::releaseAll)
+        );
+
+        portsTree = new TreeView<>(new TreeItem<>());
+        portsTree.setShowRoot(false);
+
+        statsTable = new TableView<>();
+        statsTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        statsTable.getColumns().add(createColumn("Server", row -> row.name));
+        statsTable.getColumns().add(createColumn("Ports", row -> row.ports));
+        statsTable.getColumns().add(createColumn("Active", row -> row.activePorts));
+        statsTable.getColumns().add(createColumn("Tx pps", row -> Util.getFormatted(row.txPps, true, "pkt/sec")));
+        statsTable.getColumns().add(createColumn("Rx pps", row -> Util.getFormatted(row.rxPps, true, "pkt/sec")));
+        statsTable.getColumns().add(createColumn("Tx bps", row -> Util.getFormatted(row.txBps, true, "b/sec")));
+        statsTable.getColumns().add(createColumn("Rx bps", row -> Util.getFormatted(row.rxBps, true, "b/sec")));
+        statsTable.getColumns().add(createColumn("CPU", row -> row.cpu));
+
+        SplitPane contentWrapper = new SplitPane(portsTree, statsTable);
+        contentWrapper.setOrientation(Orientation.HORIZONTAL);
+        contentWrapper.setDividerPositions(0.3);
+
+        getChildren().addAll(contentWrapper, toolbar);
+
+        setTopAnchor(toolbar, 2d);
+        setLeftAnchor(toolbar, 5d);
+        setTopAnchor(contentWrapper, 32d);
+        setLeftAnchor(contentWrapper, 0d);
+        setBottomAnchor(contentWrapper, 0d);
+        setRightAnchor(contentWrapper, 0d);
+    }
+
+    private static TextField createField(String prompt, String value, double width) {
+        TextField field = new TextField(value);
+        field.setPromptText(prompt);
+        field.setPrefWidth(width);
+        return field;
+    }
+
+    private static Button createButton(String title, Runnable action) {
+        Button button = new Button(title);
+        button.getStyleClass().add("normalButton");
+        button.setOnAction(event -> action.run());
+        return button;
+    }
+
+    private static TableColumn<ServerStatsRow, String> createColumn(String title, Function<ServerStatsRow, String> value) {
+        TableColumn<ServerStatsRow, String> column = new TableColumn<>(title);
+        column.setSortable(false);
+        column.setCellValueFactory(cell -> new ReadOnlyStringWrapper(value.apply(cell.getValue())));
+        return column;
+    }
+
+    /**
+     * Start or stop refreshing, servers are not polled for the view while it
+     * is closed
+     *
+     * @param open
+     */
+    public void setOpen(boolean open) {
+        if (this.open == open) {
+            return;
+        }
+        this.open = open;
+        if (open) {
+            sessionManager.addSessionsChangedListener(this);
+            refresh();
+            refreshTimeline.play();
+        } else {
+            sessionManager.removeSessionsChangedListener(this);
+            refreshTimeline.stop();
+        }
+    }
+
+    @Override
+    public void sessionsChanged() {
+        Platform.runLater(this::refresh);
+    }
+
+    /**
+     * Update port status of the additional servers and redraw the tree and
+     * the dashboard. The main server ports are updated by the main view.
+     */
+    private void refresh() {
+        if (!open || refreshInProgress) {
+            return;
+        }
+        refreshInProgress = true;
+        List<ServerSession> sessions = sessionManager.getSessions();
+        CompletableFuture.runAsync(() -> {
+            for (ServerSession session : sessions) {
+                if (session != sessionManager.getPrimarySession() && session.getConnectionManager().isConnected()) {
+                    session.getPortsManager().updatePortForce();
+                }
+            }
+        }, sessionManager.getExecutor()).whenComplete((result, error) -> Platform.runLater(() -> {
+            refreshInProgress = false;
+            if (error != null) {
+                LOG.error("Error refreshing servers", error);
+            }
+            render(sessions);
+        }));
+    }
+
+    private void render(List<ServerSession> sessions) {
+        List<TreeItem<String>> serverItems = new ArrayList<>();
+        List<ServerStatsRow> rows = new ArrayList<>();
+        ServerStatsRow total = new ServerStatsRow(TOTAL_ROW_NAME);
+        for (ServerSession session : sessions) {
+            if (!session.getConnectionManager().isConnected()) {
+                continue;
+            }
+            PortsManager portsManager = session.getPortsManager();
+            TreeItem<String> serverItem = findServerItem(session.getName());
+            serverItem.getChildren().clear();
+            for (Port port : portsManager.getPortList()) {
+                serverItem.getChildren().add(new TreeItem<>("Port " + port.getIndex()
+                        + " [" + PortState.getPortStatus(port.getStatus()).name() + "] "
+                        + (port.getOwner() != null ? port.getOwner() : "")));
+            }
+            serverItems.add(serverItem);
+
+            ServerStatsRow row = new ServerStatsRow(session.getName());
+            row.ports = String.valueOf(portsManager.getPortList().size());
+            row.activePorts = portsManager.getActivePort();
+            Map<String, String> stats = session.getStatsLoader().getLoadedStatsList();
+            row.txPps = stats.get("m_tx_pps");
+            row.rxPps = stats.get("m_rx_pps");
+            row.txBps = stats.get("m_tx_bps");
+            row.rxBps = stats.get("m_rx_bps");
+            row.cpu = Util.isNullOrEmpty(stats.get("m_cpu_util")) ? "" : stats.get("m_cpu_util") + " %";
+            total.add(row);
+            rows.add(row);
+        }
+        portsTree.getRoot().getChildren().setAll(serverItems);
+        if (rows.size() > 1) {
+            rows.add(total);
+        }
+        statsTable.getItems().setAll(rows);
+    }
+
+    private TreeItem<String> findServerItem(String name) {
+        for (TreeItem<String> item : portsTree.getRoot().getChildren()) {
+            if (name.equals(item.getValue())) {
+                return item;
+            }
+        }
+        TreeItem<String> item = new TreeItem<>(name);
+        item.setExpanded(true);
+        return item;
+    }
+
+    private ServerSession getSelectedSession() {
+        TreeItem<String> selected = portsTree.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            return null;
+        }
+        while (selected.getParent() != portsTree.getRoot()) {
+            selected = selected.getParent();
+        }
+        return sessionManager.findSession(selected.getValue());
+    }
+
+    private void connectServer() {
+        final String host = hostField.getText().trim();
+        if (host.isEmpty()) {
+            return;
+        }
+        final String rpcPort = rpcPortField.getText().trim();
+        final String asyncPort = asyncPortField.getText().trim();
+        final String scapyPort = scapyPortField.getText().trim();
+        sessionManager.getExecutor().execute(() -> {
+            ServerSession session = sessionManager.openSession(host, rpcPort, asyncPort, scapyPort, CONNECT_TIMEOUT);
+            if (session != null) {
+                LogsController.getInstance().appendText(LogType.INFO, "Connected to TRex " + session.getName());
+            }
+        });
+    }
+
+    private void disconnectSelectedServer() {
+        final ServerSession session = getSelectedSession();
+        if (session == null || session == sessionManager.getPrimarySession()) {
+            return;
+        }
+        sessionManager.getExecutor().execute(() -> {
+            RPCMethods rpcMethods = session.getRPCMethods();
+            rpcMethods.releasePorts(session.getPortsManager().getOwnedPortIndexes(), false);
+            sessionManager.closeSession(session);
+        });
+    }
+
+    private void acquireAll() {
+        runOnAllSessions("acquire", session -> {
+            try {
+                session.getRPCMethods().acquireServerPorts(session.getPortsManager().getPortIndexes(), false);
+            } catch (PortAcquireException ex) {
+                LOG.error("Error acquiring ports of " + session.getName(), ex);
+            }
+        });
+    }
+
+    private void startAll() {
+        final double rate;
+        try {
+            rate = Double.parseDouble(rateField.getText());
+        } catch (NumberFormatException ex) {
+            LogsController.getInstance().appendText(LogType.ERROR, "Invalid rate " + rateField.getText());
+            return;
+        }
+        runOnAllSessions("start", session -> {
+            Map<Integer, Multiplier> multipliers = new LinkedHashMap<>();
+            List<Integer> pausedPorts = new ArrayList<>();
+            PortsManager portsManager = session.getPortsManager();
+            for (Port port : portsManager.getPortList()) {
+                PortState portState = PortState.getPortStatus(port.getStatus());
+                if (!portsManager.isCurrentUserOwner(port.getIndex()) || portState == PortState.TX || portState == PortState.IDLE) {
+                    continue;
+                }
+                if (portState == PortState.PAUSE) {
+                    pausedPorts.add(port.getIndex());
+                } else {
+                    multipliers.put(port.getIndex(), new Multiplier("percentage", rate));
+                }
+            }
+            if (!pausedPorts.isEmpty()) {
+                session.getRPCMethods().resumeTraffic(pausedPorts);
+            }
+            if (!multipliers.isEmpty()) {
+                try {
+                    session.getRPCMethods().startTraffic(multipliers, false, -1);
+                } catch (TrafficException ex) {
+                    LOG.error("Error starting traffic on " + session.getName(), ex);
+                }
+            }
+        });
+    }
+
+    private void stopAll() {
+        runOnAllSessions("stop", session -> {
+            List<Integer> txPorts = new ArrayList<>();
+            PortsManager portsManager = session.getPortsManager();
+            for (Port port : portsManager.getPortList()) {
+                if (portsManager.isCurrentUserOwner(port.getIndex())
+                        && PortState.getPortStatus(port.getStatus()) == PortState.TX) {
+                    txPorts.add(port.getIndex());
+                }
+            }
+            if (!txPorts.isEmpty()) {
+                session.getRPCMethods().stopPortTraffic(txPorts);
+            }
+        });
+    }
+
+    private void releaseAll() {
+        runOnAllSessions("release", session -> {
+            List<Integer> ownedPorts = session.getPortsManager().getOwnedPortIndexes();
+            if (!ownedPorts.isEmpty()) {
+                session.getRPCMethods().releasePorts(ownedPorts, true);
+            }
+        });
+    }
+
+    /**
+     * Run the command on every server at the same time, then update the port
+     * status of the main server on the JavaFX thread
+     *
+     * @param action action name for the logs
+     * @param command
+     */
+    private void runOnAllSessions(String action, Consumer<ServerSession> command) {
+        List<CompletableFuture<Void>> commands = new ArrayList<>();
+        for (ServerSession session : sessionManager.getSessions()) {
+            if (session.getConnectionManager().isConnected()) {
+                commands.add(CompletableFuture.runAsync(() -> command.accept(session), sessionManager.getExecutor()));
+            }
+        }
+        LogsController.getInstance().appendText(LogType.INFO, "Sending " + action + " to " + commands.size() + " server(s)");
+        CompletableFuture.allOf(commands.toArray(new CompletableFuture[commands.size()])).whenComplete((result, error) -> {
+            if (error != null) {
+                LOG.error("Error sending " + action + " to servers", error);
+            }
+            Platform.runLater(() -> {
+                if (sessionManager.getPrimarySession().getConnectionManager().isConnected()) {
+                    sessionManager.getPrimarySession().getPortsManager().updatePortForce();
+                }
+                refresh();
+            });
+        });
+    }
+
+    /**
+     * Dashboard row of one server
+     */
+    private static class ServerStatsRow {
+
+        private final String name;
+        private String ports = "";
+        private String activePorts = "";
+        private String txPps;
+        private String rxPps;
+        private String txBps;
+        private String rxBps;
+        private String cpu = "";
+
+        ServerStatsRow(String name) {
+            this.name = name;
+        }
+
+        void add(ServerStatsRow row) {
+            ports = sum(ports, row.ports);
+            activePorts = sum(activePorts, row.activePorts);
+            txPps = sum(txPps, row.txPps);
+            rxPps = sum(rxPps, row.rxPps);
+            txBps = sum(txBps, row.txBps);
+            rxBps = sum(rxBps, row.rxBps);
+        }
+
+        private static String sum(String total, String value) {
+            double result = 0;
+            try {
+                if (!Util.isNullOrEmpty(total)) {
+                    result += Double.parseDouble(total);
+                }
+                if (!Util.isNullOrEmpty(value)) {
+                    result += Double.parseDouble(value);
+                }
+            } catch (NumberFormatException ex) {
+                return total;
+            }
+            return String.valueOf((long) result);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.exalttech.trex.ui.views.statistics;
 
-import javafx.beans.value.ObservableValue;
+import com.fasterxml.jackson.core.type.TypeReference;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -8,7 +8,8 @@ import java.util.List;
 import java.util.Map;
 
 import com.exalttech.trex.core.AsyncResponseManager;
-import com.exalttech.trex.util.Util;
+import com.exalttech.trex.core.SessionManager;
+import com.exalttech.trex.util.Constants;
 
 
 public class StatsLoader {
@@ -16,22 +17,25 @@ public class StatsLoader {
         void globalStatsChanged();
     }
 
-    private static StatsLoader instance;
-
+    /**
+     * @return stats loader of the main server session
+     */
     public static StatsLoader getInstance() {
-        if (instance == null) {
-            instance = new StatsLoader();
-        }
-        return instance;
+        return SessionManager.getInstance().getPrimarySession().getStatsLoader();
     }
 
+    private static final TypeReference<Map<String, Object>> GLOBAL_STATS_TYPE = new TypeReference<Map<String, Object>>() {};
+
     private final List<GlobalStatsChangedListener> globalStatsChangedListeners = new ArrayList<>();
 
     private Map<String, String> loadedStatsList = new HashMap<>();
     private Map<String, String> previousStatsList = new HashMap<>();
     private Map<String, String> shadowStatsList = null;
 
-    private StatsLoader() {}
+    public StatsLoader(final AsyncResponseManager asyncResponseManager) {
+        asyncResponseManager.getMessageRouter().setHandler(Constants.TREX_GLOBAL_TAG, GLOBAL_STATS_TYPE,
+                asyncResponseManager.getMailbox().conflating(Constants.TREX_GLOBAL_TAG, this::handleGlobalStats));
+    }
 
     public Map<String, String> getLoadedStatsList() {
         return getNormalizedStatsList(loadedStatsList, shadowStatsList);
@@ -45,8 +49,8 @@ public class StatsLoader {
         return shadowStatsList != null ? shadowStatsList : new HashMap<>();
     }
 
-    private boolean validAsyncResponse(String jsonString) {
-        return !Util.isNullOrEmpty(jsonString) && jsonString.contains("m_cpu_util");
+    private boolean validAsyncResponse(Map<String, Object> data) {
+        return data != null && data.containsKey("m_cpu_util");
     }
 
     public void start() {
@@ -59,8 +63,6 @@ public class StatsLoader {
         shadowStatsList = null;
 
         handleGlobalStatsChanged();
-
-        AsyncResponseManager.getInstance().getTrexGlobalProperty().addListener(this::handleGlobalPropertyChanged);
     }
 
     public void reset() {
@@ -81,21 +83,13 @@ public class StatsLoader {
         }
     }
 
-    private void handleGlobalPropertyChanged(
-            ObservableValue<? extends String> observable,
-            String oldValue,
-            String newValue
-    ) {
-        if (newValue == null) {
-            return;
-        }
-
-        String data = Util.fromJSONResult(newValue, "data");
+    private void handleGlobalStats(int type, Map<String, Object> data) {
         if (!validAsyncResponse(data)) {
             return;
         }
 
-        Map<String, String> parsedData = Util.getStatsFromJSONString(data);
+        Map<String, String> parsedData = new HashMap<>(data.size() * 2);
+        data.forEach((key, value) -> parsedData.put(key, String.valueOf(value)));
 
         if (shadowStatsList == null) {
             shadowStatsList = parsedData;
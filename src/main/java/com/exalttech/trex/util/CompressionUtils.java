@@ -15,42 +15,118 @@
 
 package com.exalttech.trex.util;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
+/**
+ * zlib helpers. Deflater and Inflater instances hold native memory and are
+ * expensive to create, so one of each is kept per thread and reset after use.
+ */
 public class CompressionUtils {
 
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
     public static byte[] compress(byte[] data) throws IOException {
-        Deflater deflater = new Deflater();
-        deflater.setInput(data);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length);
-        deflater.finish();
-        byte[] buffer = new byte[1024];
-        while (!deflater.finished()) {
-            int count = deflater.deflate(buffer); 
-            outputStream.write(buffer, 0, count);
+        byte[] output = new byte[maxCompressedLength(data.length)];
+        int count = deflate(data, 0, data.length, output, 0);
+        return Arrays.copyOf(output, count);
+    }
+
+    public static byte[] decompress(byte[] data) throws IOException, DataFormatException {
+        Inflater inflater = INFLATER.get();
+        try {
+            inflater.setInput(data);
+            byte[] output = new byte[Math.max(data.length * 4, 1024)];
+            int count = 0;
+            while (!inflater.finished()) {
+                if (count == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                int inflated = inflater.inflate(output, count, output.length - count);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed data");
+                }
+                count += inflated;
+            }
+            return count == output.length ? output : Arrays.copyOf(output, count);
+        } finally {
+            inflater.reset();
         }
-        outputStream.close();
-        byte[] output = outputStream.toByteArray();
+    }
 
-        return output;
+    /**
+     * Compress input range into the output array at the given offset
+     *
+     * @param input
+     * @param inputOffset
+     * @param inputLength
+     * @param output must have at least maxCompressedLength(inputLength) bytes
+     * after outputOffset
+     * @param outputOffset
+     * @return number of bytes written
+     * @throws IOException if the output is too small
+     */
+    public static int deflate(byte[] input, int inputOffset, int inputLength, byte[] output, int outputOffset) throws IOException {
+        Deflater deflater = DEFLATER.get();
+        try {
+            deflater.setInput(input, inputOffset, inputLength);
+            deflater.finish();
+            int count = 0;
+            while (!deflater.finished()) {
+                int deflated = deflater.deflate(output, outputOffset + count, output.length - outputOffset - count);
+                if (deflated == 0 && outputOffset + count == output.length) {
+                    throw new IOException("Compression buffer is too small");
+                }
+                count += deflated;
+            }
+            return count;
+        } finally {
+            deflater.reset();
+        }
     }
 
-    public static byte[] decompress(byte[] data) throws IOException, DataFormatException {
-        Inflater inflater = new Inflater();
-        inflater.setInput(data);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length);
-        byte[] buffer = new byte[1024];
-        while (!inflater.finished()) {
-            int count = inflater.inflate(buffer);
-            outputStream.write(buffer, 0, count);
+    /**
+     * Decompress input range into the output array, which must be sized to
+     * the exact uncompressed length
+     *
+     * @param input
+     * @param inputOffset
+     * @param inputLength
+     * @param output
+     * @throws DataFormatException if the data is corrupted or does not match
+     * the output length
+     */
+    public static void inflate(byte[] input, int inputOffset, int inputLength, byte[] output) throws DataFormatException {
+        Inflater inflater = INFLATER.get();
+        try {
+            inflater.setInput(input, inputOffset, inputLength);
+            int count = 0;
+            while (count < output.length) {
+                int inflated = inflater.inflate(output, count, output.length - count);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                count += inflated;
+            }
+            if (count != output.length || !inflater.finished()) {
+                throw new DataFormatException("Uncompressed size does not match the header");
+            }
+        } finally {
+            inflater.reset();
         }
-        outputStream.close();
-        byte[] output = outputStream.toByteArray();
-      
-        return output;
+    }
+
+    /**
+     * Upper bound of the deflated size, same as zlib compressBound()
+     *
+     * @param length uncompressed length
+     * @return
+     */
+    public static int maxCompressedLength(int length) {
+        return length + (length >> 12) + (length >> 14) + (length >> 25) + 13;
     }
 }
@@ -136,6 +136,16 @@ public class Constants {
      */
     public static final String GET_UTILIZATION_METHOD = "get_utilization";
 
+    /**
+     *
+     */
+    public static final String GET_PGID_STATS_METHOD = "get_pgid_stats";
+
+    /**
+     *
+     */
+    public static final String GET_ACTIVE_PGIDS_METHOD = "get_active_pgids";
+
     /**
      *
      */
@@ -179,7 +189,7 @@ public class Constants {
     /**
      *
      */
-    public static final String TREX_GLOBAL_TAG = "\"trex-global\"";
+    public static final String TREX_GLOBAL_TAG = "trex-global";
 
     /**
      *
@@ -209,17 +219,17 @@ public class Constants {
     /**
      *
      */
-    public static final String TREX_EVENT = "\"trex-event\"";
+    public static final String TREX_EVENT = "trex-event";
 
     /**
      *
      */
-    public static final String TREX_LATENCY = "\"latency_stats\"";
+    public static final String TREX_LATENCY = "latency_stats";
 
     /**
      *
      */
-    public static final String TREX_FLOW_STATS = "\"flow_stats\"";
+    public static final String TREX_FLOW_STATS = "flow_stats";
 
     /**
      *
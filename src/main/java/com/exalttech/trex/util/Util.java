@@ -16,8 +16,6 @@
 package com.exalttech.trex.util;
 
 import com.exalttech.trex.application.TrexApp;
-import com.exalttech.trex.remote.models.params.Params;
-import com.exalttech.trex.remote.models.profiles.Profile;
 import com.exalttech.trex.ui.MultiplierType;
 import com.exalttech.trex.ui.models.datastore.CaptureStatus;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -43,8 +41,6 @@ import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.function.UnaryOperator;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.TextFormatter;
@@ -118,22 +114,6 @@ public class Util {
         return resutlSet;
     }
 
-    /**
-     * Prepare and return list of Stats object from JSON string
-     *
-     * @param jsonString
-     * @return
-     */
-    public static Map<String, String> getStatsFromJSONString(String jsonString) {
-
-        Map<String, String> statsList = new HashMap<>();
-        JSONObject jsonObj = new JSONObject(jsonString);
-        for (String key : jsonObj.keySet()) {
-            statsList.put(key, String.valueOf(jsonObj.get(key)));
-        }
-        return statsList;
-    }
-
     /**
      * Prepare and return list of Stats object from JSON string
      *
@@ -598,66 +578,6 @@ public class Util {
         return 123456789;
     }
 
-    /**
-     * This method tunes the JSON Params. This method was added as the original
-     * requirement was to use the VM and RX_Stat as is but it is not the case.
-     *
-     * @param jsonString
-     * @param params
-     * @param apiH
-     * @return
-     */
-    public static String tuneJSONParams(String jsonString, Params params, String apiH) {
-        String tunedString = jsonString;
-        if (tunedString.contains("\"params\":{")) {
-            tunedString = tunedString.replace("\"params\":{", "\"params\":{ \"api_h\": \"" + apiH + "\",");
-        }
-
-        if (params instanceof Profile) {
-
-            String vm = "\"vm\": " + "{\n"
-                    + "                    \"instructions\": [],\n"
-                    + "                    \"split_by_var\": \"\"\n"
-                    + "                }";
-            String rxStats = "\"rx_stats\": " + "{\n"
-                    + "                    \"enabled\": false\n"
-                    + "                }";
-            if (!tunedString.contains("\"vm\"")) {
-                tunedString = tunedString.replace("\"self_start\"", vm + ",\r" + "\"self_start\"");
-            }
-            if (!tunedString.contains("\"rx_stats\"")) {
-                tunedString = tunedString.replace("\"self_start\"", rxStats + ",\r" + "\"self_start\"");
-            }
-            if (tunedString.contains("\"vm\":[]")) {
-                tunedString = tunedString.replace("\"vm\":[]", vm);
-            }
-            if (tunedString.contains("\"rx_stats\":[]")) {
-                tunedString = tunedString.replace("\"rx_stats\":[]", rxStats);
-            }
-
-            // Add Split by vars in the VM if missing.
-            if (!tunedString.contains("split_by_var")) {
-                tunedString = tunedString.replace("\"vm\":{", "\"vm\":{\n"
-                        + "                    \"split_by_var\": \"\",\n");
-            }
-
-            // Remove quotes from uInt32
-            String pattern = "\"0x[^\"]*\"";
-            String originalString = tunedString;
-            Pattern r = Pattern.compile(pattern);
-            Matcher m = r.matcher(originalString);
-            while (m.find()) {
-                String hexString = m.group(0).replace("\"", "").replace("0x", "");
-                int hexValue = (int) Integer.valueOf(hexString, SHORT_LENGTH);
-                tunedString = tunedString.replace(m.group(0), "" + hexValue);
-            }
-
-            return tunedString;
-
-        }
-        return tunedString;
-    }
-
     /**
      * Return textChange formatter
      *
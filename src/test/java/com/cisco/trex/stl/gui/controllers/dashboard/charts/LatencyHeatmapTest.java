@@ -0,0 +1,37 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.charts;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class LatencyHeatmapTest {
+
+    @Test
+    public void testOneColumnPerSecond() {
+        Assert.assertEquals(LatencyHeatmap.getColumns(60, 800), 60);
+        Assert.assertEquals(LatencyHeatmap.getColumn(0, 60, 60), 59);
+        Assert.assertEquals(LatencyHeatmap.getColumn(-0.5, 60, 60), 59);
+        Assert.assertEquals(LatencyHeatmap.getColumn(-1, 60, 60), 59);
+        Assert.assertEquals(LatencyHeatmap.getColumn(-1.5, 60, 60), 58);
+        Assert.assertEquals(LatencyHeatmap.getColumn(-60, 60, 60), 0);
+        Assert.assertEquals(LatencyHeatmap.getColumn(-60.5, 60, 60), -1);
+    }
+
+    @Test
+    public void testColumnsAreBoundByThePlotWidth() {
+        final int columns = LatencyHeatmap.getColumns(86400, 720);
+        Assert.assertEquals(columns, 720);
+        // 120 seconds per column
+        Assert.assertEquals(LatencyHeatmap.getColumn(0, 86400, columns), 719);
+        Assert.assertEquals(LatencyHeatmap.getColumn(-119, 86400, columns), 719);
+        Assert.assertEquals(LatencyHeatmap.getColumn(-121, 86400, columns), 718);
+        Assert.assertEquals(LatencyHeatmap.getColumn(-86400, 86400, columns), 0);
+        Assert.assertEquals(LatencyHeatmap.getColumn(-86401, 86400, columns), -1);
+    }
+
+    @Test
+    public void testColumnsBeforeLayout() {
+        Assert.assertEquals(LatencyHeatmap.getColumns(86400, 0), 1);
+        Assert.assertEquals(LatencyHeatmap.getColumn(-100, 86400, 1), 0);
+    }
+}
@@ -0,0 +1,108 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.charts;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class LiveSeriesTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testKeptPointsAreShiftedInPlace() {
+        final LiveSeries series = new LiveSeries("series", "#000000");
+        series.update(points(new double[] {1, 2, 3}, new Integer[] {10, 20, 30}));
+        final ObservableList<XYChart.Data<Number, Number>> data = series.getSeries().getData();
+        final XYChart.Data<Number, Number> kept = data.get(1);
+
+        series.update(points(new double[] {2, 3, 4}, new Integer[] {20, 30, 40}));
+        Assert.assertEquals(data.size(), 3);
+        Assert.assertSame(data.get(0), kept);
+        assertPoint(data.get(0), -2, 20);
+        assertPoint(data.get(1), -1, 30);
+        assertPoint(data.get(2), 0, 40);
+    }
+
+    @Test
+    public void testLastPointIsReadAgain() {
+        final LiveSeries series = new LiveSeries("series", "#000000");
+        series.update(points(new double[] {1, 2}, new Integer[] {10, 20}));
+        final ObservableList<XYChart.Data<Number, Number>> data = series.getSeries().getData();
+        final XYChart.Data<Number, Number> last = data.get(1);
+
+        series.update(points(new double[] {1, 2}, new Integer[] {10, 25}));
+        Assert.assertEquals(data.size(), 2);
+        Assert.assertSame(data.get(1), last);
+        assertPoint(last, 0, 25);
+    }
+
+    @Test
+    public void testMissingValuesAreLeftOut() {
+        final LiveSeries series = new LiveSeries("series", "#000000");
+        series.update(points(new double[] {1, 2, 3}, new Integer[] {10, null, 30}));
+        final ObservableList<XYChart.Data<Number, Number>> data = series.getSeries().getData();
+        Assert.assertEquals(data.size(), 2);
+        assertPoint(data.get(0), -2, 10);
+        assertPoint(data.get(1), 0, 30);
+    }
+
+    @Test
+    public void testTimeGoingBackRebuilds() {
+        final LiveSeries series = new LiveSeries("series", "#000000");
+        series.update(points(new double[] {10, 11}, new Integer[] {1, 2}));
+        series.update(points(new double[] {1}, new Integer[] {5}));
+        final ObservableList<XYChart.Data<Number, Number>> data = series.getSeries().getData();
+        Assert.assertEquals(data.size(), 1);
+        assertPoint(data.get(0), 0, 5);
+
+        series.update(points(new double[0], new Integer[0]));
+        Assert.assertTrue(data.isEmpty());
+    }
+
+    @Test
+    public void testGroupRemovesTheSeriesNotFetched() {
+        final ObservableList<XYChart.Series<Number, Number>> chartData = FXCollections.observableArrayList();
+        final LiveSeries.Group<String> group = new LiveSeries.Group<>(chartData, (series, color) -> {});
+        final LiveSeries first = group.fetch("a", "a", "#000000");
+        group.fetch("b", "b", "#000000");
+        group.retainFetched();
+        Assert.assertEquals(chartData.size(), 2);
+
+        Assert.assertSame(group.fetch("a", "a", "#000000"), first);
+        group.retainFetched();
+        Assert.assertEquals(chartData.size(), 1);
+        Assert.assertSame(chartData.get(0), first.getSeries());
+
+        // a new color is a new series
+        Assert.assertNotSame(group.fetch("a", "a", "#ffffff"), first);
+        group.retainFetched();
+        Assert.assertEquals(chartData.size(), 1);
+        Assert.assertNotSame(chartData.get(0), first.getSeries());
+    }
+
+    private static void assertPoint(final XYChart.Data<Number, Number> point, final double x, final int y) {
+        Assert.assertEquals(point.getXValue().doubleValue(), x, DELTA);
+        Assert.assertEquals(point.getYValue().intValue(), y);
+    }
+
+    private static LiveSeries.Points points(final double[] times, final Integer[] values) {
+        return new LiveSeries.Points() {
+            @Override
+            public int size() {
+                return times.length;
+            }
+
+            @Override
+            public double getTime(final int index) {
+                return times[index];
+            }
+
+            @Override
+            public Number getValue(final int index) {
+                return values[index];
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.charts;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TimeSeriesChartTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testPointsOfAColumnAreDecimated() {
+        final TimeSeriesChart.Series series = new TimeSeriesChart.Series();
+        // one column per second
+        series.reset("series", "#000000", 11, 10);
+        series.add(-5.2, 3);
+        series.add(-5.1, 1);
+        series.add(-4.9, 7);
+        series.add(-4.8, 4);
+
+        Assert.assertEquals(series.getFirst(5), 3, DELTA);
+        Assert.assertEquals(series.getMin(5), 1, DELTA);
+        Assert.assertEquals(series.getMax(5), 7, DELTA);
+        Assert.assertEquals(series.getLast(5), 4, DELTA);
+        Assert.assertTrue(Double.isNaN(series.getFirst(4)));
+        Assert.assertEquals(series.getMinValue(), 1, DELTA);
+        Assert.assertEquals(series.getMaxValue(), 7, DELTA);
+    }
+
+    @Test
+    public void testPointsOutOfTheWindowAreLeftOut() {
+        final TimeSeriesChart.Series series = new TimeSeriesChart.Series();
+        series.reset("series", "#000000", 11, 10);
+        series.add(-11, 100);
+        series.add(1, 100);
+        series.add(-3, Double.NaN);
+        series.add(-10, 1);
+        series.add(0, 2);
+
+        Assert.assertEquals(series.getFirst(0), 1, DELTA);
+        Assert.assertEquals(series.getFirst(10), 2, DELTA);
+        Assert.assertTrue(Double.isNaN(series.getFirst(7)));
+        Assert.assertEquals(series.getMaxValue(), 2, DELTA);
+    }
+
+    @Test
+    public void testResetClearsTheColumns() {
+        final TimeSeriesChart.Series series = new TimeSeriesChart.Series();
+        series.reset("series", "#000000", 11, 10);
+        series.add(-1, 5);
+        series.reset("series", "#ff0000", 6, 10);
+        for (int column = 0; column < 6; ++column) {
+            Assert.assertTrue(Double.isNaN(series.getFirst(column)));
+        }
+        // two seconds per column now
+        series.add(-1, 5);
+        Assert.assertEquals(series.getFirst(5), 5, DELTA);
+    }
+}
@@ -0,0 +1,105 @@
+package com.cisco.trex.stl.gui.controllers.dashboard.table;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+public class PGIDOrderTest {
+    private static final List<Integer> PGIDS = Arrays.asList(1, 2, 3, 12);
+
+    @Test
+    public void testSortCyclesThroughDescendingAscendingAndStoreOrder() {
+        final PGIDOrder order = new PGIDOrder();
+        final Source source = new Source();
+        source.put(1, 5, 0);
+        source.put(2, 9, 3);
+        source.put(3, 1, 2);
+        source.put(12, 7, 1);
+
+        Assert.assertEquals(order.order(PGIDS, "", source, 2), PGIDS);
+        order.sortBy(0);
+        Assert.assertEquals(order.order(PGIDS, "", source, 2), Arrays.asList(2, 12, 1, 3));
+        order.sortBy(0);
+        Assert.assertEquals(order.order(PGIDS, "", source, 2), Arrays.asList(3, 1, 12, 2));
+        order.sortBy(0);
+        Assert.assertEquals(order.getSortRow(), -1);
+        Assert.assertEquals(order.order(PGIDS, "", source, 2), PGIDS);
+
+        // another row starts descending again
+        order.sortBy(0);
+        order.sortBy(1);
+        Assert.assertFalse(order.isSortAscending());
+        Assert.assertEquals(order.order(PGIDS, "", source, 2), Arrays.asList(2, 3, 12, 1));
+    }
+
+    @Test
+    public void testFilterKeepsThePinnedPGIDs() {
+        final PGIDOrder order = new PGIDOrder();
+        final Source source = new Source();
+        PGIDS.forEach(pgID -> source.put(pgID, pgID, 0));
+
+        Assert.assertEquals(order.order(PGIDS, "2", source, 2), Arrays.asList(2, 12));
+        order.togglePin(3);
+        Assert.assertEquals(order.order(PGIDS, "2", source, 2), Arrays.asList(3, 2, 12));
+        Assert.assertEquals(order.getPinnedCount(), 1);
+    }
+
+    @Test
+    public void testPinnedPGIDsComeFirstInPinOrder() {
+        final PGIDOrder order = new PGIDOrder();
+        final Source source = new Source();
+        PGIDS.forEach(pgID -> source.put(pgID, pgID, 0));
+        order.togglePin(12);
+        order.togglePin(2);
+        order.sortBy(0);
+
+        Assert.assertEquals(order.order(PGIDS, "", source, 2), Arrays.asList(12, 2, 3, 1));
+        Assert.assertEquals(order.getPinnedCount(), 2);
+
+        order.togglePin(12);
+        Assert.assertFalse(order.isPinned(12));
+        Assert.assertEquals(order.order(PGIDS, "", source, 2), Arrays.asList(2, 12, 3, 1));
+    }
+
+    @Test
+    public void testPGIDsWithoutStatsAreLeftOut() {
+        final PGIDOrder order = new PGIDOrder();
+        final Source source = new Source();
+        source.put(1, 1, 0);
+        source.put(3, 3, 0);
+        order.togglePin(2);
+
+        Assert.assertEquals(order.order(PGIDS, "", source, 2), Arrays.asList(1, 3));
+        Assert.assertEquals(order.getPinnedCount(), 0);
+    }
+
+    private static class Source implements PGIDStatsTable.Source {
+        private final Map<Integer, double[]> rows = new HashMap<>();
+        private double[] selected;
+
+        void put(final int pgID, final double... values) {
+            rows.put(pgID, values);
+        }
+
+        @Override
+        public boolean select(final int pgID) {
+            selected = rows.get(pgID);
+            return selected != null;
+        }
+
+        @Override
+        public String getHeader(final int column) {
+            return "";
+        }
+
+        @Override
+        public void read(final int column, final double[] values) {
+            System.arraycopy(selected, 0, values, 0, selected.length);
+        }
+    }
+}
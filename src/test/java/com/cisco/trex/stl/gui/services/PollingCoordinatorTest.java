@@ -0,0 +1,98 @@
+package com.cisco.trex.stl.gui.services;
+
+import javafx.util.Duration;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+public class PollingCoordinatorTest {
+    private static final Duration PERIOD = Duration.seconds(1);
+
+    private ExecutorService executor;
+    private PollingCoordinator coordinator;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        // only samplers are polled, the connection manager is never asked
+        coordinator = new PollingCoordinator(null, executor);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        coordinator.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSubscriptionsAreCounted() {
+        final PollingCoordinator.Topic<Integer> topic = coordinator.addTopic(() -> 1, (value, timing) -> {});
+        Assert.assertTrue(topic.isSuspended());
+
+        final PollingCoordinator.Subscription first = topic.subscribe(PERIOD);
+        final PollingCoordinator.Subscription second = topic.subscribe(PERIOD);
+        first.cancel();
+        Assert.assertFalse(topic.isSuspended());
+        // cancelling twice does not cancel the other subscription
+        first.cancel();
+        Assert.assertFalse(topic.isSuspended());
+        second.cancel();
+        Assert.assertTrue(topic.isSuspended());
+    }
+
+    @Test
+    public void testDependenciesFollowTheSubscriptions() {
+        final PollingCoordinator.Topic<Integer> topic = coordinator.addTopic(() -> 1, (value, timing) -> {});
+        final PollingCoordinator.Topic<Integer> dependency = coordinator.addTopic(() -> 2, (value, timing) -> {});
+        final PollingCoordinator.Topic<Integer> lateDependency = coordinator.addTopic(() -> 3, (value, timing) -> {});
+        topic.addDependency(dependency);
+
+        final PollingCoordinator.Subscription subscription = topic.subscribe(PERIOD);
+        Assert.assertFalse(dependency.isSuspended());
+        topic.addDependency(lateDependency);
+        Assert.assertFalse(lateDependency.isSuspended());
+
+        // a subscription of its own keeps the dependency polled
+        final PollingCoordinator.Subscription own = dependency.subscribe(PERIOD);
+        subscription.cancel();
+        Assert.assertTrue(topic.isSuspended());
+        Assert.assertFalse(dependency.isSuspended());
+        Assert.assertTrue(lateDependency.isSuspended());
+        own.cancel();
+        Assert.assertTrue(dependency.isSuspended());
+    }
+
+    @Test
+    public void testRemovedTopicIsNotSubscribed() {
+        final PollingCoordinator.Topic<Integer> topic = coordinator.addTopic(() -> 1, (value, timing) -> {});
+        topic.subscribe(PERIOD);
+        topic.remove();
+        Assert.assertTrue(topic.isSuspended());
+        topic.subscribe(PERIOD);
+        Assert.assertTrue(topic.isSuspended());
+    }
+
+    @Test
+    public void testOnlySubscribedTopicsArePolled() throws InterruptedException {
+        final AtomicInteger suspendedSamples = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(2);
+        coordinator.addTopic(suspendedSamples::incrementAndGet, (value, timing) -> {});
+        final PollingCoordinator.Topic<Integer> topic = coordinator.addTopic(() -> 1, (value, timing) -> latch.countDown());
+        topic.subscribe(PollingCoordinator.TICK);
+
+        coordinator.start();
+        Assert.assertTrue(coordinator.isRunning());
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        coordinator.stop();
+        Assert.assertFalse(coordinator.isRunning());
+        Assert.assertEquals(suspendedSamples.get(), 0);
+    }
+}
@@ -0,0 +1,98 @@
+package com.cisco.trex.stl.gui.services;
+
+import javafx.util.Duration;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+
+public class SamplingSchedulerTest {
+    private static final Duration PERIOD = Duration.millis(20);
+
+    @Test
+    public void testSamplesAreTimedAroundTheSampler() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final List<SampleTiming> timings = new CopyOnWriteArrayList<>();
+            final CountDownLatch latch = new CountDownLatch(5);
+            final double start = System.currentTimeMillis() / 1000.0;
+            final SamplingScheduler.Job<Integer> job = SamplingScheduler.getInstance().schedule(
+                    PERIOD,
+                    executor,
+                    () -> 1,
+                    (value, timing) -> {
+                        timings.add(timing);
+                        latch.countDown();
+                    }
+            );
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            job.cancel();
+
+            double lastTime = start - 1;
+            for (final SampleTiming timing : timings) {
+                Assert.assertTrue(timing.getTime() > lastTime);
+                Assert.assertTrue(timing.getRpcLatency() >= 0);
+                lastTime = timing.getTime();
+            }
+            Assert.assertTrue(lastTime < System.currentTimeMillis() / 1000.0 + 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBusySamplerSkipsTicks() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final CountDownLatch latch = new CountDownLatch(2);
+            final SamplingScheduler.Job<Integer> job = SamplingScheduler.getInstance().schedule(
+                    PERIOD,
+                    executor,
+                    () -> {
+                        Thread.sleep((long) PERIOD.toMillis() * 2);
+                        return 1;
+                    },
+                    (value, timing) -> latch.countDown()
+            );
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            job.cancel();
+            Assert.assertTrue(job.getSkippedTicks() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNoSampleAfterCancel() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final List<Integer> values = new CopyOnWriteArrayList<>();
+            final CountDownLatch latch = new CountDownLatch(1);
+            final SamplingScheduler.Job<Integer> job = SamplingScheduler.getInstance().schedule(
+                    PERIOD,
+                    executor,
+                    () -> 1,
+                    (value, timing) -> {
+                        values.add(value);
+                        latch.countDown();
+                    }
+            );
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            job.cancel();
+            Assert.assertTrue(job.isCancelled());
+            // a sample handed before the cancel may still be running
+            Thread.sleep((long) PERIOD.toMillis() * 2);
+            final int count = values.size();
+            Thread.sleep((long) PERIOD.toMillis() * 5);
+            Assert.assertEquals(values.size(), count);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
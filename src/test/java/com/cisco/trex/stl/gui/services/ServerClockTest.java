@@ -0,0 +1,91 @@
+package com.cisco.trex.stl.gui.services;
+
+import com.cisco.trex.stl.gui.models.TimestampedPGIdStatsResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+
+public class ServerClockTest {
+    private static final double DELTA = 1e-9;
+    private static final long FREQ = 2400000000L;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testWithoutServerTimeTheMiddleOfTheRoundTrip() {
+        final ServerClock clock = new ServerClock();
+        Assert.assertEquals(clock.toClientTime(10, 10.2, Double.NaN), 10.1, DELTA);
+        Assert.assertTrue(Double.isNaN(clock.getOffset()));
+    }
+
+    @Test
+    public void testFastestRoundTripSetsTheOffset() {
+        final ServerClock clock = new ServerClock();
+        // the server clock is 1000 s ahead and read 10 ms after the request
+        Assert.assertEquals(clock.toClientTime(10, 10.1, 1010.01), 10.05, DELTA);
+        Assert.assertEquals(clock.toClientTime(11, 11.02, 1011.01), 11.01, DELTA);
+        Assert.assertEquals(clock.getOffset(), 1000, DELTA);
+
+        // a slow reply keeps the offset and is timed within its round trip
+        Assert.assertEquals(clock.toClientTime(12, 12.4, 1012.3), 12.3, DELTA);
+        Assert.assertEquals(clock.getOffset(), 1000, DELTA);
+        Assert.assertEquals(clock.toClientTime(13, 13.05, 1013.2), 13.05, DELTA);
+    }
+
+    @Test
+    public void testOffsetJumpStartsOver() {
+        final ServerClock clock = new ServerClock();
+        clock.toClientTime(10, 10.002, 1010.001);
+        // the server restarted, its clock starts from 0
+        Assert.assertEquals(clock.toClientTime(20, 20.1, 0.05), 20.05, DELTA);
+        Assert.assertEquals(clock.getOffset(), -20, DELTA);
+        Assert.assertEquals(clock.toClientTime(21, 21.01, 1.005), 21.005, DELTA);
+    }
+
+    @Test
+    public void testOldEstimateIsReplaced() {
+        final ServerClock clock = new ServerClock();
+        clock.toClientTime(0, 0.002, 100.001);
+        Assert.assertEquals(clock.getOffset(), 100, DELTA);
+        // an hour later the error of the old estimate is beyond the reply's
+        clock.toClientTime(3600, 3600.1, 3700.1);
+        Assert.assertEquals(clock.getOffset(), 100.05, DELTA);
+    }
+
+    @Test
+    public void testServerTicksAreConvertedToSeconds() throws IOException {
+        final ServerClock clock = new ServerClock();
+        // ten days of uptime in ticks of the server clock
+        final long uptimeTicks = 10L * 86400 * FREQ;
+        final double first = reply(uptimeTicks + FREQ / 100).getTimestamp();
+        Assert.assertEquals(first, 864000.01, 1e-6);
+        Assert.assertEquals(clock.toClientTime(1000, 1000.02, first), 1000.01, 1e-6);
+
+        // one second later the estimate holds and times the reply by the server
+        final double second = reply(uptimeTicks + FREQ + FREQ / 50).getTimestamp();
+        Assert.assertEquals(clock.toClientTime(1001, 1001.1, second), 1001.02, 1e-6);
+        Assert.assertEquals(clock.getOffset(), 863000, 1e-6);
+    }
+
+    @Test
+    public void testReplyWithoutTicksIsNotTimed() throws IOException {
+        final TimestampedPGIdStatsResult result = MAPPER.readValue(
+                "{\"flow_stats\": {}, \"latency\": {}, \"ver_id\": {}}",
+                TimestampedPGIdStatsResult.class
+        );
+        Assert.assertTrue(Double.isNaN(result.getTimestamp()));
+    }
+
+    private static TimestampedPGIdStatsResult reply(final long ticks) throws IOException {
+        return MAPPER.readValue(
+                String.format(
+                        "{\"flow_stats\": {}, \"latency\": {}, \"ver_id\": {}, \"ts\": {\"value\": %d, \"freq\": %d}}",
+                        ticks,
+                        FREQ
+                ),
+                TimestampedPGIdStatsResult.class
+        );
+    }
+}
@@ -0,0 +1,227 @@
+package com.cisco.trex.stl.gui.storages;
+
+import com.cisco.trex.stateless.model.stats.FlowStat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+
+public class FlowStatsStoreTest {
+    private static final double DELTA = 1e-9;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testRingKeepsTheLastSamples() throws IOException {
+        final FlowStatsStore store = new FlowStatsStore(4);
+        for (int i = 0; i < 6; ++i) {
+            store.startSample(100 + i, 0.01);
+            store.add(1, flowStat(i * 10, i));
+        }
+
+        final FlowStatsStore.Cursor cursor = store.cursor();
+        Assert.assertTrue(cursor.select(1));
+        Assert.assertEquals(cursor.size(), 4);
+        Assert.assertEquals(cursor.getTime(), 105, DELTA);
+        Assert.assertEquals(cursor.getTp(), 50);
+        Assert.assertEquals(cursor.getRpcLatency(), 0.01, DELTA);
+        cursor.moveTo(0);
+        Assert.assertEquals(cursor.getTime(), 102, DELTA);
+        Assert.assertEquals(cursor.getTp(), 20);
+        Assert.assertEquals(cursor.getTps(), 2, DELTA);
+    }
+
+    @Test
+    public void testHistoryStartsWhenThePGIDAppears() throws IOException {
+        final FlowStatsStore store = new FlowStatsStore(10);
+        store.startSample(1, Double.NaN);
+        store.add(1, flowStat(10, 1));
+        store.startSample(2, Double.NaN);
+        store.add(1, flowStat(20, 1));
+        store.add(2, flowStat(5, 1));
+
+        final FlowStatsStore.Cursor cursor = store.cursor();
+        Assert.assertTrue(cursor.select(1));
+        Assert.assertEquals(cursor.size(), 2);
+        Assert.assertTrue(cursor.select(2));
+        Assert.assertEquals(cursor.size(), 1);
+        Assert.assertEquals(cursor.getTime(), 2, DELTA);
+        Assert.assertFalse(cursor.select(3));
+    }
+
+    @Test
+    public void testStoppedTraffic() throws IOException {
+        final FlowStatsStore store = new FlowStatsStore(10);
+        store.startSample(1, Double.NaN);
+        Assert.assertFalse(store.add(1, flowStat(10, 1)));
+        store.startSample(2, Double.NaN);
+        Assert.assertFalse(store.add(1, flowStat(20, 1)));
+        store.startSample(3, Double.NaN);
+        Assert.assertTrue(store.add(1, flowStat(20, 0)));
+    }
+
+    @Test
+    public void testShadowAndReset() throws IOException {
+        final FlowStatsStore store = new FlowStatsStore(10);
+        store.startSample(1, Double.NaN);
+        store.add(1, flowStat(10, 1));
+        store.startSample(2, Double.NaN);
+        store.add(1, flowStat(30, 1));
+
+        final FlowStatsStore.Cursor cursor = store.cursor();
+        cursor.select(1);
+        Assert.assertEquals(cursor.getShadowTp(), 10);
+
+        store.reset();
+        cursor.select(1);
+        Assert.assertEquals(cursor.size(), 1);
+        Assert.assertEquals(cursor.getShadowTp(), 30);
+        Assert.assertEquals(cursor.getPortShadowTp(0), 30);
+
+        store.startSample(3, Double.NaN);
+        store.add(1, flowStat(45, 1));
+        cursor.select(1);
+        Assert.assertEquals(cursor.size(), 2);
+        Assert.assertEquals(cursor.getTp() - cursor.getShadowTp(), 15);
+    }
+
+    @Test
+    public void testRestart() throws IOException {
+        final FlowStatsStore store = new FlowStatsStore(10);
+        for (int i = 1; i <= 3; ++i) {
+            store.startSample(i, Double.NaN);
+            store.add(1, flowStat(i * 10, 1));
+        }
+        store.restart(1);
+
+        final FlowStatsStore.Cursor cursor = store.cursor();
+        cursor.select(1);
+        Assert.assertEquals(cursor.size(), 1);
+        Assert.assertEquals(cursor.getShadowTp(), 0);
+
+        store.startSample(4, Double.NaN);
+        store.add(1, flowStat(5, 1));
+        cursor.select(1);
+        Assert.assertEquals(cursor.size(), 2);
+        // the first sample of the new run is the shadow
+        Assert.assertEquals(cursor.getShadowTp(), 5);
+    }
+
+    @Test
+    public void testPortColumns() throws IOException {
+        final FlowStatsStore store = new FlowStatsStore(10);
+        store.startSample(1, Double.NaN);
+        store.add(1, MAPPER.readValue(
+                "{\"tp\": {\"0\": 100, \"1\": 50}, \"rp\": {\"2\": 140}, \"tps\": {\"0\": 10.0, \"1\": 5.0}}",
+                FlowStat.class
+        ));
+        store.add(2, MAPPER.readValue("{\"tp\": {\"1\": 7}}", FlowStat.class));
+
+        final FlowStatsStore.Cursor cursor = store.cursor();
+        cursor.select(1);
+        Assert.assertEquals(cursor.getPortsCount(), 3);
+        Assert.assertEquals(cursor.getTp(), 150);
+        Assert.assertEquals(cursor.getTps(), 15, DELTA);
+        Assert.assertEquals(cursor.getRp(), 140);
+        final int port1 = cursor.getPortName(0).equals("1") ? 0 : cursor.getPortName(1).equals("1") ? 1 : 2;
+        Assert.assertTrue(cursor.hasPort(port1));
+        Assert.assertEquals(cursor.getPortTp(port1), 50);
+        Assert.assertEquals(cursor.getPortTps(port1), 5, DELTA);
+
+        cursor.select(2);
+        Assert.assertEquals(cursor.getPortTp(port1), 7);
+        for (int port = 0; port < cursor.getPortsCount(); ++port) {
+            Assert.assertEquals(cursor.hasPort(port), port == port1);
+        }
+    }
+
+    @Test
+    public void testPortsChangeBetweenSamples() throws IOException {
+        final FlowStatsStore store = new FlowStatsStore(10);
+        store.startSample(1, Double.NaN);
+        store.add(1, MAPPER.readValue("{\"tp\": {\"0\": 10, \"1\": 20}, \"tps\": {\"2\": 3.0}}", FlowStat.class));
+        store.reset();
+        store.startSample(2, Double.NaN);
+        store.add(1, MAPPER.readValue("{\"tp\": {\"1\": 25, \"3\": 4}}", FlowStat.class));
+
+        final FlowStatsStore.Cursor cursor = store.cursor();
+        cursor.select(1);
+        Assert.assertEquals(cursor.getPortsCount(), 4);
+        final int[] expectedTp = {0, 25, 0, 4};
+        final long[] expectedShadowTp = {10, 20, 0, 0};
+        for (int port = 0; port < cursor.getPortsCount(); ++port) {
+            final int id = Integer.parseInt(cursor.getPortName(port));
+            Assert.assertEquals(cursor.hasPort(port), id == 1 || id == 3);
+            Assert.assertEquals(cursor.getPortTp(port), expectedTp[id]);
+            Assert.assertEquals(cursor.getPortTps(port), 0, DELTA);
+            Assert.assertEquals(cursor.getPortShadowTp(port), expectedShadowTp[id]);
+        }
+    }
+
+    @Test
+    public void testRemoveAndClear() throws IOException {
+        final FlowStatsStore store = new FlowStatsStore(10);
+        store.startSample(1, Double.NaN);
+        store.add(1, flowStat(10, 1));
+        store.add(2, flowStat(10, 1));
+
+        store.remove(1);
+        Assert.assertFalse(store.cursor().select(1));
+        Assert.assertTrue(store.getPGIDs().contains(2));
+
+        store.clear();
+        Assert.assertTrue(store.getPGIDs().isEmpty());
+    }
+
+    @Test
+    public void testRestoreAndTakeOver() throws IOException {
+        final File directory = Files.createTempDirectory("flow-stats").toFile();
+        final HistoryArchive archive = new HistoryArchive(directory, false);
+        try {
+            final FlowStatsStore recorded = new FlowStatsStore(10);
+            recorded.setArchive(archive);
+            for (int i = 1; i <= 5; ++i) {
+                recorded.startSample(i, Double.NaN);
+                recorded.add(1, flowStat(i * 10, 1));
+            }
+
+            final FlowStatsStore restored = new FlowStatsStore(10);
+            restored.restore(archive.getFlowLog(), 3);
+            final FlowStatsStore store = new FlowStatsStore(10);
+            store.startSample(100, Double.NaN);
+            store.clear();
+            store.takeOver(restored);
+
+            final FlowStatsStore.Cursor cursor = store.cursor();
+            Assert.assertTrue(cursor.select(1));
+            Assert.assertEquals(cursor.size(), 3);
+            Assert.assertEquals(cursor.getTime(), 5, DELTA);
+            Assert.assertEquals(cursor.getTp(), 50);
+
+            store.startSample(6, Double.NaN);
+            store.add(1, flowStat(60, 1));
+            cursor.select(1);
+            Assert.assertEquals(cursor.size(), 4);
+            Assert.assertEquals(cursor.getShadowTp(), 30);
+        } finally {
+            archive.close();
+            final File[] files = directory.listFiles();
+            if (files != null) {
+                for (final File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    private static FlowStat flowStat(final long tp, final double tps) throws IOException {
+        return MAPPER.readValue(
+                String.format("{\"tp\": {\"0\": %d}, \"tps\": {\"0\": %s}}", tp, tps),
+                FlowStat.class
+        );
+    }
+}
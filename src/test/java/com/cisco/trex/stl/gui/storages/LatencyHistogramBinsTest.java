@@ -0,0 +1,168 @@
+package com.cisco.trex.stl.gui.storages;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class LatencyHistogramBinsTest {
+    @Test
+    public void testBinsAreSortedByValue() {
+        final LatencyHistogramBins bins = new LatencyHistogramBins(10);
+
+        Assert.assertTrue(bins.update(histogram("100", 0, "9", 0, "20", 0), 1));
+        Assert.assertFalse(bins.update(histogram("100", 1, "9", 1, "20", 1), 2));
+        Assert.assertTrue(bins.update(histogram("100", 1, "9", 1, "20", 1, "1000", 1), 3));
+
+        Assert.assertEquals(bins.getBinsCount(), 4);
+        Assert.assertEquals(bins.getBin(0), 9);
+        Assert.assertEquals(bins.getBin(1), 20);
+        Assert.assertEquals(bins.getBin(2), 100);
+        Assert.assertEquals(bins.getBin(3), 1000);
+        Assert.assertEquals(bins.getCountOf(1000), 1);
+        Assert.assertEquals(bins.getCountOf(30), 0);
+    }
+
+    @Test
+    public void testSessionPercentiles() {
+        final LatencyHistogramBins bins = new LatencyHistogramBins(10);
+
+        Assert.assertEquals(bins.getValueAtPercentile(50), -1);
+        bins.update(histogram("10", 500), 1);
+        Assert.assertEquals(bins.getTotal(), 0);
+        Assert.assertEquals(bins.getValueAtPercentile(50), -1);
+
+        bins.update(histogram("10", 1400, "20", 90, "50", 9, "100", 1), 2);
+
+        Assert.assertEquals(bins.getTotal(), 1000);
+        Assert.assertEquals(bins.getCountOf(10), 900);
+        Assert.assertEquals(bins.getValueAtPercentile(50), 10);
+        Assert.assertEquals(bins.getValueAtPercentile(90), 10);
+        Assert.assertEquals(bins.getValueAtPercentile(99), 20);
+        Assert.assertEquals(bins.getValueAtPercentile(99.9), 50);
+        Assert.assertEquals(bins.getValueAtPercentile(100), 100);
+    }
+
+    @Test
+    public void testSlidingWindow() {
+        final LatencyHistogramBins bins = new LatencyHistogramBins(2, 4);
+
+        bins.update(histogram("10", 0, "100", 0), 1);
+        bins.update(histogram("10", 0, "100", 10), 2);
+        bins.update(histogram("10", 10, "100", 10), 3);
+        bins.update(histogram("10", 20, "100", 10), 4);
+
+        Assert.assertEquals(bins.getWindowTotal(0), 20);
+        Assert.assertEquals(bins.getWindowValueAtPercentile(0, 99), 10);
+        Assert.assertEquals(bins.getWindowTotal(1), 30);
+        Assert.assertEquals(bins.getWindowValueAtPercentile(1, 99), 100);
+
+        bins.update(histogram("10", 30, "100", 10), 5);
+        bins.update(histogram("10", 30, "100", 10), 6);
+        bins.update(histogram("10", 30, "100", 10), 7);
+
+        Assert.assertEquals(bins.getWindowTotal(0), 0);
+        Assert.assertEquals(bins.getWindowValueAtPercentile(0, 50), -1);
+        Assert.assertEquals(bins.getWindowTotal(1), 20);
+        Assert.assertEquals(bins.getWindowValueAtPercentile(1, 99), 10);
+        Assert.assertEquals(bins.getTotal(), 40);
+    }
+
+    @Test
+    public void testWindowAfterGap() {
+        final LatencyHistogramBins bins = new LatencyHistogramBins(10);
+
+        bins.update(histogram("10", 0), 1);
+        bins.update(histogram("10", 10), 2);
+        bins.update(histogram("10", 20), 3);
+        Assert.assertEquals(bins.getWindowTotal(0), 20);
+
+        // the samples before a suspend are out of the window
+        bins.update(histogram("10", 25), 100);
+        Assert.assertEquals(bins.getWindowTotal(0), 5);
+        Assert.assertEquals(bins.getTotal(), 25);
+    }
+
+    @Test
+    public void testFastSamplesAreBounded() {
+        final LatencyHistogramBins bins = new LatencyHistogramBins(2);
+
+        for (int i = 0; i <= 10; ++i) {
+            bins.update(histogram("10", i), i * 0.1);
+        }
+        // two samples per second of the window
+        Assert.assertEquals(bins.getWindowTotal(0), 4);
+        Assert.assertEquals(bins.getTotal(), 10);
+    }
+
+    @Test
+    public void testCounterRestartAndReset() {
+        final LatencyHistogramBins bins = new LatencyHistogramBins(10);
+
+        bins.update(histogram("10", 100), 1);
+        bins.update(histogram("10", 150), 2);
+        bins.update(histogram("10", 20), 3);
+
+        Assert.assertEquals(bins.getCountOf(10), 70);
+
+        bins.reset();
+        Assert.assertEquals(bins.getTotal(), 0);
+        Assert.assertEquals(bins.getWindowTotal(0), 0);
+
+        bins.update(histogram("10", 25), 4);
+        Assert.assertEquals(bins.getCountOf(10), 5);
+        Assert.assertEquals(bins.getWindowTotal(0), 5);
+    }
+
+    @Test
+    public void testSnapshotKeepsMovedBinsOnly() {
+        final LatencyHistogramBins bins = new LatencyHistogramBins(10);
+        final int[] values = new int[3];
+        final long[] counts = new long[3];
+
+        bins.update(histogram("10", 5, "20", 5, "30", 5), 1);
+        bins.update(histogram("10", 8, "20", 5, "30", 6), 2);
+        bins.update(histogram("10", 9, "20", 5, "30", 6), 3);
+
+        Assert.assertEquals(bins.takeSnapshot(values, counts), 2);
+        Assert.assertEquals(values[0], 10);
+        Assert.assertEquals(counts[0], 4);
+        Assert.assertEquals(values[1], 30);
+        Assert.assertEquals(counts[1], 1);
+
+        bins.update(histogram("10", 9, "20", 7, "30", 6), 4);
+        Assert.assertEquals(bins.takeSnapshot(values, counts), 1);
+        Assert.assertEquals(values[0], 20);
+        Assert.assertEquals(counts[0], 2);
+        Assert.assertEquals(bins.takeSnapshot(values, counts), 0);
+    }
+
+    @Test
+    public void testLastCounts() {
+        final LatencyHistogramBins bins = new LatencyHistogramBins(10);
+
+        bins.update(histogram("10", 5, "20", 5), 1);
+        Assert.assertEquals(bins.getLastCount(0), 0);
+        Assert.assertEquals(bins.getLastCount(1), 0);
+
+        bins.update(histogram("10", 8, "20", 5, "300", 2), 2);
+        Assert.assertEquals(bins.getLastCount(0), 3);
+        Assert.assertEquals(bins.getLastCount(1), 0);
+        Assert.assertEquals(bins.getLastCount(2), 2);
+
+        bins.update(histogram("10", 8, "20", 6, "300", 2), 3);
+        Assert.assertEquals(bins.getLastCount(0), 0);
+        Assert.assertEquals(bins.getLastCount(1), 1);
+        Assert.assertEquals(bins.getLastCount(2), 0);
+    }
+
+    private static Map<String, Long> histogram(final Object... keysAndCounts) {
+        final Map<String, Long> histogram = new HashMap<>();
+        for (int i = 0; i < keysAndCounts.length; i += 2) {
+            histogram.put((String) keysAndCounts[i], ((Integer) keysAndCounts[i + 1]).longValue());
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,92 @@
+package com.cisco.trex.stl.gui.storages;
+
+import com.cisco.trex.stateless.model.stats.LatencyStat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+
+public class LatencyStatsStoreTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int[] BINS = {10, 100};
+
+    @Test
+    public void testWindowCounts() throws IOException {
+        final LatencyStatsStore store = new LatencyStatsStore(100);
+        for (int i = 0; i < 25; ++i) {
+            store.startSample(i, Double.NaN);
+            store.add(1, latencyStat(i, i >= 5 ? 10 : 0));
+        }
+
+        final LatencyStatsStore.Cursor cursor = store.cursor();
+        Assert.assertTrue(cursor.select(1));
+        final long[] counts = new long[BINS.length];
+        // the snapshot of the samples up to 19 and the 5 samples since
+        cursor.getWindowCounts(10, BINS, counts);
+        Assert.assertEquals(counts[0], 15);
+        Assert.assertEquals(counts[1], 0);
+
+        cursor.getWindowCounts(30, BINS, counts);
+        Assert.assertEquals(counts[0], 24);
+        Assert.assertEquals(counts[1], 10);
+    }
+
+    @Test
+    public void testWindowBeforeTheSnapshotsCountsTheSession() throws IOException {
+        final LatencyStatsStore store = new LatencyStatsStore(20);
+        for (int i = 0; i < 50; ++i) {
+            store.startSample(i, Double.NaN);
+            store.add(1, latencyStat(i, 0));
+        }
+
+        final LatencyStatsStore.Cursor cursor = store.cursor();
+        cursor.select(1);
+        final long[] counts = new long[BINS.length];
+        cursor.getWindowCounts(10, BINS, counts);
+        Assert.assertEquals(counts[0], 10);
+
+        cursor.getWindowCounts(100, BINS, counts);
+        Assert.assertEquals(counts[0], 49);
+    }
+
+    @Test
+    public void testHeatmapKeepsTheRowsWithPackets() throws IOException {
+        final LatencyStatsStore store = new LatencyStatsStore(10);
+        final long[][] histograms = {{0, 0}, {5, 0}, {7, 3}, {7, 3}};
+        for (int i = 0; i < histograms.length; ++i) {
+            store.startSample(i, Double.NaN);
+            store.add(1, latencyStat(histograms[i][0], histograms[i][1]));
+        }
+
+        final LatencyStatsStore.Cursor cursor = store.cursor();
+        cursor.select(1);
+        cursor.moveTo(0);
+        Assert.assertEquals(cursor.getHeatmapCellsCount(), 0);
+        cursor.moveTo(1);
+        Assert.assertEquals(cursor.getHeatmapCellsCount(), 1);
+        Assert.assertEquals(cursor.getHeatmapCellRow(0), LatencyStatsStore.getHeatmapRow(10));
+        Assert.assertEquals(cursor.getHeatmapCellCount(0), 5);
+        cursor.moveTo(2);
+        Assert.assertEquals(cursor.getHeatmapCellsCount(), 2);
+        Assert.assertEquals(cursor.getHeatmapCellRow(0), LatencyStatsStore.getHeatmapRow(10));
+        Assert.assertEquals(cursor.getHeatmapCellCount(0), 2);
+        Assert.assertEquals(cursor.getHeatmapCellRow(1), LatencyStatsStore.getHeatmapRow(100));
+        Assert.assertEquals(cursor.getHeatmapCellCount(1), 3);
+        cursor.moveTo(3);
+        Assert.assertEquals(cursor.getHeatmapCellsCount(), 0);
+    }
+
+    static LatencyStat latencyStat(final long low, final long high) throws IOException {
+        return MAPPER.readValue(
+                String.format(
+                        "{\"err_cntrs\": {}, \"latency\": {\"average\": 15.0, \"jitter\": 2, \"last_max\": 20, "
+                                + "\"total_max\": 100, \"histogram\": {\"10\": %d, \"100\": %d}}}",
+                        low,
+                        high
+                ),
+                LatencyStat.class
+        );
+    }
+}
@@ -0,0 +1,100 @@
+package com.cisco.trex.stl.gui.storages;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class RollupHistoryTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testBucketAggregates() {
+        final RollupHistory history = new RollupHistory(2, new int[]{10}, new int[]{4});
+        final RollupHistory.Tier tier = history.getTier(0);
+
+        history.add(100, new double[]{5, 1});
+        history.add(101, new double[]{1, 2});
+        history.add(109, new double[]{3, 3});
+        history.add(110, new double[]{7, 4});
+
+        Assert.assertEquals(tier.size(), 2);
+        Assert.assertEquals(tier.getMin(0, 0), 1, DELTA);
+        Assert.assertEquals(tier.getMax(0, 0), 5, DELTA);
+        Assert.assertEquals(tier.getAvg(0, 0), 3, DELTA);
+        Assert.assertEquals(tier.getLast(0, 0), 3, DELTA);
+        Assert.assertEquals(tier.getAvg(1, 0), 2, DELTA);
+        Assert.assertEquals(tier.getTime(0), 109, DELTA);
+        Assert.assertEquals(tier.getAvg(0, 1), 7, DELTA);
+        Assert.assertEquals(tier.getTime(1), 110, DELTA);
+    }
+
+    @Test
+    public void testOldestBucketsAreDropped() {
+        final RollupHistory history = new RollupHistory(1, new int[]{1}, new int[]{40});
+        final RollupHistory.Tier tier = history.getTier(0);
+
+        for (int i = 0; i < 100; ++i) {
+            history.add(i, new double[]{i});
+        }
+
+        Assert.assertEquals(tier.size(), 40);
+        for (int i = 0; i < 40; ++i) {
+            Assert.assertEquals(tier.getTime(i), 60 + i, DELTA);
+            Assert.assertEquals(tier.getLast(0, i), 60 + i, DELTA);
+        }
+    }
+
+    @Test
+    public void testTierForWindow() {
+        final RollupHistory history = new RollupHistory(1);
+
+        Assert.assertEquals(history.tierFor(900).getResolution(), 10);
+        Assert.assertEquals(history.tierFor(3600).getResolution(), 10);
+        Assert.assertEquals(history.tierFor(21600).getResolution(), 60);
+        Assert.assertEquals(history.tierFor(7 * 86400).getResolution(), 60);
+    }
+
+    @Test
+    public void testEmptyHistory() {
+        final RollupHistory history = new RollupHistory(1);
+        history.clear();
+
+        Assert.assertEquals(history.tierFor(60).size(), 0);
+        history.add(5, new double[]{2});
+        Assert.assertEquals(history.tierFor(60).size(), 1);
+        Assert.assertEquals(history.tierFor(60).getAvg(0, 0), 2, DELTA);
+    }
+
+    @Test
+    public void testClear() {
+        final RollupHistory history = new RollupHistory(1, new int[]{10, 60}, new int[]{2, 2});
+
+        history.add(0, new double[]{1});
+        history.add(30, new double[]{2});
+        history.clear();
+        history.add(30, new double[]{4});
+
+        for (int i = 0; i < history.getTiersCount(); ++i) {
+            Assert.assertEquals(history.getTier(i).size(), 1);
+            Assert.assertEquals(history.getTier(i).getAvg(0, 0), 4, DELTA);
+        }
+    }
+
+    @Test
+    public void testMemoryPerPGID() {
+        // the 4 rate columns of a PGID sampled every second for two days
+        final RollupHistory history = new RollupHistory(4);
+        final double[] values = new double[4];
+        for (int second = 0; second < 2 * 86400; ++second) {
+            values[0] = 1e10 + second;
+            history.add(second, values);
+        }
+
+        Assert.assertEquals(history.getTier(0).size(), 360);
+        Assert.assertEquals(history.getTier(1).size(), 1440);
+        Assert.assertTrue(history.getAllocatedBytes() <= 140 * 1024, "allocated " + history.getAllocatedBytes());
+        final RollupHistory.Tier tier = history.getTier(1);
+        final double expected = 1e10 + 2 * 86400 - 30.5;
+        Assert.assertEquals(tier.getAvg(0, tier.size() - 1), expected, expected * 1e-6);
+    }
+}
@@ -0,0 +1,149 @@
+package com.cisco.trex.stl.gui.storages;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class SegmentLogTest {
+    private static final double DELTA = 1e-9;
+
+    private File directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("segment-log").toFile();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testAppendAcrossSegments() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, "flow", 2, 4, false)) {
+            for (int i = 0; i < 10; ++i) {
+                log.append(i, i % 3, new double[]{i, -i});
+            }
+            Assert.assertEquals(log.getRecords(), 10);
+            Assert.assertEquals(log.getFirstTime(), 0, DELTA);
+            Assert.assertEquals(log.getLastTime(), 9, DELTA);
+
+            final List<double[]> records = read(log, 3, 6);
+            Assert.assertEquals(records.size(), 4);
+            Assert.assertEquals(records.get(0)[0], 3, DELTA);
+            Assert.assertEquals(records.get(0)[1], 0, DELTA);
+            Assert.assertEquals(records.get(0)[3], -3, DELTA);
+            Assert.assertEquals(records.get(3)[0], 6, DELTA);
+        }
+        Assert.assertTrue(new File(directory, "flow.idx").exists());
+        Assert.assertEquals(directory.listFiles((dir, name) -> name.endsWith(".seg")).length, 3);
+    }
+
+    @Test
+    public void testReopenGoesOnAppending() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, "latency", 1, 4, false)) {
+            for (int i = 0; i < 6; ++i) {
+                log.append(i, 1, new double[]{i});
+            }
+        }
+        try (SegmentLog log = new SegmentLog(directory, "latency", 1, 4, false)) {
+            Assert.assertEquals(log.getRecords(), 6);
+            log.append(6, 1, new double[]{6});
+            log.append(7, 1, new double[]{7});
+            log.append(8, 1, new double[]{8});
+        }
+        try (SegmentLog log = new SegmentLog(directory, "latency", 1, 4, true)) {
+            final List<double[]> records = read(log, 0, 100);
+            Assert.assertEquals(records.size(), 9);
+            for (int i = 0; i < records.size(); ++i) {
+                Assert.assertEquals(records.get(i)[0], i, DELTA);
+                Assert.assertEquals(records.get(i)[2], i, DELTA);
+            }
+        }
+        Assert.assertEquals(directory.listFiles((dir, name) -> name.endsWith(".seg")).length, 3);
+    }
+
+    @Test
+    public void testRetentionByAge() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, "flow", 1, 4, false)) {
+            log.setRetention(5, Long.MAX_VALUE);
+            for (int i = 0; i < 14; ++i) {
+                log.append(i, 1, new double[]{i});
+            }
+            // the segment ending at 3 is older than 13 - 5, the one ending at 7 is not
+            Assert.assertEquals(log.getFirstTime(), 4, DELTA);
+            Assert.assertEquals(log.getRecords(), 10);
+            Assert.assertEquals(read(log, 0, 100).size(), 10);
+        }
+        try (SegmentLog log = new SegmentLog(directory, "flow", 1, 4, true)) {
+            Assert.assertEquals(log.getRecords(), 10);
+            Assert.assertEquals(log.getFirstTime(), 4, DELTA);
+        }
+    }
+
+    @Test
+    public void testRetentionBySize() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, "flow", 1, 4, false)) {
+            for (int i = 0; i < 20; ++i) {
+                log.append(i, 1, new double[]{i});
+            }
+            final long segmentSize = log.getSize() / 5;
+            log.setRetention(Double.POSITIVE_INFINITY, 2 * segmentSize);
+            Assert.assertEquals(log.getSize(), 2 * segmentSize);
+            Assert.assertEquals(log.getFirstTime(), 12, DELTA);
+
+            log.append(20, 1, new double[]{20});
+            Assert.assertEquals(log.getSize(), 2 * segmentSize);
+            Assert.assertEquals(log.getFirstTime(), 16, DELTA);
+            Assert.assertEquals(log.getLastTime(), 20, DELTA);
+        }
+        Assert.assertEquals(directory.listFiles((dir, name) -> name.endsWith(".seg")).length, 2);
+        try (SegmentLog log = new SegmentLog(directory, "flow", 1, 4, false)) {
+            Assert.assertEquals(log.getRecords(), 5);
+            log.append(21, 1, new double[]{21});
+            Assert.assertEquals(read(log, 0, 100).size(), 6);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testReadOnlyRejectsAppend() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, "global", 1, 4, true)) {
+            log.append(0, 0, new double[]{0});
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testWidthMismatch() throws IOException {
+        try (SegmentLog log = new SegmentLog(directory, "utilization", 1, 4, false)) {
+            log.append(0, 0, new double[]{0});
+        }
+        new SegmentLog(directory, "utilization", 2, 4, false);
+    }
+
+    private static List<double[]> read(final SegmentLog log, final double from, final double to) throws IOException {
+        final List<double[]> records = new ArrayList<>();
+        log.read(from, to, (time, key, values) -> {
+            final double[] record = new double[2 + values.length];
+            record[0] = time;
+            record[1] = key;
+            System.arraycopy(values, 0, record, 2, values.length);
+            records.add(record);
+        });
+        return records;
+    }
+}
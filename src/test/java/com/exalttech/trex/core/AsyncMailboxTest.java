@@ -0,0 +1,112 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.exalttech.trex.core.rpc.AsyncMessageRouter.AsyncMessageHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Async mailbox tests, draining is done by the test instead of the FX pulse
+ */
+public class AsyncMailboxTest {
+
+    @Test
+    public void testLatestValueWins() {
+        AsyncMailbox mailbox = new AsyncMailbox(false);
+        List<String> delivered = new ArrayList<>();
+        AsyncMessageHandler<String> handler = mailbox.conflating("trex-global", (type, data) -> delivered.add(data));
+
+        handler.handle(0, "first");
+        handler.handle(0, "second");
+        handler.handle(0, "third");
+        mailbox.drain();
+        mailbox.drain();
+
+        Assert.assertEquals(delivered.size(), 1);
+        Assert.assertEquals(delivered.get(0), "third");
+        Assert.assertEquals(mailbox.getConflated(), 2);
+        Assert.assertEquals(mailbox.getStats().get(0).getPosted(), 3);
+    }
+
+    @Test
+    public void testSlotsAreIndependent() {
+        AsyncMailbox mailbox = new AsyncMailbox(false);
+        List<String> delivered = new ArrayList<>();
+        AsyncMessageHandler<String> global = mailbox.conflating("trex-global", (type, data) -> delivered.add(data));
+        AsyncMessageHandler<String> flowStats = mailbox.conflating("flow_stats", (type, data) -> delivered.add(data));
+
+        global.handle(0, "global");
+        flowStats.handle(0, "flow");
+        mailbox.drain();
+
+        Assert.assertEquals(delivered.size(), 2);
+        Assert.assertTrue(delivered.contains("global"));
+        Assert.assertTrue(delivered.contains("flow"));
+        Assert.assertEquals(mailbox.getConflated(), 0);
+        Assert.assertEquals(mailbox.getStats().get(0).getName(), "flow_stats");
+    }
+
+    @Test
+    public void testFailingHandlerDoesNotBlockOthers() {
+        AsyncMailbox mailbox = new AsyncMailbox(false);
+        List<String> delivered = new ArrayList<>();
+        AsyncMessageHandler<String> failing = mailbox.conflating("latency_stats", (type, data) -> {
+            throw new IllegalStateException(data);
+        });
+        AsyncMessageHandler<String> global = mailbox.conflating("trex-global", (type, data) -> delivered.add(data));
+
+        failing.handle(0, "boom");
+        global.handle(0, "global");
+        mailbox.drain();
+
+        Assert.assertEquals(delivered.size(), 1);
+    }
+
+    @Test
+    public void testConcurrentProducer() throws Exception {
+        AsyncMailbox mailbox = new AsyncMailbox(false);
+        AtomicInteger last = new AtomicInteger(-1);
+        AtomicInteger deliveries = new AtomicInteger();
+        AsyncMessageHandler<Integer> handler = mailbox.conflating("trex-global", (type, data) -> {
+            Assert.assertTrue(data > last.get(), "Samples delivered out of order");
+            last.set(data);
+            deliveries.incrementAndGet();
+        });
+
+        final int samples = 100_000;
+        CountDownLatch done = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < samples; i++) {
+                handler.handle(0, i);
+            }
+            done.countDown();
+        });
+        producer.start();
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            mailbox.drain();
+        }
+        mailbox.drain();
+
+        Assert.assertEquals(last.get(), samples - 1);
+        Assert.assertEquals(deliveries.get() + mailbox.getConflated(), samples);
+    }
+}
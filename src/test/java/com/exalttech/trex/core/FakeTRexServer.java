@@ -0,0 +1,886 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.exalttech.trex.core.rpc.RPCFrame;
+import com.exalttech.trex.core.rpc.RPCFrameCodec;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import org.apache.log4j.Logger;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+
+/**
+ * Stand-in for a TRex server, for load testing the GUI without hardware.
+ * <p>
+ * Answers the RPC methods the GUI uses on a REP socket and publishes
+ * trex-global, flow_stats and latency_stats messages on a PUB socket. All
+ * counters are synthetic and grow with the time since start, the scale (ports,
+ * PGIDs, histogram buckets) and the publish rate are configurable.
+ * <p>
+ * Run it standalone with
+ * {@code FakeTRexServer --rpc-port 4501 --async-port 4500 --ports 64 --pgids 20000 --rate 2}
+ * and connect the GUI to localhost.
+ */
+public class FakeTRexServer {
+
+    private static final Logger LOG = Logger.getLogger(FakeTRexServer.class.getName());
+
+    private static final String API_H = "fakeApiH";
+    private static final String HOSTNAME = "fake-trex";
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int INVALID_PARAMS = -32602;
+    private static final int POLL_TIMEOUT = 100;
+    private static final int PACKET_SIZE = 64;
+    private static final int CPU_HISTORY_SIZE = 20;
+    private static final long TICKS_PER_SECOND = 2400000000L;
+    private static final String[] MBUF_BANKS = {"64b", "128b", "256b", "512b", "1024b", "2048b", "4096b", "9kb"};
+    private static final String[] XSTATS_NAMES = {
+        "rx_good_packets", "tx_good_packets", "rx_good_bytes", "tx_good_bytes",
+        "rx_missed_errors", "rx_errors", "tx_errors", "rx_mbuf_allocation_errors",
+        "rx_q0packets", "rx_q0bytes", "tx_q0packets", "tx_q0bytes"
+    };
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = mapper.getFactory();
+    private final Map<String, RPCHandler> handlers = new HashMap<>();
+    private final AtomicLong publishedMessages = new AtomicLong();
+    private final AtomicLong handledRequests = new AtomicLong();
+    private final AtomicLong captureIdSequence = new AtomicLong();
+
+    private int rpcPort;
+    private int asyncPort;
+    private int portCount = 2;
+    private int pgidCount = 100;
+    private int latencyPgidCount = 10;
+    private int histogramDecades = 4;
+    private double publishRate = 2;
+    private long portPps = 1_000_000;
+    private long pgidPps = 1_000;
+
+    private ZContext context;
+    private Thread rpcThread;
+    private Thread publisherThread;
+    private volatile boolean running = false;
+    private long startTime;
+    private PortState[] ports;
+
+    /**
+     * Constructor
+     *
+     * @param rpcPort RPC port, 0 to bind a random port
+     * @param asyncPort async port, 0 to bind a random port
+     */
+    public FakeTRexServer(int rpcPort, int asyncPort) {
+        this.rpcPort = rpcPort;
+        this.asyncPort = asyncPort;
+        registerHandlers();
+    }
+
+    public void setPortCount(int portCount) {
+        this.portCount = portCount;
+    }
+
+    public void setPgidCount(int pgidCount) {
+        this.pgidCount = pgidCount;
+    }
+
+    public void setLatencyPgidCount(int latencyPgidCount) {
+        this.latencyPgidCount = latencyPgidCount;
+    }
+
+    /**
+     * @param histogramDecades latency histogram range, 4 decades are buckets
+     * from 10 usec up to 90 msec
+     */
+    public void setHistogramDecades(int histogramDecades) {
+        this.histogramDecades = histogramDecades;
+    }
+
+    /**
+     * @param publishRate async messages of each kind per second, 0 to publish
+     * nothing
+     */
+    public void setPublishRate(double publishRate) {
+        this.publishRate = publishRate;
+    }
+
+    public void setPortPps(long portPps) {
+        this.portPps = portPps;
+    }
+
+    public void setPgidPps(long pgidPps) {
+        this.pgidPps = pgidPps;
+    }
+
+    public int getRpcPort() {
+        return rpcPort;
+    }
+
+    public int getAsyncPort() {
+        return asyncPort;
+    }
+
+    public long getHandledRequests() {
+        return handledRequests.get();
+    }
+
+    public long getPublishedMessages() {
+        return publishedMessages.get();
+    }
+
+    /**
+     * Bind the sockets and start serving, returns once both are bound
+     *
+     * @throws InterruptedException
+     */
+    public void start() throws InterruptedException {
+        ports = new PortState[portCount];
+        for (int i = 0; i < portCount; i++) {
+            ports[i] = new PortState();
+        }
+        startTime = System.nanoTime();
+        context = new ZContext();
+        running = true;
+
+        CountDownLatch bound = new CountDownLatch(2);
+        rpcThread = new Thread(() -> serveRPC(bound), "fake-trex-rpc");
+        publisherThread = new Thread(() -> publish(bound), "fake-trex-async");
+        rpcThread.setDaemon(true);
+        publisherThread.setDaemon(true);
+        rpcThread.start();
+        publisherThread.start();
+        if (!bound.await(5, TimeUnit.SECONDS)) {
+            stop();
+            throw new IllegalStateException("Fake TRex server failed to bind its sockets");
+        }
+        LOG.info("Fake TRex server is listening on RPC port " + rpcPort + ", async port " + asyncPort);
+    }
+
+    /**
+     * Stop serving and close the sockets
+     */
+    public void stop() {
+        running = false;
+        try {
+            if (rpcThread != null) {
+                rpcThread.join(1000);
+            }
+            if (publisherThread != null) {
+                publisherThread.join(1000);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (context != null) {
+            context.destroy();
+            context = null;
+        }
+    }
+
+    private void serveRPC(CountDownLatch bound) {
+        ZMQ.Socket socket = context.createSocket(ZMQ.REP);
+        socket.setReceiveTimeOut(POLL_TIMEOUT);
+        rpcPort = bind(socket, rpcPort);
+        bound.countDown();
+        while (running) {
+            byte[] request = socket.recv();
+            if (request == null) {
+                continue;
+            }
+            handledRequests.incrementAndGet();
+            sendReply(socket, request);
+        }
+        context.destroySocket(socket);
+    }
+
+    private void sendReply(ZMQ.Socket socket, byte[] request) {
+        boolean compressed = RPCFrameCodec.isCompressed(request);
+        String reply;
+        try {
+            reply = handleRequest(RPCFrameCodec.decode(request));
+        } catch (IOException | DataFormatException | RuntimeException ex) {
+            LOG.error("Error handling request", ex);
+            reply = "{\"id\":null,\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32700,\"message\":\"Parse error\"}}";
+        }
+        if (!compressed) {
+            socket.send(reply);
+            return;
+        }
+        try {
+            RPCFrame frame = RPCFrameCodec.encode(reply);
+            socket.send(frame.getData(), 0, frame.getLength(), 0);
+            frame.release();
+        } catch (IOException ex) {
+            LOG.error("Error compressing reply", ex);
+            socket.send(reply);
+        }
+    }
+
+    private void publish(CountDownLatch bound) {
+        ZMQ.Socket socket = context.createSocket(ZMQ.PUB);
+        asyncPort = bind(socket, asyncPort);
+        bound.countDown();
+        while (running) {
+            long cycleStart = System.nanoTime();
+            if (publishRate > 0) {
+                try {
+                    socket.send(writeMessage("trex-global", this::writeGlobalStats));
+                    socket.send(writeMessage("flow_stats", gen -> writeFlowStats(gen, allPgids())));
+                    socket.send(writeMessage("latency_stats", gen -> writeLatencyStats(gen, latencyPgids())));
+                    publishedMessages.addAndGet(3);
+                } catch (IOException ex) {
+                    LOG.error("Error publishing async message", ex);
+                }
+            }
+            long period = publishRate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / publishRate) : TimeUnit.MILLISECONDS.toNanos(POLL_TIMEOUT);
+            long sleep = period - (System.nanoTime() - cycleStart);
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        context.destroySocket(socket);
+    }
+
+    private static int bind(ZMQ.Socket socket, int port) {
+        if (port == 0) {
+            return socket.bindToRandomPort("tcp://127.0.0.1");
+        }
+        socket.bind("tcp://*:" + port);
+        return port;
+    }
+
+    String handleRequest(byte[] request) throws IOException {
+        JsonNode root = mapper.readTree(request);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = jsonFactory.createGenerator(out)) {
+            if (root.isArray()) {
+                gen.writeStartArray();
+                for (JsonNode call : root) {
+                    writeReply(gen, call);
+                }
+                gen.writeEndArray();
+            } else {
+                writeReply(gen, root);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void writeReply(JsonGenerator gen, JsonNode call) throws IOException {
+        String method = call.path("method").asText();
+        JsonNode params = call.path("params");
+        gen.writeStartObject();
+        gen.writeFieldName("id");
+        gen.writeTree(call.get("id"));
+        gen.writeStringField("jsonrpc", "2.0");
+        RPCHandler handler = handlers.get(method);
+        if (handler == null) {
+            writeError(gen, METHOD_NOT_FOUND, "Method not found", "Method not supported by the fake server: " + method);
+        } else {
+            // results are buffered so that a failing handler can still reply
+            // with a well formed error
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            try (JsonGenerator resultGen = jsonFactory.createGenerator(result)) {
+                handler.handle(params, resultGen);
+            } catch (RPCException ex) {
+                writeError(gen, INVALID_PARAMS, "Invalid params", ex.getMessage());
+                gen.writeEndObject();
+                return;
+            }
+            gen.writeFieldName("result");
+            gen.writeRawValue(new String(result.toByteArray(), StandardCharsets.UTF_8));
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeError(JsonGenerator gen, int code, String message, String specificErr) throws IOException {
+        gen.writeObjectFieldStart("error");
+        gen.writeNumberField("code", code);
+        gen.writeStringField("message", message);
+        gen.writeStringField("specific_err", specificErr);
+        gen.writeEndObject();
+    }
+
+    private String writeMessage(String name, JsonWriter data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = jsonFactory.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("name", name);
+            gen.writeNumberField("type", 0);
+            gen.writeFieldName("data");
+            data.write(gen);
+            gen.writeEndObject();
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void registerHandlers() {
+        handlers.put("ping", (params, gen) -> writeEmptyObject(gen));
+        handlers.put("api_sync", this::apiSync);
+        handlers.put("get_version", this::getVersion);
+        handlers.put("get_system_info", this::getSystemInfo);
+        handlers.put("get_supported_cmds", this::getSupportedCmds);
+        handlers.put("get_owner", (params, gen) -> {
+            gen.writeStartObject();
+            gen.writeStringField("owner", getPort(params).owner);
+            gen.writeEndObject();
+        });
+        handlers.put("acquire", this::acquire);
+        handlers.put("release", (params, gen) -> {
+            PortState port = getPort(params);
+            synchronized (port) {
+                port.owner = "";
+                port.handler = null;
+            }
+            writeEmptyObject(gen);
+        });
+        handlers.put("get_port_status", this::getPortStatus);
+        handlers.put("get_port_xstats_names", (params, gen) -> {
+            getPort(params);
+            gen.writeStartObject();
+            writeStringArray(gen, "xstats_names", XSTATS_NAMES);
+            gen.writeEndObject();
+        });
+        handlers.put("get_port_xstats_values", this::getPortXStatsValues);
+        handlers.put("get_active_pgids", this::getActivePgids);
+        handlers.put("get_pgid_stats", this::getPgidStats);
+        handlers.put("get_utilization", this::getUtilization);
+        handlers.put("capture", this::capture);
+        handlers.put("get_stream_list", (params, gen) -> writeEmptyArray(gen));
+        handlers.put("add_stream", (params, gen) -> setPortState(params, gen, "STREAMS"));
+        handlers.put("remove_all_streams", (params, gen) -> setPortState(params, gen, "IDLE"));
+        handlers.put("remove_rx_filters", (params, gen) -> writeEmptyObject(gen));
+        handlers.put("stop_traffic", (params, gen) -> setPortState(params, gen, "STREAMS"));
+        handlers.put("pause_traffic", (params, gen) -> setPortState(params, gen, "PAUSE"));
+        handlers.put("resume_traffic", (params, gen) -> setPortState(params, gen, "TX"));
+        handlers.put("start_traffic", this::startTraffic);
+        handlers.put("update_traffic", this::startTraffic);
+        handlers.put("set_port_attr", (params, gen) -> writeEmptyObject(gen));
+        handlers.put("service", (params, gen) -> {
+            PortState port = getPort(params);
+            port.service = params.path("enabled").asBoolean();
+            writeEmptyObject(gen);
+        });
+    }
+
+    private void apiSync(JsonNode params, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("api_vers");
+        for (JsonNode version : params.path("api_vers")) {
+            gen.writeStartObject();
+            gen.writeStringField("type", version.path("type").asText());
+            gen.writeStringField("api_h", API_H);
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private void getVersion(JsonNode params, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("version", "v2.41-fake");
+        gen.writeStringField("build_date", "Jan 01 2018");
+        gen.writeStringField("build_time", "00:00:00");
+        gen.writeStringField("built_by", "fake");
+        gen.writeStringField("mode", "STL");
+        gen.writeEndObject();
+    }
+
+    private void getSystemInfo(JsonNode params, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("core_type", "Fake CPU @ 2.40GHz");
+        gen.writeStringField("dp_core_count", String.valueOf(Math.max(1, portCount / 2)));
+        gen.writeStringField("hostname", HOSTNAME);
+        gen.writeNumberField("port_count", portCount);
+        gen.writeStringField("uptime", "0 days");
+        gen.writeArrayFieldStart("ports");
+        for (int i = 0; i < portCount; i++) {
+            gen.writeStartObject();
+            gen.writeNumberField("index", i);
+            gen.writeStringField("description", "Fake Ethernet Controller");
+            gen.writeStringField("driver", "net_fake");
+            gen.writeBooleanField("is_fc_supported", false);
+            gen.writeBooleanField("is_led_supported", false);
+            gen.writeBooleanField("is_link_supported", false);
+            gen.writeBooleanField("is_virtual", true);
+            gen.writeNumberField("numa", 0);
+            gen.writeStringField("pci_addr", String.format("0000:%02x:00.0", i));
+            gen.writeNumberField("speed", 10);
+            gen.writeArrayFieldStart("supp_speeds");
+            gen.writeNumber(10000);
+            gen.writeEndArray();
+            gen.writeObjectFieldStart("rx");
+            writeStringArray(gen, "caps", "flow_stats", "latency");
+            gen.writeNumberField("counters", 127);
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private void getSupportedCmds(JsonNode params, JsonGenerator gen) throws IOException {
+        gen.writeStartArray();
+        for (String method : handlers.keySet()) {
+            gen.writeString(method);
+        }
+        gen.writeEndArray();
+    }
+
+    private void acquire(JsonNode params, JsonGenerator gen) throws IOException {
+        PortState port = getPort(params);
+        String user = params.path("user").asText();
+        synchronized (port) {
+            if (!port.owner.isEmpty() && !port.owner.equals(user) && !params.path("force").asBoolean()) {
+                throw new RPCException("port is already owned by " + port.owner);
+            }
+            port.owner = user;
+            port.handler = Long.toHexString(Double.doubleToLongBits(Math.random()));
+            gen.writeString(port.handler);
+        }
+    }
+
+    private void setPortState(JsonNode params, JsonGenerator gen, String state) throws IOException {
+        PortState port = getPort(params);
+        port.state = state;
+        writeEmptyObject(gen);
+    }
+
+    private void startTraffic(JsonNode params, JsonGenerator gen) throws IOException {
+        PortState port = getPort(params);
+        port.state = "TX";
+        gen.writeStartObject();
+        gen.writeNumberField("multiplier", params.path("mul").path("value").asDouble(1));
+        gen.writeEndObject();
+    }
+
+    private void getPortStatus(JsonNode params, JsonGenerator gen) throws IOException {
+        PortState port = getPort(params);
+        int portId = params.path("port_id").asInt();
+        gen.writeStartObject();
+        gen.writeStringField("owner", port.owner);
+        gen.writeStringField("state", port.state);
+        gen.writeNumberField("max_stream_id", 0);
+        gen.writeBooleanField("service", port.service);
+
+        gen.writeObjectFieldStart("attr");
+        gen.writeObjectFieldStart("fc");
+        gen.writeNumberField("mode", 0);
+        gen.writeEndObject();
+        gen.writeObjectFieldStart("layer_cfg");
+        gen.writeObjectFieldStart("ether");
+        gen.writeStringField("src", macOf(portId));
+        gen.writeStringField("dst", macOf(portId ^ 1));
+        gen.writeStringField("state", "configured");
+        gen.writeEndObject();
+        gen.writeObjectFieldStart("ipv4");
+        gen.writeStringField("state", "none");
+        gen.writeEndObject();
+        gen.writeEndObject();
+        writeFlag(gen, "link", "up", true);
+        writeFlag(gen, "led", "on", false);
+        writeFlag(gen, "multicast", "enabled", false);
+        writeFlag(gen, "promiscuous", "enabled", false);
+        gen.writeStringField("rx_filter_mode", "hw");
+        gen.writeNumberField("speed", 10);
+        gen.writeObjectFieldStart("vlan");
+        gen.writeArrayFieldStart("tags");
+        gen.writeEndArray();
+        gen.writeEndObject();
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("rx_info");
+        writeFlag(gen, "grat_arp", "is_active", false);
+        writeFlag(gen, "latency", "is_active", false);
+        writeFlag(gen, "queue", "is_active", false);
+        gen.writeEndObject();
+        gen.writeEndObject();
+    }
+
+    private void getPortXStatsValues(JsonNode params, JsonGenerator gen) throws IOException {
+        getPort(params);
+        long packets = (long) (portPps * elapsedSeconds());
+        long bytes = packets * PACKET_SIZE;
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("xstats_values");
+        for (long value : new long[]{packets, packets, bytes, bytes, 0, 0, 0, 0, packets, bytes, packets, bytes}) {
+            gen.writeNumber(value);
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private void getActivePgids(JsonNode params, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeObjectFieldStart("ids");
+        gen.writeArrayFieldStart("flow_stats");
+        for (int pgid = 1; pgid <= pgidCount; pgid++) {
+            gen.writeNumber(pgid);
+        }
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("latency");
+        for (int pgid : latencyPgids()) {
+            gen.writeNumber(pgid);
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+        gen.writeEndObject();
+    }
+
+    private void getPgidStats(JsonNode params, JsonGenerator gen) throws IOException {
+        List<Integer> flowPgids = new ArrayList<>();
+        List<Integer> latencyPgids = new ArrayList<>();
+        for (JsonNode pgidNode : params.path("pgids")) {
+            int pgid = pgidNode.asInt();
+            if (isLatencyPgid(pgid)) {
+                latencyPgids.add(pgid);
+                flowPgids.add(pgid);
+            } else if (pgid >= 1 && pgid <= pgidCount) {
+                flowPgids.add(pgid);
+            }
+        }
+        gen.writeStartObject();
+        gen.writeFieldName("flow_stats");
+        writeFlowStats(gen, flowPgids);
+        gen.writeFieldName("latency");
+        writeLatencyStats(gen, latencyPgids);
+        gen.writeObjectFieldStart("ver_id");
+        for (int pgid : flowPgids) {
+            gen.writeNumberField(String.valueOf(pgid), 1);
+        }
+        gen.writeEndObject();
+        // counters time as ticks of the server clock, like TRex does
+        gen.writeObjectFieldStart("ts");
+        gen.writeNumberField("value", (long) (elapsedSeconds() * TICKS_PER_SECOND));
+        gen.writeNumberField("freq", TICKS_PER_SECOND);
+        gen.writeEndObject();
+        gen.writeEndObject();
+    }
+
+    private void getUtilization(JsonNode params, JsonGenerator gen) throws IOException {
+        long tick = (long) elapsedSeconds();
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("cpu");
+        for (int core = 0; core < Math.max(1, portCount / 2); core++) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("history");
+            for (int i = 0; i < CPU_HISTORY_SIZE; i++) {
+                gen.writeNumber((int) ((core * 7 + tick + i) % 40 + 10));
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("ports");
+            gen.writeNumber(core * 2);
+            gen.writeNumber(core * 2 + 1);
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeObjectFieldStart("mbuf_stats");
+        gen.writeObjectFieldStart("cpu-socket-0");
+        for (String bank : MBUF_BANKS) {
+            gen.writeArrayFieldStart(bank);
+            gen.writeNumber(30000);
+            gen.writeNumber(32768);
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+        gen.writeEndObject();
+        gen.writeEndObject();
+    }
+
+    private void capture(JsonNode params, JsonGenerator gen) throws IOException {
+        String command = params.path("command").asText();
+        gen.writeStartObject();
+        switch (command) {
+            case "start":
+                gen.writeNumberField("capture_id", captureIdSequence.incrementAndGet());
+                gen.writeNumberField("start_ts", elapsedSeconds());
+                break;
+            case "stop":
+                gen.writeNumberField("pkt_count", 0);
+                break;
+            case "fetch":
+                writeCapturedPackets(gen, params.path("pkt_limit").asInt(10));
+                break;
+            case "remove":
+            case "status":
+                break;
+            default:
+                throw new RPCException("unknown capture command " + command);
+        }
+        gen.writeEndObject();
+    }
+
+    private void writeCapturedPackets(JsonGenerator gen, int limit) throws IOException {
+        byte[] packet = new byte[PACKET_SIZE];
+        // Ethernet / IPv4 / UDP with zero payload
+        packet[12] = 0x08;
+        packet[14] = 0x45;
+        packet[17] = (byte) (PACKET_SIZE - 14);
+        packet[22] = 64;
+        packet[23] = 17;
+        String binary = Base64.getEncoder().encodeToString(packet);
+        double now = elapsedSeconds();
+        gen.writeArrayFieldStart("pkts");
+        for (int i = 0; i < limit; i++) {
+            gen.writeStartObject();
+            gen.writeStringField("binary", binary);
+            gen.writeNumberField("index", i);
+            gen.writeNumberField("port", i % Math.max(1, portCount));
+            gen.writeNumberField("ts", now);
+            gen.writeStringField("origin", "RX");
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeNumberField("pending", 0);
+        gen.writeNumberField("start_ts", 0);
+    }
+
+    private void writeGlobalStats(JsonGenerator gen) throws IOException {
+        double elapsed = elapsedSeconds();
+        long totalPps = portPps * portCount;
+        gen.writeStartObject();
+        gen.writeNumberField("m_cpu_util", 25.0);
+        gen.writeNumberField("m_rx_cpu_util", 5.0);
+        gen.writeNumberField("m_tx_bps", totalPps * PACKET_SIZE * 8.0);
+        gen.writeNumberField("m_tx_pps", (double) totalPps);
+        gen.writeNumberField("m_rx_bps", totalPps * PACKET_SIZE * 8.0);
+        gen.writeNumberField("m_rx_pps", (double) totalPps);
+        gen.writeNumberField("m_rx_drop_bps", 0.0);
+        gen.writeNumberField("m_total_queue_full", 0);
+        gen.writeNumberField("m_active_flows", 0);
+        gen.writeNumberField("m_open_flows", 0);
+        gen.writeNumberField("m_platform_factor", 1.0);
+        long packets = (long) (portPps * elapsed);
+        for (int i = 0; i < portCount; i++) {
+            gen.writeNumberField("opackets-" + i, packets);
+            gen.writeNumberField("ipackets-" + i, packets);
+            gen.writeNumberField("obytes-" + i, packets * PACKET_SIZE);
+            gen.writeNumberField("ibytes-" + i, packets * PACKET_SIZE);
+            gen.writeNumberField("oerrors-" + i, 0);
+            gen.writeNumberField("ierrors-" + i, 0);
+            gen.writeNumberField("m_total_tx_bps-" + i, portPps * PACKET_SIZE * 8.0);
+            gen.writeNumberField("m_total_tx_pps-" + i, (double) portPps);
+            gen.writeNumberField("m_total_rx_bps-" + i, portPps * PACKET_SIZE * 8.0);
+            gen.writeNumberField("m_total_rx_pps-" + i, (double) portPps);
+        }
+        gen.writeEndObject();
+    }
+
+    private void writeFlowStats(JsonGenerator gen, List<Integer> pgids) throws IOException {
+        double elapsed = elapsedSeconds();
+        gen.writeStartObject();
+        for (int pgid : pgids) {
+            int txPort = pgid % Math.max(1, portCount);
+            int rxPort = txPort ^ 1;
+            long packets = (long) (pgidPps * elapsed);
+            gen.writeObjectFieldStart(String.valueOf(pgid));
+            writePortCounter(gen, "tp", txPort, packets);
+            writePortCounter(gen, "tb", txPort, packets * PACKET_SIZE);
+            writePortCounter(gen, "tps", txPort, pgidPps);
+            writePortCounter(gen, "tbs", txPort, pgidPps * PACKET_SIZE * 8);
+            writePortCounter(gen, "rp", rxPort, packets);
+            writePortCounter(gen, "rb", rxPort, packets * PACKET_SIZE);
+            writePortCounter(gen, "rps", rxPort, pgidPps);
+            writePortCounter(gen, "rbs", rxPort, pgidPps * PACKET_SIZE * 8);
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writePortCounter(JsonGenerator gen, String name, int port, long value) throws IOException {
+        gen.writeObjectFieldStart(name);
+        gen.writeNumberField(String.valueOf(port), value);
+        gen.writeEndObject();
+    }
+
+    private void writeLatencyStats(JsonGenerator gen, List<Integer> pgids) throws IOException {
+        double elapsed = elapsedSeconds();
+        long packets = (long) (pgidPps * elapsed);
+        gen.writeStartObject();
+        for (int pgid : pgids) {
+            // every PGID peaks at its own bucket, somewhere in the first two
+            // decades
+            int peak = pgid % (9 * Math.min(2, histogramDecades));
+            gen.writeObjectFieldStart(String.valueOf(pgid));
+            gen.writeObjectFieldStart("err_cntrs");
+            gen.writeNumberField("dropped", 0);
+            gen.writeNumberField("dup", 0);
+            gen.writeNumberField("out_of_order", 0);
+            gen.writeNumberField("seq_too_high", 0);
+            gen.writeNumberField("seq_too_low", 0);
+            gen.writeEndObject();
+            gen.writeObjectFieldStart("latency");
+            gen.writeNumberField("average", bucketValue(peak) + 5.0);
+            gen.writeNumberField("jitter", 2);
+            gen.writeNumberField("last_max", bucketValue(peak + 2));
+            gen.writeNumberField("total_max", bucketValue(peak + 4));
+            gen.writeNumberField("total_min", bucketValue(Math.max(0, peak - 2)));
+            gen.writeObjectFieldStart("histogram");
+            int buckets = 9 * histogramDecades;
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                long count = packets >> Math.min(62, 2 * Math.abs(bucket - peak));
+                if (count > 0) {
+                    gen.writeNumberField(String.valueOf(bucketValue(bucket)), count);
+                }
+            }
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Lower bound in usec of a histogram bucket: 10, 20 .. 90, 100, 200 ..
+     */
+    private static long bucketValue(int bucket) {
+        long decade = 10;
+        for (int i = 0; i < bucket / 9; i++) {
+            decade *= 10;
+        }
+        return decade * (bucket % 9 + 1);
+    }
+
+    private static void writeFlag(JsonGenerator gen, String name, String flag, boolean value) throws IOException {
+        gen.writeObjectFieldStart(name);
+        gen.writeBooleanField(flag, value);
+        gen.writeEndObject();
+    }
+
+    private static void writeStringArray(JsonGenerator gen, String name, String... values) throws IOException {
+        gen.writeArrayFieldStart(name);
+        for (String value : values) {
+            gen.writeString(value);
+        }
+        gen.writeEndArray();
+    }
+
+    private static void writeEmptyObject(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeEndObject();
+    }
+
+    private static void writeEmptyArray(JsonGenerator gen) throws IOException {
+        gen.writeStartArray();
+        gen.writeEndArray();
+    }
+
+    private static String macOf(int portId) {
+        return String.format("00:00:00:01:%02x:%02x", (portId >> 8) & 0xFF, portId & 0xFF);
+    }
+
+    private PortState getPort(JsonNode params) {
+        JsonNode portId = params.get("port_id");
+        if (portId == null || portId.asInt(-1) < 0 || portId.asInt() >= ports.length) {
+            throw new RPCException("invalid port id " + portId);
+        }
+        return ports[portId.asInt()];
+    }
+
+    private boolean isLatencyPgid(int pgid) {
+        return pgid > pgidCount && pgid <= pgidCount + latencyPgidCount;
+    }
+
+    private List<Integer> allPgids() {
+        List<Integer> pgids = new ArrayList<>(pgidCount + latencyPgidCount);
+        for (int pgid = 1; pgid <= pgidCount + latencyPgidCount; pgid++) {
+            pgids.add(pgid);
+        }
+        return pgids;
+    }
+
+    private List<Integer> latencyPgids() {
+        List<Integer> pgids = new ArrayList<>(latencyPgidCount);
+        for (int pgid = pgidCount + 1; pgid <= pgidCount + latencyPgidCount; pgid++) {
+            pgids.add(pgid);
+        }
+        return pgids;
+    }
+
+    private double elapsedSeconds() {
+        return (System.nanoTime() - startTime) / 1e9;
+    }
+
+    /**
+     * Run the server until the process is killed
+     *
+     * @param args --rpc-port, --async-port, --ports, --pgids, --latency-pgids,
+     * --rate
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        FakeTRexServer server = new FakeTRexServer(
+                Integer.parseInt(options.getOrDefault("--rpc-port", "4501")),
+                Integer.parseInt(options.getOrDefault("--async-port", "4500")));
+        server.setPortCount(Integer.parseInt(options.getOrDefault("--ports", "64")));
+        server.setPgidCount(Integer.parseInt(options.getOrDefault("--pgids", "20000")));
+        server.setLatencyPgidCount(Integer.parseInt(options.getOrDefault("--latency-pgids", "1000")));
+        server.setPublishRate(Double.parseDouble(options.getOrDefault("--rate", "2")));
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        Thread.currentThread().join();
+    }
+
+    private static class PortState {
+
+        private volatile String owner = "";
+        private volatile String handler;
+        private volatile String state = "IDLE";
+        private volatile boolean service = false;
+    }
+
+    private interface JsonWriter {
+
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    private interface RPCHandler {
+
+        void handle(JsonNode params, JsonGenerator gen) throws IOException;
+    }
+
+    private static class RPCException extends RuntimeException {
+
+        RPCException(String message) {
+            super(message);
+        }
+    }
+}
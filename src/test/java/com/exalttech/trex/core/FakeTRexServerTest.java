@@ -0,0 +1,224 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.exalttech.trex.core.rpc.RPCFrameCodec;
+import com.exalttech.trex.core.rpc.RPCReply;
+import com.exalttech.trex.core.rpc.RPCRequestEncoder;
+import com.exalttech.trex.core.rpc.RPCResponseDecoder;
+import com.exalttech.trex.core.rpc.RPCTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+
+/**
+ * Fake TRex server tests, they go through the real RPC transport and codec
+ */
+public class FakeTRexServerTest {
+
+    private static final int PORT_COUNT = 64;
+    private static final int PGID_COUNT = 2000;
+    private static final int LATENCY_PGID_COUNT = 20;
+    private static final long TIMEOUT = 3000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private FakeTRexServer server;
+    private ZContext context;
+    private RPCTransport transport;
+
+    @BeforeClass
+    public void startServer() throws Exception {
+        server = new FakeTRexServer(0, 0);
+        server.setPortCount(PORT_COUNT);
+        server.setPgidCount(PGID_COUNT);
+        server.setLatencyPgidCount(LATENCY_PGID_COUNT);
+        server.setPublishRate(20);
+        server.start();
+
+        context = new ZContext();
+        transport = new RPCTransport(context, "tcp://127.0.0.1:" + server.getRpcPort());
+        transport.start();
+    }
+
+    @AfterClass
+    public void stopServer() {
+        transport.close();
+        context.destroy();
+        server.stop();
+    }
+
+    @Test
+    public void testApiSync() throws Exception {
+        Map<String, Object> version = new HashMap<>();
+        version.put("type", "core");
+        version.put("major", 4);
+        version.put("minor", 0);
+        JsonNode result = call("api_sync", Collections.singletonMap("api_vers", Collections.singletonList(version)));
+        Assert.assertEquals(result.path("api_vers").get(0).path("type").asText(), "core");
+        Assert.assertFalse(result.path("api_vers").get(0).path("api_h").asText().isEmpty());
+    }
+
+    @Test
+    public void testSystemInfo() throws Exception {
+        JsonNode result = call("get_system_info", Collections.emptyMap());
+        Assert.assertEquals(result.path("port_count").asInt(), PORT_COUNT);
+        Assert.assertEquals(result.path("ports").size(), PORT_COUNT);
+        Assert.assertEquals(result.path("ports").get(5).path("index").asInt(), 5);
+    }
+
+    @Test
+    public void testPortStatusBatch() throws Exception {
+        List<Map<String, Object>> paramsList = new ArrayList<>();
+        for (int port = 0; port < PORT_COUNT; port++) {
+            paramsList.add(Collections.singletonMap("port_id", port));
+        }
+        List<String> requests = new ArrayList<>();
+        for (Map<String, Object> params : paramsList) {
+            requests.add(RPCRequestEncoder.encode("get_port_status", params, "fakeApiH"));
+        }
+        byte[] reply = send("[" + String.join(",", requests) + "]");
+        List<RPCReply<JsonNode>> replies = RPCResponseDecoder.decode(reply, JsonNode.class);
+        Assert.assertEquals(replies.size(), PORT_COUNT);
+        for (RPCReply<JsonNode> portReply : replies) {
+            Assert.assertFalse(portReply.isError());
+            Assert.assertEquals(portReply.getResult().path("state").asText(), "IDLE");
+            Assert.assertTrue(portReply.getResult().path("attr").path("link").path("up").asBoolean());
+        }
+    }
+
+    @Test
+    public void testPolledStatsBatch() throws Exception {
+        Map<String, Object> portParams = Collections.singletonMap("port_id", 0);
+        String request = RPCRequestEncoder.encodeBatch(
+                Arrays.asList("get_active_pgids", "get_port_xstats_values"),
+                Arrays.asList(Collections.emptyMap(), portParams),
+                "fakeApiH"
+        );
+        List<RPCReply<Object>> replies = RPCResponseDecoder.decode(
+                send(request),
+                Arrays.<Class<?>>asList(JsonNode.class, Map.class)
+        );
+        Assert.assertEquals(replies.size(), 2);
+        Assert.assertFalse(replies.get(0).isError());
+        Assert.assertTrue(replies.get(0).getResult() instanceof JsonNode);
+        Assert.assertFalse(replies.get(1).isError());
+        Assert.assertTrue(replies.get(1).getResult() instanceof Map);
+    }
+
+    @Test
+    public void testAcquireSetsOwner() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("port_id", 3);
+        params.put("user", "tester");
+        params.put("force", false);
+        JsonNode handler = call("acquire", params);
+        Assert.assertTrue(handler.isTextual());
+
+        JsonNode status = call("get_port_status", Collections.singletonMap("port_id", 3));
+        Assert.assertEquals(status.path("owner").asText(), "tester");
+    }
+
+    @Test
+    public void testPgidStats() throws Exception {
+        JsonNode active = call("get_active_pgids", Collections.emptyMap());
+        Assert.assertEquals(active.path("ids").path("flow_stats").size(), PGID_COUNT);
+        Assert.assertEquals(active.path("ids").path("latency").size(), LATENCY_PGID_COUNT);
+
+        List<Integer> pgids = new ArrayList<>();
+        for (JsonNode pgid : active.path("ids").path("flow_stats")) {
+            pgids.add(pgid.asInt());
+        }
+        for (JsonNode pgid : active.path("ids").path("latency")) {
+            pgids.add(pgid.asInt());
+        }
+        JsonNode stats = call("get_pgid_stats", Collections.singletonMap("pgids", pgids));
+        Assert.assertEquals(stats.path("flow_stats").size(), PGID_COUNT + LATENCY_PGID_COUNT);
+        Assert.assertEquals(stats.path("latency").size(), LATENCY_PGID_COUNT);
+        Assert.assertEquals(stats.path("ver_id").size(), PGID_COUNT + LATENCY_PGID_COUNT);
+        Assert.assertTrue(stats.path("ts").path("value").isIntegralNumber());
+        Assert.assertTrue(stats.path("ts").path("freq").asLong() > 0);
+
+        JsonNode latency = stats.path("latency").path(String.valueOf(PGID_COUNT + 1)).path("latency");
+        Assert.assertTrue(latency.path("histogram").size() > 0);
+        Assert.assertTrue(latency.has("total_max"));
+    }
+
+    @Test
+    public void testXStats() throws Exception {
+        JsonNode names = call("get_port_xstats_names", Collections.singletonMap("port_id", 0));
+        JsonNode values = call("get_port_xstats_values", Collections.singletonMap("port_id", 0));
+        Assert.assertEquals(names.path("xstats_names").size(), values.path("xstats_values").size());
+    }
+
+    @Test
+    public void testCaptureFetch() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("command", "fetch");
+        params.put("capture_id", 1);
+        params.put("pkt_limit", 5);
+        JsonNode result = call("capture", params);
+        Assert.assertEquals(result.path("pkts").size(), 5);
+        Assert.assertFalse(result.path("pkts").get(0).path("binary").asText().isEmpty());
+    }
+
+    @Test
+    public void testUnknownMethod() throws Exception {
+        byte[] reply = send(RPCRequestEncoder.encode("no_such_method", Collections.emptyMap(), "fakeApiH"));
+        Assert.assertNotNull(RPCResponseDecoder.findError(reply));
+    }
+
+    @Test
+    public void testAsyncMessages() throws Exception {
+        ZMQ.Socket subscriber = context.createSocket(ZMQ.SUB);
+        subscriber.setReceiveTimeOut((int) TIMEOUT);
+        subscriber.connect("tcp://127.0.0.1:" + server.getAsyncPort());
+        subscriber.subscribe(ZMQ.SUBSCRIPTION_ALL);
+        try {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                byte[] message = subscriber.recv();
+                Assert.assertNotNull(message, "No async message received");
+                names.add(mapper.readTree(RPCFrameCodec.decode(message)).path("name").asText());
+            }
+            Assert.assertTrue(names.containsAll(Arrays.asList("trex-global", "flow_stats", "latency_stats")), names.toString());
+        } finally {
+            context.destroySocket(subscriber);
+        }
+    }
+
+    private JsonNode call(String method, Map<String, Object> params) throws Exception {
+        RPCReply<JsonNode> reply = RPCResponseDecoder.decodeFirst(send(RPCRequestEncoder.encode(method, params, "fakeApiH")), JsonNode.class);
+        Assert.assertFalse(reply.isError(), reply.getErrorMessage());
+        return reply.getResult();
+    }
+
+    private byte[] send(String request) throws Exception {
+        byte[] reply = transport.send(RPCFrameCodec.encode(request), TIMEOUT).get(TIMEOUT, TimeUnit.MILLISECONDS);
+        return RPCFrameCodec.decode(reply);
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core;
+
+import com.cisco.trex.stl.gui.services.PollingCoordinator;
+import com.cisco.trex.stl.gui.storages.PGIDsStorage;
+import com.cisco.trex.stl.gui.storages.StatsStorage;
+import com.exalttech.trex.core.rpc.JournalReplayer;
+import com.exalttech.trex.core.rpc.StreamJournal;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.testfx.api.FxToolkit;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Replays a recorded journal into the stats storages, no server is needed.
+ * The PGIDs storage hands its results to the FX thread, so the toolkit is
+ * started first.
+ */
+public class JournalReplayTest {
+
+    private File file;
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void startToolkit() throws Exception {
+        FxToolkit.registerPrimaryStage();
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        file = File.createTempFile("trex-journal", ".trj");
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+        file.delete();
+    }
+
+    @Test
+    public void testActivePGIDsReplayed() throws Exception {
+        try (StreamJournal journal = new StreamJournal(file)) {
+            journal.recordReply("get_active_pgids", bytes(activePGIDs("[1, 2]", "[]")));
+            journal.recordReply("get_active_pgids", bytes(activePGIDs("[1, 2, 5]", "[2, 7]")));
+        }
+
+        ConnectionManager connectionManager = new ConnectionManager(new AsyncResponseManager(), executor);
+        StatsStorage statsStorage = new StatsStorage(connectionManager, executor);
+        PGIDsStorage pgIDsStorage = statsStorage.getPGIDsStorage();
+        Set<Integer> expected = new HashSet<>(Arrays.asList(1, 2, 5, 7));
+        CountDownLatch replayed = new CountDownLatch(1);
+        pgIDsStorage.addPGIDsChangedListener(() -> {
+            if (expected.equals(pgIDsStorage.getPgIDs())) {
+                replayed.countDown();
+            }
+        });
+
+        Assert.assertTrue(connectionManager.startReplay(file, JournalReplayer.MAX_SPEED));
+        statsStorage.startPolling();
+        PollingCoordinator.Subscription subscription = pgIDsStorage.subscribe();
+        try {
+            // the last replayed reply is polled until the storage is stopped
+            Assert.assertTrue(replayed.await(5, TimeUnit.SECONDS));
+            synchronized (pgIDsStorage.getDataLock()) {
+                Assert.assertEquals(pgIDsStorage.getSelectedPGIds().size(), 4);
+            }
+        } finally {
+            subscription.cancel();
+            statsStorage.stopPolling();
+            connectionManager.stopReplay();
+        }
+    }
+
+    private static String activePGIDs(String flowStats, String latency) {
+        return "{\"id\":\"1\",\"jsonrpc\":\"2.0\",\"result\":{\"ids\":{\"flow_stats\":" + flowStats
+                + ",\"latency\":" + latency + "}}}";
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import com.exalttech.trex.remote.models.AsyncEventData;
+import com.fasterxml.jackson.core.type.TypeReference;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Async message router tests
+ */
+public class AsyncMessageRouterTest {
+
+    @Test
+    public void testTypedEvent() throws Exception {
+        AsyncMessageRouter router = new AsyncMessageRouter();
+        List<AsyncEventData> events = new ArrayList<>();
+        int[] types = {-1};
+        router.setHandler("trex-event", AsyncEventData.class, (type, data) -> {
+            types[0] = type;
+            events.add(data);
+        });
+
+        Assert.assertTrue(route(router, "{\"name\":\"trex-event\",\"type\":5,\"data\":{\"port_id\":3,\"who\":\"tester\",\"force\":true}}"));
+        Assert.assertEquals(types[0], 5);
+        Assert.assertEquals(events.size(), 1);
+        Assert.assertEquals(events.get(0).getPortId(), Integer.valueOf(3));
+        Assert.assertEquals(events.get(0).getWho(), "tester");
+        Assert.assertTrue(events.get(0).isForce());
+    }
+
+    @Test
+    public void testDataBeforeName() throws Exception {
+        AsyncMessageRouter router = new AsyncMessageRouter();
+        List<Map<String, Object>> stats = new ArrayList<>();
+        router.setHandler("trex-global", new TypeReference<Map<String, Object>>() {}, (type, data) -> stats.add(data));
+
+        Assert.assertTrue(route(router, "{\"data\":{\"m_cpu_util\":12.5,\"m_tx_bps\":1000},\"type\":0,\"name\":\"trex-global\"}"));
+        Assert.assertEquals(stats.size(), 1);
+        Assert.assertEquals(stats.get(0).get("m_cpu_util"), 12.5);
+        Assert.assertEquals(stats.get(0).get("m_tx_bps"), 1000);
+    }
+
+    @Test
+    public void testUnknownNameIsSkipped() throws Exception {
+        AsyncMessageRouter router = new AsyncMessageRouter();
+        router.setHandler("trex-event", AsyncEventData.class, (type, data) -> Assert.fail("Unexpected dispatch"));
+
+        Assert.assertFalse(route(router, "{\"name\":\"flow_stats\",\"type\":0,\"data\":{\"1\":{\"rx_pkts\":{\"0\":1}}}}"));
+        Assert.assertFalse(route(router, "{\"data\":{\"1\":2},\"name\":\"latency_stats\"}"));
+        Assert.assertFalse(route(router, "{\"type\":0,\"data\":{}}"));
+    }
+
+    @Test
+    public void testNullData() throws Exception {
+        AsyncMessageRouter router = new AsyncMessageRouter();
+        List<AsyncEventData> events = new ArrayList<>();
+        router.setHandler("trex-event", AsyncEventData.class, (type, data) -> events.add(data));
+
+        Assert.assertTrue(route(router, "{\"name\":\"trex-event\",\"type\":100,\"data\":null}"));
+        Assert.assertTrue(route(router, "{\"name\":\"trex-event\",\"type\":100}"));
+        Assert.assertEquals(events.size(), 2);
+        Assert.assertNull(events.get(0));
+        Assert.assertNull(events.get(1));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testMalformedMessage() throws Exception {
+        route(new AsyncMessageRouter(), "[1,2]");
+    }
+
+    private static boolean route(AsyncMessageRouter router, String message) throws IOException {
+        return router.route(message.getBytes(StandardCharsets.UTF_8));
+    }
+}
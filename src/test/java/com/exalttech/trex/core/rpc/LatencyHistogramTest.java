@@ -0,0 +1,94 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Latency histogram tests
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(histogram.getCount(), 0);
+        Assert.assertEquals(histogram.getMax(), 0);
+        Assert.assertEquals(histogram.getMean(), 0d);
+        Assert.assertEquals(histogram.getValueAtPercentile(99), 0);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        Assert.assertEquals(histogram.getCount(), 10);
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 5);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 10);
+        Assert.assertEquals(histogram.getMean(), 5.5d);
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertClose(histogram.getValueAtPercentile(50), 50_000_000L);
+        assertClose(histogram.getValueAtPercentile(99), 99_000_000L);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 100_000_000L);
+        Assert.assertEquals(histogram.getMax(), 100_000_000L);
+    }
+
+    @Test
+    public void testBucketBounds() {
+        for (long value : new long[]{0, 31, 32, 33, 63, 64, 1000, 123_456_789L, (1L << 40) - 1}) {
+            int index = LatencyHistogram.indexOf(value);
+            Assert.assertTrue(LatencyHistogram.highestValueOf(index) >= value);
+            if (index > 0) {
+                Assert.assertTrue(LatencyHistogram.highestValueOf(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(histogram.getCount(), 2);
+        Assert.assertEquals(histogram.getValueAtPercentile(0), 0);
+        Assert.assertEquals(histogram.getMax(), (1L << 40) - 1);
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.reset();
+        Assert.assertEquals(histogram.getCount(), 0);
+        Assert.assertEquals(histogram.getMax(), 0);
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 0);
+    }
+
+    private static void assertClose(long actual, long expected) {
+        Assert.assertTrue(actual >= expected && actual <= expected + expected / 16,
+                          actual + " is not close to " + expected);
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import com.exalttech.trex.util.CompressionUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Frame codec, buffer pool and compression round trip tests
+ */
+public class RPCFrameCodecTest {
+
+    @Test
+    public void testSmallRequestIsNotCompressed() throws Exception {
+        String request = request(RPCFrameCodec.COMPRESSION_THRESHOLD - 1, 1);
+        RPCFrame frame = RPCFrameCodec.encode(request);
+        byte[] data = bytesOf(frame);
+        Assert.assertFalse(RPCFrameCodec.isCompressed(data));
+        Assert.assertEquals(new String(data, StandardCharsets.UTF_8), request);
+        Assert.assertEquals(RPCFrameCodec.decodeString(data), request);
+        frame.release();
+    }
+
+    @Test
+    public void testLargeRequestRoundTrip() throws Exception {
+        String request = request(RPCFrameCodec.COMPRESSION_THRESHOLD * 40, 2);
+        RPCFrame frame = RPCFrameCodec.encode(request);
+        byte[] data = bytesOf(frame);
+        Assert.assertTrue(RPCFrameCodec.isCompressed(data));
+        Assert.assertEquals(RPCFrameCodec.decodeString(data), request);
+        frame.release();
+    }
+
+    @Test(expectedExceptions = DataFormatException.class)
+    public void testShorterHeaderLength() throws Exception {
+        byte[] data = encoded(request(4096, 3));
+        writeLength(data, readLength(data) - 1);
+        RPCFrameCodec.decode(data);
+    }
+
+    @Test(expectedExceptions = DataFormatException.class)
+    public void testLongerHeaderLength() throws Exception {
+        byte[] data = encoded(request(4096, 4));
+        writeLength(data, readLength(data) + 1);
+        RPCFrameCodec.decode(data);
+    }
+
+    @Test(expectedExceptions = DataFormatException.class)
+    public void testHugeHeaderLength() throws Exception {
+        byte[] data = encoded(request(4096, 5));
+        writeLength(data, Integer.MAX_VALUE);
+        RPCFrameCodec.decode(data);
+    }
+
+    @Test(expectedExceptions = DataFormatException.class)
+    public void testHeaderLengthAboveDeflateRatio() throws Exception {
+        byte[] data = encoded(request(4096, 6));
+        writeLength(data, (data.length - RPCFrameCodec.HEADER_SIZE) * 1032 + 1);
+        RPCFrameCodec.decode(data);
+    }
+
+    @Test
+    public void testReleasedBufferDoesNotCorruptFrameInUse() throws Exception {
+        String first = request(8192, 7);
+        String second = request(8192, 8);
+        RPCFrame released = RPCFrameCodec.encode(first);
+        RPCFrame inUse = RPCFrameCodec.encode(second);
+        byte[] inUseData = bytesOf(inUse);
+
+        released.release();
+        released.release();
+        Assert.assertNull(released.getData());
+
+        RPCFrame reused = RPCFrameCodec.encode(request(8192, 9));
+        RPCFrame other = RPCFrameCodec.encode(request(8192, 10));
+        Assert.assertNotSame(reused.getData(), other.getData());
+        Assert.assertNotSame(reused.getData(), inUse.getData());
+        Assert.assertNotSame(other.getData(), inUse.getData());
+
+        Assert.assertEquals(bytesOf(inUse), inUseData);
+        Assert.assertEquals(RPCFrameCodec.decodeString(bytesOf(inUse)), second);
+        Assert.assertEquals(RPCFrameCodec.decodeString(bytesOf(reused)), request(8192, 9));
+        Assert.assertEquals(RPCFrameCodec.decodeString(bytesOf(other)), request(8192, 10));
+        inUse.release();
+        reused.release();
+        other.release();
+    }
+
+    @Test
+    public void testPoolBuffers() {
+        byte[] buffer = FrameBufferPool.acquire(1500);
+        Assert.assertEquals(buffer.length, 2048);
+        FrameBufferPool.release(buffer);
+        byte[] odd = new byte[3000];
+        FrameBufferPool.release(odd);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertNotSame(FrameBufferPool.acquire(3000), odd);
+        }
+    }
+
+    @Test
+    public void testDeflateInflateAtOffset() throws Exception {
+        byte[] input = request(10000, 11).getBytes(StandardCharsets.UTF_8);
+        byte[] output = new byte[5 + CompressionUtils.maxCompressedLength(input.length - 100)];
+        int count = CompressionUtils.deflate(input, 100, input.length - 100, output, 5);
+        byte[] inflated = new byte[input.length - 100];
+        CompressionUtils.inflate(output, 5, count, inflated);
+        Assert.assertEquals(inflated, Arrays.copyOfRange(input, 100, input.length));
+        Assert.assertEquals(CompressionUtils.decompress(CompressionUtils.compress(input)), input);
+    }
+
+    @Test(expectedExceptions = DataFormatException.class)
+    public void testInflateIntoShortOutput() throws Exception {
+        byte[] input = request(1000, 12).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = CompressionUtils.compress(input);
+        CompressionUtils.inflate(compressed, 0, compressed.length, new byte[input.length - 1]);
+    }
+
+    @Test(expectedExceptions = java.io.IOException.class)
+    public void testDeflateIntoShortOutput() throws Exception {
+        byte[] input = request(1000, 13).getBytes(StandardCharsets.UTF_8);
+        CompressionUtils.deflate(input, 0, input.length, new byte[16], 0);
+    }
+
+    private static String request(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder(length);
+        builder.append("{\"jsonrpc\":\"2.0\",\"method\":\"add_streams\",\"params\":[");
+        while (builder.length() < length) {
+            builder.append(random.nextInt(1000)).append(',');
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+    private static byte[] encoded(String request) throws Exception {
+        RPCFrame frame = RPCFrameCodec.encode(request);
+        byte[] data = bytesOf(frame);
+        frame.release();
+        return data;
+    }
+
+    private static byte[] bytesOf(RPCFrame frame) {
+        return Arrays.copyOf(frame.getData(), frame.getLength());
+    }
+
+    private static int readLength(byte[] data) {
+        return ((data[4] & 0xFF) << 24) | ((data[5] & 0xFF) << 16) | ((data[6] & 0xFF) << 8) | (data[7] & 0xFF);
+    }
+
+    private static void writeLength(byte[] data, int length) {
+        data[4] = (byte) (length >>> 24);
+        data[5] = (byte) (length >>> 16);
+        data[6] = (byte) (length >>> 8);
+        data[7] = (byte) length;
+    }
+}
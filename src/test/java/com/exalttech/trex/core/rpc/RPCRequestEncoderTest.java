@@ -0,0 +1,103 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import com.exalttech.trex.remote.models.profiles.Profile;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * RPC request encoder tests
+ */
+public class RPCRequestEncoderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testApiHandlerIsFirstParam() throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("pgids", Arrays.asList(1, 2));
+        JsonNode request = mapper.readTree(RPCRequestEncoder.encode("get_pgid_stats", params, "abc"));
+
+        Assert.assertEquals(request.get("jsonrpc").asText(), "2.0");
+        Assert.assertEquals(request.get("method").asText(), "get_pgid_stats");
+        Assert.assertEquals(request.get("params").fieldNames().next(), "api_h");
+        Assert.assertEquals(request.get("params").get("api_h").asText(), "abc");
+        Assert.assertEquals(request.get("params").get("pgids").size(), 2);
+    }
+
+    @Test
+    public void testMixedBatch() throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("pgids", Collections.singletonList(7));
+        JsonNode batch = mapper.readTree(RPCRequestEncoder.encodeBatch(
+                Arrays.asList("get_utilization", "get_pgid_stats"),
+                Arrays.asList(Collections.emptyMap(), params),
+                "abc"));
+
+        Assert.assertEquals(batch.size(), 2);
+        Assert.assertEquals(batch.get(0).get("method").asText(), "get_utilization");
+        Assert.assertEquals(batch.get(0).get("params").get("api_h").asText(), "abc");
+        Assert.assertEquals(batch.get(1).get("method").asText(), "get_pgid_stats");
+        Assert.assertEquals(batch.get(1).get("params").get("pgids").get(0).asInt(), 7);
+    }
+
+    @Test
+    public void testFields() throws IOException {
+        JsonNode noParams = mapper.readTree(RPCRequestEncoder.encodeFields("ping", null, "abc"));
+        Assert.assertTrue(noParams.get("params").isNull());
+
+        JsonNode emptyParams = mapper.readTree(RPCRequestEncoder.encodeFields("get_version", "", "abc"));
+        Assert.assertEquals(emptyParams.get("params").size(), 1);
+
+        JsonNode apiSync = mapper.readTree(RPCRequestEncoder.encodeFields("api_sync", "\"api_vers\": [1]", null));
+        Assert.assertNull(apiSync.get("params").get("api_h"));
+        Assert.assertEquals(apiSync.get("params").get("api_vers").get(0).asInt(), 1);
+    }
+
+    @Test
+    public void testStreamDefaultsAndHexValues() throws IOException {
+        Profile withVm = new Profile();
+        Map<String, Object> vm = new HashMap<>();
+        vm.put("instructions", Collections.singletonList(Collections.singletonMap("max_value", "0xffffffff")));
+        withVm.getStream().getAdditionalProperties().put("vm", vm);
+        withVm.getStream().getAdditionalProperties().put("rx_stats", new ArrayList<>());
+
+        JsonNode batch = mapper.readTree(RPCRequestEncoder.encodeBatch("add_stream", Arrays.asList(withVm, new Profile()), "abc"));
+        Assert.assertEquals(batch.size(), 2);
+
+        JsonNode stream = batch.get(0).get("params").get("stream");
+        Assert.assertEquals(stream.get("vm").get("split_by_var").asText(), "");
+        Assert.assertEquals(stream.get("vm").get("instructions").get(0).get("max_value").asLong(), 0xffffffffL);
+        Assert.assertFalse(stream.get("rx_stats").get("enabled").asBoolean());
+
+        JsonNode defaultStream = batch.get(1).get("params").get("stream");
+        Assert.assertEquals(defaultStream.get("vm").get("instructions").size(), 0);
+        Assert.assertFalse(defaultStream.get("rx_stats").get("enabled").asBoolean());
+
+        // the model itself is left untouched
+        Assert.assertEquals(withVm.getStream().getAdditionalProperties().get("rx_stats"), new ArrayList<>());
+        Assert.assertFalse(vm.containsKey("split_by_var"));
+    }
+}
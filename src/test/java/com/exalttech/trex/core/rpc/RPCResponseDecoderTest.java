@@ -0,0 +1,82 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * RPC response decoder tests
+ */
+public class RPCResponseDecoderTest {
+
+    @Test
+    public void testSingleReply() throws IOException {
+        RPCReply<Map> reply = RPCResponseDecoder.decodeFirst(
+                bytes("{\"id\":\"A1\",\"jsonrpc\":\"2.0\",\"result\":{\"error\":0,\"value\":5}}"), Map.class);
+
+        Assert.assertFalse(reply.isError());
+        Assert.assertEquals(reply.getId(), "A1");
+        Assert.assertEquals(reply.getResult().get("value"), 5);
+    }
+
+    @Test
+    public void testBatchWithError() throws IOException {
+        byte[] data = bytes("[{\"id\":1,\"jsonrpc\":\"2.0\",\"result\":[1,2]},"
+                + "{\"id\":2,\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32000,\"message\":\"Server error\",\"specific_err\":\"port is not owned\"}}]");
+        List<RPCReply<List>> replies = RPCResponseDecoder.decode(data, List.class);
+
+        Assert.assertEquals(replies.size(), 2);
+        Assert.assertEquals(replies.get(0).getResult().size(), 2);
+        Assert.assertEquals(replies.get(1).getId(), "2");
+        Assert.assertTrue(replies.get(1).isError());
+        Assert.assertNull(replies.get(1).getResult());
+        Assert.assertEquals(replies.get(1).getErrorMessage(), "port is not owned");
+        Assert.assertEquals(RPCResponseDecoder.findError(data).getSpecificErr(), "port is not owned");
+    }
+
+    @Test
+    public void testMixedBatch() throws IOException {
+        byte[] data = bytes("[{\"id\":1,\"jsonrpc\":\"2.0\",\"result\":[1,2]},"
+                + "{\"id\":2,\"jsonrpc\":\"2.0\",\"result\":{\"value\":3}},"
+                + "{\"id\":3,\"jsonrpc\":\"2.0\",\"result\":{\"value\":4}}]");
+        List<RPCReply<Object>> replies = RPCResponseDecoder.decode(data, Arrays.asList(List.class, Map.class));
+
+        Assert.assertEquals(replies.size(), 3);
+        Assert.assertEquals(((List) replies.get(0).getResult()).size(), 2);
+        Assert.assertEquals(((Map) replies.get(1).getResult()).get("value"), 3);
+        Assert.assertNull(replies.get(2).getResult());
+    }
+
+    @Test
+    public void testErrorFieldInsideResult() throws IOException {
+        Assert.assertNull(RPCResponseDecoder.findError(bytes("{\"id\":1,\"result\":{\"error\":{\"count\":3}}}")));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testInvalidReply() throws IOException {
+        RPCResponseDecoder.decode(bytes("\"pong\""), Map.class);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Stream journal and replay tests
+ */
+public class StreamJournalTest {
+
+    private File file;
+
+    @BeforeMethod
+    public void createFile() throws IOException {
+        file = File.createTempFile("trex-journal", ".trj");
+    }
+
+    @AfterMethod
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        try (StreamJournal journal = new StreamJournal(file)) {
+            journal.recordAsyncFrame(bytes("{\"name\":\"trex-global\"}"));
+            journal.recordReply("get_utilization", bytes("{\"result\":{}}"));
+            journal.recordAsyncFrame(new byte[0]);
+            Assert.assertEquals(journal.getRecords(), 3);
+        }
+
+        try (StreamJournalReader reader = new StreamJournalReader(file)) {
+            Assert.assertTrue(reader.getStartTime() > 0);
+            StreamJournalReader.Record first = reader.next();
+            Assert.assertEquals(first.getKind(), StreamJournal.ASYNC_FRAME);
+            Assert.assertNull(first.getMethod());
+            Assert.assertEquals(text(first.getFrame()), "{\"name\":\"trex-global\"}");
+
+            StreamJournalReader.Record second = reader.next();
+            Assert.assertEquals(second.getKind(), StreamJournal.RPC_REPLY);
+            Assert.assertEquals(second.getMethod(), "get_utilization");
+            Assert.assertTrue(second.getNanos() >= first.getNanos());
+
+            Assert.assertEquals(reader.next().getFrame().length, 0);
+            Assert.assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testTruncatedJournal() throws Exception {
+        try (StreamJournal journal = new StreamJournal(file)) {
+            for (int i = 0; i < 1000; i++) {
+                journal.recordAsyncFrame(bytes("{\"name\":\"trex-global\",\"data\":{\"m_cpu_util\":" + i + "}}"));
+            }
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() / 2);
+        }
+
+        int records = 0;
+        try (StreamJournalReader reader = new StreamJournalReader(file)) {
+            while (reader.next() != null) {
+                records++;
+            }
+        }
+        Assert.assertTrue(records < 1000);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testNotAJournal() throws Exception {
+        try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(bytes("not a journal"));
+        }
+        new StreamJournalReader(file).close();
+    }
+
+    @Test
+    public void testReplayInOrder() throws Exception {
+        try (StreamJournal journal = new StreamJournal(file)) {
+            for (int i = 0; i < 100; i++) {
+                journal.recordAsyncFrame(bytes("async" + i));
+                journal.recordReply("get_pgid_stats", bytes("reply" + i));
+            }
+        }
+
+        List<String> replayed = new ArrayList<>();
+        long[] finished = {-1};
+        boolean[] complete = {false};
+        new JournalReplayer(file, JournalReplayer.MAX_SPEED, new JournalReplayer.ReplaySink() {
+            @Override
+            public void asyncFrame(byte[] frame) {
+                replayed.add(text(frame));
+            }
+
+            @Override
+            public void reply(String method, byte[] reply) {
+                replayed.add(method + ":" + text(reply));
+            }
+
+            @Override
+            public void finished(long records, boolean done) {
+                finished[0] = records;
+                complete[0] = done;
+            }
+        }).run();
+
+        Assert.assertEquals(finished[0], 200);
+        Assert.assertTrue(complete[0]);
+        Assert.assertEquals(replayed.get(0), "async0");
+        Assert.assertEquals(replayed.get(1), "get_pgid_stats:reply0");
+        Assert.assertEquals(replayed.get(199), "get_pgid_stats:reply99");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidSpeed() {
+        new JournalReplayer(file, -1, null);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * *****************************************************************************
+ * Copyright (c) 2016
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************
+ */
+package com.exalttech.trex.core.rpc;
+
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Wire log bounds tests
+ */
+public class WireLogTest {
+
+    @Test
+    public void testCapacity() {
+        WireLog log = new WireLog(3, Long.MAX_VALUE);
+        for (int i = 0; i < 5; i++) {
+            log.logRequest("request" + i, 10);
+        }
+        List<WireLogEntry> entries = log.getEntries();
+        Assert.assertEquals(entries.size(), 3);
+        Assert.assertEquals(entries.get(0).getText(), "request2");
+        Assert.assertEquals(entries.get(2).getText(), "request4");
+    }
+
+    @Test
+    public void testMaxBytes() {
+        WireLog log = new WireLog(100, 25);
+        log.logRequest("0123456789", 10);
+        log.logResponse(new byte[10], 5);
+        log.logRequest("abcdefghij", 10);
+        List<WireLogEntry> entries = log.getEntries();
+        Assert.assertEquals(entries.size(), 2);
+        Assert.assertEquals(entries.get(1).getText(), "abcdefghij");
+
+        log.logResponse(new byte[100], 20);
+        entries = log.getEntries();
+        Assert.assertEquals(entries.size(), 1);
+        Assert.assertEquals(entries.get(0).getSize(), 100);
+
+        log.clear();
+        log.logRequest("0123456789", 10);
+        log.logRequest("0123456789", 10);
+        Assert.assertEquals(log.getEntries().size(), 2);
+    }
+}